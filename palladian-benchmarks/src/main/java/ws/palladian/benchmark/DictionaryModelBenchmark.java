@@ -0,0 +1,90 @@
+package ws.palladian.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ws.palladian.classification.text.*;
+import ws.palladian.core.Instance;
+import ws.palladian.core.value.TextValue;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for building and looking up the {@link DictionaryTrieModel} and {@link DictionaryMapModel}.
+ *
+ * @author Philipp Katz
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DictionaryModelBenchmark {
+
+    @Param({"trie", "map"})
+    public String modelType;
+
+    private FeatureSetting featureSetting;
+
+    /** The preprocessed terms and categories of the documents. */
+    private List<Collection<String>> documentTerms;
+
+    private List<String> documentCategories;
+
+    private DictionaryModel model;
+
+    /** Terms to look up; mix of existing and non-existing terms. */
+    private String[] lookupTerms;
+
+    @Setup
+    public void setup() {
+        featureSetting = FeatureSettingBuilder.chars(3, 6).create();
+        Preprocessor preprocessor = new Preprocessor(featureSetting);
+        List<Instance> instances = new SyntheticData(10000, SyntheticData.SEED).nextTextInstances(2000, 20, 50);
+        documentTerms = new ArrayList<>();
+        documentCategories = new ArrayList<>();
+        Set<String> allTerms = new LinkedHashSet<>();
+        for (Instance instance : instances) {
+            String text = ((TextValue) instance.getVector().get(PalladianTextClassifier.VECTOR_TEXT_IDENTIFIER)).getText();
+            Set<String> terms = new HashSet<>();
+            preprocessor.apply(text).forEachRemaining(terms::add);
+            documentTerms.add(terms);
+            documentCategories.add(instance.getCategory());
+            allTerms.addAll(terms);
+        }
+        model = build();
+        List<String> lookups = new ArrayList<>(allTerms);
+        Random random = new Random(SyntheticData.SEED);
+        Collections.shuffle(lookups, random);
+        lookups = lookups.subList(0, Math.min(10000, lookups.size()));
+        for (int i = 0; i < lookups.size(); i += 4) {
+            lookups.set(i, lookups.get(i) + "#"); // non-existing
+        }
+        lookupTerms = lookups.toArray(new String[0]);
+    }
+
+    private DictionaryModel build() {
+        DictionaryBuilder builder = "trie".equals(modelType) ? new DictionaryTrieModel.Builder() : new DictionaryMapModel.Builder();
+        builder.setFeatureSetting(featureSetting);
+        for (int i = 0; i < documentTerms.size(); i++) {
+            builder.addDocument(documentTerms.get(i), documentCategories.get(i));
+        }
+        return builder.create();
+    }
+
+    @Benchmark
+    public DictionaryModel buildModel() {
+        return build();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10000)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void lookup(Blackhole blackhole) {
+        for (String term : lookupTerms) {
+            blackhole.consume(model.getCategoryEntries(term));
+        }
+    }
+
+}
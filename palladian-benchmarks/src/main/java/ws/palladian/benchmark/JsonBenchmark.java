@@ -0,0 +1,45 @@
+package ws.palladian.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ws.palladian.persistence.json.JsonException;
+import ws.palladian.persistence.json.JsonObject;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for parsing and serializing a {@link JsonObject}.
+ *
+ * @author Philipp Katz
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+    @Param({"10", "1000"})
+    public int numItems;
+
+    private String json;
+
+    private JsonObject jsonObject;
+
+    @Setup
+    public void setup() throws JsonException {
+        json = new SyntheticData(1000, SyntheticData.SEED).nextJson(numItems);
+        jsonObject = new JsonObject(json);
+    }
+
+    @Benchmark
+    public JsonObject parse() throws JsonException {
+        return new JsonObject(json);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return jsonObject.toString();
+    }
+
+}
@@ -0,0 +1,62 @@
+package ws.palladian.benchmark;
+
+import it.unimi.dsi.fastutil.objects.Object2FloatMap;
+import it.unimi.dsi.fastutil.objects.Object2FloatOpenHashMap;
+import org.openjdk.jmh.annotations.*;
+import ws.palladian.classification.knn.KnnClassifier;
+import ws.palladian.classification.knn.KnnLearner;
+import ws.palladian.classification.knn.KnnModel;
+import ws.palladian.classification.utils.NoNormalizer;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.core.FeatureVector;
+import ws.palladian.core.Instance;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the {@link KnnClassifier}, which looks up the nearest training instances in a k-d tree.
+ *
+ * @author Philipp Katz
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KnnClassifierBenchmark {
+
+    private static final int NUM_FEATURES = 10;
+
+    @Param({"1000", "10000", "100000"})
+    public int numTrainingInstances;
+
+    private KnnClassifier classifier;
+
+    private KnnModel model;
+
+    private FeatureVector[] testVectors;
+
+    private int index;
+
+    @Setup
+    public void setup() {
+        SyntheticData data = new SyntheticData(100, SyntheticData.SEED);
+        List<Instance> trainingInstances = data.nextNumericInstances(numTrainingInstances, NUM_FEATURES, 5);
+        Object2FloatMap<String> numericFields = new Object2FloatOpenHashMap<>();
+        for (int f = 0; f < NUM_FEATURES; f++) {
+            numericFields.put("f" + f, 1);
+        }
+        model = new KnnLearner(new NoNormalizer()).train(trainingInstances, numericFields, new Object2FloatOpenHashMap<>());
+        classifier = new KnnClassifier(3);
+        testVectors = data.nextNumericInstances(100, NUM_FEATURES, 5).stream().map(Instance::getVector).toArray(FeatureVector[]::new);
+    }
+
+    @Benchmark
+    public CategoryEntries classify() {
+        FeatureVector vector = testVectors[index++ % testVectors.length];
+        return classifier.classify(vector, model);
+    }
+
+}
@@ -0,0 +1,52 @@
+package ws.palladian.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ws.palladian.classification.text.*;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for loading a {@link DictionaryModel} with Java serialization compared to the {@link BinaryModelFormat}.
+ *
+ * @author Philipp Katz
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModelLoadingBenchmark {
+
+    private byte[] serialized;
+
+    private byte[] binary;
+
+    @Setup
+    public void setup() throws IOException {
+        FeatureSetting featureSetting = FeatureSettingBuilder.chars(3, 6).create();
+        DictionaryModel model = new PalladianTextClassifier(featureSetting).train(new SyntheticData(10000, SyntheticData.SEED).nextTextInstances(5000, 20, 50));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+            objectOut.writeObject(model);
+        }
+        serialized = out.toByteArray();
+        out = new ByteArrayOutputStream();
+        BinaryModelFormat.write(model, out);
+        binary = out.toByteArray();
+    }
+
+    @Benchmark
+    public Object javaSerialization() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public DictionaryModel binaryFormat() throws IOException {
+        return BinaryModelFormat.read(new ByteArrayInputStream(binary));
+    }
+
+}
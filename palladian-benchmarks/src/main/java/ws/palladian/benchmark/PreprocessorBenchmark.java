@@ -0,0 +1,60 @@
+package ws.palladian.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ws.palladian.classification.text.FeatureSetting;
+import ws.palladian.classification.text.FeatureSettingBuilder;
+import ws.palladian.classification.text.Preprocessor;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the {@link Preprocessor}, which extracts the terms for the text classifier.
+ *
+ * @author Philipp Katz
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreprocessorBenchmark {
+
+    @Param({"chars", "charsHashed", "words"})
+    public String featureType;
+
+    private Preprocessor preprocessor;
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        FeatureSetting featureSetting;
+        switch (featureType) {
+            case "chars":
+                featureSetting = FeatureSettingBuilder.chars(3, 6).create();
+                break;
+            case "charsHashed":
+                featureSetting = FeatureSettingBuilder.chars(3, 6).featureHashing().create();
+                break;
+            case "words":
+                featureSetting = FeatureSettingBuilder.words(1, 2).create();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown feature type: " + featureType);
+        }
+        preprocessor = new Preprocessor(featureSetting);
+        text = new SyntheticData(10000, SyntheticData.SEED).nextText(200);
+    }
+
+    @Benchmark
+    public void apply(Blackhole blackhole) {
+        Iterator<String> terms = preprocessor.apply(text);
+        while (terms.hasNext()) {
+            blackhole.consume(terms.next());
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package ws.palladian.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ws.palladian.helper.nlp.StringHelper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for frequently used methods of the {@link StringHelper}.
+ *
+ * @author Philipp Katz
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringHelperBenchmark {
+
+    private String text;
+
+    private String word;
+
+    @Setup
+    public void setup() {
+        SyntheticData data = new SyntheticData(1000, SyntheticData.SEED);
+        text = "  <b>" + data.nextText(200) + " 123.45 </b>  ";
+        word = data.nextWord();
+    }
+
+    @Benchmark
+    public String replaceWord() {
+        return StringHelper.replaceWord(word, "replacement", text);
+    }
+
+    @Benchmark
+    public boolean containsWord() {
+        return StringHelper.containsWord(word, text);
+    }
+
+    @Benchmark
+    public String trim() {
+        return StringHelper.trim(text);
+    }
+
+    @Benchmark
+    public String clean() {
+        return StringHelper.clean(text);
+    }
+
+    @Benchmark
+    public String getSubstringBetween() {
+        return StringHelper.getSubstringBetween(text, "<b>", "</b>");
+    }
+
+    @Benchmark
+    public boolean isNumber() {
+        return StringHelper.isNumber("123.45");
+    }
+
+    @Benchmark
+    public int countOccurrences() {
+        return StringHelper.countOccurrences(text, word);
+    }
+
+}
@@ -0,0 +1,189 @@
+package ws.palladian.benchmark;
+
+import org.apache.commons.lang3.Validate;
+import ws.palladian.core.Instance;
+import ws.palladian.core.InstanceBuilder;
+import ws.palladian.persistence.json.JsonArray;
+import ws.palladian.persistence.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>
+ * Generator for the benchmark data. All data is created deterministically from a seed, so that results are comparable
+ * between runs and releases, without having to ship or download any datasets.
+ * <p>
+ * Texts are made up from artificial words, built from syllables, which are drawn following a Zipf distribution
+ * (like words in natural language). For the text classification data, each category prefers a different part of the
+ * vocabulary, so that the classifiers have something to learn.
+ *
+ * @author Philipp Katz
+ */
+public final class SyntheticData {
+
+    /** Default seed for the random generators. */
+    public static final long SEED = 42;
+
+    private static final String[] SYLLABLES = {"pal", "la", "di", "an", "ko", "re", "mi", "to", "sa", "ne", "ru", "ba",
+            "el", "fi", "go", "hu", "je", "ka", "lo", "mu", "ni", "or", "pe", "qu", "si", "ta", "ul", "ve", "wo", "xi",
+            "yo", "ze", "über", "ça", "ño"};
+
+    private final Random random;
+
+    private final String[] vocabulary;
+
+    /** Cumulative Zipf probabilities for the words in the {@link #vocabulary}. */
+    private final double[] cumulativeProbabilities;
+
+    /**
+     * Create a new generator.
+     *
+     * @param vocabularySize The number of distinct words, greater zero.
+     * @param seed           The seed for the random generator.
+     */
+    public SyntheticData(int vocabularySize, long seed) {
+        Validate.isTrue(vocabularySize > 0, "vocabularySize must be greater zero");
+        this.random = new Random(seed);
+        this.vocabulary = new String[vocabularySize];
+        for (int i = 0; i < vocabularySize; i++) {
+            vocabulary[i] = createWord(i);
+        }
+        this.cumulativeProbabilities = new double[vocabularySize];
+        double sum = 0;
+        for (int i = 0; i < vocabularySize; i++) {
+            sum += 1. / (i + 1);
+            cumulativeProbabilities[i] = sum;
+        }
+        for (int i = 0; i < vocabularySize; i++) {
+            cumulativeProbabilities[i] /= sum;
+        }
+    }
+
+    /** Create a unique word for the given index by combining syllables. */
+    private static String createWord(int index) {
+        StringBuilder word = new StringBuilder();
+        int remainder = index;
+        do {
+            word.append(SYLLABLES[remainder % SYLLABLES.length]);
+            remainder /= SYLLABLES.length;
+        } while (remainder > 0);
+        return word.toString();
+    }
+
+    /**
+     * @return A random word, following a Zipf distribution over the vocabulary.
+     */
+    public String nextWord() {
+        return vocabulary[nextWordIndex()];
+    }
+
+    private int nextWordIndex() {
+        int index = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, vocabulary.length - 1);
+    }
+
+    /**
+     * @param numWords The number of words.
+     * @return A text with the given number of words, with occasional punctuation and capitalization.
+     */
+    public String nextText(int numWords) {
+        StringBuilder text = new StringBuilder();
+        boolean sentenceStart = true;
+        for (int i = 0; i < numWords; i++) {
+            String word = nextWord();
+            if (sentenceStart) {
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                sentenceStart = false;
+            }
+            text.append(word);
+            if (random.nextInt(12) == 0) {
+                text.append(". ");
+                sentenceStart = true;
+            } else if (random.nextInt(15) == 0) {
+                text.append(", ");
+            } else {
+                text.append(' ');
+            }
+        }
+        return text.toString().trim();
+    }
+
+    /**
+     * Create text instances for classification; each category shifts the Zipf distribution to a different part of the
+     * vocabulary.
+     *
+     * @param numDocuments  The number of documents.
+     * @param numCategories The number of categories, greater zero.
+     * @param numWords      The number of words per document.
+     * @return The instances, with the text in {@link ws.palladian.classification.text.PalladianTextClassifier#VECTOR_TEXT_IDENTIFIER}.
+     */
+    public List<Instance> nextTextInstances(int numDocuments, int numCategories, int numWords) {
+        Validate.isTrue(numCategories > 0, "numCategories must be greater zero");
+        List<Instance> instances = new ArrayList<>();
+        for (int i = 0; i < numDocuments; i++) {
+            int category = random.nextInt(numCategories);
+            int offset = category * (vocabulary.length / numCategories);
+            StringBuilder text = new StringBuilder();
+            for (int j = 0; j < numWords; j++) {
+                // half of the words are common words, the other half category specific
+                int index = random.nextBoolean() ? nextWordIndex() : (nextWordIndex() + offset) % vocabulary.length;
+                text.append(vocabulary[index]).append(' ');
+            }
+            instances.add(new InstanceBuilder().setText(text.toString()).create("category" + category));
+        }
+        return instances;
+    }
+
+    /**
+     * Create instances with numeric features, where each category is a Gaussian cluster around a different center.
+     *
+     * @param numInstances  The number of instances.
+     * @param numFeatures   The number of numeric features, named <code>f0</code>, <code>f1</code>, ...
+     * @param numCategories The number of categories, greater zero.
+     * @return The instances.
+     */
+    public List<Instance> nextNumericInstances(int numInstances, int numFeatures, int numCategories) {
+        Validate.isTrue(numCategories > 0, "numCategories must be greater zero");
+        List<Instance> instances = new ArrayList<>();
+        for (int i = 0; i < numInstances; i++) {
+            int category = random.nextInt(numCategories);
+            InstanceBuilder builder = new InstanceBuilder();
+            for (int f = 0; f < numFeatures; f++) {
+                builder.set("f" + f, category * ((f % 3) + 1) + random.nextGaussian());
+            }
+            instances.add(builder.create("category" + category));
+        }
+        return instances;
+    }
+
+    /**
+     * @param numItems The number of items in the array.
+     * @return A JSON document with an array of nested objects of mixed types.
+     */
+    public String nextJson(int numItems) {
+        JsonObject document = new JsonObject();
+        document.put("name", nextText(3));
+        document.put("version", 3);
+        JsonArray items = new JsonArray();
+        for (int i = 0; i < numItems; i++) {
+            JsonObject item = new JsonObject();
+            item.put("id", i);
+            item.put("title", nextText(5));
+            item.put("description", nextText(30));
+            item.put("price", Math.round(random.nextDouble() * 10000) / 100.);
+            item.put("available", random.nextBoolean());
+            JsonArray tags = new JsonArray();
+            for (int j = 0; j < 3; j++) {
+                tags.add(nextWord());
+            }
+            item.put("tags", tags);
+            items.add(item);
+        }
+        document.put("items", items);
+        return document.toString();
+    }
+
+}
@@ -0,0 +1,66 @@
+package ws.palladian.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ws.palladian.classification.text.*;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.core.FeatureVector;
+import ws.palladian.core.Instance;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for {@link PalladianTextClassifier#classify(FeatureVector, DictionaryModel)}.
+ *
+ * @author Philipp Katz
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextClassifierBenchmark {
+
+    @Param({"default", "bayes", "bayesSparse"})
+    public String scorer;
+
+    @Param({"20", "500"})
+    public int numCategories;
+
+    private PalladianTextClassifier classifier;
+
+    private DictionaryModel model;
+
+    private FeatureVector[] testVectors;
+
+    private int index;
+
+    @Setup
+    public void setup() {
+        FeatureSetting featureSetting = FeatureSettingBuilder.chars(3, 6).create();
+        PalladianTextClassifier.Scorer textScorer;
+        switch (scorer) {
+            case "bayes":
+                textScorer = new BayesScorer(BayesScorer.Options.LAPLACE, BayesScorer.Options.PRIORS);
+                break;
+            case "bayesSparse":
+                textScorer = new BayesScorer(BayesScorer.Options.LAPLACE, BayesScorer.Options.PRIORS, BayesScorer.Options.SPARSE);
+                break;
+            default:
+                textScorer = PalladianTextClassifier.DEFAULT_SCORER;
+        }
+        classifier = new PalladianTextClassifier(featureSetting, textScorer);
+        SyntheticData data = new SyntheticData(10000, SyntheticData.SEED);
+        model = classifier.train(data.nextTextInstances(5000, numCategories, 50));
+        List<Instance> testInstances = data.nextTextInstances(100, numCategories, 50);
+        testVectors = testInstances.stream().map(Instance::getVector).toArray(FeatureVector[]::new);
+    }
+
+    @Benchmark
+    public CategoryEntries classify() {
+        FeatureVector vector = testVectors[index++ % testVectors.length];
+        return classifier.classify(vector, model);
+    }
+
+}
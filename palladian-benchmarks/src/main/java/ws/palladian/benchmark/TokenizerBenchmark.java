@@ -0,0 +1,50 @@
+package ws.palladian.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ws.palladian.extraction.token.Tokenizer;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the static methods of the {@link Tokenizer}.
+ *
+ * @author Philipp Katz
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenizerBenchmark {
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        text = new SyntheticData(10000, SyntheticData.SEED).nextText(200);
+    }
+
+    @Benchmark
+    public List<String> tokenize() {
+        return Tokenizer.tokenize(text);
+    }
+
+    @Benchmark
+    public List<String> getSentences() {
+        return Tokenizer.getSentences(text);
+    }
+
+    @Benchmark
+    public Set<String> calculateAllCharNGrams() {
+        return Tokenizer.calculateAllCharNGrams(text, 3, 6);
+    }
+
+    @Benchmark
+    public Set<String> calculateAllWordNGrams() {
+        return Tokenizer.calculateAllWordNGrams(text, 1, 3);
+    }
+
+}
@@ -1,10 +1,13 @@
 package ws.palladian.helper;
 
+import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  * <p>
@@ -18,6 +21,110 @@ public class ThreadHelper {
     /** The logger for this class. */
     private static final Logger LOGGER = LoggerFactory.getLogger(ThreadHelper.class);
 
+    /** Number of items which are processed by one task in {@link #aggregateBatches}. */
+    private static final int BATCH_SIZE = 1000;
+
+    /** Maximum number of batches per thread, which are pending at the same time in {@link #aggregateBatches}. */
+    private static final int BATCHES_PER_THREAD = 2;
+
+    /**
+     * Create a fixed thread pool with daemon threads, so that a pool which is not shut down does not keep the JVM
+     * alive.
+     *
+     * @param numThreads The number of threads, greater zero.
+     * @param name       The name of the threads.
+     * @return The executor, which needs to be shut down by the caller.
+     */
+    public static ExecutorService newDaemonThreadPool(int numThreads, String name) {
+        return Executors.newFixedThreadPool(numThreads, runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Unwrap the cause of an {@link ExecutionException}, so that it can be rethrown by the waiting thread.
+     *
+     * @param e The exception.
+     * @return The cause in case it is a {@link RuntimeException}, else the cause wrapped in an
+     * {@link IllegalStateException}.
+     */
+    public static RuntimeException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+            return (RuntimeException) e.getCause();
+        }
+        return new IllegalStateException(e.getCause());
+    }
+
+    /**
+     * Aggregate the items of an iterator with multiple threads. The calling thread reads the items in batches, which
+     * are aggregated by the worker threads into one accumulator per thread; the number of pending batches is limited,
+     * so that the items are not read faster than they are processed. At the end, the accumulators are merged into a
+     * new one.
+     *
+     * @param iterator    The items to aggregate, not <code>null</code>.
+     * @param numThreads  The number of worker threads, greater zero.
+     * @param name        The name of the worker threads.
+     * @param factory     Creates an empty accumulator, not <code>null</code>.
+     * @param accumulator Adds an item to an accumulator, not <code>null</code>.
+     * @param merger      Merges the second accumulator into the first one, not <code>null</code>.
+     * @param progress    Is incremented for each submitted item, not <code>null</code>.
+     * @return The merged accumulator.
+     */
+    public static <T, A> A aggregateBatches(Iterator<? extends T> iterator, int numThreads, String name, Supplier<A> factory, BiConsumer<A, ? super T> accumulator, BiConsumer<A, A> merger, ProgressReporter progress) {
+        Validate.notNull(iterator, "iterator must not be null");
+        Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+        Validate.notNull(factory, "factory must not be null");
+        Validate.notNull(accumulator, "accumulator must not be null");
+        Validate.notNull(merger, "merger must not be null");
+        Validate.notNull(progress, "progress must not be null");
+        List<A> threadAccumulators = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<A> localAccumulators = ThreadLocal.withInitial(() -> {
+            A threadAccumulator = factory.get();
+            threadAccumulators.add(threadAccumulator);
+            return threadAccumulator;
+        });
+        ExecutorService executor = newDaemonThreadPool(numThreads, name);
+        Semaphore pendingBatches = new Semaphore(BATCHES_PER_THREAD * numThreads);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            while (iterator.hasNext()) {
+                List<T> batch = new ArrayList<>(BATCH_SIZE);
+                while (iterator.hasNext() && batch.size() < BATCH_SIZE) {
+                    batch.add(iterator.next());
+                }
+                pendingBatches.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        A threadAccumulator = localAccumulators.get();
+                        for (T item : batch) {
+                            accumulator.accept(threadAccumulator, item);
+                        }
+                    } finally {
+                        pendingBatches.release();
+                    }
+                }));
+                progress.increment(batch.size());
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while aggregating", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        A result = factory.get();
+        for (A threadAccumulator : threadAccumulators) {
+            merger.accept(result, threadAccumulator);
+        }
+        return result;
+    }
+
     public static Thread spawnPeriodicThread(final PeriodicThreadAction action, final long intervalMillis) {
         Thread thread = new Thread() {
             @Override
@@ -0,0 +1,203 @@
+package ws.palladian.helper.collection;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.apache.commons.lang3.Validate;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * <p>
+ * A read-only, array-backed variant of the {@link Trie}, which is created from a fully built trie using
+ * {@link Trie#freeze()}. Instead of one object (plus one child array) per node, the nodes are numbered in breadth-first
+ * order and stored in three parallel arrays: the character of each node, the index of each node's first child (the
+ * children of a node are consecutive, as they are numbered in breadth-first order, and sorted by character), and the
+ * value. This needs approximately ten bytes per node plus the values, compared to about fifty bytes per node for the
+ * {@link Trie}, and lookups are iterative binary searches over primitive arrays, which do not create any objects.
+ * <p>
+ * Like the {@link Trie}, this implementation does not allow <code>null</code> or empty keys.
+ *
+ * @param <V> Type of the values.
+ * @author Philipp Katz
+ */
+public final class CompactTrie<V> implements Iterable<Map.Entry<String, V>>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The character of each node; the root's character is unused. */
+    private final char[] characters;
+
+    /**
+     * Index of the first child of each node; the children of node <code>i</code> are in the range
+     * <code>[firstChild[i], firstChild[i + 1])</code>. Has one more entry than there are nodes.
+     */
+    private final int[] firstChild;
+
+    /** The value of each node, <code>null</code> for nodes without value. */
+    private final Object[] values;
+
+    /** The number of non-<code>null</code> values. */
+    private final int size;
+
+    private CompactTrie(char[] characters, int[] firstChild, Object[] values, int size) {
+        this.characters = characters;
+        this.firstChild = firstChild;
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Create a compact trie from the given trie.
+     *
+     * @param trie The trie, not <code>null</code>.
+     * @return The compact trie.
+     */
+    @SuppressWarnings("unchecked")
+    static <V> CompactTrie<V> from(Trie<V> trie) {
+        Validate.notNull(trie, "trie must not be null");
+        // number nodes in breadth-first order, children sorted by character
+        List<Trie<V>> nodes = new ArrayList<>();
+        nodes.add(trie);
+        IntArrayList firstChildren = new IntArrayList();
+        for (int i = 0; i < nodes.size(); i++) {
+            Trie<V> node = nodes.get(i);
+            firstChildren.add(nodes.size());
+            Trie<V>[] children = node.children.clone();
+            Arrays.sort(children, (c1, c2) -> Character.compare(c1.character, c2.character));
+            nodes.addAll(Arrays.asList(children));
+        }
+        int numNodes = nodes.size();
+        firstChildren.add(numNodes);
+        char[] characters = new char[numNodes];
+        Object[] values = new Object[numNodes];
+        int size = 0;
+        for (int i = 0; i < numNodes; i++) {
+            Trie<V> node = nodes.get(i);
+            characters[i] = node.character;
+            values[i] = node.value;
+            if (node.value != null && i > 0) {
+                size++;
+            }
+        }
+        values[0] = null; // root never has a value, as empty keys are not allowed
+        return new CompactTrie<>(characters, firstChildren.toIntArray(), values, size);
+    }
+
+    /**
+     * Get the value for the given key.
+     *
+     * @param key The key, not <code>null</code> or empty.
+     * @return The value, or <code>null</code> in case there is no value for the key.
+     */
+    public V get(CharSequence key) {
+        Validate.notEmpty(key, "key must not be empty");
+        return get(key, 0, key.length());
+    }
+
+    /**
+     * Get the value for a range of the given key, without creating a substring.
+     *
+     * @param key   The key, not <code>null</code>.
+     * @param start The start index in the key, inclusive.
+     * @param end   The end index in the key, exclusive; must be greater than start.
+     * @return The value, or <code>null</code> in case there is no value.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(CharSequence key, int start, int end) {
+        Validate.notNull(key, "key must not be null");
+        Validate.isTrue(0 <= start && start < end && end <= key.length(), "invalid range");
+        int node = 0;
+        for (int i = start; i < end; i++) {
+            node = getChild(node, key.charAt(i));
+            if (node < 0) {
+                return null;
+            }
+        }
+        return (V) values[node];
+    }
+
+    /**
+     * @param key The key, not <code>null</code> or empty.
+     * @return <code>true</code> in case there is a value for the key.
+     */
+    public boolean containsKey(CharSequence key) {
+        return get(key) != null;
+    }
+
+    /** Binary search for the child with the given character; return its index, or -1. */
+    private int getChild(int node, char character) {
+        int low = firstChild[node];
+        int high = firstChild[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midCharacter = characters[mid];
+            if (midCharacter < character) {
+                low = mid + 1;
+            } else if (midCharacter > character) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The number of entries (i.e. keys with values) in this trie.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of nodes in this trie, including the root.
+     */
+    public int getNumNodes() {
+        return characters.length;
+    }
+
+    /**
+     * Iterate over the entries in depth-first order; the keys are created during iteration. The entries are
+     * read-only.
+     */
+    @Override
+    public Iterator<Map.Entry<String, V>> iterator() {
+        return new AbstractIterator2<Map.Entry<String, V>>() {
+            /** Stack of the next child to visit, and the end of the child range, per level. */
+            final Deque<int[]> stack = new ArrayDeque<>();
+            final StringBuilder key = new StringBuilder();
+
+            {
+                stack.push(new int[]{firstChild[0], firstChild[1]});
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            protected Map.Entry<String, V> getNext() {
+                while (!stack.isEmpty()) {
+                    int[] range = stack.peek();
+                    if (range[0] >= range[1]) {
+                        stack.pop();
+                        if (key.length() > 0) {
+                            key.setLength(key.length() - 1);
+                        }
+                        continue;
+                    }
+                    int node = range[0]++;
+                    key.append(characters[node]);
+                    stack.push(new int[]{firstChild[node], firstChild[node + 1]});
+                    if (values[node] != null) {
+                        return new AbstractMap.SimpleImmutableEntry<>(key.toString(), (V) values[node]);
+                    }
+                }
+                return finished();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "CompactTrie [size=" + size + ", numNodes=" + getNumNodes() + "]";
+    }
+
+}
@@ -0,0 +1,191 @@
+package ws.palladian.helper.collection;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.Map.Entry;
+
+/**
+ * <p>
+ * Count-min sketch for estimating the frequencies of items in bounded memory, as described in "<a
+ * href="http://dimacs.rutgers.edu/~graham/pubs/papers/cm-full.pdf">An Improved Data Stream Summary: The Count-Min
+ * Sketch and its Applications</a>", Cormode, Muthukrishnan, 2005. The estimates are never smaller than the actual
+ * counts; with a width <code>w</code>, they overestimate by at most <code>e/w</code> times the total count with a
+ * probability of <code>1-exp(-depth)</code>.
+ *
+ * <p>
+ * In addition, the sketch keeps track of a limited number of candidates for the most frequent items (heavy hitters).
+ * Sketches with the same dimensions can be merged, e.g. after counting partitions of the data in different threads.
+ *
+ * @author Philipp Katz
+ */
+public final class CountMinSketch implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The default width of the table. */
+    public static final int DEFAULT_WIDTH = 2048;
+
+    /** The default number of hash functions (i.e. rows of the table). */
+    public static final int DEFAULT_DEPTH = 5;
+
+    /** The default number of tracked heavy hitters. */
+    public static final int DEFAULT_NUM_HEAVY_HITTERS = 100;
+
+    private final int width;
+
+    private final int depth;
+
+    private final int numHeavyHitters;
+
+    private final long[] table;
+
+    private long totalCount;
+
+    /** The candidates for heavy hitters, with their (possibly outdated) estimated counts. */
+    private final Map<String, Long> heavyHitters = new HashMap<>();
+
+    /** Lower bound for the smallest count of the heavy hitter candidates. */
+    private long heavyHitterThreshold;
+
+    /** Create a new count-min sketch with the default dimensions. */
+    public CountMinSketch() {
+        this(DEFAULT_WIDTH, DEFAULT_DEPTH, DEFAULT_NUM_HEAVY_HITTERS);
+    }
+
+    /**
+     * Create a new count-min sketch.
+     *
+     * @param width           The width of the table, greater zero.
+     * @param depth           The number of hash functions, greater zero.
+     * @param numHeavyHitters The number of heavy hitters to track, zero to disable.
+     */
+    public CountMinSketch(int width, int depth, int numHeavyHitters) {
+        Validate.isTrue(width > 0, "width must be greater zero");
+        Validate.isTrue(depth > 0, "depth must be greater zero");
+        Validate.isTrue(numHeavyHitters >= 0, "numHeavyHitters must be greater/equal zero");
+        this.width = width;
+        this.depth = depth;
+        this.numHeavyHitters = numHeavyHitters;
+        this.table = new long[width * depth];
+    }
+
+    /**
+     * Add an occurrence of an item.
+     *
+     * @param item The item, not <code>null</code>.
+     */
+    public void add(String item) {
+        add(item, 1);
+    }
+
+    /**
+     * Add occurrences of an item.
+     *
+     * @param item  The item, not <code>null</code>.
+     * @param count The number of occurrences, greater zero.
+     */
+    public void add(String item, long count) {
+        Validate.notNull(item, "item must not be null");
+        Validate.isTrue(count > 0, "count must be greater zero");
+        long hash = Hashes.hash64(item);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + Math.floorMod(hash1 + row * hash2, width);
+            table[index] += count;
+            estimate = Math.min(estimate, table[index]);
+        }
+        totalCount += count;
+        updateHeavyHitter(item, estimate);
+    }
+
+    private void updateHeavyHitter(String item, long estimate) {
+        if (numHeavyHitters == 0) {
+            return;
+        }
+        if (heavyHitters.containsKey(item) || heavyHitters.size() < numHeavyHitters) {
+            heavyHitters.put(item, estimate);
+        } else if (estimate > heavyHitterThreshold) {
+            // the cached threshold might be outdated, so determine the actual minimum
+            Entry<String, Long> minEntry = Collections.min(heavyHitters.entrySet(), Entry.comparingByValue());
+            if (estimate > minEntry.getValue()) {
+                heavyHitters.remove(minEntry.getKey());
+                heavyHitters.put(item, estimate);
+                heavyHitterThreshold = Collections.min(heavyHitters.values());
+            } else {
+                heavyHitterThreshold = minEntry.getValue();
+            }
+        }
+    }
+
+    /**
+     * Merge the given sketch into this sketch; the given sketch is not modified.
+     *
+     * @param other The sketch to merge, not <code>null</code>, must have the same dimensions.
+     * @return This sketch.
+     */
+    public CountMinSketch merge(CountMinSketch other) {
+        Validate.notNull(other, "other must not be null");
+        Validate.isTrue(width == other.width && depth == other.depth, "dimensions must be equal");
+        for (int i = 0; i < table.length; i++) {
+            table[i] += other.table[i];
+        }
+        totalCount += other.totalCount;
+        Set<String> candidates = new HashSet<>(heavyHitters.keySet());
+        candidates.addAll(other.heavyHitters.keySet());
+        heavyHitters.clear();
+        heavyHitterThreshold = 0;
+        for (String candidate : candidates) {
+            updateHeavyHitter(candidate, getCount(candidate));
+        }
+        return this;
+    }
+
+    /**
+     * Get the estimated count of an item.
+     *
+     * @param item The item, not <code>null</code>.
+     * @return The estimated count, which is greater/equal than the actual count.
+     */
+    public long getCount(String item) {
+        Validate.notNull(item, "item must not be null");
+        long hash = Hashes.hash64(item);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, table[row * width + Math.floorMod(hash1 + row * hash2, width)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * @return The (approximately) most frequent items with their estimated counts, sorted by descending count.
+     */
+    public Map<String, Long> getHeavyHitters() {
+        List<Entry<String, Long>> entries = new ArrayList<>();
+        for (String item : heavyHitters.keySet()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(item, getCount(item)));
+        }
+        entries.sort(Entry.<String, Long>comparingByValue().reversed());
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Entry<String, Long> entry : entries) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /** @return The sum of all added counts. */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CountMinSketch [width=" + width + ", depth=" + depth + ", totalCount=" + totalCount + "]";
+    }
+
+}
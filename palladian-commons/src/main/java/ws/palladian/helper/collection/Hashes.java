@@ -0,0 +1,42 @@
+package ws.palladian.helper.collection;
+
+/**
+ * 64 bit hashing of strings for the probabilistic data structures in this package.
+ *
+ * @author Philipp Katz
+ */
+final class Hashes {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashes() {
+        // no instances
+    }
+
+    /**
+     * Hash the given string with FNV-1a over its characters, followed by the finalization step of MurmurHash3 for an
+     * even distribution of the bits.
+     *
+     * @param string The string, not <code>null</code>.
+     * @return The 64 bit hash.
+     */
+    static long hash64(CharSequence string) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            hash ^= c & 0xff;
+            hash *= FNV_PRIME;
+            hash ^= c >>> 8;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -0,0 +1,107 @@
+package ws.palladian.helper.collection;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * HyperLogLog for estimating the number of distinct items in bounded memory, as described in "<a
+ * href="http://algo.inria.fr/flajolet/Publications/FlFuGaMe07.pdf">HyperLogLog: the analysis of a near-optimal
+ * cardinality estimation algorithm</a>", Flajolet, Fusy, Gandouet, Meunier, 2007. For small cardinalities, linear
+ * counting is used. The standard error is <code>1.04/sqrt(2^precision)</code>, i.e. below one percent for the default
+ * precision, which needs 16 KB.
+ *
+ * <p>
+ * Instances with the same precision can be merged, e.g. after counting partitions of the data in different threads.
+ *
+ * @author Philipp Katz
+ */
+public final class HyperLogLog implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The default precision, i.e. 2^14 registers. */
+    public static final int DEFAULT_PRECISION = 14;
+
+    private final int precision;
+
+    private final byte[] registers;
+
+    /** Create a new HyperLogLog with the {@link #DEFAULT_PRECISION}. */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Create a new HyperLogLog.
+     *
+     * @param precision The number of bits which are used for addressing the registers, between 4 and 18.
+     */
+    public HyperLogLog(int precision) {
+        Validate.inclusiveBetween(4, 18, precision, "precision must be between 4 and 18");
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Add an item.
+     *
+     * @param item The item, not <code>null</code>.
+     */
+    public void add(String item) {
+        Validate.notNull(item, "item must not be null");
+        long hash = Hashes.hash64(item);
+        int index = (int) (hash >>> (64 - precision));
+        // the guard bit limits the rank to (64 - precision + 1)
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Merge the given HyperLogLog into this one; the given one is not modified.
+     *
+     * @param other The HyperLogLog to merge, not <code>null</code>, must have the same precision.
+     * @return This HyperLogLog.
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        Validate.notNull(other, "other must not be null");
+        Validate.isTrue(precision == other.precision, "precision must be equal, but was " + precision + " and " + other.precision);
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+        return this;
+    }
+
+    /** @return The estimated number of distinct items. */
+    public long getCardinality() {
+        int numRegisters = registers.length;
+        double sum = 0;
+        int numZeros = 0;
+        for (byte register : registers) {
+            sum += 1. / (1L << register);
+            if (register == 0) {
+                numZeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / numRegisters);
+        double estimate = alpha * numRegisters * numRegisters / sum;
+        if (estimate <= 2.5 * numRegisters && numZeros > 0) {
+            estimate = numRegisters * Math.log((double) numRegisters / numZeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /** @return The precision. */
+    public int getPrecision() {
+        return precision;
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog [precision=" + precision + ", cardinality=" + getCardinality() + "]";
+    }
+
+}
@@ -53,29 +53,55 @@ public class IdTrie implements Map.Entry<String, IntOpenHashSet>, Iterable<Map.E
     }
 
     protected IdTrie getNode(CharSequence key, boolean create) {
-        if (key == null || key.length() == 0) {
+        if (key == null) {
             return this;
         }
-        char head = key.charAt(0);
-        CharSequence tail = tail(key);
-        for (IdTrie node : children) {
-            if (head == node.character) {
-                return node.getNode(tail, create);
+        return getNode(key, 0, key.length(), create);
+    }
+
+    /**
+     * Get the node for the given range of the key; this does not create any objects for the lookup (iterates the
+     * characters instead of recursing with substrings).
+     *
+     * @param key    The key.
+     * @param start  The start index in the key, inclusive.
+     * @param end    The end index in the key, exclusive.
+     * @param create <code>true</code> to create missing nodes.
+     * @return The node, or <code>null</code> in case it does not exist and <code>create</code> is <code>false</code>.
+     */
+    protected IdTrie getNode(CharSequence key, int start, int end, boolean create) {
+        IdTrie current = this;
+        for (int i = start; i < end; i++) {
+            IdTrie next = current.getChild(key.charAt(i));
+            if (next == null) {
+                if (!create) {
+                    return null;
+                }
+                next = new IdTrie(key.charAt(i));
+                current.addChild(next);
             }
+            current = next;
         }
-        if (create) {
-            IdTrie newNode = new IdTrie(head);
-            if (children == EMPTY_ARRAY) {
-                children = new IdTrie[]{newNode};
-            } else {
-                IdTrie[] newArray = new IdTrie[children.length + 1];
-                System.arraycopy(children, 0, newArray, 0, children.length);
-                newArray[children.length] = newNode;
-                children = newArray;
+        return current;
+    }
+
+    private IdTrie getChild(char character) {
+        for (IdTrie node : children) {
+            if (character == node.character) {
+                return node;
             }
-            return newNode.getNode(tail, true);
+        }
+        return null;
+    }
+
+    private void addChild(IdTrie newNode) {
+        if (children == EMPTY_ARRAY) {
+            children = new IdTrie[]{newNode};
         } else {
-            return null;
+            IdTrie[] newArray = new IdTrie[children.length + 1];
+            System.arraycopy(children, 0, newArray, 0, children.length);
+            newArray[children.length] = newNode;
+            children = newArray;
         }
     }
 
@@ -182,10 +208,6 @@ public class IdTrie implements Map.Entry<String, IntOpenHashSet>, Iterable<Map.E
         return oldValue;
     }
 
-    private CharSequence tail(CharSequence seq) {
-        return seq.length() > 1 ? seq.subSequence(1, seq.length()) : null;
-    }
-
     private Iterator<IdTrie> children() {
         return new ArrayIterator<>(children);
     }
@@ -47,29 +47,55 @@ public class Trie<V> implements Map.Entry<String, V>, Iterable<Map.Entry<String,
     }
 
     protected Trie<V> getNode(CharSequence key, boolean create) {
-        if (key == null || key.length() == 0) {
+        if (key == null) {
             return this;
         }
-        char head = key.charAt(0);
-        CharSequence tail = tail(key);
-        for (Trie<V> node : children) {
-            if (head == node.character) {
-                return node.getNode(tail, create);
+        return getNode(key, 0, key.length(), create);
+    }
+
+    /**
+     * Get the node for the given range of the key; this does not create any objects for the lookup (iterates the
+     * characters instead of recursing with substrings).
+     *
+     * @param key    The key.
+     * @param start  The start index in the key, inclusive.
+     * @param end    The end index in the key, exclusive.
+     * @param create <code>true</code> to create missing nodes.
+     * @return The node, or <code>null</code> in case it does not exist and <code>create</code> is <code>false</code>.
+     */
+    protected Trie<V> getNode(CharSequence key, int start, int end, boolean create) {
+        Trie<V> current = this;
+        for (int i = start; i < end; i++) {
+            Trie<V> next = current.getChild(key.charAt(i));
+            if (next == null) {
+                if (!create) {
+                    return null;
+                }
+                next = new Trie<>(key.charAt(i), current);
+                current.addChild(next);
             }
+            current = next;
         }
-        if (create) {
-            Trie<V> newNode = new Trie<>(head, this);
-            if (children == EMPTY_ARRAY) {
-                children = new Trie[]{newNode};
-            } else {
-                Trie<V>[] newArray = new Trie[children.length + 1];
-                System.arraycopy(children, 0, newArray, 0, children.length);
-                newArray[children.length] = newNode;
-                children = newArray;
+        return current;
+    }
+
+    private Trie<V> getChild(char character) {
+        for (Trie<V> node : children) {
+            if (character == node.character) {
+                return node;
             }
-            return newNode.getNode(tail, true);
+        }
+        return null;
+    }
+
+    private void addChild(Trie<V> newNode) {
+        if (children == EMPTY_ARRAY) {
+            children = new Trie[]{newNode};
         } else {
-            return null;
+            Trie<V>[] newArray = new Trie[children.length + 1];
+            System.arraycopy(children, 0, newArray, 0, children.length);
+            newArray[children.length] = newNode;
+            children = newArray;
         }
     }
 
@@ -87,6 +113,31 @@ public class Trie<V> implements Map.Entry<String, V>, Iterable<Map.Entry<String,
         return node != null ? node.value : null;
     }
 
+    /**
+     * Get the value for a range of the given key, without creating a substring.
+     *
+     * @param key   The key, not <code>null</code>.
+     * @param start The start index in the key, inclusive.
+     * @param end   The end index in the key, exclusive; must be greater than start.
+     * @return The value, or <code>null</code> in case there is no value.
+     */
+    public V get(CharSequence key, int start, int end) {
+        Validate.notNull(key, "key must not be null");
+        Validate.isTrue(0 <= start && start < end && end <= key.length(), "invalid range");
+        Trie<V> node = getNode(key, start, end, false);
+        return node != null ? node.value : null;
+    }
+
+    /**
+     * Convert this trie into a read-only {@link CompactTrie}, which needs less memory and allows faster lookups. The
+     * values are not copied, i.e. both tries refer to the same value objects.
+     *
+     * @return The compact trie.
+     */
+    public CompactTrie<V> freeze() {
+        return CompactTrie.from(this);
+    }
+
     public V getOrPut(String key, V value) {
         Validate.notEmpty(key, "key must not be empty");
         return getOrPut(key, Factories.constant(value));
@@ -114,10 +165,6 @@ public class Trie<V> implements Map.Entry<String, V>, Iterable<Map.Entry<String,
         return oldValue;
     }
 
-    private CharSequence tail(CharSequence seq) {
-        return seq.length() > 1 ? seq.subSequence(1, seq.length()) : null;
-    }
-
     private Iterator<Trie<V>> children() {
         return new ArrayIterator<Trie<V>>(children);
     }
@@ -1,6 +1,9 @@
 package ws.palladian.helper.math;
 
+import org.apache.commons.lang3.Validate;
 import ws.palladian.helper.collection.CountMatrix;
+import ws.palladian.helper.collection.CountMatrix.IntegerMatrixVector;
+import ws.palladian.helper.collection.Vector.VectorEntry;
 
 import java.nio.CharBuffer;
 import java.util.ArrayList;
@@ -57,6 +60,23 @@ public class ConfusionMatrix {
         confusionMatrix.add(predictedCategory, realCategory, count);
     }
 
+    /**
+     * <p>
+     * Add all classification results from the given confusion matrix to this confusion matrix (e.g. for merging the
+     * results of multiple cross validation folds).
+     * </p>
+     *
+     * @param confusionMatrix The confusion matrix to add, not <code>null</code>.
+     */
+    public void add(ConfusionMatrix confusionMatrix) {
+        Validate.notNull(confusionMatrix, "confusionMatrix must not be null");
+        for (IntegerMatrixVector<String> row : confusionMatrix.confusionMatrix.rows()) {
+            for (VectorEntry<String, Integer> entry : row) {
+                this.confusionMatrix.add(entry.key(), row.key(), entry.value());
+            }
+        }
+    }
+
     /**
      * <p>
      * Get the accuracy which is defined as <code>accuracy = |correctlyClassified| / |totalDocuments|</code>.
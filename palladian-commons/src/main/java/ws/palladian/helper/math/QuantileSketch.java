@@ -0,0 +1,294 @@
+package ws.palladian.helper.math;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.doubles.DoubleArrays;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import org.apache.commons.lang3.Validate;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>
+ * Sketch for approximate quantiles of a stream of values in bounded memory, following the KLL algorithm described in
+ * "<a href="https://arxiv.org/abs/1603.05346">Optimal Quantile Approximation in Streams</a>", Karnin, Lang, Liberty,
+ * 2016. In contrast to {@link FatStats}, which keeps all values, the sketch keeps a hierarchy of compactors, which
+ * retain a sample of the values with exponentially increasing weights; the rank error is in the order of
+ * <code>1/k</code> (about two percent for the default <code>k</code>), independent of the number of values.
+ *
+ * <p>
+ * Sketches with the same <code>k</code> can be merged, so that they can be created for partitions of the data (e.g.
+ * by different threads) and combined afterwards.
+ *
+ * @author Philipp Katz
+ */
+public final class QuantileSketch implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Functional interface for iterating the retained items. */
+    public interface WeightedItemConsumer {
+        /**
+         * @param item   The value.
+         * @param weight The number of original values which are represented by the item.
+         */
+        void accept(double item, long weight);
+    }
+
+    /** The default size parameter. */
+    public static final int DEFAULT_K = 200;
+
+    /** The factor by which the capacity of the compactors decreases with increasing depth. */
+    private static final double CAPACITY_FACTOR = 2. / 3;
+
+    /** The minimum capacity of a compactor. */
+    private static final int MIN_CAPACITY = 2;
+
+    private final int k;
+
+    /** The compactors; the items at level h have a weight of 2^h. */
+    private final List<DoubleArrayList> compactors = new ArrayList<>();
+
+    /** Random bits for choosing the retained items during compaction; fixed seed for reproducible results. */
+    private final Random random = new Random(0);
+
+    private int size;
+
+    private int maxSize;
+
+    private long count;
+
+    private double min = Double.NaN;
+
+    private double max = Double.NaN;
+
+    /** Create a new sketch with the {@link #DEFAULT_K}. */
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Create a new sketch.
+     *
+     * @param k The size parameter which controls accuracy and memory consumption, at least eight.
+     */
+    public QuantileSketch(int k) {
+        Validate.isTrue(k >= 8, "k must be at least eight");
+        this.k = k;
+        grow();
+    }
+
+    /**
+     * Add a value.
+     *
+     * @param value The value, not NaN.
+     */
+    public void add(double value) {
+        Validate.isTrue(!Double.isNaN(value), "value must not be NaN");
+        compactors.get(0).add(value);
+        size++;
+        if (count++ == 0) {
+            min = max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        if (size >= maxSize) {
+            compress();
+        }
+    }
+
+    /**
+     * Merge the given sketch into this sketch; the given sketch is not modified.
+     *
+     * @param other The sketch to merge, not <code>null</code>, must have the same <code>k</code>.
+     * @return This sketch.
+     */
+    public QuantileSketch merge(QuantileSketch other) {
+        Validate.notNull(other, "other must not be null");
+        Validate.isTrue(k == other.k, "k must be equal, but was " + k + " and " + other.k);
+        if (other.count == 0) {
+            return this;
+        }
+        while (compactors.size() < other.compactors.size()) {
+            grow();
+        }
+        for (int h = 0; h < other.compactors.size(); h++) {
+            compactors.get(h).addAll(other.compactors.get(h));
+        }
+        size += other.size;
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+        while (size >= maxSize) {
+            compress();
+        }
+        return this;
+    }
+
+    private void grow() {
+        compactors.add(new DoubleArrayList());
+        maxSize = 0;
+        for (int h = 0; h < compactors.size(); h++) {
+            maxSize += capacity(h);
+        }
+    }
+
+    private int capacity(int level) {
+        int depth = compactors.size() - level - 1;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_FACTOR, depth)));
+    }
+
+    /** Compact the lowest compactors which exceed their capacity, until the sketch is below its maximum size. */
+    private void compress() {
+        for (int h = 0; h < compactors.size(); h++) {
+            DoubleArrayList compactor = compactors.get(h);
+            if (compactor.size() >= capacity(h)) {
+                if (h + 1 >= compactors.size()) {
+                    grow();
+                }
+                DoubleArrayList next = compactors.get(h + 1);
+                int numItems = compactor.size();
+                double[] items = compactor.elements();
+                DoubleArrays.quickSort(items, 0, numItems);
+                // with an odd number of items, the smallest one stays in this compactor
+                int start = numItems % 2;
+                for (int i = start + (random.nextBoolean() ? 1 : 0); i < numItems; i += 2) {
+                    next.add(items[i]);
+                }
+                compactor.size(start);
+                size -= numItems - start - (numItems - start) / 2;
+                if (size < maxSize) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the approximate quantile.
+     *
+     * @param quantile The quantile, in range [0,1]; e.g. 0.5 for the median.
+     * @return The value at the given quantile, NaN in case the sketch is empty.
+     */
+    public double getQuantile(double quantile) {
+        Validate.isTrue(quantile >= 0 && quantile <= 1, "quantile must be in range [0,1]");
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (quantile == 0) {
+            return min;
+        }
+        if (quantile == 1) {
+            return max;
+        }
+        double[] items = new double[size];
+        long[] weights = new long[size];
+        sortedView(items, weights);
+        double targetWeight = quantile * count;
+        long cumulativeWeight = 0;
+        for (int i = 0; i < items.length; i++) {
+            cumulativeWeight += weights[i];
+            if (cumulativeWeight >= targetWeight) {
+                return items[i];
+            }
+        }
+        return max;
+    }
+
+    /** @return The approximate median, NaN in case the sketch is empty. */
+    public double getMedian() {
+        return getQuantile(0.5);
+    }
+
+    /**
+     * Get the approximate rank of the given value.
+     *
+     * @param value The value.
+     * @return The fraction of values which are smaller or equal than the given value, NaN in case the sketch is empty.
+     */
+    public double getRank(double value) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long weight = 0;
+        for (int h = 0; h < compactors.size(); h++) {
+            DoubleArrayList compactor = compactors.get(h);
+            for (int i = 0; i < compactor.size(); i++) {
+                if (compactor.getDouble(i) <= value) {
+                    weight += 1L << h;
+                }
+            }
+        }
+        return (double) weight / count;
+    }
+
+    /**
+     * Iterate over the retained items in ascending order.
+     *
+     * @param consumer The consumer which receives the items with their weights, not <code>null</code>.
+     */
+    public void forEachItem(WeightedItemConsumer consumer) {
+        Validate.notNull(consumer, "consumer must not be null");
+        double[] items = new double[size];
+        long[] weights = new long[size];
+        sortedView(items, weights);
+        for (int i = 0; i < items.length; i++) {
+            consumer.accept(items[i], weights[i]);
+        }
+    }
+
+    private void sortedView(double[] items, long[] weights) {
+        int[] indices = new int[size];
+        int index = 0;
+        for (int h = 0; h < compactors.size(); h++) {
+            DoubleArrayList compactor = compactors.get(h);
+            for (int i = 0; i < compactor.size(); i++) {
+                items[index] = compactor.getDouble(i);
+                weights[index] = 1L << h;
+                indices[index] = index;
+                index++;
+            }
+        }
+        double[] unsortedItems = items.clone();
+        long[] unsortedWeights = weights.clone();
+        IntArrays.quickSort(indices, (i1, i2) -> Double.compare(unsortedItems[i1], unsortedItems[i2]));
+        for (int i = 0; i < indices.length; i++) {
+            items[i] = unsortedItems[indices[i]];
+            weights[i] = unsortedWeights[indices[i]];
+        }
+    }
+
+    /** @return The number of values which were added. */
+    public long getCount() {
+        return count;
+    }
+
+    /** @return The minimum value, NaN in case the sketch is empty. */
+    public double getMin() {
+        return min;
+    }
+
+    /** @return The maximum value, NaN in case the sketch is empty. */
+    public double getMax() {
+        return max;
+    }
+
+    /** @return The number of items which are retained by the sketch. */
+    public int getNumRetainedItems() {
+        return size;
+    }
+
+    /** @return The size parameter. */
+    public int getK() {
+        return k;
+    }
+
+    @Override
+    public String toString() {
+        return "QuantileSketch [k=" + k + ", count=" + count + ", retained=" + size + ", min=" + min + ", median=" + getMedian() + ", max=" + max + "]";
+    }
+
+}
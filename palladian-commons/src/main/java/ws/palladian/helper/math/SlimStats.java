@@ -3,6 +3,7 @@ package ws.palladian.helper.math;
 import org.apache.commons.lang.Validate;
 import ws.palladian.helper.functional.Factory;
 
+import java.io.Serializable;
 import java.util.Collection;
 
 /**
@@ -13,7 +14,9 @@ import java.util.Collection;
  *
  * @author Philipp Katz
  */
-public class SlimStats extends AbstractStats {
+public class SlimStats extends AbstractStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * <p>
@@ -96,6 +99,34 @@ public class SlimStats extends AbstractStats {
         return this;
     }
 
+    /**
+     * Add all values of the given stats (as if they had been added to this instance one by one), so that stats which
+     * have been collected on parts of the data can be combined. The mean and variance are combined using the pairwise
+     * algorithm by Chan et al.
+     *
+     * @param stats The stats to add, not <code>null</code>.
+     * @return This instance.
+     * @see <a href="https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Parallel_algorithm">Parallel
+     * algorithm</a>
+     */
+    public SlimStats add(SlimStats stats) {
+        Validate.notNull(stats, "stats must not be null");
+        if (stats.count == 0) {
+            return this;
+        }
+        int newCount = count + stats.count;
+        double delta = stats.m - m;
+        s += stats.s + delta * delta * count * stats.count / newCount;
+        m += delta * stats.count / newCount;
+        mean = m;
+        mse += (stats.mse - mse) * stats.count / newCount;
+        min = Math.min(min, stats.min);
+        max = Math.max(max, stats.max);
+        sum += stats.sum;
+        count = newCount;
+        return this;
+    }
+
     @Override
     public double getMean() {
         return count == 0 ? Double.NaN : mean;
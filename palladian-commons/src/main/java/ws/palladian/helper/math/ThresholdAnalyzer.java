@@ -1,6 +1,7 @@
 package ws.palladian.helper.math;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
 import ws.palladian.helper.collection.AbstractIterator2;
 import ws.palladian.helper.collection.Bag;
 
@@ -8,6 +9,7 @@ import java.text.NumberFormat;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Locale;
+import java.util.Map.Entry;
 
 /**
  * <p>
@@ -263,6 +265,27 @@ public class ThresholdAnalyzer implements Iterable<ThresholdAnalyzer.ThresholdEn
         retrievedItems.add(bin);
     }
 
+    /**
+     * <p>
+     * Add all records from the given threshold analyzer to this threshold analyzer (e.g. for merging the results of
+     * multiple cross validation folds).
+     * </p>
+     *
+     * @param thresholdAnalyzer The threshold analyzer to add, not <code>null</code>, must have the same number of bins.
+     */
+    public void add(ThresholdAnalyzer thresholdAnalyzer) {
+        Validate.notNull(thresholdAnalyzer, "thresholdAnalyzer must not be null");
+        if (thresholdAnalyzer.numBins != numBins) {
+            throw new IllegalArgumentException("numBins must be equal, was " + thresholdAnalyzer.numBins + " and " + numBins);
+        }
+        for (Entry<Integer, Integer> entry : thresholdAnalyzer.relevantItems.unique()) {
+            relevantItems.add(entry.getKey(), entry.getValue());
+        }
+        for (Entry<Integer, Integer> entry : thresholdAnalyzer.retrievedItems.unique()) {
+            retrievedItems.add(entry.getKey(), entry.getValue());
+        }
+    }
+
     /** package private methods for unit testing. */
 
     int getBin(double threshold) {
@@ -0,0 +1,32 @@
+package ws.palladian.helper;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ThreadHelperTest {
+
+    @Test
+    public void testAggregateBatches() {
+        MutableLong sum = ThreadHelper.aggregateBatches(LongStream.range(0, 100000).iterator(), 4, "test", MutableLong::new, MutableLong::add, (a, b) -> a.add(b.longValue()), NoProgress.INSTANCE);
+        assertEquals(4999950000L, sum.longValue());
+    }
+
+    @Test
+    public void testAggregateBatchesException() {
+        try {
+            ThreadHelper.aggregateBatches(Collections.singleton("x").iterator(), 2, "test", MutableLong::new, (a, item) -> {
+                throw new IllegalArgumentException(item);
+            }, (a, b) -> a.add(b.longValue()), NoProgress.INSTANCE);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("x", e.getMessage());
+        }
+    }
+
+}
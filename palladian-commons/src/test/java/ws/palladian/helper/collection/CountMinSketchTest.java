@@ -0,0 +1,53 @@
+package ws.palladian.helper.collection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CountMinSketchTest {
+
+    @Test
+    public void testCountAndHeavyHitters() {
+        CountMinSketch sketch = new CountMinSketch(2048, 5, 3);
+        for (int i = 0; i < 100000; i++) {
+            sketch.add("item" + i);
+            if (i % 10 == 0) {
+                sketch.add("frequent1");
+            }
+            if (i % 20 == 0) {
+                sketch.add("frequent2");
+            }
+        }
+        sketch.add("frequent3", 1000);
+        assertEquals(116000, sketch.getTotalCount());
+        assertTrue(sketch.getCount("frequent1") >= 10000);
+        assertEquals(10000, sketch.getCount("frequent1"), 0.01 * sketch.getTotalCount());
+        assertEquals(5000, sketch.getCount("frequent2"), 0.01 * sketch.getTotalCount());
+
+        Map<String, Long> heavyHitters = sketch.getHeavyHitters();
+        assertEquals(3, heavyHitters.size());
+        assertEquals("frequent1", new ArrayList<>(heavyHitters.keySet()).get(0));
+        assertEquals("frequent2", new ArrayList<>(heavyHitters.keySet()).get(1));
+        assertEquals("frequent3", new ArrayList<>(heavyHitters.keySet()).get(2));
+    }
+
+    @Test
+    public void testMerge() {
+        CountMinSketch sketch1 = new CountMinSketch();
+        CountMinSketch sketch2 = new CountMinSketch();
+        for (int i = 0; i < 1000; i++) {
+            sketch1.add("a");
+            sketch2.add("b" + i);
+        }
+        sketch2.add("a", 500);
+        sketch1.merge(sketch2);
+        assertEquals(2500, sketch1.getTotalCount());
+        assertEquals(1500, sketch1.getCount("a"));
+        assertEquals("a", sketch1.getHeavyHitters().keySet().iterator().next());
+    }
+
+}
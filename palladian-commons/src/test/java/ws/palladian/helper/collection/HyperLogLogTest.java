@@ -0,0 +1,36 @@
+package ws.palladian.helper.collection;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class HyperLogLogTest {
+
+    @Test
+    public void testCardinality() {
+        HyperLogLog hyperLogLog = new HyperLogLog();
+        assertEquals(0, hyperLogLog.getCardinality());
+        for (int i = 0; i < 100; i++) {
+            hyperLogLog.add("item" + i % 10);
+        }
+        assertEquals(10, hyperLogLog.getCardinality());
+
+        HyperLogLog large = new HyperLogLog();
+        for (int i = 0; i < 1000000; i++) {
+            large.add("item" + i);
+        }
+        assertEquals(1000000, large.getCardinality(), 20000);
+    }
+
+    @Test
+    public void testMerge() {
+        HyperLogLog hyperLogLog1 = new HyperLogLog();
+        HyperLogLog hyperLogLog2 = new HyperLogLog();
+        for (int i = 0; i < 60000; i++) {
+            hyperLogLog1.add("item" + i);
+            hyperLogLog2.add("item" + (i + 40000));
+        }
+        assertEquals(100000, hyperLogLog1.merge(hyperLogLog2).getCardinality(), 2000);
+    }
+
+}
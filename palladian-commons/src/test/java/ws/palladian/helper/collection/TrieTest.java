@@ -2,6 +2,9 @@ package ws.palladian.helper.collection;
 
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
@@ -19,6 +22,46 @@ public class TrieTest {
         // CollectionHelper.print(trie);
     }
 
+    @Test
+    public void testGetRange() {
+        Trie<Integer> trie = new Trie<>();
+        trie.put("tea", 2);
+        assertEquals(2, (int) trie.get("a tea party", 2, 5));
+        assertNull(trie.get("a tea party", 2, 4));
+    }
+
+    @Test
+    public void testFreeze() {
+        Trie<Integer> trie = new Trie<>();
+        trie.put("to", 1);
+        trie.put("tea", 2);
+        trie.put("ted", 3);
+        trie.put("ten", 4);
+        trie.put("i", 5);
+        trie.put("in", 6);
+        trie.put("inn", 7);
+        trie.put("über", 8);
+        CompactTrie<Integer> compactTrie = trie.freeze();
+        assertEquals(8, compactTrie.size());
+        assertEquals(14, compactTrie.getNumNodes());
+        for (Map.Entry<String, Integer> entry : trie) {
+            assertEquals(entry.getValue(), compactTrie.get(entry.getKey()));
+        }
+        assertNull(compactTrie.get("t"));
+        assertNull(compactTrie.get("tex"));
+        assertNull(compactTrie.get("innn"));
+        assertEquals(7, (int) compactTrie.get("winning", 1, 4));
+        Map<String, Integer> entries = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : compactTrie) {
+            entries.put(entry.getKey(), entry.getValue());
+        }
+        Map<String, Integer> expected = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : trie) {
+            expected.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(expected, entries);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testInsertEmptyKey() {
         Trie<Integer> trie = new Trie<>();
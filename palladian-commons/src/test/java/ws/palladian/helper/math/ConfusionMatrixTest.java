@@ -179,4 +179,23 @@ public class ConfusionMatrixTest {
         assertEquals(0.8823922851, mcc, DELTA);
     }
 
+    @Test
+    public void testMerge() {
+        ConfusionMatrix confusionMatrix = new ConfusionMatrix();
+        confusionMatrix.add("true", "true", 100);
+        confusionMatrix.add("false", "true", 200);
+        ConfusionMatrix other = new ConfusionMatrix();
+        other.add("true", "true", 91);
+        other.add("false", "false", 501);
+        other.add("false", "true", 196);
+        other.add("true", "false", 87);
+        confusionMatrix.add(other);
+        assertEquals(191, confusionMatrix.getConfusions("true", "true"));
+        assertEquals(501, confusionMatrix.getConfusions("false", "false"));
+        assertEquals(396, confusionMatrix.getConfusions("false", "true"));
+        assertEquals(87, confusionMatrix.getConfusions("true", "false"));
+        assertEquals(1175, confusionMatrix.getTotalDocuments());
+        assertEquals(875, other.getTotalDocuments());
+    }
+
 }
@@ -0,0 +1,62 @@
+package ws.palladian.helper.math;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QuantileSketchTest {
+
+    @Test
+    public void testQuantiles() {
+        QuantileSketch sketch = new QuantileSketch();
+        Random random = new Random(1);
+        for (int i = 0; i < 1000000; i++) {
+            sketch.add(random.nextDouble() * 100);
+        }
+        assertEquals(1000000, sketch.getCount());
+        assertTrue(sketch.getNumRetainedItems() < 1000);
+        assertEquals(50, sketch.getMedian(), 2);
+        assertEquals(10, sketch.getQuantile(0.1), 2);
+        assertEquals(99, sketch.getQuantile(0.99), 2);
+        assertEquals(0.25, sketch.getRank(25), 0.02);
+        assertEquals(sketch.getMin(), sketch.getQuantile(0), 0);
+        assertEquals(sketch.getMax(), sketch.getQuantile(1), 0);
+    }
+
+    @Test
+    public void testSmall() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 1; i <= 9; i++) {
+            sketch.add(i);
+        }
+        // exact, as long as no compaction happened
+        assertEquals(5, sketch.getMedian(), 0);
+        assertEquals(1, sketch.getMin(), 0);
+        assertEquals(9, sketch.getMax(), 0);
+        assertEquals(Double.NaN, new QuantileSketch().getMedian(), 0);
+    }
+
+    @Test
+    public void testMerge() {
+        QuantileSketch merged = new QuantileSketch();
+        long[] weight = new long[1];
+        for (int partition = 0; partition < 10; partition++) {
+            QuantileSketch sketch = new QuantileSketch();
+            for (int i = 0; i < 100000; i++) {
+                sketch.add(partition * 100000 + i);
+            }
+            merged.merge(sketch);
+        }
+        assertEquals(1000000, merged.getCount());
+        assertEquals(0, merged.getMin(), 0);
+        assertEquals(999999, merged.getMax(), 0);
+        assertEquals(500000, merged.getMedian(), 20000);
+        assertEquals(900000, merged.getQuantile(0.9), 20000);
+        merged.forEachItem((item, w) -> weight[0] += w);
+        assertEquals(1000000, weight[0]);
+    }
+
+}
@@ -24,6 +24,22 @@ public class SlimStatsTest {
         assertEquals(63.76667, stats.getVariance(), 0.001);
     }
 
+    @Test
+    public void testMerge() {
+        SlimStats stats1 = new SlimStats(Arrays.asList(2., 1., 6.));
+        SlimStats stats2 = new SlimStats(Arrays.asList(10., 23., 7.));
+        SlimStats merged = new SlimStats().add(stats1).add(stats2);
+        Stats expected = new SlimStats().add(2., 1., 6., 10., 23., 7.);
+        assertEquals(expected.getCount(), merged.getCount());
+        assertEquals(expected.getMean(), merged.getMean(), 0.0001);
+        assertEquals(expected.getStandardDeviation(), merged.getStandardDeviation(), 0.0001);
+        assertEquals(expected.getMse(), merged.getMse(), 0.0001);
+        assertEquals(expected.getSum(), merged.getSum(), 0.0001);
+        assertEquals(1, merged.getMin(), 0);
+        assertEquals(23, merged.getMax(), 0);
+        assertEquals(3, stats1.getCount());
+    }
+
     @Test
     public void testStandardDeviation() {
         assertEquals(2.14, new SlimStats().add(2., 4., 4., 4., 5., 5., 7., 9.).getStandardDeviation(), 0.01);
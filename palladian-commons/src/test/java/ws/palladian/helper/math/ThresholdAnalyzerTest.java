@@ -64,4 +64,26 @@ public class ThresholdAnalyzerTest {
 
     }
 
+    @Test
+    public void testMerge() {
+        ThresholdAnalyzer stats = new ThresholdAnalyzer(5);
+        stats.add(true, 1);
+        stats.add(false, 0.895);
+        stats.add(true, 0.548);
+        ThresholdAnalyzer other = new ThresholdAnalyzer(5);
+        other.add(false, 0.37);
+        other.add(true, 0);
+        stats.add(other);
+        assertEquals(5, stats.getRetrievedAt(0.0));
+        assertEquals(3, stats.getRetrievedAt(0.5));
+        assertEquals(3, stats.getNumRelevantAt(0.0));
+        assertEquals(2, stats.getNumRelevantAt(0.5));
+        assertEquals(2, other.getRetrievedAt(0.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMerge_differentBins() {
+        new ThresholdAnalyzer(5).add(new ThresholdAnalyzer(10));
+    }
+
 }
@@ -0,0 +1,336 @@
+package quickdt;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar, quantized copy of training data for the histogram-based training mode of the {@link TreeBuilder} (see
+ * {@link TreeBuilder#histogramBins(int)}). Numeric attributes are quantized once into a limited number of bins using
+ * the quantiles of their values, nominal attributes are dictionary encoded. The codes are stored in byte or short
+ * arrays (int arrays are only used for nominal attributes with a huge number of distinct values); code zero denotes a
+ * missing value. Instances are immutable and can be shared between multiple tree builds.
+ */
+public final class BinnedTrainingData {
+
+    /** Minimum amount of work (rows times attributes) for processing the attributes in parallel. */
+    private static final int PARALLEL_THRESHOLD = 100000;
+
+    private final String[] attributes;
+
+    private final boolean[] numeric;
+
+    /** Number of codes per attribute, including the code for missing values. */
+    private final int[] numCodes;
+
+    /** For numeric attributes, the (inclusive) upper edge of the bin for each code minus one. */
+    private final double[][] binEdges;
+
+    /** For nominal attributes, the value for each code minus one. */
+    private final Serializable[][] nominalValues;
+
+    private final byte[][] byteCodes;
+
+    private final short[][] shortCodes;
+
+    private final int[][] intCodes;
+
+    private final Serializable[] classifications;
+
+    private final int[] classes;
+
+    private final double[] weights;
+
+    private BinnedTrainingData(String[] attributes, boolean[] numeric, Serializable[] classifications, int[] classes, double[] weights) {
+        this.attributes = attributes;
+        this.numeric = numeric;
+        this.classifications = classifications;
+        this.classes = classes;
+        this.weights = weights;
+        numCodes = new int[attributes.length];
+        binEdges = new double[attributes.length][];
+        nominalValues = new Serializable[attributes.length][];
+        byteCodes = new byte[attributes.length][];
+        shortCodes = new short[attributes.length][];
+        intCodes = new int[attributes.length][];
+    }
+
+    /**
+     * Quantize the given training data.
+     *
+     * @param trainingData The training data.
+     * @param maxBins      The maximum number of bins for numeric attributes, between 2 and 65535.
+     * @return The quantized training data.
+     */
+    public static BinnedTrainingData create(Iterable<? extends AbstractInstance> trainingData, int maxBins) {
+        if (maxBins < 2 || maxBins > 65535) {
+            throw new IllegalArgumentException("maxBins must be between 2 and 65535, was " + maxBins);
+        }
+        final List<AbstractInstance> instances = Lists.newArrayList(trainingData);
+
+        // survey the attributes, and encode the classifications
+        final Map<String, Boolean> attributeTypes = Maps.newLinkedHashMap();
+        final Map<Serializable, Integer> classDictionary = Maps.newLinkedHashMap();
+        for (AbstractInstance instance : instances) {
+            for (Entry<String, Serializable> e : instance.getAttributes().entrySet()) {
+                boolean isNumber = e.getValue() == null || e.getValue() instanceof Number;
+                Boolean previous = attributeTypes.get(e.getKey());
+                attributeTypes.put(e.getKey(), previous == null ? isNumber : previous && isNumber);
+            }
+        }
+        int[] classes = new int[instances.size()];
+        double[] weights = new double[instances.size()];
+        for (int row = 0; row < instances.size(); row++) {
+            AbstractInstance instance = instances.get(row);
+            Integer classIndex = classDictionary.get(instance.getClassification());
+            if (classIndex == null) {
+                classIndex = classDictionary.size();
+                classDictionary.put(instance.getClassification(), classIndex);
+            }
+            classes[row] = classIndex;
+            weights[row] = instance.getWeight();
+        }
+        String[] attributes = attributeTypes.keySet().toArray(new String[0]);
+        boolean[] numeric = new boolean[attributes.length];
+        for (int a = 0; a < attributes.length; a++) {
+            numeric[a] = attributeTypes.get(attributes[a]);
+        }
+        Serializable[] classifications = classDictionary.keySet().toArray(new Serializable[0]);
+        BinnedTrainingData data = new BinnedTrainingData(attributes, numeric, classifications, classes, weights);
+
+        // quantize the attributes
+        parallel(IntStream.range(0, attributes.length), (long) instances.size() * attributes.length).forEach(a -> {
+            if (data.numeric[a]) {
+                data.quantizeNumeric(a, instances, maxBins);
+            } else {
+                data.encodeNominal(a, instances);
+            }
+        });
+        return data;
+    }
+
+    private void quantizeNumeric(int a, List<AbstractInstance> instances, int maxBins) {
+        double[] values = new double[instances.size()];
+        int numValues = 0;
+        for (AbstractInstance instance : instances) {
+            Serializable value = instance.getAttributes().get(attributes[a]);
+            if (value != null) {
+                values[numValues++] = ((Number) value).doubleValue();
+            }
+        }
+        double[] sorted = Arrays.copyOf(values, numValues);
+        Arrays.sort(sorted);
+        double[] distinct = new double[numValues];
+        int numDistinct = 0;
+        for (int i = 0; i < numValues; i++) {
+            if (numDistinct == 0 || distinct[numDistinct - 1] != sorted[i]) {
+                distinct[numDistinct++] = sorted[i];
+            }
+        }
+        double[] edges;
+        if (numDistinct <= maxBins) {
+            edges = Arrays.copyOf(distinct, numDistinct);
+        } else {
+            // use the quantiles as edges, the last one is the maximum value
+            edges = new double[maxBins];
+            int numEdges = 0;
+            for (int q = 1; q <= maxBins; q++) {
+                double edge = sorted[(int) ((long) q * numValues / maxBins) - 1];
+                if (numEdges == 0 || edges[numEdges - 1] != edge) {
+                    edges[numEdges++] = edge;
+                }
+            }
+            edges = Arrays.copyOf(edges, numEdges);
+        }
+        binEdges[a] = edges;
+        numCodes[a] = edges.length + 1;
+        int[] codes = new int[instances.size()];
+        for (int row = 0; row < instances.size(); row++) {
+            Serializable value = instances.get(row).getAttributes().get(attributes[a]);
+            if (value != null) {
+                int position = Arrays.binarySearch(edges, ((Number) value).doubleValue());
+                codes[row] = (position >= 0 ? position : -position - 1) + 1;
+            }
+        }
+        storeCodes(a, codes);
+    }
+
+    private void encodeNominal(int a, List<AbstractInstance> instances) {
+        Map<Serializable, Integer> dictionary = Maps.newLinkedHashMap();
+        int[] codes = new int[instances.size()];
+        for (int row = 0; row < instances.size(); row++) {
+            Serializable value = instances.get(row).getAttributes().get(attributes[a]);
+            if (value != null) {
+                Integer code = dictionary.get(value);
+                if (code == null) {
+                    code = dictionary.size() + 1;
+                    dictionary.put(value, code);
+                }
+                codes[row] = code;
+            }
+        }
+        nominalValues[a] = dictionary.keySet().toArray(new Serializable[0]);
+        numCodes[a] = dictionary.size() + 1;
+        storeCodes(a, codes);
+    }
+
+    private void storeCodes(int a, int[] codes) {
+        if (numCodes[a] <= 1 << 8) {
+            byteCodes[a] = new byte[codes.length];
+            for (int row = 0; row < codes.length; row++) {
+                byteCodes[a][row] = (byte) codes[row];
+            }
+        } else if (numCodes[a] <= 1 << 16) {
+            shortCodes[a] = new short[codes.length];
+            for (int row = 0; row < codes.length; row++) {
+                shortCodes[a][row] = (short) codes[row];
+            }
+        } else {
+            intCodes[a] = codes;
+        }
+    }
+
+    private static IntStream parallel(IntStream stream, long work) {
+        return work >= PARALLEL_THRESHOLD ? stream.parallel() : stream;
+    }
+
+    public int getNumRows() {
+        return classes.length;
+    }
+
+    int getNumAttributes() {
+        return attributes.length;
+    }
+
+    int getNumClasses() {
+        return classifications.length;
+    }
+
+    String getAttribute(int a) {
+        return attributes[a];
+    }
+
+    boolean isNumeric(int a) {
+        return numeric[a];
+    }
+
+    int getNumCodes(int a) {
+        return numCodes[a];
+    }
+
+    /** @return The upper edge of the bin with the given code (numeric attributes only). */
+    double getBinEdge(int a, int code) {
+        return binEdges[a][code - 1];
+    }
+
+    /** @return The value for the given code (nominal attributes only). */
+    Serializable getNominalValue(int a, int code) {
+        return nominalValues[a][code - 1];
+    }
+
+    int getCode(int a, int row) {
+        if (byteCodes[a] != null) {
+            return byteCodes[a][row] & 0xFF;
+        } else if (shortCodes[a] != null) {
+            return shortCodes[a][row] & 0xFFFF;
+        }
+        return intCodes[a][row];
+    }
+
+    /**
+     * @param rows The rows.
+     * @return The weighted counts of the classes for the given rows.
+     */
+    double[] getClassCounts(int[] rows) {
+        double[] counts = new double[classifications.length];
+        for (int row : rows) {
+            counts[classes[row]] += weights[row];
+        }
+        return counts;
+    }
+
+    /**
+     * @param counts The weighted counts of the classes.
+     * @return A {@link ClassificationCounter} with the given counts.
+     */
+    ClassificationCounter createCounter(double[] counts) {
+        ClassificationCounter counter = new ClassificationCounter();
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > 0) {
+                counter.addClassification(classifications[c], counts[c]);
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Build the histograms with the weighted class counts for each code of each attribute.
+     *
+     * @param rows The rows.
+     * @return The histograms by attribute, each one contains the class counts for the codes one after another.
+     */
+    double[][] createHistograms(int[] rows) {
+        double[][] histograms = new double[attributes.length][];
+        parallel(IntStream.range(0, attributes.length), (long) rows.length * attributes.length).forEach(a -> histograms[a] = createHistogram(a, rows));
+        return histograms;
+    }
+
+    private double[] createHistogram(int a, int[] rows) {
+        int numClasses = classifications.length;
+        double[] histogram = new double[numCodes[a] * numClasses];
+        if (byteCodes[a] != null) {
+            byte[] codes = byteCodes[a];
+            for (int row : rows) {
+                histogram[(codes[row] & 0xFF) * numClasses + classes[row]] += weights[row];
+            }
+        } else if (shortCodes[a] != null) {
+            short[] codes = shortCodes[a];
+            for (int row : rows) {
+                histogram[(codes[row] & 0xFFFF) * numClasses + classes[row]] += weights[row];
+            }
+        } else {
+            int[] codes = intCodes[a];
+            for (int row : rows) {
+                histogram[codes[row] * numClasses + classes[row]] += weights[row];
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Derive the histograms of a subset of rows by subtracting the histograms of the complementary subset from the
+     * histograms of all rows.
+     *
+     * @param histograms      The histograms of all rows.
+     * @param otherHistograms The histograms of the complementary subset.
+     * @return The histograms of the subset.
+     */
+    double[][] subtractHistograms(double[][] histograms, double[][] otherHistograms) {
+        double[][] result = new double[histograms.length][];
+        long work = histograms.length == 0 ? 0 : (long) histograms.length * histograms[0].length;
+        parallel(IntStream.range(0, histograms.length), work).forEach(a -> {
+            double[] histogram = new double[histograms[a].length];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = histograms[a][i] - otherHistograms[a][i];
+            }
+            result[a] = histogram;
+        });
+        return result;
+    }
+
+    /**
+     * @param count   The number of attributes to process.
+     * @param numRows The number of rows which are processed for each attribute.
+     * @return A stream over the indices from zero to count, which is parallel in case the amount of work is big enough.
+     */
+    IntStream streamAttributes(int count, int numRows) {
+        return parallel(IntStream.range(0, count), (long) numRows * count);
+    }
+
+}
@@ -1,5 +1,7 @@
 package quickdt;
 
+import java.io.Serializable;
+
 public final class OrdinalBranch extends Branch {
     private static final long serialVersionUID = 4456176008067679801L;
     public final double threshold;
@@ -12,8 +14,9 @@ public final class OrdinalBranch extends Branch {
 
     @Override
     protected boolean decide(final Attributes attributes) {
-        final double value = ((Number) attributes.get(attribute)).doubleValue();
-        return value > threshold;
+        final Serializable value = attributes.get(attribute);
+        // missing values are on the "out" side, as in the histogram-based training mode
+        return value != null && ((Number) value).doubleValue() > threshold;
     }
 
     @Override
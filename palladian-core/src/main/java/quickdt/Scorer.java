@@ -15,4 +15,29 @@ public interface Scorer {
      * of 0 being the lowest, and indicating no value.
      */
     public double scoreSplit(ClassificationCounter a, ClassificationCounter b);
+
+    /**
+     * Assess the quality of a separation of data given by the counts of the classifications on both sides, which is
+     * used by the histogram-based training mode. The classifications are identified by their position, i.e. index
+     * <code>i</code> refers to the same classification in both arrays. The default implementation converts the counts
+     * into {@link ClassificationCounter}s (using the positions as classifications) and invokes
+     * {@link #scoreSplit(ClassificationCounter, ClassificationCounter)}; scorers can override it to avoid this.
+     *
+     * @param a The counts of the classifications in split a, both sides with a total greater zero.
+     * @param b The counts of the classifications in split b.
+     * @return A score, where a higher value indicates a better split.
+     */
+    public default double scoreSplit(double[] a, double[] b) {
+        ClassificationCounter aCounter = new ClassificationCounter();
+        ClassificationCounter bCounter = new ClassificationCounter();
+        for (int c = 0; c < a.length; c++) {
+            if (a[c] > 0) {
+                aCounter.addClassification(c, a[c]);
+            }
+            if (b[c] > 0) {
+                bCounter.addClassification(c, b[c]);
+            }
+        }
+        return scoreSplit(aCounter, bCounter);
+    }
 }
\ No newline at end of file
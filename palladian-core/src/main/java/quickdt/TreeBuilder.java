@@ -5,7 +5,9 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import com.uprizer.sensearray.freetools.stats.ReservoirSampler;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +21,8 @@ public final class TreeBuilder implements PredictiveModelBuilder<Tree> {
     private static final Logger logger = LoggerFactory.getLogger(TreeBuilder.class);
 
     public static final int ORDINAL_TEST_SPLITS = 5;
+    /** Default number of bins for numeric attributes in the histogram-based training mode. */
+    public static final int DEFAULT_HISTOGRAM_BINS = 255;
     private final Scorer scorer;
     private int maxDepth = Integer.MAX_VALUE;
     private double minProbability = 1.0;
@@ -26,6 +30,7 @@ public final class TreeBuilder implements PredictiveModelBuilder<Tree> {
     private double ignoreAttributeAtNodeProbability = 0.0;
     private int minNominalAttributeValueOccurances = 5;
     private Set<String> excludeAttributes = Collections.<String>emptySet();
+    private int histogramBins = 0;
 
     public TreeBuilder() {
         this(new Scorer1());
@@ -65,8 +70,39 @@ public final class TreeBuilder implements PredictiveModelBuilder<Tree> {
         return this;
     }
 
+    /**
+     * Enable the histogram-based training mode: numeric attributes are quantized once into the given number of bins
+     * (see {@link BinnedTrainingData}), and the splits are found using histograms of the class counts per bin instead
+     * of re-scanning the training data for every candidate threshold. All bin edges are considered as thresholds,
+     * and the attributes are evaluated in parallel for big nodes.
+     *
+     * @param bins The maximum number of bins per numeric attribute (e.g. {@link #DEFAULT_HISTOGRAM_BINS}), or zero
+     *             to disable the histogram-based mode (default).
+     * @return The builder.
+     */
+    public TreeBuilder histogramBins(int bins) {
+        if (bins != 0 && (bins < 2 || bins > 65535)) {
+            throw new IllegalArgumentException("bins must be zero, or between 2 and 65535, was " + bins);
+        }
+        this.histogramBins = bins;
+        return this;
+    }
+
+    /** @return The maximum number of bins in the histogram-based training mode, or zero if it is disabled. */
+    public int getHistogramBins() {
+        return histogramBins;
+    }
+
     @Override
     public Tree buildPredictiveModel(final Iterable<? extends AbstractInstance> trainingData) {
+        if (histogramBins > 0) {
+            final BinnedTrainingData binnedTrainingData = BinnedTrainingData.create(trainingData, histogramBins);
+            final int[] rows = new int[binnedTrainingData.getNumRows()];
+            for (int row = 0; row < rows.length; row++) {
+                rows[row] = row;
+            }
+            return buildPredictiveModel(binnedTrainingData, rows);
+        }
         logger.info("Building decision tree, max depth: {}, min probability: {}, attributeExcludeDepth: {}, excludeAttributes: {}, ignoreAttributeAtNodeProb: {}, minValOcc: {}",
                 maxDepth, minProbability, attributeExcludeDepth, excludeAttributes, ignoreAttributeAtNodeProbability, minNominalAttributeValueOccurances);
         return new Tree(buildTree(null, trainingData, 0, createOrdinalSplits(trainingData)));
@@ -348,6 +384,224 @@ public final class TreeBuilder implements PredictiveModelBuilder<Tree> {
         return Pair.of(new OrdinalBranch(parent, attribute, bestThreshold), bestScore);
     }
 
+    /**
+     * Build a tree from quantized training data using the histogram-based training mode (see
+     * {@link #histogramBins(int)}).
+     *
+     * @param trainingData The quantized training data.
+     * @param rows         The rows of the training data to use; rows may occur multiple times (e.g. for bagging).
+     * @return The tree.
+     */
+    public Tree buildPredictiveModel(final BinnedTrainingData trainingData, final int[] rows) {
+        logger.info("Building decision tree from histograms, max depth: {}, min probability: {}, attributeExcludeDepth: {}, excludeAttributes: {}, ignoreAttributeAtNodeProb: {}, minValOcc: {}",
+                maxDepth, minProbability, attributeExcludeDepth, excludeAttributes, ignoreAttributeAtNodeProbability, minNominalAttributeValueOccurances);
+        return new Tree(buildTree(null, trainingData, rows, trainingData.createHistograms(rows), 0));
+    }
+
+    /**
+     * Build a (sub)tree for the given rows. The histograms of the node contain the class counts for each bin of each
+     * attribute; the split gains are calculated from them without scanning the rows. The histograms of the children
+     * are derived by scanning only the rows of the smaller child, and subtracting them from the histograms of this
+     * node for the other child.
+     */
+    private Node buildTree(Node parent, final BinnedTrainingData data, final int[] rows, final double[][] histograms, final int depth) {
+        logger.debug("Building tree at depth {}", depth);
+        final Leaf thisLeaf = new Leaf(parent, data.createCounter(data.getClassCounts(rows)), depth);
+        if (depth == maxDepth || thisLeaf.getBestClassificationProbability() >= minProbability)
+            return thisLeaf;
+
+        final List<Integer> candidates = Lists.newArrayList();
+        for (int a = 0; a < data.getNumAttributes(); a++) {
+            if (depth <= attributeExcludeDepth && excludeAttributes.contains(data.getAttribute(a))) {
+                continue;
+            }
+            if (this.ignoreAttributeAtNodeProbability > 0 && Misc.random.nextDouble() < this.ignoreAttributeAtNodeProbability)
+                continue;
+            candidates.add(a);
+        }
+        final int[] attributes = Ints.toArray(candidates);
+        final HistogramSplit[] splits = new HistogramSplit[attributes.length];
+        data.streamAttributes(attributes.length, rows.length).forEach(i -> {
+            int a = attributes[i];
+            splits[i] = data.isNumeric(a) ? findOrdinalSplit(data, a, histograms[a]) : findNominalSplit(data, a, histograms[a]);
+        });
+
+        HistogramSplit bestSplit = null;
+        for (HistogramSplit split : splits) {
+            if (split != null && (bestSplit == null || split.score > bestSplit.score)) {
+                bestSplit = split;
+            }
+        }
+        // If we were unable to find a useful branch, return the leaf
+        if (bestSplit == null)
+            return thisLeaf;
+
+        final IntArrayList trueRows = new IntArrayList();
+        final IntArrayList falseRows = new IntArrayList();
+        for (int row : rows) {
+            (bestSplit.decide(data.getCode(bestSplit.attribute, row)) ? trueRows : falseRows).add(row);
+        }
+        final Branch bestNode = bestSplit.createBranch(parent, data);
+        final int[] trueRowsArray = trueRows.toIntArray();
+        final int[] falseRowsArray = falseRows.toIntArray();
+
+        // Build the histograms for the smaller child, and subtract them for the bigger one
+        final double[][] trueHistograms;
+        final double[][] falseHistograms;
+        if (trueRowsArray.length < falseRowsArray.length) {
+            trueHistograms = data.createHistograms(trueRowsArray);
+            falseHistograms = data.subtractHistograms(histograms, trueHistograms);
+        } else {
+            falseHistograms = data.createHistograms(falseRowsArray);
+            trueHistograms = data.subtractHistograms(histograms, falseHistograms);
+        }
+        bestNode.trueChild = buildTree(bestNode, data, trueRowsArray, trueHistograms, depth + 1);
+        bestNode.falseChild = buildTree(bestNode, data, falseRowsArray, falseHistograms, depth + 1);
+        return bestNode;
+    }
+
+    /**
+     * Find the best threshold for a numeric attribute; the candidates are the upper edges of the bins. Missing values
+     * are in bin zero and thus always on the "out" side.
+     */
+    private HistogramSplit findOrdinalSplit(final BinnedTrainingData data, final int attribute, final double[] histogram) {
+        final int numClasses = data.getNumClasses();
+        final double[] total = new double[numClasses];
+        for (int i = 0; i < histogram.length; i++) {
+            total[i % numClasses] += histogram[i];
+        }
+        final double[] outCounts = Arrays.copyOf(histogram, numClasses);
+        final double[] inCounts = new double[numClasses];
+        HistogramSplit bestSplit = null;
+        for (int code = 1; code < data.getNumCodes(attribute) - 1; code++) {
+            for (int c = 0; c < numClasses; c++) {
+                outCounts[c] += histogram[code * numClasses + c];
+                inCounts[c] = total[c] - outCounts[c];
+            }
+            final double thisScore = score(inCounts, outCounts);
+            if (thisScore > 0 && (bestSplit == null || thisScore > bestSplit.score)) {
+                bestSplit = new HistogramSplit(attribute, thisScore, code, null);
+            }
+        }
+        return bestSplit;
+    }
+
+    /**
+     * Find the best set of values for a nominal attribute, by greedily adding the value which improves the score the
+     * most (same as {@link #createNominalNode(Node, String, Iterable)}). Missing values are not considered.
+     */
+    private HistogramSplit findNominalSplit(final BinnedTrainingData data, final int attribute, final double[] histogram) {
+        final int numClasses = data.getNumClasses();
+        final int numCodes = data.getNumCodes(attribute);
+        final double[] inCounts = new double[numClasses];
+        final double[] outCounts = new double[numClasses];
+        final boolean[] candidates = new boolean[numCodes];
+        for (int code = 1; code < numCodes; code++) {
+            for (int c = 0; c < numClasses; c++) {
+                double count = histogram[code * numClasses + c];
+                outCounts[c] += count;
+                candidates[code] |= count != 0;
+            }
+            if (candidates[code] && this.minNominalAttributeValueOccurances > 0 && shouldWeIgnoreThisValue(histogram, code * numClasses, numClasses)) {
+                candidates[code] = false;
+            }
+        }
+        final boolean[] inSet = new boolean[numCodes];
+        final double[] testInCounts = new double[numClasses];
+        final double[] testOutCounts = new double[numClasses];
+        double score = 0;
+        while (true) {
+            double bestScore = 0;
+            int bestCode = -1;
+            for (int code = 1; code < numCodes; code++) {
+                if (!candidates[code]) {
+                    continue;
+                }
+                for (int c = 0; c < numClasses; c++) {
+                    testInCounts[c] = inCounts[c] + histogram[code * numClasses + c];
+                    testOutCounts[c] = outCounts[c] - histogram[code * numClasses + c];
+                }
+                final double thisScore = score(testInCounts, testOutCounts);
+                if (thisScore > bestScore) {
+                    bestScore = thisScore;
+                    bestCode = code;
+                }
+            }
+            if (bestScore > score) {
+                score = bestScore;
+                inSet[bestCode] = true;
+                candidates[bestCode] = false;
+                for (int c = 0; c < numClasses; c++) {
+                    inCounts[c] += histogram[bestCode * numClasses + c];
+                    outCounts[c] -= histogram[bestCode * numClasses + c];
+                }
+            } else {
+                break;
+            }
+        }
+        return score > 0 ? new HistogramSplit(attribute, score, 0, inSet) : null;
+    }
+
+    private boolean shouldWeIgnoreThisValue(final double[] histogram, final int offset, final int numClasses) {
+        double lowestClassificationCount = Double.MAX_VALUE;
+        for (int c = 0; c < numClasses; c++) {
+            final double classificationCount = histogram[offset + c];
+            if (classificationCount != 0 && classificationCount < lowestClassificationCount) {
+                lowestClassificationCount = classificationCount;
+            }
+        }
+        return lowestClassificationCount < this.minNominalAttributeValueOccurances;
+    }
+
+    /** Score a split given by the class counts of both sides; splits with an empty side have no value. */
+    private double score(final double[] a, final double[] b) {
+        double aTotal = 0;
+        double bTotal = 0;
+        for (int c = 0; c < a.length; c++) {
+            aTotal += a[c];
+            bTotal += b[c];
+        }
+        if (aTotal <= 0 || bTotal <= 0) {
+            return 0;
+        }
+        return scorer.scoreSplit(a, b);
+    }
+
+    /** The best split for an attribute found by the histogram-based training mode. */
+    private static final class HistogramSplit {
+        final int attribute;
+        final double score;
+        /** For numeric attributes, the code of the last bin on the "out" side. */
+        final int splitCode;
+        /** For nominal attributes, the codes on the "in" side. */
+        final boolean[] inSet;
+
+        HistogramSplit(int attribute, double score, int splitCode, boolean[] inSet) {
+            this.attribute = attribute;
+            this.score = score;
+            this.splitCode = splitCode;
+            this.inSet = inSet;
+        }
+
+        boolean decide(int code) {
+            return inSet != null ? inSet[code] : code > splitCode;
+        }
+
+        Branch createBranch(Node parent, BinnedTrainingData data) {
+            final String name = data.getAttribute(attribute);
+            if (inSet == null) {
+                return new OrdinalBranch(parent, name, data.getBinEdge(attribute, splitCode));
+            }
+            final Set<Serializable> values = Sets.newHashSet();
+            for (int code = 1; code < inSet.length; code++) {
+                if (inSet[code]) {
+                    values.add(data.getNominalValue(attribute, code));
+                }
+            }
+            return new NominalBranch(parent, name, values);
+        }
+    }
+
     public static class AttributeCharacteristics {
         public boolean isNumber = true;
     }
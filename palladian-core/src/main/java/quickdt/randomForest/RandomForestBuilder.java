@@ -57,10 +57,17 @@ public class RandomForestBuilder implements PredictiveModelBuilder<RandomForest>
         List<Future<Tree>> treeFutures = Lists.newArrayListWithCapacity(numTrees);
         List<Tree> trees = Lists.newArrayListWithCapacity(numTrees);
 
+        // In the histogram-based mode, the training data is quantized once and shared by all trees
+        final BinnedTrainingData binnedTrainingData = treeBuilder.getHistogramBins() > 0 ? BinnedTrainingData.create(trainingData, treeBuilder.getHistogramBins()) : null;
+
         // Submit all tree building jobs to the executor
         for (int idx = 0; idx < numTrees; idx++) {
             final int treeIndex = idx;
-            treeFutures.add(submitTreeBuild(trainingData, treeIndex));
+            if (binnedTrainingData != null) {
+                treeFutures.add(submitTreeBuild(binnedTrainingData, treeIndex));
+            } else {
+                treeFutures.add(submitTreeBuild(trainingData, treeIndex));
+            }
         }
 
         // Collect all completed trees. Will block until complete
@@ -82,6 +89,15 @@ public class RandomForestBuilder implements PredictiveModelBuilder<RandomForest>
         });
     }
 
+    private Future<Tree> submitTreeBuild(final BinnedTrainingData trainingData, final int treeIndex) {
+        return executorService.submit(new Callable<Tree>() {
+            @Override
+            public Tree call() throws Exception {
+                return buildModel(trainingData, treeIndex);
+            }
+        });
+    }
+
     private void initExecutorService() {
         if (executorService == null) {
             executorService = Executors.newFixedThreadPool(executorThreadCount);
@@ -96,6 +112,15 @@ public class RandomForestBuilder implements PredictiveModelBuilder<RandomForest>
         return treeBuilder.buildPredictiveModel(trainingData);
     }
 
+    private Tree buildModel(BinnedTrainingData trainingData, int treeIndex) {
+        logger.info("Building tree {} of {}", treeIndex, numTrees);
+        final int[] rows = new int[trainingData.getNumRows()];
+        for (int row = 0; row < rows.length; row++) {
+            rows[row] = useBagging ? Misc.random.nextInt(rows.length) : row;
+        }
+        return treeBuilder.buildPredictiveModel(trainingData, rows);
+    }
+
     private void collectTreeFutures(List<Tree> trees, Future<Tree> treeFuture) {
         try {
             trees.add(treeFuture.get());
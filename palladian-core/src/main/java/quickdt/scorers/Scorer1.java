@@ -5,6 +5,8 @@ import quickdt.ClassificationCounter;
 import quickdt.Scorer;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 public final class Scorer1 implements Scorer {
 
@@ -28,12 +30,28 @@ public final class Scorer1 implements Scorer {
 
     @Override
     public double scoreSplit(final ClassificationCounter a, final ClassificationCounter b) {
-        double score = 0;
-        for (final Serializable value : Sets.union(a.allClassifications(), b.allClassifications())) {
-            final double aProp = (double) a.getCount(value) / a.getTotal();
-            final double bProp = (double) b.getCount(value) / b.getTotal();
+        final List<Serializable> values = new ArrayList<>(Sets.union(a.allClassifications(), b.allClassifications()));
+        final double[] aCounts = new double[values.size()];
+        final double[] bCounts = new double[values.size()];
+        for (int i = 0; i < values.size(); i++) {
+            aCounts[i] = a.getCount(values.get(i));
+            bCounts[i] = b.getCount(values.get(i));
+        }
+        return scoreSplit(aCounts, bCounts);
+    }
 
-            score += Math.abs(aProp - bProp) * Math.min(a.getTotal(), b.getTotal());
+    @Override
+    public double scoreSplit(final double[] a, final double[] b) {
+        double aTotal = 0;
+        double bTotal = 0;
+        for (int i = 0; i < a.length; i++) {
+            aTotal += a[i];
+            bTotal += b[i];
+        }
+        final double minTotal = Math.min(aTotal, bTotal);
+        double score = 0;
+        for (int i = 0; i < a.length; i++) {
+            score += Math.abs(a[i] / aTotal - b[i] / bTotal) * minTotal;
         }
         return score;
     }
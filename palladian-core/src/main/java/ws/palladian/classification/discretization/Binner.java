@@ -6,11 +6,13 @@ import org.slf4j.LoggerFactory;
 import ws.palladian.classification.text.CountingCategoryEntriesBuilder;
 import ws.palladian.core.CategoryEntries;
 import ws.palladian.core.Instance;
+import ws.palladian.core.dataset.statistics.NumericValueStatistics;
 import ws.palladian.core.value.AbstractValue;
 import ws.palladian.core.value.NominalValue;
 import ws.palladian.core.value.NumericValue;
 import ws.palladian.core.value.Value;
 import ws.palladian.helper.collection.AbstractIterator2;
+import ws.palladian.helper.math.QuantileSketch;
 
 import java.text.NumberFormat;
 import java.util.*;
@@ -73,10 +75,13 @@ public final class Binner implements Iterable<Binner.Interval> {
     private static final class ValueCategory implements Comparable<ValueCategory> {
         private final double value;
         private final String category;
+        /** The number of instances represented by this value. */
+        private final int weight;
 
-        ValueCategory(double value, String category) {
+        ValueCategory(double value, String category, int weight) {
             this.value = value;
             this.category = category;
+            this.weight = weight;
         }
 
         @Override
@@ -108,7 +113,7 @@ public final class Binner implements Iterable<Binner.Interval> {
             Value value = instance.getVector().get(featureName);
             if (!value.isNull()) {
                 double doubleValue = ((NumericValue) value).getDouble();
-                sortedData.add(new ValueCategory(doubleValue, instance.getCategory()));
+                sortedData.add(new ValueCategory(doubleValue, instance.getCategory(), 1));
             }
         }
 
@@ -117,6 +122,33 @@ public final class Binner implements Iterable<Binner.Interval> {
         this.featureName = featureName;
     }
 
+    /**
+     * <p>
+     * Create a new {@link Binner} for the specified numeric feature from precalculated statistics, without scanning the
+     * dataset again. The boundaries are determined on the weighted values which are retained in the quantile sketches
+     * for each category, and thus approximate the ones which are determined on the whole dataset.
+     * </p>
+     *
+     * @param statistics  The statistics of the numeric feature, containing the sketches for each category (see
+     *                    {@link ws.palladian.core.dataset.statistics.DatasetStatistics#DatasetStatistics(ws.palladian.core.dataset.Dataset, int, boolean, boolean)}),
+     *                    not <code>null</code>.
+     * @param featureName The name of the numeric feature for which to calculate bins.
+     * @see ws.palladian.core.dataset.statistics.DatasetStatistics
+     */
+    public Binner(NumericValueStatistics statistics, String featureName) {
+        Validate.notNull(statistics, "statistics must not be null");
+        Validate.notEmpty(featureName, "featureName must not be empty");
+        Validate.isTrue(!statistics.getCategoryQuantileSketches().isEmpty() || statistics.getQuantileSketch().getCount() == 0, "statistics must include the sketches for each category");
+        List<ValueCategory> sortedData = new ArrayList<>();
+        for (Map.Entry<String, QuantileSketch> entry : statistics.getCategoryQuantileSketches().entrySet()) {
+            String category = entry.getKey();
+            entry.getValue().forEachItem((item, weight) -> sortedData.add(new ValueCategory(item, category, (int) weight)));
+        }
+        Collections.sort(sortedData);
+        this.boundaries = findBoundaries(sortedData, featureName);
+        this.featureName = featureName;
+    }
+
     /**
      * Find all the boundary points within the provided dataset.
      *
@@ -127,13 +159,16 @@ public final class Binner implements Iterable<Binner.Interval> {
     private static List<Double> findBoundaries(List<ValueCategory> data, String featureName) {
 
         CountingCategoryEntriesBuilder categoryEntriesBuilder = new CountingCategoryEntriesBuilder();
+        long n = 0;
         for (ValueCategory valueCategory : data) {
-            categoryEntriesBuilder.add(valueCategory.category, 1);
+            categoryEntriesBuilder.add(valueCategory.category, valueCategory.weight);
+            n += valueCategory.weight;
         }
         CategoryEntries categoryPriors = categoryEntriesBuilder.create();
         double entS = categoryPriors.getEntropy();
         int k = categoryPriors.size();
-        int n = data.size();
+        // the summed weight of the values left of the current split
+        long n1 = 0;
 
         double maxGain = 0;
         double currentBoundary = 0;
@@ -143,19 +178,20 @@ public final class Binner implements Iterable<Binner.Interval> {
         CountingCategoryEntriesBuilder b1 = new CountingCategoryEntriesBuilder();
         CountingCategoryEntriesBuilder b2 = new CountingCategoryEntriesBuilder().add(categoryPriors);
 
-        for (int i = 1; i < n; i++) {
+        for (int i = 1; i < data.size(); i++) {
             ValueCategory previousInstance = data.get(i - 1);
             String previousCategory = previousInstance.category;
             double previousValue = previousInstance.value;
             double currentValue = data.get(i).value;
 
-            CategoryEntries c1 = b1.add(previousCategory, 1).create();
-            CategoryEntries c2 = b2.subtract(previousCategory, 1).create();
+            CategoryEntries c1 = b1.add(previousCategory, previousInstance.weight).create();
+            CategoryEntries c2 = b2.subtract(previousCategory, previousInstance.weight).create();
+            n1 += previousInstance.weight;
 
             if (previousValue < currentValue) {
                 double entS1 = c1.getEntropy();
                 double entS2 = c2.getEntropy();
-                double ent = (double) i / n * entS1 + (double) (n - i) / n * entS2;
+                double ent = (double) n1 / n * entS1 + (double) (n - n1) / n * entS2;
                 double gain = entS - ent;
                 double delta = log2(pow(3, k) - 2) - (k * entS - c1.size() * entS1 - c2.size() * entS2);
                 boolean mdlpcCriterion = gain > (log2(n - 1) + delta) / n;
@@ -178,7 +214,7 @@ public final class Binner implements Iterable<Binner.Interval> {
         List<Double> boundaries = new ArrayList<>();
         boundaries.addAll(findBoundaries(data.subList(0, boundaryIdx), featureName));
         boundaries.add(currentBoundary);
-        boundaries.addAll(findBoundaries(data.subList(boundaryIdx, n), featureName));
+        boundaries.addAll(findBoundaries(data.subList(boundaryIdx, data.size()), featureName));
         return boundaries;
     }
 
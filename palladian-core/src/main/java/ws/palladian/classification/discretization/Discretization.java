@@ -11,6 +11,9 @@ import ws.palladian.core.dataset.Dataset;
 import ws.palladian.core.dataset.FeatureInformation;
 import ws.palladian.core.dataset.FeatureInformation.FeatureInformationEntry;
 import ws.palladian.core.dataset.FeatureInformationBuilder;
+import ws.palladian.core.dataset.statistics.DatasetStatistics;
+import ws.palladian.core.dataset.statistics.DatasetStatistics.ValueStatistics;
+import ws.palladian.core.dataset.statistics.NumericValueStatistics;
 import ws.palladian.core.value.NumericValue;
 import ws.palladian.core.value.Value;
 import ws.palladian.helper.NoProgress;
@@ -45,6 +48,30 @@ public final class Discretization extends AbstractDatasetFeatureVectorTransforme
         progress.finishTask();
     }
 
+    /**
+     * Create the discretization for the numeric features from precalculated statistics, without scanning the dataset
+     * again (see {@link Binner#Binner(NumericValueStatistics, String)}).
+     *
+     * @param statistics The statistics of the dataset, which include the sketches for each category, not
+     *                   <code>null</code>.
+     * @param progress   The progress reporter, not <code>null</code>.
+     */
+    public Discretization(DatasetStatistics statistics, ProgressReporter progress) {
+        Validate.notNull(statistics, "statistics must not be null");
+        Validate.notNull(progress, "progress must not be null");
+        Set<String> featureNames = statistics.getFeatureNames();
+        progress.startTask("Discretizing", featureNames.size());
+        for (String featureName : featureNames) {
+            ValueStatistics valueStatistics = statistics.getValueStatistics(featureName);
+            if (valueStatistics instanceof NumericValueStatistics) {
+                LOGGER.debug("Discretizing {}", featureName);
+                binners.put(featureName, new Binner((NumericValueStatistics) valueStatistics, featureName));
+            }
+            progress.increment();
+        }
+        progress.finishTask();
+    }
+
     @Override
     public FeatureVector apply(FeatureVector featureVector) {
         Validate.notNull(featureVector, "featureVector must not be null");
@@ -63,6 +63,26 @@ public final class QuickDtLearner extends AbstractLearner<QuickDtModel> {
         return new QuickDtLearner(new TreeBuilder());
     }
 
+    /**
+     * @param numTrees The number of trees to grow, greater zero.
+     * @return A new QuickDtLearner creating a random forest with the specified number of trees using the
+     * histogram-based training mode, which is considerably faster for big datasets with numeric features.
+     * @see TreeBuilder#histogramBins(int)
+     */
+    public static QuickDtLearner histogramRandomForest(int numTrees) {
+        Validate.isTrue(numTrees > 0, "numTrees must be greater zero");
+        TreeBuilder treeBuilder = new TreeBuilder().ignoreAttributeAtNodeProbability(0.7).histogramBins(TreeBuilder.DEFAULT_HISTOGRAM_BINS);
+        return new QuickDtLearner(new RandomForestBuilder(treeBuilder).numTrees(numTrees));
+    }
+
+    /**
+     * @return A new QuickDtLearner creating a single tree using the histogram-based training mode.
+     * @see TreeBuilder#histogramBins(int)
+     */
+    public static QuickDtLearner histogramTree() {
+        return new QuickDtLearner(new TreeBuilder().histogramBins(TreeBuilder.DEFAULT_HISTOGRAM_BINS));
+    }
+
     /**
      * <p>
      * Create a new QuickDtLearner with the specified {@link PredictiveModelBuilder}. (currently, quickdt offers a
@@ -0,0 +1,306 @@
+package ws.palladian.classification.evaluation;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ws.palladian.classification.evaluation.CrossValidator.Fold;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.core.Classifier;
+import ws.palladian.core.Instance;
+import ws.palladian.core.Learner;
+import ws.palladian.core.Model;
+import ws.palladian.helper.StopWatch;
+import ws.palladian.helper.functional.Factory;
+import ws.palladian.helper.io.CloseableIterator;
+import ws.palladian.helper.math.ConfusionMatrix;
+import ws.palladian.helper.math.ThresholdAnalyzer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Runs the folds of a {@link CrossValidator} concurrently on a bounded pool of threads. The folds are trained and
+ * evaluated in parallel, and within each fold, the test instances are classified in parallel as well. The results of
+ * the individual folds are merged into one {@link ConfusionMatrix} (and one {@link ThresholdAnalyzer} in case a
+ * correct class for binary classification was given).
+ *
+ * <p>
+ * {@link Learner}s and {@link Classifier}s are not required to be thread-safe: a new learner is created for each
+ * fold, and each thread uses its own classifier instance; therefore, they are supplied through {@link Factory}s. The
+ * trained {@link Model}s are shared between the threads during classification and must not be modified by the
+ * classifier.
+ *
+ * @param <M> Type of the model.
+ * @author Philipp Katz
+ */
+public final class ConcurrentEvaluationRunner<M extends Model> {
+
+    /** The result of an individual fold. */
+    public static final class FoldResult {
+        private final int fold;
+        private final ConfusionMatrix confusionMatrix;
+        private final ThresholdAnalyzer thresholdAnalyzer;
+        private final long trainingTime;
+        private final long classificationTime;
+        private final long allocatedBytes;
+
+        FoldResult(int fold, ConfusionMatrix confusionMatrix, ThresholdAnalyzer thresholdAnalyzer, long trainingTime, long classificationTime, long allocatedBytes) {
+            this.fold = fold;
+            this.confusionMatrix = confusionMatrix;
+            this.thresholdAnalyzer = thresholdAnalyzer;
+            this.trainingTime = trainingTime;
+            this.classificationTime = classificationTime;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        /** @return Index of the fold. */
+        public int getFold() {
+            return fold;
+        }
+
+        public ConfusionMatrix getConfusionMatrix() {
+            return confusionMatrix;
+        }
+
+        /** @return The threshold analysis, or <code>null</code> in case no correct class was given. */
+        public ThresholdAnalyzer getThresholdAnalyzer() {
+            return thresholdAnalyzer;
+        }
+
+        /** @return The wall-clock time for training the model in milliseconds. */
+        public long getTrainingTime() {
+            return trainingTime;
+        }
+
+        /** @return The wall-clock time for classifying the test instances in milliseconds. */
+        public long getClassificationTime() {
+            return classificationTime;
+        }
+
+        /**
+         * @return The number of bytes allocated on the heap by the threads which trained and classified this fold
+         * (threads started by the learner itself are not considered), or -1 in case the JVM does not support
+         * measuring allocations.
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "Fold " + fold + ": accuracy=" + confusionMatrix.getAccuracy() + ", trainingTime=" + trainingTime + "ms, classificationTime=" + classificationTime
+                    + "ms, allocatedBytes=" + allocatedBytes;
+        }
+    }
+
+    /** The merged result of all folds. */
+    public static final class EvaluationResult {
+        private final List<FoldResult> folds;
+        private final ConfusionMatrix confusionMatrix;
+        private final ThresholdAnalyzer thresholdAnalyzer;
+
+        EvaluationResult(List<FoldResult> folds, ConfusionMatrix confusionMatrix, ThresholdAnalyzer thresholdAnalyzer) {
+            this.folds = Collections.unmodifiableList(folds);
+            this.confusionMatrix = confusionMatrix;
+            this.thresholdAnalyzer = thresholdAnalyzer;
+        }
+
+        /** @return The results of the individual folds, in the order of the cross validator. */
+        public List<FoldResult> getFolds() {
+            return folds;
+        }
+
+        /** @return The confusion matrix with the classification results of all folds. */
+        public ConfusionMatrix getConfusionMatrix() {
+            return confusionMatrix;
+        }
+
+        /** @return The threshold analysis of all folds, or <code>null</code> in case no correct class was given. */
+        public ThresholdAnalyzer getThresholdAnalyzer() {
+            return thresholdAnalyzer;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (FoldResult fold : folds) {
+                builder.append(fold).append('\n');
+            }
+            builder.append(confusionMatrix);
+            return builder.toString();
+        }
+    }
+
+    /** The logger for this class. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentEvaluationRunner.class);
+
+    /** Number of test instances which are read from the dataset and classified at once. */
+    private static final int BATCH_SIZE = 1024;
+
+    /** Number of test instances which are classified by one task. */
+    private static final int SLICE_SIZE = 64;
+
+    private final Factory<? extends Learner<M>> learnerFactory;
+
+    private final Factory<? extends Classifier<M>> classifierFactory;
+
+    private final int numThreads;
+
+    private final String correctClass;
+
+    /**
+     * Create a new {@link ConcurrentEvaluationRunner}.
+     *
+     * @param learnerFactory    The factory for the learners, not <code>null</code>.
+     * @param classifierFactory The factory for the classifiers, not <code>null</code>.
+     * @param numThreads        The maximum number of threads to use, greater zero.
+     */
+    public ConcurrentEvaluationRunner(Factory<? extends Learner<M>> learnerFactory, Factory<? extends Classifier<M>> classifierFactory, int numThreads) {
+        this(learnerFactory, classifierFactory, numThreads, null);
+    }
+
+    /**
+     * Create a new {@link ConcurrentEvaluationRunner} which additionally performs a threshold analysis for binary
+     * classification.
+     *
+     * @param learnerFactory    The factory for the learners, not <code>null</code>.
+     * @param classifierFactory The factory for the classifiers, not <code>null</code>.
+     * @param numThreads        The maximum number of threads to use, greater zero.
+     * @param correctClass      The name of the correct class for the threshold analysis, or <code>null</code> to
+     *                          skip the threshold analysis.
+     */
+    public ConcurrentEvaluationRunner(Factory<? extends Learner<M>> learnerFactory, Factory<? extends Classifier<M>> classifierFactory, int numThreads,
+            String correctClass) {
+        Validate.notNull(learnerFactory, "learnerFactory must not be null");
+        Validate.notNull(classifierFactory, "classifierFactory must not be null");
+        Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+        this.learnerFactory = learnerFactory;
+        this.classifierFactory = classifierFactory;
+        this.numThreads = numThreads;
+        this.correctClass = correctClass;
+    }
+
+    /**
+     * Train and evaluate all folds of the given cross validator.
+     *
+     * @param crossValidator The cross validator, not <code>null</code>.
+     * @return The evaluation result.
+     */
+    public EvaluationResult evaluate(CrossValidator crossValidator) {
+        Validate.notNull(crossValidator, "crossValidator must not be null");
+        // the nested classification tasks are run in the same pool; waiting folds help executing them
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        ThreadLocal<Classifier<M>> classifiers = ThreadLocal.withInitial(classifierFactory::create);
+        try {
+            List<ForkJoinTask<FoldResult>> tasks = new ArrayList<>();
+            for (Fold fold : crossValidator) {
+                tasks.add(pool.submit(() -> evaluate(fold, classifiers)));
+            }
+            List<FoldResult> foldResults = new ArrayList<>();
+            ConfusionMatrix confusionMatrix = new ConfusionMatrix();
+            ThresholdAnalyzer thresholdAnalyzer = correctClass != null ? new ThresholdAnalyzer() : null;
+            for (ForkJoinTask<FoldResult> task : tasks) {
+                FoldResult foldResult = task.get();
+                foldResults.add(foldResult);
+                confusionMatrix.add(foldResult.getConfusionMatrix());
+                if (thresholdAnalyzer != null) {
+                    thresholdAnalyzer.add(foldResult.getThresholdAnalyzer());
+                }
+            }
+            return new EvaluationResult(foldResults, confusionMatrix, thresholdAnalyzer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private FoldResult evaluate(Fold fold, ThreadLocal<Classifier<M>> classifiers) {
+        long allocatedBytesStart = getAllocatedBytes();
+        StopWatch stopWatch = new StopWatch();
+        M model = learnerFactory.create().train(fold.getTrain());
+        long trainingTime = stopWatch.getElapsedTime();
+        LongAdder allocatedBytes = new LongAdder();
+        allocatedBytes.add(getAllocatedBytes() - allocatedBytesStart);
+        if (correctClass != null) {
+            Validate.isTrue(model.getCategories().size() == 2, "binary model required");
+        }
+
+        stopWatch.start();
+        ConfusionMatrix confusionMatrix = new ConfusionMatrix();
+        ThresholdAnalyzer thresholdAnalyzer = correctClass != null ? new ThresholdAnalyzer() : null;
+        List<Instance> batch = new ArrayList<>(BATCH_SIZE);
+        try (CloseableIterator<Instance> iterator = fold.getTest().iterator()) {
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == BATCH_SIZE || !iterator.hasNext()) {
+                    CategoryEntries[] results = classify(batch, model, classifiers, allocatedBytes);
+                    for (int i = 0; i < batch.size(); i++) {
+                        String realCategory = batch.get(i).getCategory();
+                        confusionMatrix.add(realCategory, results[i].getMostLikelyCategory());
+                        if (thresholdAnalyzer != null) {
+                            thresholdAnalyzer.add(realCategory.equals(correctClass), results[i].getProbability(correctClass));
+                        }
+                    }
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        long classificationTime = stopWatch.getElapsedTime();
+
+        long allocated = allocatedBytesStart != -1 ? allocatedBytes.sum() : -1;
+        FoldResult result = new FoldResult(fold.getFold(), confusionMatrix, thresholdAnalyzer, trainingTime, classificationTime, allocated);
+        LOGGER.debug("Finished {}", result);
+        return result;
+    }
+
+    /** Classify the given instances in parallel slices using the classifier of the current thread. */
+    private CategoryEntries[] classify(List<Instance> instances, M model, ThreadLocal<Classifier<M>> classifiers, LongAdder allocatedBytes) {
+        CategoryEntries[] results = new CategoryEntries[instances.size()];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int start = 0; start < instances.size(); start += SLICE_SIZE) {
+            int from = start;
+            int to = Math.min(start + SLICE_SIZE, instances.size());
+            tasks.add(ForkJoinTask.adapt(() -> {
+                long allocatedBytesStart = getAllocatedBytes();
+                Classifier<M> classifier = classifiers.get();
+                for (int i = from; i < to; i++) {
+                    results[i] = classifier.classify(instances.get(i).getVector(), model);
+                }
+                allocatedBytes.add(getAllocatedBytes() - allocatedBytesStart);
+            }));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        return results;
+    }
+
+    /** @return The number of bytes allocated by the current thread, or -1 in case this is not supported. */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+}
@@ -5,19 +5,12 @@ import org.apache.commons.math3.util.FastMath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ws.palladian.classification.discretization.Discretization;
-import ws.palladian.core.FeatureVector;
-import ws.palladian.core.Instance;
 import ws.palladian.core.dataset.Dataset;
-import ws.palladian.core.value.Value;
 import ws.palladian.helper.NoProgress;
 import ws.palladian.helper.ProgressReporter;
-import ws.palladian.helper.collection.Bag;
-import ws.palladian.helper.collection.CollectionHelper;
-import ws.palladian.helper.collection.CountMatrix;
-import ws.palladian.helper.collection.CountMatrix.IntegerMatrixVector;
-import ws.palladian.helper.collection.Vector.VectorEntry;
 import ws.palladian.helper.math.NumericMatrix;
 
+import java.util.Map;
 import java.util.Map.Entry;
 
 /**
@@ -28,6 +21,11 @@ import java.util.Map.Entry;
  * Cambridge University Press, 2009, Page 275.
  * </p>
  *
+ * <p>
+ * The co-occurrences are gathered in one pass over the dataset using {@link FeatureCategoryCounts}, which can be
+ * parallelized by specifying a number of threads.
+ * </p>
+ *
  * @author Klemens Muthmann
  */
 public final class ChiSquaredFeatureRanker extends AbstractFeatureRanker {
@@ -38,6 +36,9 @@ public final class ChiSquaredFeatureRanker extends AbstractFeatureRanker {
     /** A strategy describing how feature rankings for different classes are merged. */
     private final SelectedFeatureMergingStrategy mergingStrategy;
 
+    /** The number of threads to use for counting. */
+    private final int numThreads;
+
     /**
      * <p>
      * Creates a new completely initialized {@link FeatureRanker}.
@@ -46,8 +47,22 @@ public final class ChiSquaredFeatureRanker extends AbstractFeatureRanker {
      * @param mergingStrategy A strategy describing how feature rankings for different classes are merged.
      */
     public ChiSquaredFeatureRanker(SelectedFeatureMergingStrategy mergingStrategy) {
+        this(mergingStrategy, 1);
+    }
+
+    /**
+     * <p>
+     * Creates a new completely initialized {@link FeatureRanker}.
+     * </p>
+     *
+     * @param mergingStrategy A strategy describing how feature rankings for different classes are merged.
+     * @param numThreads      The number of threads to use for counting, greater zero.
+     */
+    public ChiSquaredFeatureRanker(SelectedFeatureMergingStrategy mergingStrategy, int numThreads) {
         Validate.notNull(mergingStrategy, "mergingStrategy must not be null");
+        Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
         this.mergingStrategy = mergingStrategy;
+        this.numThreads = numThreads;
     }
 
     /**
@@ -61,6 +76,21 @@ public final class ChiSquaredFeatureRanker extends AbstractFeatureRanker {
      * @return Matrix with the chi squared values. Each row in the matrix represents a feature, each column a class.
      */
     public static NumericMatrix<String> calculateChiSquareValues(Dataset dataset, ProgressReporter progress) {
+        return calculateChiSquareValues(dataset, 1, progress);
+    }
+
+    /**
+     * <p>
+     * This is the core method calculating the raw chi squared scores. Only call it directly if you know what you are
+     * doing. Otherwise use the {@link FeatureRanker} interface.
+     * </p>
+     *
+     * @param dataset    The dataset for which to calculate chi squared values, not <code>null</code>.
+     * @param numThreads The number of threads to use for counting, greater zero.
+     * @param progress   A {@link ProgressReporter}, or <code>null</code> in case no progress should be reported.
+     * @return Matrix with the chi squared values. Each row in the matrix represents a feature, each column a class.
+     */
+    public static NumericMatrix<String> calculateChiSquareValues(Dataset dataset, int numThreads, ProgressReporter progress) {
         Validate.notNull(dataset, "dataset must not be null");
 
         if (progress == null) {
@@ -69,56 +99,62 @@ public final class ChiSquaredFeatureRanker extends AbstractFeatureRanker {
 
         progress.startTask("Calculating chi² ranking", -1);
 
-        int N = CollectionHelper.count(dataset.iterator());
-        ProgressReporter cooccurrenceProgress = progress.createSubProgress(0.5);
-        cooccurrenceProgress.startTask("Counting cooccurrences.", N);
-        CountMatrix<String> termCategoryCorrelations = CountMatrix.create();
-        Bag<String> categoryCounts = new Bag<>();
-
         Discretization discretization = new Discretization(dataset, NoProgress.INSTANCE);
-        Dataset discretizedDataset = dataset.transform(discretization);
-
-        for (Instance instance : discretizedDataset) {
-            FeatureVector featureVector = instance.getVector();
-            String category = instance.getCategory();
-            for (VectorEntry<String, Value> feature : featureVector) {
-                String featureValueIdentifier = feature.key() + "###" + feature.value().toString();
-                termCategoryCorrelations.add(category, featureValueIdentifier);
-            }
-            categoryCounts.add(category);
-            cooccurrenceProgress.increment();
-        }
+        FeatureCategoryCounts counts = FeatureCategoryCounts.count(dataset, discretization, numThreads, progress.createSubProgress(0.5));
+        return calculateChiSquareValues(counts, progress.createSubProgress(0.5));
+    }
+
+    /**
+     * <p>
+     * Calculate the raw chi squared scores from previously gathered counts.
+     * </p>
+     *
+     * @param counts   The counts of the feature values and categories, not <code>null</code>.
+     * @param progress A {@link ProgressReporter}, not <code>null</code>.
+     * @return Matrix with the chi squared values. Each row in the matrix represents a feature, each column a class.
+     */
+    public static NumericMatrix<String> calculateChiSquareValues(FeatureCategoryCounts counts, ProgressReporter progress) {
+        Validate.notNull(counts, "counts must not be null");
+        Validate.notNull(progress, "progress must not be null");
 
-        ProgressReporter chiSquareProgress = progress.createSubProgress(0.5);
-        chiSquareProgress.startTask("Calculating chi² values.", termCategoryCorrelations.rowCount());
+        int N = counts.getNumInstances();
+        Map<String, Integer> categoryCounts = counts.getCategoryCounts();
+        progress.startTask("Calculating chi² values.", counts.getFeatureNames().size());
         NumericMatrix<String> result = new NumericMatrix<String>();
-        for (IntegerMatrixVector<String> termOccurence : termCategoryCorrelations.rows()) {
-            String featureName = termOccurence.key();
-            IntegerMatrixVector<String> categoryCorrelations = termCategoryCorrelations.getRow(featureName);
-            for (Entry<String, Integer> categoryCountEntry : categoryCounts.unique()) {
-                String categoryName = categoryCountEntry.getKey();
-                Integer categoryCount = categoryCountEntry.getValue();
-                LOGGER.trace("Calculating Chi² for feature {} in class {}.", featureName, categoryName);
-                int N_10 = categoryCorrelations.getSum() - categoryCorrelations.get(categoryName);
-                int N_11 = termOccurence.get(categoryName);
-                int N_01 = categoryCount - N_11;
-                int N_00 = N - (N_10 + N_01 + N_11);
-                LOGGER.trace("Using N_11 {}, N_10 {}, N_01 {}, N_00 {}", N_11, N_10, N_01, N_00);
-                double numerator = (N_11 + N_10 + N_01 + N_00) * FastMath.pow(N_11 * N_00 - N_10 * N_01, 2);
-                int denominator = (N_11 + N_01) * (N_11 + N_10) * (N_10 + N_00) * (N_01 + N_00);
-                double chiSquare = numerator / denominator;
-                LOGGER.trace("Chi² value is {}", chiSquare);
-                result.set(categoryName, featureName, chiSquare);
+        for (String featureName : counts.getFeatureNames()) {
+            for (Entry<String, ? extends Map<String, Integer>> valueEntry : counts.getValueCounts(featureName, false).entrySet()) {
+                String featureValueIdentifier = featureName + "###" + valueEntry.getKey();
+                Map<String, Integer> categoryCorrelations = valueEntry.getValue();
+                int valueCount = 0;
+                for (int count : categoryCorrelations.values()) {
+                    valueCount += count;
+                }
+                for (Entry<String, Integer> categoryCountEntry : categoryCounts.entrySet()) {
+                    String categoryName = categoryCountEntry.getKey();
+                    int categoryCount = categoryCountEntry.getValue();
+                    LOGGER.trace("Calculating Chi² for feature {} in class {}.", featureValueIdentifier, categoryName);
+                    double N_11 = categoryCorrelations.getOrDefault(categoryName, 0);
+                    double N_10 = valueCount - N_11;
+                    double N_01 = categoryCount - N_11;
+                    double N_00 = N - (N_10 + N_01 + N_11);
+                    LOGGER.trace("Using N_11 {}, N_10 {}, N_01 {}, N_00 {}", N_11, N_10, N_01, N_00);
+                    double numerator = (N_11 + N_10 + N_01 + N_00) * FastMath.pow(N_11 * N_00 - N_10 * N_01, 2);
+                    double denominator = (N_11 + N_01) * (N_11 + N_10) * (N_10 + N_00) * (N_01 + N_00);
+                    double chiSquare = numerator / denominator;
+                    LOGGER.trace("Chi² value is {}", chiSquare);
+                    result.set(categoryName, featureValueIdentifier, chiSquare);
+                }
             }
-            chiSquareProgress.increment();
+            progress.increment();
         }
+        progress.finishTask();
         return result;
     }
 
     @Override
     public FeatureRanking rankFeatures(Dataset dataset, ProgressReporter progress) {
         Validate.notNull(dataset, "dataset must not be null");
-        NumericMatrix<String> chiSquareMatrix = calculateChiSquareValues(dataset, progress);
+        NumericMatrix<String> chiSquareMatrix = calculateChiSquareValues(dataset, numThreads, progress);
         return mergingStrategy.merge(chiSquareMatrix);
     }
 
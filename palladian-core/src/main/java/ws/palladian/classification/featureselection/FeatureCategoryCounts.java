@@ -0,0 +1,183 @@
+package ws.palladian.classification.featureselection;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ws.palladian.core.Instance;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.DatasetTransformer;
+import ws.palladian.core.value.NullValue;
+import ws.palladian.core.value.Value;
+import ws.palladian.helper.ProgressReporter;
+import ws.palladian.helper.StopWatch;
+import ws.palladian.helper.ThreadHelper;
+import ws.palladian.helper.collection.Vector.VectorEntry;
+
+import java.util.*;
+
+/**
+ * <p>
+ * Contingency counts of feature values and categories, which are gathered in one pass over a dataset. For each
+ * feature which occurs in the feature vectors, the number of co-occurrences of each value (as string) with each
+ * category is counted, in addition to the number of instances per category. The counts are the common foundation for
+ * the count-based feature rankers ({@link InformationGainFeatureRanker}, {@link ChiSquaredFeatureRanker}, and the
+ * count-based mode of {@link SingleFeatureClassification}).
+ *
+ * <p>
+ * When counting with multiple threads, the dataset is read in batches by the calling thread, and the batches are
+ * counted by the worker threads into separate tables, which are merged at the end. This way, the (potentially
+ * expensive) transformation of the instances is parallelized as well.
+ *
+ * @author Philipp Katz
+ */
+public final class FeatureCategoryCounts {
+
+    /** The logger for this class. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(FeatureCategoryCounts.class);
+
+    /** Feature name -> value -> category -> count. */
+    private final Map<String, Map<String, Object2IntOpenHashMap<String>>> counts = new HashMap<>();
+
+    private final Object2IntOpenHashMap<String> categoryCounts = new Object2IntOpenHashMap<>();
+
+    private int numInstances;
+
+    private FeatureCategoryCounts() {
+        // instances are created through the static method
+    }
+
+    /**
+     * Count the feature values and categories of the given dataset.
+     *
+     * @param dataset     The dataset, not <code>null</code>.
+     * @param transformer The transformer which is applied to each instance before counting (e.g. a discretization of
+     *                    the numeric features), not <code>null</code>.
+     * @param numThreads  The number of threads to use for counting, greater zero.
+     * @param progress    The progress reporter, not <code>null</code>.
+     * @return The counts.
+     */
+    public static FeatureCategoryCounts count(Dataset dataset, DatasetTransformer transformer, int numThreads, ProgressReporter progress) {
+        Validate.notNull(dataset, "dataset must not be null");
+        Validate.notNull(transformer, "transformer must not be null");
+        Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+        Validate.notNull(progress, "progress must not be null");
+        StopWatch stopWatch = new StopWatch();
+        progress.startTask("Counting feature values", dataset.size());
+        FeatureCategoryCounts result;
+        if (numThreads == 1) {
+            result = new FeatureCategoryCounts();
+            for (Instance instance : dataset) {
+                result.add(transformer.apply(instance));
+                progress.increment();
+            }
+        } else {
+            result = countParallel(dataset, transformer, numThreads, progress);
+        }
+        progress.finishTask();
+        LOGGER.debug("Counted {} instances with {} threads in {}", result.numInstances, numThreads, stopWatch);
+        return result;
+    }
+
+    private static FeatureCategoryCounts countParallel(Dataset dataset, DatasetTransformer transformer, int numThreads, ProgressReporter progress) {
+        return ThreadHelper.aggregateBatches(dataset.iterator(), numThreads, FeatureCategoryCounts.class.getSimpleName(), FeatureCategoryCounts::new, (counts, instance) -> counts.add(transformer.apply(instance)), FeatureCategoryCounts::merge, progress);
+    }
+
+    private void add(Instance instance) {
+        String category = instance.getCategory();
+        for (VectorEntry<String, Value> entry : instance.getVector()) {
+            Map<String, Object2IntOpenHashMap<String>> valueCounts = counts.computeIfAbsent(entry.key(), k -> new HashMap<>());
+            valueCounts.computeIfAbsent(entry.value().toString(), k -> new Object2IntOpenHashMap<>()).addTo(category, 1);
+        }
+        categoryCounts.addTo(category, 1);
+        numInstances++;
+    }
+
+    private void merge(FeatureCategoryCounts other) {
+        for (Map.Entry<String, Map<String, Object2IntOpenHashMap<String>>> featureEntry : other.counts.entrySet()) {
+            Map<String, Object2IntOpenHashMap<String>> valueCounts = counts.computeIfAbsent(featureEntry.getKey(), k -> new HashMap<>());
+            for (Map.Entry<String, Object2IntOpenHashMap<String>> valueEntry : featureEntry.getValue().entrySet()) {
+                Object2IntOpenHashMap<String> currentCounts = valueCounts.get(valueEntry.getKey());
+                if (currentCounts == null) {
+                    valueCounts.put(valueEntry.getKey(), valueEntry.getValue());
+                } else {
+                    for (Object2IntMap.Entry<String> categoryEntry : valueEntry.getValue().object2IntEntrySet()) {
+                        currentCounts.addTo(categoryEntry.getKey(), categoryEntry.getIntValue());
+                    }
+                }
+            }
+        }
+        for (Object2IntMap.Entry<String> categoryEntry : other.categoryCounts.object2IntEntrySet()) {
+            categoryCounts.addTo(categoryEntry.getKey(), categoryEntry.getIntValue());
+        }
+        numInstances += other.numInstances;
+    }
+
+    /** @return The number of counted instances. */
+    public int getNumInstances() {
+        return numInstances;
+    }
+
+    /** @return The number of instances for each category. */
+    public Map<String, Integer> getCategoryCounts() {
+        return Collections.unmodifiableMap(categoryCounts);
+    }
+
+    /** @return The names of all features which occurred in the feature vectors. */
+    public Set<String> getFeatureNames() {
+        return Collections.unmodifiableSet(counts.keySet());
+    }
+
+    /**
+     * @param featureName    The name of the feature.
+     * @param includeMissing <code>true</code> to include the instances in which the feature does not occur; they are
+     *                       counted for the value {@link NullValue#NULL} (which is also the value returned by
+     *                       {@link ws.palladian.core.FeatureVector#get(String)} in this case).
+     * @return The number of co-occurrences for each value of the feature (as string) with each category; empty map in
+     * case the feature did not occur and missing values are not included.
+     */
+    public Map<String, ? extends Map<String, Integer>> getValueCounts(String featureName, boolean includeMissing) {
+        Map<String, Object2IntOpenHashMap<String>> valueCounts = counts.getOrDefault(featureName, Collections.emptyMap());
+        if (!includeMissing) {
+            return Collections.unmodifiableMap(valueCounts);
+        }
+        String nullValue = NullValue.NULL.toString();
+        Object2IntOpenHashMap<String> missingCounts = new Object2IntOpenHashMap<>(categoryCounts);
+        for (Map.Entry<String, Object2IntOpenHashMap<String>> valueEntry : valueCounts.entrySet()) {
+            if (!valueEntry.getKey().equals(nullValue)) {
+                for (Object2IntMap.Entry<String> categoryEntry : valueEntry.getValue().object2IntEntrySet()) {
+                    missingCounts.addTo(categoryEntry.getKey(), -categoryEntry.getIntValue());
+                }
+            }
+        }
+        missingCounts.object2IntEntrySet().removeIf(entry -> entry.getIntValue() == 0);
+        Map<String, Map<String, Integer>> result = new HashMap<>(valueCounts);
+        result.remove(nullValue);
+        if (!missingCounts.isEmpty()) {
+            result.put(nullValue, missingCounts);
+        }
+        return result;
+    }
+
+    /**
+     * @param featureName The name of the feature.
+     * @param value       The value of the feature (as string).
+     * @param category    The category.
+     * @return The number of instances with the given value and category.
+     */
+    public int getCount(String featureName, String value, String category) {
+        Map<String, Object2IntOpenHashMap<String>> valueCounts = counts.get(featureName);
+        if (valueCounts == null) {
+            return 0;
+        }
+        Object2IntOpenHashMap<String> currentCounts = valueCounts.get(value);
+        return currentCounts != null ? currentCounts.getInt(category) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "FeatureCategoryCounts [numInstances=" + numInstances + ", numFeatures=" + counts.size() + ", categoryCounts=" + categoryCounts + "]";
+    }
+
+}
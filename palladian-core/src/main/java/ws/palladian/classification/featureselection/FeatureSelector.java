@@ -12,6 +12,7 @@ import ws.palladian.core.Learner;
 import ws.palladian.core.Model;
 import ws.palladian.core.dataset.Dataset;
 import ws.palladian.core.dataset.DefaultDataset;
+import ws.palladian.helper.NoProgress;
 import ws.palladian.helper.ProgressMonitor;
 import ws.palladian.helper.ProgressReporter;
 import ws.palladian.helper.collection.CollectionHelper;
@@ -212,6 +213,12 @@ public final class FeatureSelector extends AbstractFeatureRanker {
     public FeatureRanking rankFeatures(Dataset trainSet, Dataset validationSet, ProgressReporter progress) {
         Map<String, Integer> ranks = new HashMap<>();
 
+        if (config.preselectionRanker() != null) {
+            Set<String> preselectedFeatures = preselectFeatures(trainSet, validationSet, ranks);
+            trainSet = trainSet.filterFeatures(preselectedFeatures::contains);
+            validationSet = validationSet.filterFeatures(preselectedFeatures::contains);
+        }
+
         final Set<Predicate<? super String>> allFeatureFilters = constructFeatureFilters(trainSet);
         final List<Predicate<? super String>> selectedFeatures = new ArrayList<>();
         final int iterations = allFeatureFilters.size() * (allFeatureFilters.size() + 1) / 2;
@@ -274,6 +281,42 @@ public final class FeatureSelector extends AbstractFeatureRanker {
         return new FeatureRanking(ranks);
     }
 
+    /**
+     * Rank the features with the preselection ranker, and assign ranks below the ones of the elimination/construction
+     * to the features which are not among the top features.
+     *
+     * @param trainSet      The training set.
+     * @param validationSet The validation set.
+     * @param ranks         The map where the ranks of the not preselected features are put.
+     * @return The names of the preselected features.
+     */
+    private Set<String> preselectFeatures(Dataset trainSet, Dataset validationSet, Map<String, Integer> ranks) {
+        FeatureRanking preselectionRanking = config.preselectionRanker().rankFeatures(trainSet, validationSet, NoProgress.INSTANCE);
+        Set<String> allFeatures = trainSet.getFeatureInformation().getFeatureNames();
+        List<String> rankedFeatures = new ArrayList<>();
+        for (RankedFeature rankedFeature : preselectionRanking.getAll()) {
+            if (allFeatures.contains(rankedFeature.getName())) {
+                rankedFeatures.add(rankedFeature.getName());
+            }
+        }
+        // features without score in the preselection ranking come last
+        Set<String> unrankedFeatures = new TreeSet<>(allFeatures);
+        unrankedFeatures.removeAll(rankedFeatures);
+        rankedFeatures.addAll(unrankedFeatures);
+
+        Set<String> preselectedFeatures = new HashSet<>();
+        int rank = config.isBackward() ? 0 : -1;
+        for (String feature : rankedFeatures) {
+            if (preselectedFeatures.size() < config.numPreselectedFeatures()) {
+                preselectedFeatures.add(feature);
+            } else {
+                ranks.put(feature, rank--);
+            }
+        }
+        LOGGER.info("Preselected {} features: {}", preselectedFeatures.size(), preselectedFeatures);
+        return preselectedFeatures;
+    }
+
     /**
      * Check which features are matched by any of the filters, then construct
      * individual (singleton) filters for all remaining features. The result is
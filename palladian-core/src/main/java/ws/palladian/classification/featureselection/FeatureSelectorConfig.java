@@ -44,6 +44,8 @@ public class FeatureSelectorConfig {
         private int numThreads = 1;
         private Collection<Predicate<? super String>> featureGroups = new HashSet<>();
         private boolean backward = true;
+        private FeatureRanker preselectionRanker;
+        private int numPreselectedFeatures;
 
         private Builder(Learner<M> learner, Classifier<M> classifier) {
             this(Factories.constant(learner), Factories.constant(classifier));
@@ -152,6 +154,25 @@ public class FeatureSelectorConfig {
             return this;
         }
 
+        /**
+         * Preselect the top features using a (cheap) feature ranker, e.g. one of the count-based rankers
+         * {@link InformationGainFeatureRanker}, {@link ChiSquaredFeatureRanker}, or
+         * {@link SingleFeatureClassification#oneRule(Function, int)}, before running the elimination or
+         * construction, which needs a quadratic number of training runs. The features which are not preselected are
+         * ranked below the other features, in the order of the preselection ranking.
+         *
+         * @param ranker      The ranker for the preselection, not <code>null</code>.
+         * @param numFeatures The number of features to preselect, greater zero.
+         * @return The builder.
+         */
+        public Builder<M> preselect(FeatureRanker ranker, int numFeatures) {
+            Validate.notNull(ranker, "ranker must not be null");
+            Validate.isTrue(numFeatures > 0, "numFeatures must be greater zero");
+            this.preselectionRanker = ranker;
+            this.numPreselectedFeatures = numFeatures;
+            return this;
+        }
+
         @Override
         public FeatureSelector create() {
             return new FeatureSelector(createConfig());
@@ -182,6 +203,8 @@ public class FeatureSelectorConfig {
     private final int numThreads;
     private final Collection<? extends Predicate<? super String>> featureGroups;
     private final boolean backward;
+    private final FeatureRanker preselectionRanker;
+    private final int numPreselectedFeatures;
 
     protected FeatureSelectorConfig(Builder<?> builder) {
         //		learnerFactory = builder.learnerFactory;
@@ -190,6 +213,8 @@ public class FeatureSelectorConfig {
         numThreads = builder.numThreads;
         featureGroups = builder.featureGroups;
         backward = builder.backward;
+        preselectionRanker = builder.preselectionRanker;
+        numPreselectedFeatures = builder.numPreselectedFeatures;
     }
 
     //	public Learner<M> createLearner() {
@@ -213,4 +238,13 @@ public class FeatureSelectorConfig {
     public boolean isBackward() {
         return backward;
     }
+
+    /** @return The ranker for preselecting features, or <code>null</code> in case no preselection is performed. */
+    public FeatureRanker preselectionRanker() {
+        return preselectionRanker;
+    }
+
+    public int numPreselectedFeatures() {
+        return numPreselectedFeatures;
+    }
 }
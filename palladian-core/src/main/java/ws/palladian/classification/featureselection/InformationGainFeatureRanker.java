@@ -4,20 +4,16 @@ import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ws.palladian.classification.discretization.Discretization;
-import ws.palladian.classification.text.CountingCategoryEntriesBuilder;
-import ws.palladian.core.CategoryEntries;
-import ws.palladian.core.CategoryEntriesBuilder;
-import ws.palladian.core.Instance;
 import ws.palladian.core.dataset.Dataset;
-import ws.palladian.core.dataset.statistics.DatasetStatistics;
-import ws.palladian.core.dataset.statistics.NominalValueStatistics;
-import ws.palladian.core.value.Value;
 import ws.palladian.helper.ProgressReporter;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import static ws.palladian.helper.math.MathHelper.log2;
+
 /**
  * <p>
  * A {@link FeatureRanker} applying the information gain selection criterion as explained in
@@ -50,6 +46,10 @@ import java.util.Set;
  * found in <a href="http://arxiv.org/pdf/nlin/0307015v4.pdf">Methods and Techniques of Complex Systems Science: An
  * Overview</a>, page 47.
  *
+ * <p>
+ * The necessary counts are gathered in one pass over the dataset using {@link FeatureCategoryCounts}, which can be
+ * parallelized by specifying a number of threads.
+ *
  * @author Klemens Muthmann
  * @author Philipp Katz
  */
@@ -58,6 +58,23 @@ public final class InformationGainFeatureRanker extends AbstractFeatureRanker {
     /** The logger for this class. */
     private static final Logger LOGGER = LoggerFactory.getLogger(InformationGainFeatureRanker.class);
 
+    private final int numThreads;
+
+    /** Create a new {@link InformationGainFeatureRanker} which counts using one thread. */
+    public InformationGainFeatureRanker() {
+        this(1);
+    }
+
+    /**
+     * Create a new {@link InformationGainFeatureRanker}.
+     *
+     * @param numThreads The number of threads to use for counting, greater zero.
+     */
+    public InformationGainFeatureRanker(int numThreads) {
+        Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+        this.numThreads = numThreads;
+    }
+
     @Override
     public FeatureRanking rankFeatures(Dataset dataset, ProgressReporter progress) {
         Validate.notNull(dataset, "dataset must not be null");
@@ -66,22 +83,16 @@ public final class InformationGainFeatureRanker extends AbstractFeatureRanker {
         progress.startTask("Information Gain", -1);
         LOGGER.debug("Calculating discretization");
         Discretization discretization = new Discretization(dataset, progress.createSubProgress(0.5));
-        Dataset preparedData = dataset.transform(discretization);
+        LOGGER.debug("Counting");
+        FeatureCategoryCounts counts = FeatureCategoryCounts.count(dataset, discretization, numThreads, progress.createSubProgress(0.5));
 
-        NominalValueStatistics categoryStatistics = new DatasetStatistics(dataset).getCategoryStatistics();
-        CategoryEntries categoryCounts = new CategoryEntriesBuilder(categoryStatistics.getMap()).create();
-        double entropy = categoryCounts.getEntropy();
+        double entropy = entropy(counts.getCategoryCounts().values(), counts.getNumInstances());
         Set<String> featureNames = dataset.getFeatureInformation().getFeatureNames();
-
-        ProgressReporter informationGainProgress = progress.createSubProgress(0.5);
         LOGGER.debug("Calculating gain");
-        informationGainProgress.startTask("Calculating gain", featureNames.size());
         for (String featureName : featureNames) {
-            double gain = entropy - conditionalEntropy(featureName, preparedData);
+            double gain = entropy - conditionalEntropy(featureName, counts);
             informationGainValues.put(featureName, gain);
-            informationGainProgress.increment();
         }
-        informationGainProgress.finishTask();
         return new FeatureRanking(informationGainValues);
     }
 
@@ -90,42 +101,35 @@ public final class InformationGainFeatureRanker extends AbstractFeatureRanker {
      * is distributed. This is often called H(X|Y).
      *
      * @param featureName The name of the feature.
+     * @param counts      The counts of the dataset.
      * @return The conditional entropy of the dataset knowing the distribution of Y.
      */
-    private static double conditionalEntropy(String featureName, Iterable<? extends Instance> dataset) {
-        CategoryEntries jointOccurrences = countJointOccurrences(dataset, featureName);
-        CategoryEntries featureOccurrences = countFeatureOccurrences(dataset, featureName);
-        return jointOccurrences.getEntropy() - featureOccurrences.getEntropy();
+    private static double conditionalEntropy(String featureName, FeatureCategoryCounts counts) {
+        int numInstances = counts.getNumInstances();
+        double jointEntropy = 0;
+        double featureEntropy = 0;
+        for (Map<String, Integer> categoryCounts : counts.getValueCounts(featureName, true).values()) {
+            jointEntropy += entropy(categoryCounts.values(), numInstances);
+            int valueCount = 0;
+            for (int count : categoryCounts.values()) {
+                valueCount += count;
+            }
+            featureEntropy -= probabilityLog(valueCount, numInstances);
+        }
+        return jointEntropy - featureEntropy;
     }
 
-    /**
-     * Counts the joint occurrences of each value of the provided feature with each target class.
-     *
-     * @param featureName The name of the feature.
-     * @return A mapping from a pair of target class and feature value to the counter of their joint occurrences.
-     */
-    private static CategoryEntries countJointOccurrences(Iterable<? extends Instance> dataset, String featureName) {
-        CountingCategoryEntriesBuilder builder = new CountingCategoryEntriesBuilder();
-        for (Instance dataItem : dataset) {
-            Value value = dataItem.getVector().get(featureName);
-            builder.add(dataItem.getCategory() + "###" + value.toString(), 1);
+    private static double entropy(Collection<Integer> counts, int total) {
+        double entropy = 0;
+        for (int count : counts) {
+            entropy -= probabilityLog(count, total);
         }
-        return builder.create();
+        return entropy;
     }
 
-    /**
-     * Counts how often the values of the feature with the provided name occurs in the dataset handled by this object.
-     *
-     * @param featureName The name of the feature.
-     * @return A mapping from a {@link String} representation of the value to a counter of how often it occurs.
-     */
-    private static CategoryEntries countFeatureOccurrences(Iterable<? extends Instance> dataset, String featureName) {
-        CountingCategoryEntriesBuilder builder = new CountingCategoryEntriesBuilder();
-        for (Instance dataItem : dataset) {
-            Value value = dataItem.getVector().get(featureName);
-            builder.add(value.toString(), 1);
-        }
-        return builder.create();
+    private static double probabilityLog(int count, int total) {
+        double probability = (double) count / total;
+        return probability > 0 ? probability * log2(probability) : 0;
     }
 
 }
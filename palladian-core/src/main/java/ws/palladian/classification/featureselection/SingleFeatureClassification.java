@@ -3,6 +3,7 @@ package ws.palladian.classification.featureselection;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ws.palladian.classification.discretization.Discretization;
 import ws.palladian.classification.evaluation.ClassificationEvaluator;
 import ws.palladian.classification.evaluation.ConfusionMatrixEvaluator;
 import ws.palladian.classification.nb.NaiveBayesClassifier;
@@ -14,6 +15,7 @@ import ws.palladian.core.Learner;
 import ws.palladian.core.Model;
 import ws.palladian.core.dataset.Dataset;
 import ws.palladian.core.dataset.DefaultDataset;
+import ws.palladian.helper.NoProgress;
 import ws.palladian.helper.ProgressReporter;
 import ws.palladian.helper.collection.CollectionHelper;
 import ws.palladian.helper.functional.Predicates;
@@ -22,6 +24,7 @@ import ws.palladian.helper.math.ConfusionMatrix;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -60,8 +63,15 @@ public final class SingleFeatureClassification extends AbstractFeatureRanker {
         }
     }
 
+    /** The evaluation logic; <code>null</code> when using the count-based mode. */
     private final EvaluatorAndMapper<?, ?> evaluatorAndMapper;
 
+    /** The scorer for the count-based mode; <code>null</code> when using a classifier. */
+    private final Function<ConfusionMatrix, Double> countScorer;
+
+    /** The number of threads to use for counting. */
+    private final int numThreads;
+
     /**
      * @param learner    The learner, not <code>null</code>.
      * @param classifier The classifier, not <code>null</code>.
@@ -74,6 +84,14 @@ public final class SingleFeatureClassification extends AbstractFeatureRanker {
         Validate.notNull(evaluator, "evaluator must not be null");
         Validate.notNull(mapper, "mapper must not be null");
         evaluatorAndMapper = new EvaluatorAndMapper<>(learner, classifier, evaluator, mapper);
+        countScorer = null;
+        numThreads = 1;
+    }
+
+    private SingleFeatureClassification(Function<ConfusionMatrix, Double> countScorer, int numThreads) {
+        this.evaluatorAndMapper = null;
+        this.countScorer = countScorer;
+        this.numThreads = numThreads;
     }
 
     /**
@@ -87,6 +105,24 @@ public final class SingleFeatureClassification extends AbstractFeatureRanker {
         this(learner, classifier, new ConfusionMatrixEvaluator(), scorer);
     }
 
+    /**
+     * <p>
+     * Create a count-based {@link SingleFeatureClassification}: Instead of training and evaluating a classifier for
+     * each feature, it uses a "one rule" classifier per feature, which predicts the most frequent category of the
+     * training set for each value of the feature (numeric features are discretized, see {@link Discretization}). This
+     * classifier can be evaluated directly from the {@link FeatureCategoryCounts} of the training and the validation
+     * set, so that only one pass over each set is necessary, independent of the number of features.
+     *
+     * @param scorer     The function for determining the score from the confusion matrix, not <code>null</code>.
+     * @param numThreads The number of threads to use for counting, greater zero.
+     * @return The {@link SingleFeatureClassification}.
+     */
+    public static SingleFeatureClassification oneRule(Function<ConfusionMatrix, Double> scorer, int numThreads) {
+        Validate.notNull(scorer, "scorer must not be null");
+        Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+        return new SingleFeatureClassification(scorer, numThreads);
+    }
+
     /** @deprecated Use {@link #rankFeatures(Dataset, Dataset)} instead. */
     @Deprecated
     public FeatureRanking rankFeatures(Iterable<? extends Instance> trainSet, Iterable<? extends Instance> validationSet) {
@@ -100,6 +136,9 @@ public final class SingleFeatureClassification extends AbstractFeatureRanker {
      */
     @Override
     public FeatureRanking rankFeatures(Dataset trainSet, Dataset validationSet, ProgressReporter progressReporter) {
+        if (evaluatorAndMapper == null) {
+            return rankFeaturesByCounts(trainSet, validationSet, progressReporter);
+        }
         Map<String, Double> scores = new HashMap<>();
 
         final Set<String> allFeatures = trainSet.getFeatureInformation().getFeatureNames();
@@ -118,6 +157,46 @@ public final class SingleFeatureClassification extends AbstractFeatureRanker {
         return new FeatureRanking(scores);
     }
 
+    private FeatureRanking rankFeaturesByCounts(Dataset trainSet, Dataset validationSet, ProgressReporter progressReporter) {
+        progressReporter.startTask("Single feature classification", -1);
+        Discretization discretization = new Discretization(trainSet, NoProgress.INSTANCE);
+        FeatureCategoryCounts trainCounts = FeatureCategoryCounts.count(trainSet, discretization, numThreads, progressReporter.createSubProgress(0.5));
+        FeatureCategoryCounts validationCounts = FeatureCategoryCounts.count(validationSet, discretization, numThreads, progressReporter.createSubProgress(0.5));
+        // used for values which do not occur in the training set
+        String defaultCategory = getMostFrequent(trainCounts.getCategoryCounts());
+
+        Map<String, Double> scores = new HashMap<>();
+        for (String feature : trainSet.getFeatureInformation().getFeatureNames()) {
+            Map<String, ? extends Map<String, Integer>> trainValueCounts = trainCounts.getValueCounts(feature, true);
+            ConfusionMatrix confusionMatrix = new ConfusionMatrix();
+            for (Entry<String, ? extends Map<String, Integer>> valueEntry : validationCounts.getValueCounts(feature, true).entrySet()) {
+                Map<String, Integer> trainCategoryCounts = trainValueCounts.get(valueEntry.getKey());
+                String predictedCategory = trainCategoryCounts != null ? getMostFrequent(trainCategoryCounts) : defaultCategory;
+                for (Entry<String, Integer> categoryEntry : valueEntry.getValue().entrySet()) {
+                    confusionMatrix.add(categoryEntry.getKey(), predictedCategory, categoryEntry.getValue());
+                }
+            }
+            Double score = countScorer.apply(confusionMatrix);
+            LOGGER.debug("Finished testing with {}: {}", feature, score);
+            scores.put(feature, score);
+        }
+        return new FeatureRanking(scores);
+    }
+
+    /** @return The category with the highest count; in case of ties, the lexicographically first one. */
+    private static String getMostFrequent(Map<String, Integer> categoryCounts) {
+        String mostFrequent = null;
+        int highestCount = 0;
+        for (Entry<String, Integer> entry : categoryCounts.entrySet()) {
+            int count = entry.getValue();
+            if (mostFrequent == null || count > highestCount || count == highestCount && entry.getKey().compareTo(mostFrequent) < 0) {
+                mostFrequent = entry.getKey();
+                highestCount = count;
+            }
+        }
+        return mostFrequent;
+    }
+
     public static void main(String[] args) {
         Dataset trainSet = CsvDatasetReaderConfig.filePath(new File("/Users/pk/Dropbox/LocationExtraction/BFE/fd_merged_train.csv")).create();
         Dataset validationSet = CsvDatasetReaderConfig.filePath(new File("/Users/pk/Dropbox/LocationExtraction/BFE/fd_merged_validation.csv")).create();
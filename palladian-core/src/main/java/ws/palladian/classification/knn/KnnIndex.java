@@ -0,0 +1,502 @@
+package ws.palladian.classification.knn;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2FloatMap;
+import org.apache.commons.lang3.Validate;
+import ws.palladian.core.FeatureVector;
+import ws.palladian.core.value.NominalValue;
+import ws.palladian.core.value.NumericValue;
+import ws.palladian.core.value.Value;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A k-d tree over the numeric fields of a {@link KnnModel}, which answers k-nearest-neighbor queries without comparing
+ * the query against every training row. The rows are stored in primitive arrays; each node of the tree keeps the
+ * bounding box of the numeric values of its rows, which gives a lower bound for the distance of all rows within the
+ * node. Subtrees whose lower bound exceeds the currently k-th smallest distance are skipped; the candidates are
+ * collected in a bounded max-heap.
+ * <p>
+ * The distance is exactly the one of the {@link KnnClassifier}: the weighted squared euclidean distance over the
+ * numeric fields, where a missing value on either side costs the field's weight, plus the weights of all textual fields
+ * whose values differ. With non-negative weights, the textual part only adds to the numeric lower bound, so it is
+ * evaluated for the candidate rows in the leaves; in case any weight is negative, no subtrees are skipped. Neighbors
+ * with equal distance are ordered by their index in the training data, which gives the same result as sorting all rows
+ * stably.
+ *
+ * @author Philipp Katz
+ */
+final class KnnIndex {
+
+    /** Maximum number of rows in a leaf node. */
+    private static final int LEAF_SIZE = 16;
+
+    /** Kinds of values in the numeric columns. */
+    private static final byte NUMERIC = 0;
+    private static final byte NULL = 1;
+    private static final byte OTHER = 2;
+
+    private final String[] numericFields;
+    private final float[] numericWeights;
+    private final String[] textualFields;
+    private final float[] textualWeights;
+
+    /** The number of rows. */
+    private final int numRows;
+
+    /** The numeric values, row-major; undefined for non-numeric values. */
+    private final float[] values;
+
+    /** The value kinds, row-major. */
+    private final byte[] kinds;
+
+    /** The nominal values per textual field, <code>null</code> for non-nominal values. */
+    private final String[][] textualValues;
+
+    /** The category of each row. */
+    private final String[] categories;
+
+    /** The row indices, ordered so that each node covers a contiguous range. */
+    private final int[] order;
+
+    /** The tree nodes; children of node <code>i</code> are stored at <code>left[i]</code> and <code>left[i]+1</code>. */
+    private final IntArrayList nodeStart = new IntArrayList();
+    private final IntArrayList nodeEnd = new IntArrayList();
+    private final IntArrayList nodeLeft = new IntArrayList();
+
+    /** Bounding boxes of the numeric values, and which value kinds occur, per node and field. */
+    private float[] nodeMin;
+    private float[] nodeMax;
+    private byte[] nodeKinds;
+
+    /** Whether all weights allow pruning; in case of negative weights, all rows are scanned. */
+    private final boolean prunable;
+
+    KnnIndex(Object2FloatMap<String> numericFieldsAndWeights, Object2FloatMap<String> textualFieldsAndWeights, int numRows) {
+        int numNumeric = numericFieldsAndWeights.size();
+        this.numericFields = new String[numNumeric];
+        this.numericWeights = new float[numNumeric];
+        int i = 0;
+        boolean prunable = true;
+        for (Object2FloatMap.Entry<String> entry : numericFieldsAndWeights.object2FloatEntrySet()) {
+            numericFields[i] = entry.getKey();
+            numericWeights[i] = entry.getFloatValue();
+            prunable &= entry.getFloatValue() >= 0;
+            i++;
+        }
+        int numTextual = textualFieldsAndWeights.size();
+        this.textualFields = new String[numTextual];
+        this.textualWeights = new float[numTextual];
+        i = 0;
+        for (Object2FloatMap.Entry<String> entry : textualFieldsAndWeights.object2FloatEntrySet()) {
+            textualFields[i] = entry.getKey();
+            textualWeights[i] = entry.getFloatValue();
+            prunable &= entry.getFloatValue() >= 0;
+            i++;
+        }
+        this.prunable = prunable;
+        this.numRows = numRows;
+        this.values = new float[numRows * numNumeric];
+        this.kinds = new byte[numRows * numNumeric];
+        this.textualValues = new String[numTextual][numRows];
+        this.categories = new String[numRows];
+        this.order = new int[numRows];
+    }
+
+    /**
+     * Set the values of a row; all rows must be set before calling {@link #build()}.
+     *
+     * @param row      The row index.
+     * @param vector   The (normalized) feature vector.
+     * @param category The category of the row.
+     */
+    void set(int row, FeatureVector vector, String category) {
+        int numNumeric = numericFields.length;
+        for (int j = 0; j < numNumeric; j++) {
+            Value value = vector.get(numericFields[j]);
+            int cell = row * numNumeric + j;
+            if (value == null || value.isNull()) {
+                kinds[cell] = NULL;
+            } else if (value instanceof NumericValue) {
+                values[cell] = ((NumericValue) value).getFloat();
+            } else {
+                kinds[cell] = OTHER;
+            }
+        }
+        for (int j = 0; j < textualFields.length; j++) {
+            Value value = vector.get(textualFields[j]);
+            textualValues[j][row] = value instanceof NominalValue ? ((NominalValue) value).getString() : null;
+        }
+        categories[row] = category;
+        order[row] = row;
+    }
+
+    /** Build the tree, after all rows have been set. */
+    void build() {
+        int numNumeric = numericFields.length;
+        int maxNodes = 2 * Math.max(1, (numRows + LEAF_SIZE - 1) / LEAF_SIZE * 2);
+        nodeMin = new float[maxNodes * numNumeric];
+        nodeMax = new float[maxNodes * numNumeric];
+        nodeKinds = new byte[maxNodes * numNumeric];
+        addNode(0, numRows);
+        // breadth-first, so that siblings are stored next to each other
+        for (int node = 0; node < nodeStart.size(); node++) {
+            int start = nodeStart.getInt(node);
+            int end = nodeEnd.getInt(node);
+            int splitField = widestField(node);
+            if (end - start <= LEAF_SIZE || splitField < 0) {
+                continue;
+            }
+            int mid = (start + end) >>> 1;
+            select(start, end, mid, splitField);
+            nodeLeft.set(node, nodeStart.size());
+            addNode(start, mid);
+            addNode(mid, end);
+        }
+        nodeMin = Arrays.copyOf(nodeMin, nodeStart.size() * numNumeric);
+        nodeMax = Arrays.copyOf(nodeMax, nodeStart.size() * numNumeric);
+        nodeKinds = Arrays.copyOf(nodeKinds, nodeStart.size() * numNumeric);
+    }
+
+    private void addNode(int start, int end) {
+        int node = nodeStart.size();
+        nodeStart.add(start);
+        nodeEnd.add(end);
+        nodeLeft.add(-1);
+        int numNumeric = numericFields.length;
+        if ((node + 1) * numNumeric > nodeMin.length) {
+            int length = Math.max(nodeMin.length * 2, (node + 1) * numNumeric);
+            nodeMin = Arrays.copyOf(nodeMin, length);
+            nodeMax = Arrays.copyOf(nodeMax, length);
+            nodeKinds = Arrays.copyOf(nodeKinds, length);
+        }
+        for (int j = 0; j < numNumeric; j++) {
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            int kindMask = 0;
+            for (int i = start; i < end; i++) {
+                int cell = order[i] * numNumeric + j;
+                byte kind = kinds[cell];
+                kindMask |= 1 << kind;
+                if (kind == NUMERIC) {
+                    min = Math.min(min, values[cell]);
+                    max = Math.max(max, values[cell]);
+                }
+            }
+            nodeMin[node * numNumeric + j] = min;
+            nodeMax[node * numNumeric + j] = max;
+            nodeKinds[node * numNumeric + j] = (byte) kindMask;
+        }
+    }
+
+    /** @return The numeric field with the largest spread within the node, or -1 in case all values are equal. */
+    private int widestField(int node) {
+        int numNumeric = numericFields.length;
+        int widest = -1;
+        float widestSpread = 0;
+        for (int j = 0; j < numNumeric; j++) {
+            float spread = (nodeMax[node * numNumeric + j] - nodeMin[node * numNumeric + j]) * Math.abs(numericWeights[j]);
+            if (spread > widestSpread) {
+                widest = j;
+                widestSpread = spread;
+            }
+        }
+        return widest;
+    }
+
+    /** Partially sort the range of {@link #order}, so that position k holds the median (quickselect). */
+    private void select(int start, int end, int k, int field) {
+        int lo = start;
+        int hi = end - 1;
+        while (hi > lo) {
+            float pivot = sortKey(order[(lo + hi) >>> 1], field);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (sortKey(order[i], field) < pivot) {
+                    i++;
+                }
+                while (sortKey(order[j], field) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int temp = order[i];
+                    order[i] = order[j];
+                    order[j] = temp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                break;
+            }
+        }
+    }
+
+    /** Non-numeric values are sorted to the end. */
+    private float sortKey(int row, int field) {
+        int cell = row * numericFields.length + field;
+        return kinds[cell] == NUMERIC ? values[cell] : Float.MAX_VALUE;
+    }
+
+    /**
+     * Find the k nearest neighbors of the given vector.
+     *
+     * @param vector The vector, not <code>null</code>.
+     * @param k      The number of neighbors, greater zero.
+     * @return The neighbors ordered by ascending distance; less than k in case the model contains less rows.
+     */
+    Neighbors search(FeatureVector vector, int k) {
+        Validate.notNull(vector, "vector must not be null");
+        Validate.isTrue(k > 0, "k must be greater zero");
+        Query query = new Query(vector, k);
+        if (prunable && numRows > 0) {
+            search(query, 0);
+        } else {
+            for (int row = 0; row < numRows; row++) {
+                query.offer(row, distance(query, row));
+            }
+        }
+        return query.toNeighbors();
+    }
+
+    /**
+     * Find the k nearest neighbors by comparing against every row; used for verifying the tree search.
+     *
+     * @param vector The vector, not <code>null</code>.
+     * @param k      The number of neighbors, greater zero.
+     * @return The neighbors ordered by ascending distance.
+     */
+    Neighbors searchExhaustive(FeatureVector vector, int k) {
+        Validate.notNull(vector, "vector must not be null");
+        Validate.isTrue(k > 0, "k must be greater zero");
+        Query query = new Query(vector, k);
+        for (int row = 0; row < numRows; row++) {
+            query.offer(row, distance(query, row));
+        }
+        return query.toNeighbors();
+    }
+
+    private void search(Query query, int node) {
+        int left = nodeLeft.getInt(node);
+        if (left < 0) {
+            int end = nodeEnd.getInt(node);
+            for (int i = nodeStart.getInt(node); i < end; i++) {
+                int row = order[i];
+                query.offer(row, distance(query, row));
+            }
+            return;
+        }
+        int right = left + 1;
+        double leftBound = lowerBound(query, left);
+        double rightBound = lowerBound(query, right);
+        if (leftBound <= rightBound) {
+            if (!query.canSkip(leftBound)) {
+                search(query, left);
+            }
+            if (!query.canSkip(rightBound)) {
+                search(query, right);
+            }
+        } else {
+            if (!query.canSkip(rightBound)) {
+                search(query, right);
+            }
+            if (!query.canSkip(leftBound)) {
+                search(query, left);
+            }
+        }
+    }
+
+    /**
+     * The lower bound of the distance to all rows in the node. Each summand is computed with the same floating point
+     * operations as in {@link #distance(Query, int)}, and rounding is monotonic, so the bound never exceeds the actual
+     * distance.
+     */
+    private double lowerBound(Query query, int node) {
+        int numNumeric = numericFields.length;
+        double bound = 0;
+        for (int j = 0; j < numNumeric; j++) {
+            float weight = numericWeights[j];
+            int cell = node * numNumeric + j;
+            int kindMask = nodeKinds[cell];
+            byte queryKind = query.kinds[j];
+            if (queryKind == NULL) {
+                bound += weight;
+            } else if (queryKind == NUMERIC) {
+                if ((kindMask & 1 << OTHER) != 0) {
+                    continue;
+                }
+                float fieldBound = Float.POSITIVE_INFINITY;
+                if ((kindMask & 1 << NULL) != 0) {
+                    fieldBound = weight;
+                }
+                if ((kindMask & 1 << NUMERIC) != 0) {
+                    float queryValue = query.values[j];
+                    float diff = 0;
+                    if (queryValue < nodeMin[cell]) {
+                        diff = nodeMin[cell] - queryValue;
+                    } else if (queryValue > nodeMax[cell]) {
+                        diff = queryValue - nodeMax[cell];
+                    }
+                    fieldBound = Math.min(fieldBound, weight * diff * diff);
+                }
+                bound += fieldBound;
+            }
+        }
+        return bound;
+    }
+
+    private double distance(Query query, int row) {
+        int numNumeric = numericFields.length;
+        double distance = 0;
+        for (int j = 0; j < numNumeric; j++) {
+            int cell = row * numNumeric + j;
+            byte queryKind = query.kinds[j];
+            byte rowKind = kinds[cell];
+            if (queryKind == NULL || rowKind == NULL) {
+                distance += numericWeights[j];
+            } else if (queryKind == NUMERIC && rowKind == NUMERIC) {
+                float diff = query.values[j] - values[cell];
+                distance += numericWeights[j] * diff * diff;
+            }
+        }
+        for (int j = 0; j < textualFields.length; j++) {
+            String queryValue = query.textualValues[j];
+            String rowValue = textualValues[j][row];
+            if (queryValue == null || rowValue == null || !queryValue.equals(rowValue)) {
+                distance += textualWeights[j];
+            }
+        }
+        return distance;
+    }
+
+    int size() {
+        return numRows;
+    }
+
+    /** The state of one query, with a bounded max-heap of the best candidates so far. */
+    private final class Query {
+        final float[] values;
+        final byte[] kinds;
+        final String[] textualValues;
+        final int k;
+        final int[] heapRows;
+        final double[] heapDistances;
+        int heapSize;
+
+        Query(FeatureVector vector, int k) {
+            int numNumeric = numericFields.length;
+            this.values = new float[numNumeric];
+            this.kinds = new byte[numNumeric];
+            for (int j = 0; j < numNumeric; j++) {
+                Value value = vector.get(numericFields[j]);
+                if (value == null || value.isNull()) {
+                    kinds[j] = NULL;
+                } else if (value instanceof NumericValue) {
+                    values[j] = ((NumericValue) value).getFloat();
+                } else {
+                    kinds[j] = OTHER;
+                }
+            }
+            this.textualValues = new String[textualFields.length];
+            for (int j = 0; j < textualFields.length; j++) {
+                Value value = vector.get(textualFields[j]);
+                textualValues[j] = value instanceof NominalValue ? ((NominalValue) value).getString() : null;
+            }
+            this.k = k;
+            int capacity = Math.min(k, numRows);
+            this.heapRows = new int[capacity];
+            this.heapDistances = new double[capacity];
+        }
+
+        /** @return <code>true</code> in case a node with the given lower bound cannot contain a better neighbor. */
+        boolean canSkip(double bound) {
+            return heapSize == heapRows.length && bound > heapDistances[0];
+        }
+
+        /** @return <code>true</code> in case (d1, r1) comes after (d2, r2). */
+        private boolean worse(double d1, int r1, double d2, int r2) {
+            return d1 > d2 || d1 == d2 && r1 > r2;
+        }
+
+        void offer(int row, double distance) {
+            if (heapSize < heapRows.length) {
+                int i = heapSize++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (!worse(distance, row, heapDistances[parent], heapRows[parent])) {
+                        break;
+                    }
+                    heapRows[i] = heapRows[parent];
+                    heapDistances[i] = heapDistances[parent];
+                    i = parent;
+                }
+                heapRows[i] = row;
+                heapDistances[i] = distance;
+            } else if (heapSize > 0 && worse(heapDistances[0], heapRows[0], distance, row)) {
+                siftDown(row, distance, heapSize);
+            }
+        }
+
+        /** Replace the root with the given entry and restore the heap property within the first size entries. */
+        private void siftDown(int row, double distance, int size) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && worse(heapDistances[child + 1], heapRows[child + 1], heapDistances[child], heapRows[child])) {
+                    child++;
+                }
+                if (!worse(heapDistances[child], heapRows[child], distance, row)) {
+                    break;
+                }
+                heapRows[i] = heapRows[child];
+                heapDistances[i] = heapDistances[child];
+                i = child;
+            }
+            heapRows[i] = row;
+            heapDistances[i] = distance;
+        }
+
+        Neighbors toNeighbors() {
+            int[] rows = new int[heapSize];
+            double[] distances = new double[heapSize];
+            // pop the worst remaining entry into the last free position
+            for (int size = heapSize; size > 0; size--) {
+                rows[size - 1] = heapRows[0];
+                distances[size - 1] = heapDistances[0];
+                siftDown(heapRows[size - 1], heapDistances[size - 1], size - 1);
+            }
+            String[] neighborCategories = new String[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                neighborCategories[i] = categories[rows[i]];
+            }
+            return new Neighbors(rows, distances, neighborCategories);
+        }
+    }
+
+    /** The result of a query, ordered by ascending distance. */
+    static final class Neighbors {
+        final int[] rows;
+        final double[] distances;
+        final String[] categories;
+
+        Neighbors(int[] rows, double[] distances, String[] categories) {
+            this.rows = rows;
+            this.distances = distances;
+            this.categories = categories;
+        }
+
+        int size() {
+            return rows.length;
+        }
+    }
+
+}
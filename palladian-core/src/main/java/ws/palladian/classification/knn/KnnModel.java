@@ -52,6 +52,9 @@ public final class KnnModel implements Model {
      */
     private final Normalization normalization;
 
+    /** The index for nearest neighbor queries; not serialized, but rebuilt on demand. */
+    private transient volatile KnnIndex index;
+
     /**
      * <p>
      * Creates a new unnormalized {@code KnnModel} based on a {@code List} of {@link Instance}s.
@@ -66,6 +69,7 @@ public final class KnnModel implements Model {
         this.categories = new HashSet<>(statistics.getCategoryStatistics().getValues());
         initTrainingMatrix(trainingInstances, normalization);
         this.normalization = normalization;
+        this.index = buildIndex();
     }
 
     private void initTrainingMatrix(Iterable<? extends Instance> instances, Normalization normalization) {
@@ -91,6 +95,35 @@ public final class KnnModel implements Model {
         }
     }
 
+    /**
+     * @return The index for nearest neighbor queries over the training rows; the row indices correspond to the
+     * {@link #getRowKeys() row keys}.
+     */
+    KnnIndex getIndex() {
+        KnnIndex index = this.index;
+        if (index == null) {
+            synchronized (this) {
+                index = this.index;
+                if (index == null) {
+                    index = buildIndex();
+                    this.index = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private KnnIndex buildIndex() {
+        KnnIndex index = new KnnIndex(numericFieldsAndWeights, textualFieldsAndWeights, trainingMatrix.getRowKeys().size());
+        int row = 0;
+        for (String y : trainingMatrix.getRowKeys()) {
+            FeatureVector featureVector = getFeatureVector(y);
+            index.set(row++, featureVector, featureVector.getNominal("category").getString());
+        }
+        index.build();
+        return index;
+    }
+
     public FeatureVector getFeatureVector(String y) {
         Matrix.MatrixVector<String, Value> row = trainingMatrix.getRow(y);
         InstanceBuilder instanceBuilder = new InstanceBuilder();
@@ -6,6 +6,7 @@ import ws.palladian.classification.text.DictionaryModel;
 import ws.palladian.classification.text.FeatureSetting;
 import ws.palladian.classification.text.FeatureSettingBuilder;
 import ws.palladian.classification.text.PalladianTextClassifier;
+import ws.palladian.classification.text.PreprocessingCache;
 import ws.palladian.classification.text.evaluation.Dataset;
 import ws.palladian.classification.text.evaluation.TextDatasetIterator;
 import ws.palladian.core.Category;
@@ -53,6 +54,16 @@ public class PalladianLangDetect implements LanguageClassifier {
         this.possibleClasses = possibleClasses;
     }
 
+    /**
+     * Set a cache for the preprocessed texts, which can be shared with other classifiers which process the same texts.
+     *
+     * @param preprocessingCache The cache, or <code>null</code> to disable caching.
+     * @see PalladianTextClassifier#setPreprocessingCache(PreprocessingCache)
+     */
+    public void setPreprocessingCache(PreprocessingCache preprocessingCache) {
+        textClassifier.setPreprocessingCache(preprocessingCache);
+    }
+
     /**
      * Train the language detector on a dataset.
      *
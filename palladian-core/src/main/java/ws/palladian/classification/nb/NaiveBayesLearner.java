@@ -1,7 +1,9 @@
 package ws.palladian.classification.nb;
 
+import org.apache.commons.lang3.Validate;
 import ws.palladian.core.AbstractLearner;
 import ws.palladian.core.Instance;
+import ws.palladian.core.MergeableLearner;
 import ws.palladian.core.dataset.Dataset;
 import ws.palladian.core.value.NominalValue;
 import ws.palladian.core.value.NumericValue;
@@ -13,7 +15,9 @@ import ws.palladian.helper.collection.Matrix;
 import ws.palladian.helper.collection.Matrix.MatrixVector;
 import ws.palladian.helper.collection.Vector.VectorEntry;
 import ws.palladian.helper.math.SlimStats;
-import ws.palladian.helper.math.Stats;
+
+import java.io.Serializable;
+import java.util.Map.Entry;
 
 /**
  * <p>
@@ -22,24 +26,53 @@ import ws.palladian.helper.math.Stats;
  * href="http://www.pierlucalanzi.net/wp-content/teaching/dmtm/DMTM0809-13-ClassificationIBLNaiveBayes.pdf">here</a>.
  * </p>
  *
+ * <p>
+ * The partial statistics for {@link MergeableLearner} are the counts of the categories and nominal values, and the
+ * running stats of the numeric values.
+ * </p>
+ *
  * @author David Urbansky
  * @author Philipp Katz
  */
-public final class NaiveBayesLearner extends AbstractLearner<NaiveBayesModel> {
+public final class NaiveBayesLearner extends AbstractLearner<NaiveBayesModel> implements MergeableLearner<NaiveBayesModel, NaiveBayesLearner.Statistics> {
+
+    /** The partial statistics for training a {@link NaiveBayesModel}. */
+    public static final class Statistics implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The counts of different categories. */
+        private final Bag<String> categories = new Bag<>();
+
+        /** The counts of nominal features (name, value, category). */
+        private final MapMatrix<String, Bag<String>> nominalCounts = new MapMatrix<>();
+
+        /** The stats for numeric features (name, category). */
+        private final MapMatrix<String, SlimStats> stats = new MapMatrix<>();
+
+        @Override
+        public String toString() {
+            return "Statistics [categories=" + categories + "]";
+        }
+
+    }
 
     @Override
     public NaiveBayesModel train(Dataset dataset) {
+        return createModel(trainPartial(dataset));
+    }
 
-        // store the counts of different categories
-        Bag<String> categories = new Bag<>();
-        // store the counts of nominal features (name, value, category)
-        LazyMatrix<String, Bag<String>> nominalCounts = new LazyMatrix<>(Bag::new);
-        // store mean and standard deviation for numeric features (name, category)
-        Matrix<String, Stats> stats = new LazyMatrix<>(SlimStats::new);
+    @Override
+    public Statistics trainPartial(Dataset partition) {
+        Validate.notNull(partition, "partition must not be null");
+
+        Statistics statistics = new Statistics();
+        LazyMatrix<String, Bag<String>> nominalCounts = new LazyMatrix<>(statistics.nominalCounts, Bag::new);
+        Matrix<String, SlimStats> stats = new LazyMatrix<>(statistics.stats, SlimStats::new);
 
-        for (Instance instance : dataset) {
+        for (Instance instance : partition) {
             String category = instance.getCategory();
-            categories.add(category);
+            statistics.categories.add(category);
 
             for (VectorEntry<String, Value> entry : instance.getVector()) {
                 String featureName = entry.key();
@@ -54,20 +87,51 @@ public final class NaiveBayesLearner extends AbstractLearner<NaiveBayesModel> {
                 }
             }
         }
+        return statistics;
+    }
+
+    @Override
+    public Statistics merge(Statistics statistics1, Statistics statistics2) {
+        Validate.notNull(statistics1, "statistics1 must not be null");
+        Validate.notNull(statistics2, "statistics2 must not be null");
+        for (Entry<String, Integer> entry : statistics2.categories.unique()) {
+            statistics1.categories.add(entry.getKey(), entry.getValue());
+        }
+        LazyMatrix<String, Bag<String>> nominalCounts = new LazyMatrix<>(statistics1.nominalCounts, Bag::new);
+        for (MatrixVector<String, Bag<String>> row : statistics2.nominalCounts.rows()) {
+            for (VectorEntry<String, Bag<String>> cell : row) {
+                Bag<String> counts = nominalCounts.get(cell.key(), row.key());
+                for (Entry<String, Integer> entry : cell.value().unique()) {
+                    counts.add(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        LazyMatrix<String, SlimStats> stats = new LazyMatrix<>(statistics1.stats, SlimStats::new);
+        for (MatrixVector<String, SlimStats> row : statistics2.stats.rows()) {
+            for (VectorEntry<String, SlimStats> cell : row) {
+                stats.get(cell.key(), row.key()).add(cell.value());
+            }
+        }
+        return statistics1;
+    }
+
+    @Override
+    public NaiveBayesModel createModel(Statistics statistics) {
+        Validate.notNull(statistics, "statistics must not be null");
 
         Matrix<String, Double> sampleMeans = new MapMatrix<>();
         Matrix<String, Double> standardDeviations = new MapMatrix<>();
 
-        for (MatrixVector<String, Stats> row : stats.rows()) {
+        for (MatrixVector<String, SlimStats> row : statistics.stats.rows()) {
             String category = row.key();
-            for (VectorEntry<String, Stats> cell : row) {
+            for (VectorEntry<String, SlimStats> cell : row) {
                 String featureName = cell.key();
                 sampleMeans.set(featureName, category, cell.value().getMean());
                 standardDeviations.set(featureName, category, cell.value().getStandardDeviation());
             }
         }
 
-        return new NaiveBayesModel(nominalCounts.getMatrix(), categories, sampleMeans, standardDeviations);
+        return new NaiveBayesModel(statistics.nominalCounts, statistics.categories, sampleMeans, standardDeviations);
     }
 
     @Override
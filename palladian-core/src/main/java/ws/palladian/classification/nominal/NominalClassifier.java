@@ -1,26 +1,37 @@
 package ws.palladian.classification.nominal;
 
+import org.apache.commons.lang3.Validate;
 import ws.palladian.core.*;
 import ws.palladian.core.dataset.Dataset;
 import ws.palladian.core.value.NominalValue;
 import ws.palladian.core.value.Value;
 import ws.palladian.helper.collection.CountMatrix;
+import ws.palladian.helper.collection.CountMatrix.IntegerMatrixVector;
 import ws.palladian.helper.collection.Vector.VectorEntry;
 
 import java.util.Set;
 
 /**
+ * Classifier for nominal values, based on the co-occurrences of values and categories. The partial statistics for
+ * {@link MergeableLearner} are the co-occurrence counts.
+ *
  * @author David Urbansky
  * @author Philipp Katz
  */
-public final class NominalClassifier extends AbstractLearner<NominalClassifierModel> implements Classifier<NominalClassifierModel> {
+public final class NominalClassifier extends AbstractLearner<NominalClassifierModel> implements Classifier<NominalClassifierModel>, MergeableLearner<NominalClassifierModel, CountMatrix<String>> {
 
     @Override
     public NominalClassifierModel train(Dataset dataset) {
+        return createModel(trainPartial(dataset));
+    }
+
+    @Override
+    public CountMatrix<String> trainPartial(Dataset partition) {
+        Validate.notNull(partition, "partition must not be null");
 
         CountMatrix<String> cooccurrenceMatrix = CountMatrix.create();
 
-        for (Instance instance : dataset) {
+        for (Instance instance : partition) {
             String categoryName = instance.getCategory();
             FeatureVector featureVector = instance.getVector();
             for (VectorEntry<String, Value> entry : featureVector) {
@@ -31,7 +42,25 @@ public final class NominalClassifier extends AbstractLearner<NominalClassifierMo
             }
         }
 
-        return new NominalClassifierModel(cooccurrenceMatrix);
+        return cooccurrenceMatrix;
+    }
+
+    @Override
+    public CountMatrix<String> merge(CountMatrix<String> statistics1, CountMatrix<String> statistics2) {
+        Validate.notNull(statistics1, "statistics1 must not be null");
+        Validate.notNull(statistics2, "statistics2 must not be null");
+        for (IntegerMatrixVector<String> row : statistics2.rows()) {
+            for (VectorEntry<String, Integer> cell : row) {
+                statistics1.add(cell.key(), row.key(), cell.value());
+            }
+        }
+        return statistics1;
+    }
+
+    @Override
+    public NominalClassifierModel createModel(CountMatrix<String> statistics) {
+        Validate.notNull(statistics, "statistics must not be null");
+        return new NominalClassifierModel(statistics);
     }
 
     @Override
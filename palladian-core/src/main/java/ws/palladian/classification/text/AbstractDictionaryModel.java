@@ -23,6 +23,21 @@ public abstract class AbstractDictionaryModel implements DictionaryModel {
      */
     protected static final int VERSION = 1;
 
+    /** Dense category index used for scoring, created lazily; see {@link #getCategoryIndex()}. */
+    private transient volatile CategoryIndex categoryIndex;
+
+    /**
+     * @return The {@link CategoryIndex} for this model, which is created upon first access.
+     */
+    CategoryIndex getCategoryIndex() {
+        CategoryIndex result = categoryIndex;
+        if (result == null) {
+            result = CategoryIndex.create(this);
+            categoryIndex = result;
+        }
+        return result;
+    }
+
     @Override
     public Set<String> getCategories() {
         return CollectionHelper.convertSet(getDocumentCounts(), new Function<Category, String>() {
@@ -163,26 +178,29 @@ public abstract class AbstractDictionaryModel implements DictionaryModel {
     // of existing models still works (we keep a serialized form of each version from now on for the tests).
 
     protected void writeObject_(ObjectOutputStream out) throws IOException {
-        // map the category names to numeric indices, so that we can use "1" instead of "aVeryLongCategoryName"
-        List<Category> sortedCategories = CollectionHelper.newArrayList(getDocumentCounts());
-        Collections.sort(sortedCategories, new Comparator<Category>() {
-            @Override
-            public int compare(Category c1, Category c2) {
-                return c1.getName().compareTo(c2.getName());
-            }
-        });
+        // map the category names to numeric indices, so that we can use "1" instead of "aVeryLongCategoryName";
+        // consider the categories of the terms as well, as an updatable model can contain terms of a category, of
+        // which all documents have been removed
+        CategoryEntries documentCounts = getDocumentCounts();
+        SortedSet<String> sortedCategories = new TreeSet<>();
+        for (Category category : documentCounts) {
+            sortedCategories.add(category.getName());
+        }
+        for (Category category : getTermCounts()) {
+            sortedCategories.add(category.getName());
+        }
         Map<String, Integer> categoryIndices = new HashMap<>();
         int idx = 0;
-        for (Category category : sortedCategories) {
-            categoryIndices.put(category.getName(), idx++);
+        for (String categoryName : sortedCategories) {
+            categoryIndices.put(categoryName, idx++);
         }
         // version (for being able to provide backwards compatibility from now on)
         out.writeInt(VERSION);
         // header; number of categories; [ (categoryName, count) , ...]
         out.writeInt(sortedCategories.size());
-        for (Category category : sortedCategories) {
-            out.writeObject(category.getName());
-            out.writeInt(category.getCount());
+        for (String categoryName : sortedCategories) {
+            out.writeObject(categoryName);
+            out.writeInt(documentCounts.getCount(categoryName));
         }
         // number of terms; list of terms: [ ( term, numProbabilityEntries, [ (categoryIdx, count), ... ] ), ... ]
         out.writeInt(getNumUniqTerms());
@@ -0,0 +1,63 @@
+package ws.palladian.classification.text;
+
+import ws.palladian.classification.text.PalladianTextClassifier.Scorer;
+
+/**
+ * <p>
+ * A {@link Scorer} which scores non-matches (i.e. term-category combinations with count zero) analytically instead of
+ * one by one. For a scorer which {@link #scoreNonMatches() scores non-matches}, classification usually takes
+ * <code>O(terms × categories)</code>, which becomes prohibitive with thousands of categories. In case the score of a
+ * non-match can be decomposed into a term-dependent and a category-dependent part, like
+ *
+ * <pre>
+ * score(term, category, 0, ...) = termBaseline(term) + termWeight(term) * categoryBaseline(category)
+ * </pre>
+ *
+ * the sum over all non-matching terms of a category can be calculated from the sums over all terms minus the sums over
+ * the terms which matched the category. This way, only the categories which actually co-occur with the terms of a
+ * document are touched per term, and the remaining categories are scored once per document.
+ * <p>
+ * The results are the same as when scoring each non-match individually, except for floating point rounding.
+ *
+ * @author Philipp Katz
+ */
+public interface BaselineScorer extends Scorer {
+
+    /**
+     * @return <code>true</code> in case the non-matches should be scored using the baseline methods, instead of calling
+     * {@link #score(String, String, int, int, int, int, int, int, int)}.
+     */
+    boolean useBaseline();
+
+    /**
+     * The term-dependent summand of a non-match score.
+     *
+     * @param dictCount The absolute count of documents in the dictionary which contain the term.
+     * @param docCount  The absolute count of the term in the current document.
+     * @param numDocs   The total number of documents in the dictionary model.
+     * @return The summand.
+     */
+    double termBaseline(int dictCount, int docCount, int numDocs);
+
+    /**
+     * The term-dependent factor of a non-match score, which is multiplied with the {@link #categoryBaseline(int, int,
+     * int)}.
+     *
+     * @param dictCount The absolute count of documents in the dictionary which contain the term.
+     * @param docCount  The absolute count of the term in the current document.
+     * @param numDocs   The total number of documents in the dictionary model.
+     * @return The factor.
+     */
+    double termWeight(int dictCount, int docCount, int numDocs);
+
+    /**
+     * The category-dependent factor of a non-match score.
+     *
+     * @param categorySum  The absolute count sum of all terms in the category.
+     * @param numUniqTerms The total number of unique terms in the dictionary model.
+     * @param numTerms     The total number of terms in the dictionary model.
+     * @return The factor, or {@link Double#NaN} in case all non-matches score zero for the category.
+     */
+    double categoryBaseline(int categorySum, int numUniqTerms, int numTerms);
+
+}
@@ -0,0 +1,445 @@
+package ws.palladian.classification.text;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.apache.commons.lang3.Validate;
+import ws.palladian.core.Category;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.helper.ThreadHelper;
+import ws.palladian.helper.collection.Trie;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Versioned binary format for {@link DictionaryModel}s, which is considerably faster to load than the Java
+ * serialization via {@link ObjectInputStream}. The format consists of a header with the model type, the name, the
+ * {@link FeatureSetting} properties and the category table with the document and term counts, followed by the
+ * dictionary entries, which are split into chunks of about one megabyte. Each chunk is compressed using LZ4 and is
+ * self-contained (terms are UTF-8 encoded, category indices and counts are variable-length integers), so that the
+ * chunks are decompressed and decoded in parallel when loading; only inserting the decoded entries into the model's
+ * structure is done sequentially. Chunks are inserted as soon as they are decoded, and only a limited number of chunks
+ * is read ahead, so that the memory needed besides the model itself is bounded.
+ * <p>
+ * {@link DictionaryMapModel}s are restored as map models, all other models (except for the
+ * {@link DictionaryHashModel}, which is not supported) as {@link DictionaryTrieModel}. Streams are neither buffered nor
+ * closed by this class, and reading consumes exactly the bytes which were written, so that models can be embedded into
+ * other formats.
+ *
+ * @author Philipp Katz
+ */
+public final class BinaryModelFormat {
+
+    /** Magic number at the beginning of each dictionary, "PDIC". */
+    static final int MAGIC = 0x50444943;
+
+    /**
+     * Version number which is written/checked when reading; if you make incompatible changes, update this constant and
+     * provide backwards compatibility, so that existing models do not break.
+     */
+    static final int VERSION = 1;
+
+    /** Type marker for a {@link DictionaryTrieModel}. */
+    private static final byte TYPE_TRIE = 0;
+
+    /** Type marker for a {@link DictionaryMapModel}. */
+    private static final byte TYPE_MAP = 1;
+
+    /** The approximate size of the uncompressed data in one chunk. */
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    /** The number of threads for decoding the chunks when reading. */
+    private static final int NUM_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /** The maximum number of chunks per thread, which are read ahead and not yet inserted into the model. */
+    private static final int CHUNKS_PER_THREAD = 2;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private BinaryModelFormat() {
+        // no instances
+    }
+
+    /**
+     * Write the given model.
+     *
+     * @param model The model, not <code>null</code>.
+     * @param out   The stream to write to, not <code>null</code>; should be buffered.
+     * @throws IOException In case of an I/O error.
+     */
+    public static void write(DictionaryModel model, OutputStream out) throws IOException {
+        Validate.notNull(model, "model must not be null");
+        Validate.notNull(out, "out must not be null");
+        Validate.isTrue(!(model instanceof DictionaryHashModel), "DictionaryHashModel is not supported");
+        DataOutputStream dataOut = out instanceof DataOutputStream ? (DataOutputStream) out : new DataOutputStream(out);
+        dataOut.writeInt(MAGIC);
+        dataOut.writeInt(VERSION);
+        dataOut.writeByte(model instanceof DictionaryMapModel ? TYPE_MAP : TYPE_TRIE);
+        writeNullableString(model.getName(), dataOut);
+        FeatureSetting featureSetting = model.getFeatureSetting();
+        dataOut.writeBoolean(featureSetting != null);
+        if (featureSetting != null) {
+            Map<String, String> properties = new TreeMap<>(featureSetting.toMap());
+            // not contained in FeatureSetting#toMap, as they are not considered for equality
+            properties.put(FeatureSetting.PROPERTY_USE_TOKEN_COMBINATIONS, String.valueOf(featureSetting.isUseTokenCombinations()));
+            properties.put(FeatureSetting.PROPERTY_TOKEN_COMBINATIONS_MIN_TERM_LENGTH, String.valueOf(featureSetting.getTokenCombinationMinNgram()));
+            properties.put(FeatureSetting.PROPERTY_TOKEN_COMBINATIONS_MAX_TERM_LENGTH, String.valueOf(featureSetting.getTokenCombinationMaxNgram()));
+            dataOut.writeInt(properties.size());
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                dataOut.writeUTF(property.getKey());
+                dataOut.writeUTF(property.getValue());
+            }
+        }
+        // category table; document and term counts refer to the category indices
+        Map<String, Integer> categoryIndices = new LinkedHashMap<>();
+        CategoryEntries documentCounts = model.getDocumentCounts();
+        CategoryEntries termCounts = model.getTermCounts();
+        for (Category category : documentCounts) {
+            categoryIndices.putIfAbsent(category.getName(), categoryIndices.size());
+        }
+        for (Category category : termCounts) {
+            categoryIndices.putIfAbsent(category.getName(), categoryIndices.size());
+        }
+        dataOut.writeInt(categoryIndices.size());
+        for (String categoryName : categoryIndices.keySet()) {
+            dataOut.writeUTF(categoryName);
+        }
+        writeCounts(documentCounts, categoryIndices, dataOut);
+        writeCounts(termCounts, categoryIndices, dataOut);
+        // entries in chunks
+        dataOut.writeInt(model.getNumUniqTerms());
+        ChunkWriter chunkWriter = new ChunkWriter(dataOut);
+        for (DictionaryModel.DictionaryEntry entry : model) {
+            GrowableBytes buffer = chunkWriter.buffer;
+            buffer.writeString(entry.getTerm());
+            CategoryEntries categoryEntries = entry.getCategoryEntries();
+            buffer.writeVarInt(categoryEntries.size());
+            for (Category category : categoryEntries) {
+                Integer categoryIndex = categoryIndices.get(category.getName());
+                if (categoryIndex == null) {
+                    throw new IllegalStateException("Category \"" + category.getName() + "\" of term \"" + entry.getTerm() + "\" is missing in the term counts");
+                }
+                buffer.writeVarInt(categoryIndex);
+                buffer.writeVarInt(category.getCount());
+            }
+            chunkWriter.entryWritten();
+        }
+        chunkWriter.finish();
+        dataOut.flush();
+    }
+
+    /**
+     * Read a model which was written using {@link #write(DictionaryModel, OutputStream)}.
+     *
+     * @param in The stream to read from, not <code>null</code>; should be buffered.
+     * @return The model.
+     * @throws IOException In case of an I/O error, or if the data is not in the expected format.
+     */
+    public static DictionaryModel read(InputStream in) throws IOException {
+        Validate.notNull(in, "in must not be null");
+        DataInputStream dataIn = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+        if (dataIn.readInt() != MAGIC) {
+            throw new IOException("Not a binary dictionary model");
+        }
+        int version = dataIn.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version: " + version);
+        }
+        byte type = dataIn.readByte();
+        if (type != TYPE_TRIE && type != TYPE_MAP) {
+            throw new IOException("Unsupported model type: " + type);
+        }
+        String name = readNullableString(dataIn);
+        FeatureSetting featureSetting = null;
+        if (dataIn.readBoolean()) {
+            int numProperties = dataIn.readInt();
+            Map<String, String> properties = new HashMap<>();
+            for (int i = 0; i < numProperties; i++) {
+                properties.put(dataIn.readUTF(), dataIn.readUTF());
+            }
+            featureSetting = new FeatureSetting(properties);
+        }
+        String[] categoryNames = new String[dataIn.readInt()];
+        for (int i = 0; i < categoryNames.length; i++) {
+            categoryNames[i] = dataIn.readUTF();
+        }
+        CategoryEntries documentCounts = readCounts(categoryNames, dataIn);
+        CategoryEntries termCounts = readCounts(categoryNames, dataIn);
+        int numTerms = dataIn.readInt();
+        if (type == TYPE_MAP) {
+            Map<String, LinkedCategoryEntries> dictionary = new HashMap<>(Math.max(16, (int) (numTerms / .75f) + 1));
+            readChunks(dataIn, categoryNames, chunk -> {
+                for (int i = 0; i < chunk.terms.length; i++) {
+                    dictionary.put(chunk.terms[i], chunk.entries[i]);
+                }
+            });
+            return new DictionaryMapModel(name, featureSetting, dictionary, documentCounts, termCounts);
+        }
+        Trie<LinkedCategoryEntries> entryTrie = new Trie<>();
+        readChunks(dataIn, categoryNames, chunk -> {
+            for (int i = 0; i < chunk.terms.length; i++) {
+                entryTrie.put(chunk.terms[i], chunk.entries[i]);
+            }
+        });
+        return new DictionaryTrieModel(entryTrie.freeze(), numTerms, featureSetting, name, documentCounts, termCounts);
+    }
+
+    /**
+     * Write a collection of strings as LZ4 compressed chunks.
+     *
+     * @param strings The strings, not <code>null</code>; the strings must not be <code>null</code>.
+     * @param out     The stream to write to, not <code>null</code>.
+     * @throws IOException In case of an I/O error.
+     */
+    public static void writeStrings(Collection<String> strings, DataOutputStream out) throws IOException {
+        Validate.notNull(strings, "strings must not be null");
+        Validate.notNull(out, "out must not be null");
+        out.writeInt(strings.size());
+        ChunkWriter chunkWriter = new ChunkWriter(out);
+        for (String string : strings) {
+            chunkWriter.buffer.writeString(string);
+            chunkWriter.entryWritten();
+        }
+        chunkWriter.finish();
+    }
+
+    /**
+     * Read strings which were written using {@link #writeStrings(Collection, DataOutputStream)}.
+     *
+     * @param in The stream to read from, not <code>null</code>.
+     * @return The strings, in the order in which they were written.
+     * @throws IOException In case of an I/O error.
+     */
+    public static List<String> readStrings(DataInputStream in) throws IOException {
+        Validate.notNull(in, "in must not be null");
+        int numStrings = in.readInt();
+        List<String> strings = new ArrayList<>(numStrings);
+        readChunks(in, null, chunk -> strings.addAll(Arrays.asList(chunk.terms)));
+        return strings;
+    }
+
+    private static void writeNullableString(String string, DataOutputStream out) throws IOException {
+        out.writeBoolean(string != null);
+        if (string != null) {
+            out.writeUTF(string);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeCounts(CategoryEntries counts, Map<String, Integer> categoryIndices, DataOutputStream out) throws IOException {
+        out.writeInt(counts.size());
+        for (Category category : counts) {
+            out.writeInt(categoryIndices.get(category.getName()));
+            out.writeInt(category.getCount());
+        }
+    }
+
+    private static CategoryEntries readCounts(String[] categoryNames, DataInputStream in) throws IOException {
+        CountingCategoryEntriesBuilder builder = new CountingCategoryEntriesBuilder();
+        int numCounts = in.readInt();
+        for (int i = 0; i < numCounts; i++) {
+            String categoryName = categoryNames[in.readInt()];
+            builder.set(categoryName, in.readInt());
+        }
+        return builder.create();
+    }
+
+    /**
+     * Read the compressed chunks up to the terminating empty chunk. The chunks are decoded on worker threads and passed
+     * to the consumer on the calling thread in the order in which they were written; reading waits for the oldest
+     * chunk, when the maximum number of chunks is pending.
+     *
+     * @param in            The stream to read from.
+     * @param categoryNames The category names, or <code>null</code> in case the chunks contain only strings.
+     * @param consumer      Receives the decoded chunks.
+     * @throws IOException In case of an I/O error, or if a chunk cannot be decoded.
+     */
+    private static void readChunks(DataInputStream in, String[] categoryNames, Consumer<DecodedChunk> consumer) throws IOException {
+        ExecutorService executor = ThreadHelper.newDaemonThreadPool(NUM_THREADS, BinaryModelFormat.class.getSimpleName());
+        Deque<Future<DecodedChunk>> pendingChunks = new ArrayDeque<>();
+        try {
+            for (; ; ) {
+                int numEntries = in.readInt();
+                if (numEntries == 0) {
+                    break;
+                }
+                int length = in.readInt();
+                byte[] compressed = new byte[in.readInt()];
+                in.readFully(compressed);
+                CompressedChunk chunk = new CompressedChunk(numEntries, length, compressed);
+                pendingChunks.add(executor.submit(() -> chunk.decode(categoryNames)));
+                if (pendingChunks.size() >= CHUNKS_PER_THREAD * NUM_THREADS) {
+                    consumer.accept(pendingChunks.poll().get());
+                }
+            }
+            while (!pendingChunks.isEmpty()) {
+                consumer.accept(pendingChunks.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading chunks");
+        } catch (ExecutionException e) {
+            throw new IOException("Could not decode chunk", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Collects the entries in a buffer and writes it as compressed chunk when it is full; the chunks are terminated by
+     * a chunk without entries.
+     */
+    private static final class ChunkWriter {
+        final GrowableBytes buffer = new GrowableBytes();
+        final DataOutputStream out;
+        final LZ4Compressor compressor = LZ4.fastCompressor();
+        int numEntries;
+
+        ChunkWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void entryWritten() throws IOException {
+            numEntries++;
+            if (buffer.length >= CHUNK_SIZE) {
+                flushChunk();
+            }
+        }
+
+        void flushChunk() throws IOException {
+            byte[] compressed = compressor.compress(buffer.bytes, 0, buffer.length);
+            out.writeInt(numEntries);
+            out.writeInt(buffer.length);
+            out.writeInt(compressed.length);
+            out.write(compressed);
+            buffer.length = 0;
+            numEntries = 0;
+        }
+
+        void finish() throws IOException {
+            if (numEntries > 0) {
+                flushChunk();
+            }
+            out.writeInt(0);
+        }
+    }
+
+    private static final class CompressedChunk {
+        final int numEntries;
+        final int length;
+        final byte[] compressed;
+
+        CompressedChunk(int numEntries, int length, byte[] compressed) {
+            this.numEntries = numEntries;
+            this.length = length;
+            this.compressed = compressed;
+        }
+
+        /**
+         * Decompress and decode the chunk.
+         *
+         * @param categoryNames The category names, or <code>null</code> in case the chunk contains only strings.
+         */
+        DecodedChunk decode(String[] categoryNames) {
+            byte[] bytes = new byte[length];
+            LZ4FastDecompressor decompressor = LZ4.fastDecompressor();
+            decompressor.decompress(compressed, 0, bytes, 0, length);
+            ByteReader reader = new ByteReader(bytes);
+            String[] terms = new String[numEntries];
+            LinkedCategoryEntries[] entries = categoryNames != null ? new LinkedCategoryEntries[numEntries] : null;
+            for (int i = 0; i < numEntries; i++) {
+                terms[i] = reader.readString();
+                if (entries != null) {
+                    LinkedCategoryEntries categoryEntries = new LinkedCategoryEntries();
+                    int numCategories = reader.readVarInt();
+                    for (int j = 0; j < numCategories; j++) {
+                        String categoryName = categoryNames[reader.readVarInt()];
+                        categoryEntries.append(categoryName, reader.readVarInt());
+                    }
+                    entries[i] = categoryEntries;
+                }
+            }
+            return new DecodedChunk(terms, entries);
+        }
+    }
+
+    private static final class DecodedChunk {
+        final String[] terms;
+        final LinkedCategoryEntries[] entries;
+
+        DecodedChunk(String[] terms, LinkedCategoryEntries[] entries) {
+            this.terms = terms;
+            this.entries = entries;
+        }
+    }
+
+    /** Growable byte array with variable-length integers and UTF-8 strings. */
+    private static final class GrowableBytes {
+        byte[] bytes = new byte[CHUNK_SIZE + 1024];
+        int length;
+
+        void writeVarInt(int value) {
+            ensureCapacity(5);
+            int remaining = value;
+            while ((remaining & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            bytes[length++] = (byte) remaining;
+        }
+
+        void writeString(String string) {
+            byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, bytes, length, utf8.length);
+            length += utf8.length;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (length + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+            }
+        }
+    }
+
+    /** Reads the values written by the {@link GrowableBytes}. */
+    private static final class ByteReader {
+        final byte[] bytes;
+        int position;
+
+        ByteReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = bytes[position++];
+                value |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+
+        String readString() {
+            int utf8Length = readVarInt();
+            String string = new String(bytes, position, utf8Length, StandardCharsets.UTF_8);
+            position += utf8Length;
+            return string;
+        }
+    }
+
+}
@@ -0,0 +1,23 @@
+package ws.palladian.classification.text;
+
+import ws.palladian.core.Category;
+import ws.palladian.core.CategoryEntries;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * {@link CategoryEntries} which allow to visit their category names and counts without creating intermediate
+ * {@link Category} instances. This is used by the {@link ScoreAccumulator} to avoid allocations during classification.
+ *
+ * @author Philipp Katz
+ */
+interface CategoryCounts extends CategoryEntries {
+
+    /**
+     * Pass the name and count of each category to the given consumer.
+     *
+     * @param consumer The consumer, not <code>null</code>.
+     */
+    void forEachCount(ObjIntConsumer<String> consumer);
+
+}
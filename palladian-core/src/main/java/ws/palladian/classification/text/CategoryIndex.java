@@ -0,0 +1,86 @@
+package ws.palladian.classification.text;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import ws.palladian.core.Category;
+import ws.palladian.core.CategoryEntries;
+
+/**
+ * Assigns a dense int index to each category of a {@link DictionaryModel}, and keeps the per-category values which
+ * are needed during scoring (term sums and priors) in arrays, so that the {@link ScoreAccumulator} can work with plain
+ * <code>double[]</code> accumulators instead of maps keyed by category names. Instances are created once per model,
+ * see {@link AbstractDictionaryModel#getCategoryIndex()}.
+ *
+ * @author Philipp Katz
+ */
+final class CategoryIndex {
+
+    /** The category names, position in the array is the index. */
+    final String[] names;
+
+    /** Category counts based on the terms, see {@link DictionaryModel#getTermCounts()}. */
+    final int[] termSums;
+
+    /** Whether a category is present in the term counts. */
+    final boolean[] inTermCounts;
+
+    /** Category probabilities based on the documents, see {@link DictionaryModel#getDocumentCounts()}. */
+    final double[] priors;
+
+    /** Whether a category is present in the document counts. */
+    final boolean[] inDocumentCounts;
+
+    private final Object2IntOpenHashMap<String> indices;
+
+    private CategoryIndex(CategoryEntries documentCounts, CategoryEntries termCounts) {
+        indices = new Object2IntOpenHashMap<>();
+        indices.defaultReturnValue(-1);
+        for (Category category : documentCounts) {
+            indices.putIfAbsent(category.getName(), indices.size());
+        }
+        for (Category category : termCounts) {
+            indices.putIfAbsent(category.getName(), indices.size());
+        }
+        int numCategories = indices.size();
+        names = new String[numCategories];
+        termSums = new int[numCategories];
+        inTermCounts = new boolean[numCategories];
+        priors = new double[numCategories];
+        inDocumentCounts = new boolean[numCategories];
+        for (Category category : documentCounts) {
+            int index = indices.getInt(category.getName());
+            names[index] = category.getName();
+            priors[index] = category.getProbability();
+            inDocumentCounts[index] = true;
+        }
+        for (Category category : termCounts) {
+            int index = indices.getInt(category.getName());
+            names[index] = category.getName();
+            termSums[index] = category.getCount();
+            inTermCounts[index] = true;
+        }
+    }
+
+    static CategoryIndex create(DictionaryModel model) {
+        return new CategoryIndex(model.getDocumentCounts(), model.getTermCounts());
+    }
+
+    static CategoryIndex create(CategoryEntries documentCounts, CategoryEntries termCounts) {
+        return new CategoryIndex(documentCounts, termCounts);
+    }
+
+    /**
+     * @param categoryName The category name.
+     * @return The index of the category, or <code>-1</code> in case the category is unknown.
+     */
+    int indexOf(String categoryName) {
+        return indices.getInt(categoryName);
+    }
+
+    /**
+     * @return The number of categories.
+     */
+    int size() {
+        return names.length;
+    }
+
+}
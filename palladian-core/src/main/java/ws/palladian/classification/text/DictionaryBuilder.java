@@ -7,11 +7,30 @@ import java.util.Collection;
 import java.util.function.Predicate;
 
 /**
- * Builder for a {@link DictionaryModel}.
+ * Builder for a {@link DictionaryModel}. A builder can be reused: {@link #create()} resets the collected data, so that
+ * each model only contains the data which was added since the previous invocation.
  *
  * @author Philipp Katz
  */
 public interface DictionaryBuilder extends Factory<DictionaryModel> {
+    /**
+     * Create the model from the data added so far. The model is independent of the builder: afterwards, the builder's
+     * terms and counts are reset, so that subsequently added data does not affect the created model, and the builder
+     * starts from scratch for the next model. The settings (name, feature setting, pruning strategy) are kept.
+     *
+     * @return The model.
+     */
+    @Override
+    DictionaryModel create();
+
+    /**
+     * Create a new, empty builder of the same type with the same settings (name, feature setting, pruning strategy),
+     * e.g. for creating several models independently of each other.
+     *
+     * @return The new builder.
+     */
+    DictionaryBuilder newBuilder();
+
     /**
      * Set the name of the dictionary.
      *
@@ -64,4 +83,16 @@ public interface DictionaryBuilder extends Factory<DictionaryModel> {
      */
     DictionaryBuilder addDictionary(DictionaryModel model);
 
+    /**
+     * Adds the content of another builder, e.g. of a partial dictionary which was built in parallel. The default
+     * implementation creates the model of the given builder and adds it via {@link #addDictionary(DictionaryModel)};
+     * builders can override this to merge the data of a builder of the same type directly.
+     *
+     * @param builder The builder to add, without pruning strategy, not <code>null</code>.
+     * @return The builder instance.
+     */
+    default DictionaryBuilder addBuilder(DictionaryBuilder builder) {
+        return addDictionary(builder.create());
+    }
+
 }
@@ -0,0 +1,403 @@
+package ws.palladian.classification.text;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ws.palladian.core.Category;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.extraction.token.CharacterNGramHasher;
+import ws.palladian.helper.collection.AbstractIterator2;
+import ws.palladian.helper.collection.CollectionHelper;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.text.NumberFormat;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * Model implementation for the {@link PalladianTextClassifier} with {@link FeatureSetting#isFeatureHashing() feature
+ * hashing}. Instead of the terms, the dictionary only stores their 64-bit hashes as calculated by the
+ * {@link CharacterNGramHasher}, in a primitive {@link Long2ObjectOpenHashMap}. This saves the memory for the term
+ * strings (and the trie nodes), which make up for the biggest part of a character n-gram model, at the cost of
+ * (rare) hash collisions, see {@link FeatureSettingBuilder#featureHashing()}.
+ * <p>
+ * Through the {@link DictionaryModel} interface, the hashes are represented as terms in hexadecimal notation (see
+ * {@link #toTerm(long)}), which is also what the {@link Preprocessor} creates in feature hashing mode. This way, the
+ * model can be used like any other dictionary model, while the {@link PalladianTextClassifier} uses the primitive
+ * methods {@link Builder#addDocument(LongCollection, String, int)} and {@link #getCategoryEntries(long)} directly.
+ *
+ * @author Philipp Katz
+ */
+public final class DictionaryHashModel extends AbstractDictionaryModel {
+    public static final class Builder implements DictionaryBuilder {
+
+        /** The logger for this class. */
+        private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryHashModel.Builder.class);
+
+        /** Hash-category combinations with their counts. */
+        private Long2ObjectOpenHashMap<LinkedCategoryEntries> dictionary = new Long2ObjectOpenHashMap<>();
+        /** Counter for categories based on documents. */
+        private final CountingCategoryEntriesBuilder documentCountBuilder = new CountingCategoryEntriesBuilder();
+        /** Counter for categories based on terms. */
+        private final CountingCategoryEntriesBuilder termCountBuilder = new CountingCategoryEntriesBuilder();
+        /** Configuration for the feature extraction. */
+        private FeatureSetting featureSetting;
+        /** The name of this dictionary. */
+        private String name;
+        /** The pruning strategies to apply when creating the model. */
+        private Predicate<? super CategoryEntries> pruningStrategy;
+
+        @Override
+        public DictionaryBuilder setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        @Override
+        public DictionaryBuilder setFeatureSetting(FeatureSetting featureSetting) {
+            this.featureSetting = featureSetting;
+            return this;
+        }
+
+        @Override
+        public DictionaryBuilder addDocument(Collection<String> terms, String category) {
+            return addDocument(terms, category, 1);
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @param terms The terms as hashes in hexadecimal notation, see {@link DictionaryHashModel#toTerm(long)}.
+         * @throws IllegalArgumentException In case a term is no valid hash.
+         */
+        @Override
+        public DictionaryBuilder addDocument(Collection<String> terms, String category, int weight) {
+            Validate.notNull(terms, "terms must not be null");
+            Validate.notNull(category, "category must not be null");
+            Validate.isTrue(weight >= 1, "weight must be equal/greater one");
+            for (String term : terms) {
+                addTerm(toHash(term), category, weight);
+            }
+            documentCountBuilder.add(category, weight);
+            return this;
+        }
+
+        /**
+         * Add a document given by the hashes of its terms.
+         *
+         * @param hashes   The (unique) hashes of the terms in the document, not <code>null</code>.
+         * @param category The category of the document, not <code>null</code>.
+         * @param weight   The weight of the document, equal/greater one.
+         * @return The builder, to allow method chaining.
+         */
+        public DictionaryBuilder addDocument(LongCollection hashes, String category, int weight) {
+            Validate.notNull(hashes, "hashes must not be null");
+            Validate.notNull(category, "category must not be null");
+            Validate.isTrue(weight >= 1, "weight must be equal/greater one");
+            for (LongIterator iterator = hashes.iterator(); iterator.hasNext(); ) {
+                addTerm(iterator.nextLong(), category, weight);
+            }
+            documentCountBuilder.add(category, weight);
+            return this;
+        }
+
+        private void addTerm(long hash, String category, int count) {
+            LinkedCategoryEntries entries = dictionary.get(hash);
+            if (entries == null) {
+                entries = new LinkedCategoryEntries();
+                dictionary.put(hash, entries);
+            }
+            entries.increment(category, count);
+            termCountBuilder.add(category, count);
+        }
+
+        @Override
+        public DictionaryModel create() {
+            if (pruningStrategy != null) {
+                int numTerms = dictionary.size();
+                dictionary.values().removeIf(entries -> !pruningStrategy.test(entries));
+                int numRemoved = numTerms - dictionary.size();
+                double percentageRemoved = 100. * numRemoved / numTerms;
+                NumberFormat format = NumberFormat.getInstance(Locale.US);
+                LOGGER.info("Removed {} % terms ({}) with {}", format.format(percentageRemoved), numRemoved, pruningStrategy);
+                // re-calculate term counts
+                termCountBuilder.clear();
+                for (LinkedCategoryEntries entries : dictionary.values()) {
+                    termCountBuilder.add(entries);
+                }
+            }
+            dictionary.trim();
+            DictionaryHashModel model = new DictionaryHashModel(this);
+            // hand the map over to the model, so that further changes to the builder do not affect it
+            dictionary = new Long2ObjectOpenHashMap<>();
+            documentCountBuilder.clear();
+            termCountBuilder.clear();
+            return model;
+        }
+
+        @Override
+        public Builder newBuilder() {
+            Builder builder = new Builder();
+            builder.name = name;
+            builder.featureSetting = featureSetting;
+            builder.pruningStrategy = pruningStrategy;
+            return builder;
+        }
+
+        @Override
+        public DictionaryBuilder setPruningStrategy(Predicate<? super CategoryEntries> strategy) {
+            Validate.notNull(strategy, "strategy must not be null");
+            this.pruningStrategy = strategy;
+            return this;
+        }
+
+        @Override
+        public DictionaryBuilder addDictionary(DictionaryModel model) {
+            Validate.notNull(model, "model must not be null");
+            if (model instanceof DictionaryHashModel) {
+                // merge directly, without going through the hexadecimal terms
+                for (Long2ObjectMap.Entry<LinkedCategoryEntries> addEntry : ((DictionaryHashModel) model).dictionary.long2ObjectEntrySet()) {
+                    LinkedCategoryEntries entries = dictionary.computeIfAbsent(addEntry.getLongKey(), h -> new LinkedCategoryEntries());
+                    addEntry.getValue().forEachCount(entries::increment);
+                }
+            } else {
+                for (DictionaryEntry addEntry : model) {
+                    LinkedCategoryEntries entries = dictionary.computeIfAbsent(toHash(addEntry.getTerm()), h -> new LinkedCategoryEntries());
+                    for (Category addCategory : addEntry.getCategoryEntries()) {
+                        entries.increment(addCategory.getName(), addCategory.getCount());
+                    }
+                }
+            }
+            documentCountBuilder.add(model.getDocumentCounts());
+            termCountBuilder.add(model.getTermCounts());
+            return this;
+        }
+
+    }
+
+    /**
+     * Do not change this from now on, use the {@link #VERSION} instead, if you make incompatible changes, and ensure
+     * backwards compatibility.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /** Number of characters of a hash in hexadecimal notation. */
+    private static final int TERM_LENGTH = 16;
+
+    /** Hash-category combinations with their counts. */
+    private transient Long2ObjectOpenHashMap<LinkedCategoryEntries> dictionary;
+
+    /** The priors, determined from the documents. */
+    private transient CategoryEntries documentCounts;
+
+    /** The priors, determined from the individual terms. */
+    private transient CategoryEntries termCounts;
+
+    /** Configuration for the feature extraction. */
+    private transient FeatureSetting featureSetting;
+
+    /** The optional name of the model. */
+    private transient String name;
+
+    /** Constructor invoked from the builder only. */
+    private DictionaryHashModel(Builder builder) {
+        this.dictionary = builder.dictionary;
+        this.featureSetting = builder.featureSetting;
+        this.name = builder.name;
+        this.documentCounts = builder.documentCountBuilder.create();
+        this.termCounts = builder.termCountBuilder.create();
+    }
+
+    /**
+     * Convert a hash to its term representation.
+     *
+     * @param hash The hash.
+     * @return The hash in hexadecimal notation, padded with zeros to sixteen characters.
+     */
+    public static String toTerm(long hash) {
+        String hex = Long.toHexString(hash);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * Convert a term as created by {@link #toTerm(long)} back to the hash.
+     *
+     * @param term The term, not <code>null</code>.
+     * @return The hash.
+     * @throws IllegalArgumentException In case the term is no valid hash.
+     */
+    public static long toHash(String term) {
+        Validate.notNull(term, "term must not be null");
+        Validate.isTrue(term.length() == TERM_LENGTH, "term must be a hexadecimal hash, but was '%s'", term);
+        try {
+            return Long.parseUnsignedLong(term, 16);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("term must be a hexadecimal hash, but was '" + term + "'", e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public FeatureSetting getFeatureSetting() {
+        return featureSetting;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param term The term, as hash in hexadecimal notation; for any other value, empty entries are returned.
+     */
+    @Override
+    public CategoryEntries getCategoryEntries(String term) {
+        Validate.notNull(term, "term must not be null");
+        if (term.length() != TERM_LENGTH) {
+            return CategoryEntries.EMPTY;
+        }
+        long hash;
+        try {
+            hash = Long.parseUnsignedLong(term, 16);
+        } catch (NumberFormatException e) {
+            return CategoryEntries.EMPTY;
+        }
+        return getCategoryEntries(hash);
+    }
+
+    /**
+     * Get the category entries for a term given by its hash.
+     *
+     * @param hash The hash of the term.
+     * @return The category entries, or {@link CategoryEntries#EMPTY} in case the hash is not in the dictionary.
+     */
+    public CategoryEntries getCategoryEntries(long hash) {
+        LinkedCategoryEntries entries = dictionary.get(hash);
+        return entries != null ? entries : CategoryEntries.EMPTY;
+    }
+
+    @Override
+    public int getNumUniqTerms() {
+        return dictionary.size();
+    }
+
+    @Override
+    public CategoryEntries getDocumentCounts() {
+        return documentCounts;
+    }
+
+    @Override
+    public CategoryEntries getTermCounts() {
+        return termCounts;
+    }
+
+    @Override
+    public Iterator<DictionaryEntry> iterator() {
+        return new AbstractIterator2<DictionaryEntry>() {
+            final ObjectIterator<Long2ObjectMap.Entry<LinkedCategoryEntries>> iterator = dictionary.long2ObjectEntrySet().fastIterator();
+
+            @Override
+            protected DictionaryEntry getNext() {
+                if (iterator.hasNext()) {
+                    Long2ObjectMap.Entry<LinkedCategoryEntries> entry = iterator.next();
+                    return new ImmutableDictionaryEntry(toTerm(entry.getLongKey()), entry.getValue());
+                }
+                return finished();
+            }
+        };
+    }
+
+    // serialization code
+
+    // Implementation note: in case you make any incompatible changes to the serialization protocol, provide backwards
+    // compatibility by using the #VERSION constant. Add a test case for the new version and make sure, deserialization
+    // of existing models still works (we keep a serialized form of each version from now on for the tests).
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        // same layout as AbstractDictionaryModel#writeObject_, but the terms are written as primitive longs
+        List<Category> sortedCategories = CollectionHelper.newArrayList(getDocumentCounts());
+        sortedCategories.sort(Comparator.comparing(Category::getName));
+        Map<String, Integer> categoryIndices = new HashMap<>();
+        int idx = 0;
+        for (Category category : sortedCategories) {
+            categoryIndices.put(category.getName(), idx++);
+        }
+        // version
+        out.writeInt(VERSION);
+        // header; number of categories; [ (categoryName, count) , ...]
+        out.writeInt(sortedCategories.size());
+        for (Category category : sortedCategories) {
+            out.writeObject(category.getName());
+            out.writeInt(category.getCount());
+        }
+        // number of hashes; list of hashes: [ ( hash, numProbabilityEntries, [ (categoryIdx, count), ... ] ), ... ]
+        out.writeInt(dictionary.size());
+        for (Long2ObjectMap.Entry<LinkedCategoryEntries> entry : dictionary.long2ObjectEntrySet()) {
+            out.writeLong(entry.getLongKey());
+            LinkedCategoryEntries categoryEntries = entry.getValue();
+            int numEntries = 0;
+            for (Category ignored : categoryEntries) {
+                numEntries++;
+            }
+            out.writeInt(numEntries);
+            for (Category category : categoryEntries) {
+                out.writeInt(categoryIndices.get(category.getName()));
+                out.writeInt(category.getCount());
+            }
+        }
+        // feature setting
+        out.writeObject(getFeatureSetting());
+        // name
+        out.writeObject(getName());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        // version
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version: " + version);
+        }
+        // header
+        int numCategories = in.readInt();
+        String[] categoryNames = new String[numCategories];
+        CountingCategoryEntriesBuilder documentCountBuilder = new CountingCategoryEntriesBuilder();
+        for (int i = 0; i < numCategories; i++) {
+            String categoryName = (String) in.readObject();
+            int categoryCount = in.readInt();
+            documentCountBuilder.set(categoryName, categoryCount);
+            categoryNames[i] = categoryName;
+        }
+        documentCounts = documentCountBuilder.create();
+        // hashes
+        int numTerms = in.readInt();
+        dictionary = new Long2ObjectOpenHashMap<>(numTerms);
+        CountingCategoryEntriesBuilder termCountBuilder = new CountingCategoryEntriesBuilder();
+        for (int i = 0; i < numTerms; i++) {
+            long hash = in.readLong();
+            LinkedCategoryEntries entries = new LinkedCategoryEntries();
+            dictionary.put(hash, entries);
+            int numProbabilityEntries = in.readInt();
+            for (int j = 0; j < numProbabilityEntries; j++) {
+                String categoryName = categoryNames[in.readInt()];
+                int categoryCount = in.readInt();
+                entries.append(categoryName, categoryCount);
+                termCountBuilder.add(categoryName, categoryCount);
+            }
+        }
+        termCounts = termCountBuilder.create();
+        // feature setting
+        featureSetting = (FeatureSetting) in.readObject();
+        // name
+        name = (String) in.readObject();
+    }
+
+}
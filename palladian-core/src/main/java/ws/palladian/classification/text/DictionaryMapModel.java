@@ -1,6 +1,7 @@
 package ws.palladian.classification.text;
 
 import org.apache.commons.lang3.Validate;
+import ws.palladian.core.Category;
 import ws.palladian.core.CategoryEntries;
 import ws.palladian.helper.collection.AbstractIterator2;
 
@@ -29,7 +30,20 @@ public class DictionaryMapModel extends AbstractDictionaryModel {
 
         @Override
         public DictionaryModel create() {
-            return new DictionaryMapModel(this);
+            DictionaryMapModel model = new DictionaryMapModel(this);
+            // hand the map over to the model; the builder starts from scratch
+            dictionary = new HashMap<>();
+            documentCountBuilder.clear();
+            termCountBuilder.clear();
+            return model;
+        }
+
+        @Override
+        public Builder newBuilder() {
+            Builder builder = new Builder();
+            builder.name = name;
+            builder.featureSetting = featureSetting;
+            return builder;
         }
 
         @Override
@@ -71,7 +85,16 @@ public class DictionaryMapModel extends AbstractDictionaryModel {
 
         @Override
         public DictionaryBuilder addDictionary(DictionaryModel model) {
-            throw new UnsupportedOperationException();
+            Validate.notNull(model, "model must not be null");
+            for (DictionaryEntry addEntry : model) {
+                LinkedCategoryEntries entries = dictionary.computeIfAbsent(addEntry.getTerm(), t -> new LinkedCategoryEntries());
+                for (Category addCategory : addEntry.getCategoryEntries()) {
+                    entries.increment(addCategory.getName(), addCategory.getCount());
+                }
+            }
+            documentCountBuilder.add(model.getDocumentCounts());
+            termCountBuilder.add(model.getTermCounts());
+            return this;
         }
 
     }
@@ -84,11 +107,16 @@ public class DictionaryMapModel extends AbstractDictionaryModel {
 
     /** Invoked from the {@link Builder}. */
     private DictionaryMapModel(Builder builder) {
-        this.name = builder.name;
-        this.featureSetting = builder.featureSetting;
-        this.dictionary = builder.dictionary;
-        this.documentCounts = builder.documentCountBuilder.create();
-        this.termCounts = builder.termCountBuilder.create();
+        this(builder.name, builder.featureSetting, builder.dictionary, builder.documentCountBuilder.create(), builder.termCountBuilder.create());
+    }
+
+    /** Invoked from the {@link Builder} and the {@link BinaryModelFormat}. */
+    DictionaryMapModel(String name, FeatureSetting featureSetting, Map<String, LinkedCategoryEntries> dictionary, CategoryEntries documentCounts, CategoryEntries termCounts) {
+        this.name = name;
+        this.featureSetting = featureSetting;
+        this.dictionary = dictionary;
+        this.documentCounts = documentCounts;
+        this.termCounts = termCounts;
     }
 
     @Override
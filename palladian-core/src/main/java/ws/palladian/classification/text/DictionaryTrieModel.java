@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import ws.palladian.core.Category;
 import ws.palladian.core.CategoryEntries;
 import ws.palladian.helper.collection.AbstractIterator2;
+import ws.palladian.helper.collection.CompactTrie;
 import ws.palladian.helper.collection.Trie;
 
 import java.io.IOException;
@@ -25,7 +26,8 @@ import java.util.function.Predicate;
  * node links to its parent and to its children, further, it maintains a linked list for category probabilities, in case
  * the term belongs to the dictionary. In comparison to the former, "naive" implementation using nested hash maps, the
  * memory consumption is lowered to approximately 1/3, because the trie allows sharing common prefixes, which typically
- * occur when extracting high amounts of n-grams.
+ * occur when extracting high amounts of n-grams. When the model is created, the builder's trie is converted into a
+ * read-only {@link CompactTrie}, which further reduces the memory and allows lookups without object allocations.
  * <p>
  * The following image gives an overview over the internal structure. The dictionary contains the terms "foo", "tea",
  * "the", and "theme", for each of those terms, LinkedCategories are maintained, which keep the occurrence counts of the
@@ -42,7 +44,7 @@ public final class DictionaryTrieModel extends AbstractDictionaryModel {
         private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryTrieModel.Builder.class);
 
         /** Trie with term-category combinations with their counts. */
-        private final Trie<LinkedCategoryEntries> entryTrie = new Trie<>();
+        private Trie<LinkedCategoryEntries> entryTrie = new Trie<>();
         /** Counter for categories based on documents. */
         private final CountingCategoryEntriesBuilder documentCountBuilder = new CountingCategoryEntriesBuilder();
         /** Counter for categories based on terms. */
@@ -117,7 +119,22 @@ public final class DictionaryTrieModel extends AbstractDictionaryModel {
             for (Entry<String, LinkedCategoryEntries> entry : entryTrie) {
                 termCountBuilder.add(entry.getValue());
             }
-            return new DictionaryTrieModel(this);
+            DictionaryTrieModel model = new DictionaryTrieModel(this);
+            // release the mutable trie, the model only keeps the frozen copy; the builder starts from scratch
+            entryTrie = new Trie<>();
+            numTerms = 0;
+            documentCountBuilder.clear();
+            termCountBuilder.clear();
+            return model;
+        }
+
+        @Override
+        public Builder newBuilder() {
+            Builder builder = new Builder();
+            builder.name = name;
+            builder.featureSetting = featureSetting;
+            builder.pruningStrategy = pruningStrategy;
+            return builder;
         }
 
         @Override
@@ -133,17 +150,39 @@ public final class DictionaryTrieModel extends AbstractDictionaryModel {
             for (DictionaryEntry addEntry : model) {
                 String term = addEntry.getTerm();
                 LinkedCategoryEntries entries = entryTrie.getOrPut(term, LinkedCategoryEntries.FACTORY);
+                if (entries.getTotalCount() == 0) { // term was not present before
+                    numTerms++;
+                }
                 for (Category addCategory : addEntry.getCategoryEntries()) {
-                    // TODO really "append" (see JavaDoc), shouldn't this be "add"???
-                    entries.append(addCategory);
+                    // increment instead of append, as the term might already be present when merging dictionaries
+                    entries.increment(addCategory.getName(), addCategory.getCount());
                 }
-                numTerms++;
             }
             documentCountBuilder.add(model.getDocumentCounts());
             termCountBuilder.add(model.getTermCounts());
             return this;
         }
 
+        @Override
+        public DictionaryBuilder addBuilder(DictionaryBuilder builder) {
+            Validate.notNull(builder, "builder must not be null");
+            if (!(builder instanceof Builder)) {
+                return DictionaryBuilder.super.addBuilder(builder);
+            }
+            // merge the mutable tries directly, instead of freezing the other one into a model first
+            Builder other = (Builder) builder;
+            for (Entry<String, LinkedCategoryEntries> addEntry : other.entryTrie) {
+                LinkedCategoryEntries entries = entryTrie.getOrPut(addEntry.getKey(), LinkedCategoryEntries.FACTORY);
+                if (entries.getTotalCount() == 0) { // term was not present before
+                    numTerms++;
+                }
+                addEntry.getValue().forEachCount(entries::increment);
+            }
+            documentCountBuilder.add(other.documentCountBuilder.create());
+            termCountBuilder.add(other.termCountBuilder.create());
+            return this;
+        }
+
     }
 
     /**
@@ -152,8 +191,8 @@ public final class DictionaryTrieModel extends AbstractDictionaryModel {
      */
     private static final long serialVersionUID = 4L;
 
-    /** Trie with term-category combinations with their counts. */
-    private transient Trie<LinkedCategoryEntries> entryTrie;
+    /** Trie with term-category combinations with their counts; frozen for compact storage and fast lookup. */
+    private transient CompactTrie<LinkedCategoryEntries> entryTrie;
 
     /** The priors, determined from the documents. */
     private transient CategoryEntries documentCounts;
@@ -172,12 +211,17 @@ public final class DictionaryTrieModel extends AbstractDictionaryModel {
 
     /** Constructor invoked from the builder only. */
     private DictionaryTrieModel(Builder builder) {
-        this.entryTrie = builder.entryTrie;
-        this.numTerms = builder.numTerms;
-        this.featureSetting = builder.featureSetting;
-        this.name = builder.name;
-        this.documentCounts = builder.documentCountBuilder.create();
-        this.termCounts = builder.termCountBuilder.create();
+        this(builder.entryTrie.freeze(), builder.numTerms, builder.featureSetting, builder.name, builder.documentCountBuilder.create(), builder.termCountBuilder.create());
+    }
+
+    /** Constructor invoked from the builder and the {@link BinaryModelFormat}. */
+    DictionaryTrieModel(CompactTrie<LinkedCategoryEntries> entryTrie, int numTerms, FeatureSetting featureSetting, String name, CategoryEntries documentCounts, CategoryEntries termCounts) {
+        this.entryTrie = entryTrie;
+        this.numTerms = numTerms;
+        this.featureSetting = featureSetting;
+        this.name = name;
+        this.documentCounts = documentCounts;
+        this.termCounts = termCounts;
     }
 
     @Override
@@ -257,7 +301,7 @@ public final class DictionaryTrieModel extends AbstractDictionaryModel {
             throw new IOException("Unsupported version: " + version);
         }
         Map<Integer, String> categoryIndices = new HashMap<>();
-        entryTrie = new Trie<>();
+        Trie<LinkedCategoryEntries> entryTrie = new Trie<>();
         // header
         int numCategories = in.readInt();
         CountingCategoryEntriesBuilder documentCountBuilder = new CountingCategoryEntriesBuilder();
@@ -284,6 +328,7 @@ public final class DictionaryTrieModel extends AbstractDictionaryModel {
             }
         }
         termCounts = termCountBuilder.create();
+        this.entryTrie = entryTrie.freeze();
         // feature setting
         featureSetting = (FeatureSetting) in.readObject();
         // name
@@ -55,6 +55,9 @@ public class FeatureSetting implements Serializable {
 
     public static final String PROPERTY_CREATE_SKIP_GRAMS = "createSkipGrams";
 
+    /** Name of the key for feature hashing setting. */
+    public static final String PROPERTY_FEATURE_HASHING = "featureHashing";
+
     public static final String PROPERTY_USE_TOKEN_COMBINATIONS = "useTokenCombinations";
     public static final String PROPERTY_TOKEN_COMBINATIONS_MIN_TERM_LENGTH = "tokenCombinationsMinNGramLength";
     public static final String PROPERTY_TOKEN_COMBINATIONS_MAX_TERM_LENGTH = "tokenCombinationsMaxNGramLength";
@@ -88,6 +91,8 @@ public class FeatureSetting implements Serializable {
 
     static final boolean DEFAULT_CREATE_SKIP_GRAMS = false;
 
+    static final boolean DEFAULT_FEATURE_HASHING = false;
+
     static final boolean DEFAULT_USE_TOKEN_COMBINATIONS = false;
     static final int DEFAULT_TOKEN_COMBINATIONS_MIN_NGRAM_LENGTH = 1;
     static final int DEFAULT_TOKEN_COMBINATIONS_MAX_NGRAM_LENGTH = 1;
@@ -141,6 +146,9 @@ public class FeatureSetting implements Serializable {
     /** Whether to create skip grams, e.g. for "the quick brown", a skip gram would be "the brown". */
     private boolean createSkipGrams = DEFAULT_CREATE_SKIP_GRAMS;
 
+    /** Whether to represent the character n-grams by 64-bit hashes instead of strings. */
+    private boolean featureHashing = DEFAULT_FEATURE_HASHING;
+
     /** Whether to use token combinations, e.g. "the quick brown" with min/max=1/1 would create [the#quick, the#brown, quick#brown] */
     private boolean useTokenCombinations = DEFAULT_USE_TOKEN_COMBINATIONS;
     private int tokenCombinationMinNgram = 1;
@@ -191,6 +199,7 @@ public class FeatureSetting implements Serializable {
         this.removeStopwords = builder.removeStopwords;
         this.language = builder.language;
         this.createSkipGrams = builder.createSkipGrams;
+        this.featureHashing = builder.featureHashing;
         this.useTokenCombinations = builder.useTokenCombinations;
         this.tokenCombinationMinNgram = builder.tokenCombinationMinNgram;
         this.tokenCombinationMaxNgram = builder.tokenCombinationMaxNgram;
@@ -222,6 +231,8 @@ public class FeatureSetting implements Serializable {
         this.language = langValue != null ? Language.valueOf(langValue) : DEFAULT_LANGUAGE;
         String skipGramsValue = properties.get(PROPERTY_CREATE_SKIP_GRAMS);
         this.createSkipGrams = skipGramsValue != null ? Boolean.parseBoolean(skipGramsValue) : DEFAULT_CREATE_SKIP_GRAMS;
+        String featureHashingValue = properties.get(PROPERTY_FEATURE_HASHING);
+        this.featureHashing = featureHashingValue != null ? Boolean.parseBoolean(featureHashingValue) : DEFAULT_FEATURE_HASHING;
         String useTokenCombinationsValue = properties.get(PROPERTY_USE_TOKEN_COMBINATIONS);
         this.useTokenCombinations = useTokenCombinationsValue != null ? Boolean.parseBoolean(useTokenCombinationsValue) : DEFAULT_USE_TOKEN_COMBINATIONS;
         this.tokenCombinationMinNgram = Integer.parseInt(Optional.ofNullable(properties.get(PROPERTY_TOKEN_COMBINATIONS_MIN_TERM_LENGTH)).orElse("1"));
@@ -283,6 +294,14 @@ public class FeatureSetting implements Serializable {
         return createSkipGrams;
     }
 
+    /**
+     * @return <code>true</code> in case the character n-grams are represented by 64-bit hashes, see
+     * {@link FeatureSettingBuilder#featureHashing()}.
+     */
+    public boolean isFeatureHashing() {
+        return featureHashing;
+    }
+
     public boolean isUseTokenCombinations() {
         return useTokenCombinations;
     }
@@ -343,6 +362,9 @@ public class FeatureSetting implements Serializable {
         if (isCreateSkipGrams()) {
             builder.append(", createSkipGrams");
         }
+        if (isFeatureHashing()) {
+            builder.append(", featureHashing");
+        }
         builder.append("]");
         return builder.toString();
     }
@@ -364,6 +386,7 @@ public class FeatureSetting implements Serializable {
         map.put(PROPERTY_REMOVE_STOPWORDS, String.valueOf(removeStopwords));
         map.put(PROPERTY_LANGUAGE, String.valueOf(language));
         map.put(PROPERTY_CREATE_SKIP_GRAMS, String.valueOf(createSkipGrams));
+        map.put(PROPERTY_FEATURE_HASHING, String.valueOf(featureHashing));
         return map;
     }
 
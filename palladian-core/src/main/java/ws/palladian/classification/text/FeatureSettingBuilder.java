@@ -26,6 +26,7 @@ public final class FeatureSettingBuilder implements Factory<FeatureSetting> {
     boolean removeStopwords = FeatureSetting.DEFAULT_REMOVE_STOPWORDS;
     Language language = FeatureSetting.DEFAULT_LANGUAGE;
     boolean createSkipGrams = FeatureSetting.DEFAULT_CREATE_SKIP_GRAMS;
+    boolean featureHashing = FeatureSetting.DEFAULT_FEATURE_HASHING;
     boolean useTokenCombinations = FeatureSetting.DEFAULT_USE_TOKEN_COMBINATIONS;
     int tokenCombinationMinNgram = FeatureSetting.DEFAULT_TOKEN_COMBINATIONS_MIN_NGRAM_LENGTH;
     int tokenCombinationMaxNgram = FeatureSetting.DEFAULT_TOKEN_COMBINATIONS_MAX_NGRAM_LENGTH;
@@ -132,6 +133,7 @@ public final class FeatureSettingBuilder implements Factory<FeatureSetting> {
         this.removeStopwords = other.isRemoveStopwords();
         this.language = other.getLanguage();
         this.createSkipGrams = other.isCreateSkipGrams();
+        this.featureHashing = other.isFeatureHashing();
         this.useTokenCombinations = other.isUseTokenCombinations();
         this.tokenCombinationMinNgram = other.getTokenCombinationMinNgram();
         this.tokenCombinationMaxNgram = other.getTokenCombinationMaxNgram();
@@ -300,6 +302,29 @@ public final class FeatureSettingBuilder implements Factory<FeatureSetting> {
         return this;
     }
 
+    /**
+     * <p>
+     * Enable feature hashing, only in case character n-grams are selected. Instead of creating a string for each
+     * n-gram, a 64-bit hash is calculated directly over the characters of the text (see
+     * {@link ws.palladian.extraction.token.CharacterNGramHasher}), and the dictionary is keyed by those hashes (see
+     * {@link DictionaryHashModel}). This cuts the allocations during preprocessing and the memory of the model
+     * considerably, as no n-gram strings need to be stored.
+     * <p>
+     * The trade-off are hash collisions, i.e. different n-grams which are counted as the same feature. With
+     * <code>n</code> distinct n-grams, the expected number of colliding pairs is about <code>n² / 2⁶⁵</code>, e.g.
+     * 0.0003 for one hundred million distinct n-grams, which is negligible for classification. However, the original
+     * n-grams cannot be restored from the model, so its terms are only available as hexadecimal hash values.
+     *
+     * @return The builder, to allow method chaining.
+     */
+    public FeatureSettingBuilder featureHashing() {
+        if (featureType != TextFeatureType.CHAR_NGRAMS) {
+            throw new UnsupportedOperationException("Feature hashing is only supported for " + TextFeatureType.CHAR_NGRAMS + " mode.");
+        }
+        this.featureHashing = true;
+        return this;
+    }
+
     public FeatureSettingBuilder useTokenCombinations() {
         this.useTokenCombinations = true;
         return this;
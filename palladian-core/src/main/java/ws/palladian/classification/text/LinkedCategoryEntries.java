@@ -8,8 +8,9 @@ import ws.palladian.helper.functional.Factory;
 import ws.palladian.helper.math.MathHelper;
 
 import java.util.Iterator;
+import java.util.function.ObjIntConsumer;
 
-final class LinkedCategoryEntries extends AbstractCategoryEntries {
+final class LinkedCategoryEntries extends AbstractCategoryEntries implements CategoryCounts {
     public static final Factory<LinkedCategoryEntries> FACTORY = LinkedCategoryEntries::new;
 
     private LinkedCategoryCount firstCategory;
@@ -41,6 +42,13 @@ final class LinkedCategoryEntries extends AbstractCategoryEntries {
         return totalCount;
     }
 
+    @Override
+    public void forEachCount(ObjIntConsumer<String> consumer) {
+        for (LinkedCategoryCount current = firstCategory; current != null; current = current.nextCategory) {
+            consumer.accept(current.categoryName, current.count);
+        }
+    }
+
     /**
      * Increments a category count by the given value.
      *
@@ -0,0 +1,498 @@
+package ws.palladian.classification.text;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ws.palladian.core.AbstractCategoryEntries;
+import ws.palladian.core.Category;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.core.ImmutableCategory;
+import ws.palladian.helper.StopWatch;
+import ws.palladian.helper.collection.AbstractIterator2;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * <p>
+ * A read-only {@link DictionaryModel} which is backed by a memory-mapped file. An existing model (e.g. a
+ * {@link DictionaryTrieModel} or a {@link DictionaryMapModel}) is compiled into a compact binary layout using
+ * {@link #write(DictionaryModel, File)}; the resulting file can be opened with {@link #open(File)} almost instantly,
+ * because no Java objects are created for the terms and their category counts. Lookups are performed using a binary
+ * search directly on the mapped data, and as the mapped pages are managed by the operating system, several JVMs on
+ * one host can share the page cache for the same model file.
+ * <p>
+ * The file layout is as follows (all numbers big endian):
+ *
+ * <pre>
+ * header:     magic (int), version (int), metadataLength (int), numCategories (int), numTerms (int),
+ *             termDataLength (long), entryDataLength (long)
+ * metadata:   name, serialized feature setting, [ (categoryName, documentCount, termCount), ... ]
+ * index:      [ (termOffset (int), entryOffset (int)), ... ] -- numTerms + 1 items, last one is a sentinel
+ * term data:  UTF-8 encoded terms, sorted by their byte sequence
+ * entry data: [ (categoryIndex (int), count (int)), ... ]
+ * </pre>
+ * <p>
+ * The index, the term data and the entry data are mapped as separate sections, each of them is limited to 2 GB.
+ * Serializing an instance of this class via Java serialization only writes the path to the model file, which is
+ * mapped again upon deserialization.
+ *
+ * @author Philipp Katz
+ */
+public final class MappedDictionaryModel extends AbstractDictionaryModel {
+
+    /** The logger for this class. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedDictionaryModel.class);
+
+    private static final long serialVersionUID = 1L;
+
+    /** Magic number at the beginning of each file ("PDMF"). */
+    private static final int MAGIC = 0x50444d46;
+
+    /**
+     * Version of the file layout, which is independent of the {@link #VERSION} of the Java serialization; increment it
+     * in case of incompatible changes to the layout.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /** The size of the fixed header in bytes. */
+    private static final int HEADER_SIZE = 5 * Integer.BYTES + 2 * Long.BYTES;
+
+    /** The size of one index item (term offset + entry offset) in bytes. */
+    private static final int INDEX_ITEM_SIZE = 2 * Integer.BYTES;
+
+    /** The size of one entry item (category index + count) in bytes. */
+    private static final int ENTRY_ITEM_SIZE = 2 * Integer.BYTES;
+
+    /** The path to the mapped file; this is the only information which is serialized. */
+    private final String filePath;
+
+    private transient String name;
+
+    private transient FeatureSetting featureSetting;
+
+    private transient String[] categoryNames;
+
+    private transient CategoryEntries documentCounts;
+
+    private transient CategoryEntries termCounts;
+
+    private transient int numTerms;
+
+    private transient ByteBuffer index;
+
+    private transient ByteBuffer termData;
+
+    private transient ByteBuffer entryData;
+
+    private MappedDictionaryModel(File file) throws IOException {
+        this.filePath = file.getPath();
+        map();
+    }
+
+    /**
+     * Open a model file which has been written using {@link #write(DictionaryModel, File)}.
+     *
+     * @param file The file, not <code>null</code>.
+     * @return The mapped model.
+     * @throws IOException In case the file could not be read, or has an invalid format.
+     */
+    public static MappedDictionaryModel open(File file) throws IOException {
+        Validate.notNull(file, "file must not be null");
+        return new MappedDictionaryModel(file);
+    }
+
+    /**
+     * Compile the given {@link DictionaryModel} into the binary format which can be opened using {@link #open(File)}.
+     *
+     * @param model The model to compile, not <code>null</code>.
+     * @param file  The destination file, not <code>null</code>. An existing file will be overwritten.
+     * @throws IOException In case the file could not be written.
+     */
+    public static void write(DictionaryModel model, File file) throws IOException {
+        Validate.notNull(model, "model must not be null");
+        Validate.notNull(file, "file must not be null");
+        StopWatch stopWatch = new StopWatch();
+
+        // collect all entries (we only keep references to the existing category entries) and sort by their UTF-8 bytes,
+        // this is equal to code point order and allows a simple byte-wise comparison during lookup
+        List<EncodedEntry> entries = new ArrayList<>();
+        SortedSet<String> categories = new TreeSet<>();
+        long entryCount = 0;
+        long termDataLength = 0;
+        for (DictionaryEntry entry : model) {
+            CategoryEntries categoryEntries = entry.getCategoryEntries();
+            int numCategories = 0;
+            for (Category category : categoryEntries) {
+                categories.add(category.getName());
+                numCategories++;
+            }
+            EncodedEntry encodedEntry = new EncodedEntry(entry.getTerm().getBytes(StandardCharsets.UTF_8), categoryEntries, numCategories);
+            entries.add(encodedEntry);
+            entryCount += numCategories;
+            termDataLength += encodedEntry.term.length;
+        }
+        entries.sort(EncodedEntry.COMPARATOR);
+        for (Category category : model.getDocumentCounts()) {
+            categories.add(category.getName());
+        }
+        for (Category category : model.getTermCounts()) {
+            categories.add(category.getName());
+        }
+        long entryDataLength = entryCount * ENTRY_ITEM_SIZE;
+        checkSectionSize(termDataLength, "term data");
+        checkSectionSize(entryDataLength, "entry data");
+        checkSectionSize((long) (entries.size() + 1) * INDEX_ITEM_SIZE, "index");
+
+        Map<String, Integer> categoryIndices = new HashMap<>();
+        for (String category : categories) {
+            categoryIndices.put(category, categoryIndices.size());
+        }
+
+        byte[] metadata = writeMetadata(model, categories);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            // header
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(metadata.length);
+            out.writeInt(categories.size());
+            out.writeInt(entries.size());
+            out.writeLong(termDataLength);
+            out.writeLong(entryDataLength);
+            // metadata
+            out.write(metadata);
+            // index
+            int termOffset = 0;
+            int entryOffset = 0;
+            for (EncodedEntry entry : entries) {
+                out.writeInt(termOffset);
+                out.writeInt(entryOffset);
+                termOffset += entry.term.length;
+                entryOffset += entry.numCategories;
+            }
+            out.writeInt(termOffset);
+            out.writeInt(entryOffset);
+            // term data
+            for (EncodedEntry entry : entries) {
+                out.write(entry.term);
+            }
+            // entry data; sorted by category index, pack index and count into one long for sorting
+            long[] packedEntries = new long[categories.size()];
+            for (EncodedEntry entry : entries) {
+                int numCategories = 0;
+                for (Category category : entry.categoryEntries) {
+                    long categoryIndex = categoryIndices.get(category.getName());
+                    packedEntries[numCategories++] = categoryIndex << 32 | category.getCount();
+                }
+                Arrays.sort(packedEntries, 0, numCategories);
+                for (int i = 0; i < numCategories; i++) {
+                    out.writeInt((int) (packedEntries[i] >>> 32));
+                    out.writeInt((int) packedEntries[i]);
+                }
+            }
+        }
+        LOGGER.info("Wrote {} terms with {} entries to {} in {}", entries.size(), entryCount, file, stopWatch);
+    }
+
+    private static byte[] writeMetadata(DictionaryModel model, Collection<String> categories) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeBoolean(model.getName() != null);
+            if (model.getName() != null) {
+                out.writeUTF(model.getName());
+            }
+            ByteArrayOutputStream featureSettingBytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(featureSettingBytes)) {
+                objectOut.writeObject(model.getFeatureSetting());
+            }
+            out.writeInt(featureSettingBytes.size());
+            featureSettingBytes.writeTo(out);
+            CategoryEntries documentCounts = model.getDocumentCounts();
+            CategoryEntries termCounts = model.getTermCounts();
+            for (String category : categories) {
+                out.writeUTF(category);
+                out.writeInt(documentCounts.getCount(category));
+                out.writeInt(termCounts.getCount(category));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void checkSectionSize(long size, String section) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("The " + section + " section exceeds the maximum size of 2 GB (" + size + " bytes)");
+        }
+    }
+
+    private void map() throws IOException {
+        try (FileChannel channel = FileChannel.open(new File(filePath).toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) == -1) {
+                    throw new IOException("Unexpected end of file in header of " + filePath);
+                }
+            }
+            header.flip();
+            int magic = header.getInt();
+            if (magic != MAGIC) {
+                throw new IOException(filePath + " is not a mapped dictionary model file");
+            }
+            int version = header.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported version: " + version);
+            }
+            int metadataLength = header.getInt();
+            int numCategories = header.getInt();
+            numTerms = header.getInt();
+            long termDataLength = header.getLong();
+            long entryDataLength = header.getLong();
+
+            long position = HEADER_SIZE;
+            readMetadata(channel.map(FileChannel.MapMode.READ_ONLY, position, metadataLength), numCategories);
+            position += metadataLength;
+            long indexLength = (long) (numTerms + 1) * INDEX_ITEM_SIZE;
+            index = channel.map(FileChannel.MapMode.READ_ONLY, position, indexLength);
+            position += indexLength;
+            termData = channel.map(FileChannel.MapMode.READ_ONLY, position, termDataLength);
+            position += termDataLength;
+            entryData = channel.map(FileChannel.MapMode.READ_ONLY, position, entryDataLength);
+        }
+    }
+
+    private void readMetadata(ByteBuffer buffer, int numCategories) throws IOException {
+        byte[] metadata = new byte[buffer.remaining()];
+        buffer.get(metadata);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(metadata))) {
+            name = in.readBoolean() ? in.readUTF() : null;
+            byte[] featureSettingBytes = new byte[in.readInt()];
+            in.readFully(featureSettingBytes);
+            try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(featureSettingBytes))) {
+                featureSetting = (FeatureSetting) objectIn.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Could not read feature setting", e);
+            }
+            categoryNames = new String[numCategories];
+            CountingCategoryEntriesBuilder documentCountBuilder = new CountingCategoryEntriesBuilder();
+            CountingCategoryEntriesBuilder termCountBuilder = new CountingCategoryEntriesBuilder();
+            for (int i = 0; i < numCategories; i++) {
+                categoryNames[i] = in.readUTF();
+                documentCountBuilder.set(categoryNames[i], in.readInt());
+                termCountBuilder.set(categoryNames[i], in.readInt());
+            }
+            documentCounts = documentCountBuilder.create();
+            termCounts = termCountBuilder.create();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public FeatureSetting getFeatureSetting() {
+        return featureSetting;
+    }
+
+    @Override
+    public CategoryEntries getCategoryEntries(String term) {
+        Validate.notNull(term, "term must not be null");
+        int termIndex = find(term.getBytes(StandardCharsets.UTF_8));
+        return termIndex >= 0 ? new MappedCategoryEntries(termIndex) : CategoryEntries.EMPTY;
+    }
+
+    /**
+     * Binary search for the given term in the mapped term data.
+     *
+     * @param term The UTF-8 encoded term.
+     * @return The index of the term, or <code>-1</code> in case it was not found.
+     */
+    private int find(byte[] term) {
+        int low = 0;
+        int high = numTerms - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = compareTerm(mid, term);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int compareTerm(int termIndex, byte[] term) {
+        int offset = termOffset(termIndex);
+        int length = termOffset(termIndex + 1) - offset;
+        int commonLength = Math.min(length, term.length);
+        for (int i = 0; i < commonLength; i++) {
+            int comparison = Integer.compare(termData.get(offset + i) & 0xff, term[i] & 0xff);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, term.length);
+    }
+
+    private int termOffset(int termIndex) {
+        return index.getInt(termIndex * INDEX_ITEM_SIZE);
+    }
+
+    private int entryOffset(int termIndex) {
+        return index.getInt(termIndex * INDEX_ITEM_SIZE + Integer.BYTES);
+    }
+
+    private String getTerm(int termIndex) {
+        int offset = termOffset(termIndex);
+        byte[] bytes = new byte[termOffset(termIndex + 1) - offset];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = termData.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int getNumUniqTerms() {
+        return numTerms;
+    }
+
+    @Override
+    public int getNumEntries() {
+        return entryOffset(numTerms);
+    }
+
+    @Override
+    public CategoryEntries getDocumentCounts() {
+        return documentCounts;
+    }
+
+    @Override
+    public CategoryEntries getTermCounts() {
+        return termCounts;
+    }
+
+    /**
+     * @return The file which backs this model.
+     */
+    public File getFile() {
+        return new File(filePath);
+    }
+
+    @Override
+    public Iterator<DictionaryEntry> iterator() {
+        return new AbstractIterator2<DictionaryEntry>() {
+            int termIndex = 0;
+
+            @Override
+            protected DictionaryEntry getNext() {
+                if (termIndex < numTerms) {
+                    String term = getTerm(termIndex);
+                    return new ImmutableDictionaryEntry(term, new MappedCategoryEntries(termIndex++));
+                }
+                return finished();
+            }
+        };
+    }
+
+    /** {@link CategoryEntries} view on the mapped entry data of a single term. */
+    private final class MappedCategoryEntries extends AbstractCategoryEntries implements CategoryCounts {
+        private final int start;
+        private final int end;
+        private final int totalCount;
+
+        MappedCategoryEntries(int termIndex) {
+            this.start = entryOffset(termIndex);
+            this.end = entryOffset(termIndex + 1);
+            int totalCount = 0;
+            for (int entry = start; entry < end; entry++) {
+                totalCount += count(entry);
+            }
+            this.totalCount = totalCount;
+        }
+
+        private int categoryIndex(int entry) {
+            return entryData.getInt(entry * ENTRY_ITEM_SIZE);
+        }
+
+        private int count(int entry) {
+            return entryData.getInt(entry * ENTRY_ITEM_SIZE + Integer.BYTES);
+        }
+
+        @Override
+        public Iterator<Category> iterator() {
+            return new AbstractIterator2<Category>() {
+                int entry = start;
+
+                @Override
+                protected Category getNext() {
+                    if (entry < end) {
+                        int count = count(entry);
+                        String categoryName = categoryNames[categoryIndex(entry++)];
+                        return new ImmutableCategory(categoryName, (double) count / totalCount, count);
+                    }
+                    return finished();
+                }
+            };
+        }
+
+        @Override
+        public void forEachCount(ObjIntConsumer<String> consumer) {
+            for (int entry = start; entry < end; entry++) {
+                consumer.accept(categoryNames[categoryIndex(entry)], count(entry));
+            }
+        }
+
+        @Override
+        public int getCount(String categoryName) {
+            Validate.notNull(categoryName, "categoryName must not be null");
+            for (int entry = start; entry < end; entry++) {
+                if (categoryNames[categoryIndex(entry)].equals(categoryName)) {
+                    return count(entry);
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+
+        @Override
+        public int getTotalCount() {
+            return totalCount;
+        }
+    }
+
+    /** A term in its encoded form together with its category entries; only used for writing. */
+    private static final class EncodedEntry {
+        static final Comparator<EncodedEntry> COMPARATOR = (e1, e2) -> Arrays.compareUnsigned(e1.term, e2.term);
+
+        final byte[] term;
+        final CategoryEntries categoryEntries;
+        final int numCategories;
+
+        EncodedEntry(byte[] term, CategoryEntries categoryEntries, int numCategories) {
+            this.term = term;
+            this.categoryEntries = categoryEntries;
+            this.numCategories = numCategories;
+        }
+    }
+
+    // serialization code
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        map();
+    }
+
+}
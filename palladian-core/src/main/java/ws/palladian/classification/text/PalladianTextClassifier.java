@@ -1,18 +1,17 @@
 package ws.palladian.classification.text;
 
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import org.apache.commons.lang3.Validate;
 import ws.palladian.core.*;
 import ws.palladian.core.dataset.Dataset;
 import ws.palladian.core.value.TextValue;
 import ws.palladian.helper.ProgressMonitor;
-import ws.palladian.helper.collection.Bag;
+import ws.palladian.helper.io.CloseableIterator;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map.Entry;
-import java.util.Set;
-import java.util.function.Function;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * <p>
@@ -26,10 +25,14 @@ import java.util.function.Function;
  * "https://web.archive.org/web/20120122045250/http://www.research-garden.de/c/document_library/get_file?uuid=e60fa8da-4f76-4e64-a692-f74d5ffcf475&amp;groupId=10137"
  * >press release</a> (via archive.org).
  *
+ * <p>
+ * For partitioned training (see {@link MergeableLearner}), the partial statistics are unpruned dictionaries, which are
+ * merged via {@link DictionaryBuilder#addDictionary(DictionaryModel)}.
+ *
  * @author David Urbansky
  * @author Philipp Katz
  */
-public class PalladianTextClassifier extends AbstractLearner<DictionaryModel> implements Classifier<DictionaryModel> {
+public class PalladianTextClassifier extends AbstractLearner<DictionaryModel> implements Classifier<DictionaryModel>, MergeableLearner<DictionaryModel, DictionaryModel> {
 
     /**
      * <p>
@@ -127,13 +130,28 @@ public class PalladianTextClassifier extends AbstractLearner<DictionaryModel> im
 
     public static final Scorer DEFAULT_SCORER = new DefaultScorer();
 
+    /** The number of instances which are handed to a worker at once during parallel training. */
+    private static final int TRAINING_BATCH_SIZE = 100;
+
+    /** Marker which signals the workers that all instances have been read. */
+    private static final List<Instance> END_OF_DATA = Collections.emptyList();
+
+    /** The configured builder; each model is created with a new builder of the same type, see {@link #train(Dataset)}. */
     private final DictionaryBuilder dictionaryBuilder;
 
     private final FeatureSetting featureSetting;
 
     private final Scorer scorer;
 
-    private final Function<String, Iterator<String>> preprocessor;
+    private final Preprocessor preprocessor;
+
+    private final int numThreads;
+
+    /** Optional cache for the preprocessed texts during classification, may be shared with other classifiers. */
+    private volatile PreprocessingCache preprocessingCache;
+
+    /** Scratch space for classification, one per thread. */
+    private final ThreadLocal<ScoreAccumulator> accumulators = ThreadLocal.withInitial(ScoreAccumulator::new);
 
     /**
      * <p>
@@ -151,16 +169,11 @@ public class PalladianTextClassifier extends AbstractLearner<DictionaryModel> im
      * given feature setting.
      *
      * @param featureSetting    The configuration for feature extraction, not <code>null</code>.
-     * @param dictionaryBuilder The builder for creating the model, not <code>null</code>.
+     * @param dictionaryBuilder The builder for creating the model, not <code>null</code>; serves as a template, each
+     *                          model is created by a new builder of its type (see {@link DictionaryBuilder#newBuilder()}).
      */
     public PalladianTextClassifier(FeatureSetting featureSetting, DictionaryBuilder dictionaryBuilder) {
-        Validate.notNull(dictionaryBuilder, "dictionaryBuilder must not be null");
-        Validate.notNull(featureSetting, "featureSetting must not be null");
-        this.dictionaryBuilder = dictionaryBuilder;
-        this.dictionaryBuilder.setFeatureSetting(featureSetting);
-        this.featureSetting = featureSetting;
-        this.scorer = new DefaultScorer();
-        this.preprocessor = new Preprocessor(featureSetting);
+        this(featureSetting, dictionaryBuilder, new DefaultScorer(), 1);
     }
 
     /**
@@ -172,14 +185,44 @@ public class PalladianTextClassifier extends AbstractLearner<DictionaryModel> im
      * @param scorer         The scorer to use, not <code>null</code>.
      */
     public PalladianTextClassifier(FeatureSetting featureSetting, Scorer scorer) {
+        this(featureSetting, createDictionaryBuilder(featureSetting), scorer, 1);
+    }
+
+    /**
+     * <p>
+     * Creates a new {@link PalladianTextClassifier} using the specified builder for creating the dictionary, the given
+     * scorer, and the given number of threads for training. In case more than one thread is specified, the dataset is
+     * partitioned into batches which are preprocessed on worker threads; each worker fills its own partial dictionary
+     * builder, and the partial builders are finally merged using {@link DictionaryBuilder#addBuilder(DictionaryBuilder)}.
+     * The resulting model is identical to the one created by sequential training, but keep in mind that each partial
+     * dictionary requires its own memory.
+     *
+     * @param featureSetting    The configuration for feature extraction, not <code>null</code>.
+     * @param dictionaryBuilder The builder for creating the model, not <code>null</code>; serves as a template, each
+     *                          model is created by a new builder of its type (see {@link DictionaryBuilder#newBuilder()}).
+     * @param scorer            The scorer to use, not <code>null</code>.
+     * @param numThreads        The number of threads to use for training, greater zero.
+     */
+    public PalladianTextClassifier(FeatureSetting featureSetting, DictionaryBuilder dictionaryBuilder, Scorer scorer, int numThreads) {
         Validate.notNull(featureSetting, "featureSetting must not be null");
+        Validate.notNull(dictionaryBuilder, "dictionaryBuilder must not be null");
         Validate.notNull(scorer, "scorer must not be null");
-        Validate.notNull(scorer, "scorer must not be null");
-        this.dictionaryBuilder = new DictionaryTrieModel.Builder();
+        Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+        this.dictionaryBuilder = dictionaryBuilder;
         this.dictionaryBuilder.setFeatureSetting(featureSetting);
         this.featureSetting = featureSetting;
         this.scorer = scorer;
         this.preprocessor = new Preprocessor(featureSetting);
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Create the default dictionary builder for the given feature setting; a {@link DictionaryHashModel.Builder} in
+     * case of feature hashing, else a {@link DictionaryTrieModel.Builder}.
+     */
+    private static DictionaryBuilder createDictionaryBuilder(FeatureSetting featureSetting) {
+        Validate.notNull(featureSetting, "featureSetting must not be null");
+        return featureSetting.isFeatureHashing() ? new DictionaryHashModel.Builder() : new DictionaryTrieModel.Builder();
     }
 
     @Override
@@ -187,79 +230,235 @@ public class PalladianTextClassifier extends AbstractLearner<DictionaryModel> im
         Validate.notNull(dataset, "dataset must not be null");
         long size = dataset.size();
         ProgressMonitor progressMonitor = new ProgressMonitor(size, 0.1, "Training text classifier");
-        for (Instance instance : dataset) {
-            String targetClass = instance.getCategory();
-            TextValue textValue = (TextValue) instance.getVector().get(VECTOR_TEXT_IDENTIFIER);
-            String text = textValue.getText();
-
-            Iterator<String> iterator = preprocessor.apply(text);
-            Collection<String> terms = new HashSet<>();
-            while (iterator.hasNext() && terms.size() < featureSetting.getMaxTerms()) {
-                terms.add(iterator.next());
+        DictionaryBuilder builder = dictionaryBuilder.newBuilder();
+        if (numThreads > 1) {
+            trainParallel(dataset, builder, progressMonitor);
+        } else {
+            for (Instance instance : dataset) {
+                addInstance(instance, builder);
+                progressMonitor.incrementAndPrintProgress();
             }
-            dictionaryBuilder.addDocument(terms, targetClass, instance.getWeight());
-            progressMonitor.incrementAndPrintProgress();
         }
-        return dictionaryBuilder.create();
+        return builder.create();
     }
 
     @Override
-    public CategoryEntries classify(FeatureVector featureVector, DictionaryModel model) {
-        Validate.notNull(featureVector, "featureVector must not be null");
-        Validate.notNull(model, "model must not be null");
-        CategoryEntriesBuilder builder = new CategoryEntriesBuilder();
-        TextValue textValue = (TextValue) featureVector.get(VECTOR_TEXT_IDENTIFIER);
-        Iterator<String> iterator = preprocessor.apply(textValue.getText());
-        Bag<String> termCounts = new Bag<>();
-        while (iterator.hasNext() && termCounts.uniqueItems().size() < featureSetting.getMaxTerms()) {
-            termCounts.add(iterator.next());
+    public DictionaryModel trainPartial(Dataset partition) {
+        Validate.notNull(partition, "partition must not be null");
+        DictionaryBuilder shardBuilder = createShardBuilder();
+        for (Instance instance : partition) {
+            addInstance(instance, shardBuilder);
         }
-        final CategoryEntries termSums = model.getTermCounts();
-        final int numUniqueTerms = model.getNumUniqTerms();
-        final int numDocs = model.getNumDocuments();
-        final int numTerms = model.getNumTerms();
-        final boolean scoreNonMatches = scorer.scoreNonMatches();
-        final Set<String> matchedCategories = new HashSet<>();
-
-        for (Entry<String, Integer> termCount : termCounts.unique()) {
-            String term = termCount.getKey();
-            CategoryEntries categoryEntries = model.getCategoryEntries(term);
-            int docCount = termCount.getValue();
-            int dictCount = categoryEntries.getTotalCount();
-            for (Category category : categoryEntries) {
-                String categoryName = category.getName();
-                int categorySum = termSums.getCount(categoryName);
-                int count = category.getCount();
-                double score = scorer.score(term, categoryName, count, dictCount, docCount, categorySum, numUniqueTerms, numDocs, numTerms);
-                builder.add(categoryName, score);
-                if (scoreNonMatches) {
-                    matchedCategories.add(categoryName);
-                }
+        return shardBuilder.create();
+    }
+
+    @Override
+    public DictionaryModel merge(DictionaryModel statistics1, DictionaryModel statistics2) {
+        Validate.notNull(statistics1, "statistics1 must not be null");
+        Validate.notNull(statistics2, "statistics2 must not be null");
+        return createShardBuilder().addDictionary(statistics1).addDictionary(statistics2).create();
+    }
+
+    @Override
+    public DictionaryModel createModel(DictionaryModel statistics) {
+        Validate.notNull(statistics, "statistics must not be null");
+        return dictionaryBuilder.newBuilder().addDictionary(statistics).create();
+    }
+
+    /**
+     * @return A new builder for a partial dictionary, which is of the same type as the {@link #dictionaryBuilder}, but
+     * without name and pruning.
+     */
+    private DictionaryBuilder createShardBuilder() {
+        DictionaryBuilder shardBuilder = dictionaryBuilder instanceof DictionaryHashModel.Builder ? new DictionaryHashModel.Builder() : new DictionaryTrieModel.Builder();
+        return shardBuilder.setFeatureSetting(featureSetting);
+    }
+
+    private void addInstance(Instance instance, DictionaryBuilder builder) {
+        String targetClass = instance.getCategory();
+        TextValue textValue = (TextValue) instance.getVector().get(VECTOR_TEXT_IDENTIFIER);
+        String text = textValue.getText();
+
+        if (preprocessor.isHashing() && builder instanceof DictionaryHashModel.Builder) {
+            LongSet hashes = new LongOpenHashSet();
+            int maxTerms = featureSetting.getMaxTerms();
+            if (maxTerms > 0) {
+                preprocessor.hash(text, hash -> {
+                    hashes.add(hash);
+                    return hashes.size() < maxTerms;
+                });
             }
-            // do the scoring for the non-matches; i.e. term-category combinations with count zero;
-            // this is necessary e.g. for smoothing during the Bayes scoring. It's only done in case it is explicitly
-            // requested by Scorer#scoreNonMatches, because it takes time (especially with lots of categories).
-            if (scoreNonMatches) {
-                for (Category category : termSums) {
-                    String categoryName = category.getName();
-                    if (!matchedCategories.contains(categoryName)) {
-                        int categorySum = category.getCount();
-                        double score = scorer.score(term, categoryName, 0, dictCount, docCount, categorySum, numUniqueTerms, numDocs, numTerms);
-                        builder.add(categoryName, score);
+            ((DictionaryHashModel.Builder) builder).addDocument(hashes, targetClass, instance.getWeight());
+            return;
+        }
+
+        builder.addDocument(extractTerms(text), targetClass, instance.getWeight());
+    }
+
+    /** Preprocess the text into the set of unique terms, limited by {@link FeatureSetting#getMaxTerms()}. */
+    private Collection<String> extractTerms(String text) {
+        Iterator<String> iterator = preprocessor.apply(text);
+        Collection<String> terms = new HashSet<>();
+        while (iterator.hasNext() && terms.size() < featureSetting.getMaxTerms()) {
+            terms.add(iterator.next());
+        }
+        return terms;
+    }
+
+    /**
+     * <p>
+     * Add an instance to an existing model, e.g. from a feedback stream. The model can be used for classification
+     * concurrently.
+     *
+     * @param instance The instance to add, not <code>null</code>.
+     * @param model    The model to update, not <code>null</code>; must have been created with the same
+     *                 {@link FeatureSetting} as this classifier.
+     */
+    public void addInstance(Instance instance, UpdatableDictionaryModel model) {
+        Validate.notNull(instance, "instance must not be null");
+        Validate.notNull(model, "model must not be null");
+        TextValue textValue = (TextValue) instance.getVector().get(VECTOR_TEXT_IDENTIFIER);
+        model.addDocument(extractTerms(textValue.getText()), instance.getCategory(), instance.getWeight());
+    }
+
+    /**
+     * <p>
+     * Remove an instance, which has been added before, from an existing model (e.g. because it turned out to be
+     * mislabeled). The model can be used for classification concurrently.
+     *
+     * @param instance The instance to remove, not <code>null</code>.
+     * @param model    The model to update, not <code>null</code>; must have been created with the same
+     *                 {@link FeatureSetting} as this classifier.
+     */
+    public void removeInstance(Instance instance, UpdatableDictionaryModel model) {
+        Validate.notNull(instance, "instance must not be null");
+        Validate.notNull(model, "model must not be null");
+        TextValue textValue = (TextValue) instance.getVector().get(VECTOR_TEXT_IDENTIFIER);
+        model.removeDocument(extractTerms(textValue.getText()), instance.getCategory(), instance.getWeight());
+    }
+
+    /**
+     * Train using {@link #numThreads} workers. The calling thread reads the dataset and hands batches of instances to
+     * the workers, each worker preprocesses its instances into its own partial dictionary builder; the builders are
+     * merged into the given builder at the end (see {@link DictionaryBuilder#addBuilder(DictionaryBuilder)}), so that
+     * the model is only created once.
+     */
+    private void trainParallel(Dataset dataset, DictionaryBuilder builder, ProgressMonitor progressMonitor) {
+        BlockingQueue<List<Instance>> queue = new ArrayBlockingQueue<>(2 * numThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        List<Future<DictionaryBuilder>> shards = new ArrayList<>();
+        try {
+            for (int i = 0; i < numThreads; i++) {
+                shards.add(executor.submit(() -> {
+                    DictionaryBuilder shardBuilder = createShardBuilder();
+                    for (; ; ) {
+                        List<Instance> batch = queue.take();
+                        if (batch == END_OF_DATA) {
+                            return shardBuilder;
+                        }
+                        for (Instance instance : batch) {
+                            addInstance(instance, shardBuilder);
+                        }
+                        progressMonitor.incrementByAndPrintProgress(batch.size());
+                    }
+                }));
+            }
+            try (CloseableIterator<Instance> iterator = dataset.iterator()) {
+                List<Instance> batch = new ArrayList<>(TRAINING_BATCH_SIZE);
+                while (iterator.hasNext()) {
+                    batch.add(iterator.next());
+                    if (batch.size() == TRAINING_BATCH_SIZE) {
+                        enqueue(queue, batch, shards);
+                        batch = new ArrayList<>(TRAINING_BATCH_SIZE);
                     }
                 }
-                matchedCategories.clear();
+                if (!batch.isEmpty()) {
+                    enqueue(queue, batch, shards);
+                }
+            }
+            for (int i = 0; i < numThreads; i++) {
+                enqueue(queue, END_OF_DATA, shards);
             }
+            for (Future<DictionaryBuilder> shard : shards) {
+                builder.addBuilder(shard.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while training", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error while training", e.getCause());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdownNow();
         }
-        boolean matched = builder.getTotalScore() != 0;
-        for (Category category : model.getDocumentCounts()) {
-            String categoryName = category.getName();
-            double termScore = builder.getScore(categoryName);
-            double categoryProbability = category.getProbability();
-            double newScore = scorer.scoreCategory(categoryName, termScore, categoryProbability, matched);
-            builder.set(categoryName, newScore);
+    }
+
+    /**
+     * Put a batch into the queue; in case a worker has terminated prematurely (i.e. because of an exception), stop
+     * waiting, so that we do not block forever.
+     */
+    private static void enqueue(BlockingQueue<List<Instance>> queue, List<Instance> batch, List<Future<DictionaryBuilder>> shards) throws InterruptedException, ExecutionException {
+        while (!queue.offer(batch, 1, TimeUnit.SECONDS)) {
+            for (Future<DictionaryBuilder> shard : shards) {
+                if (shard.isDone()) {
+                    shard.get(); // throws the worker's exception
+                    throw new IllegalStateException("Worker terminated prematurely");
+                }
+            }
         }
-        return builder.create();
+    }
+
+    @Override
+    public CategoryEntries classify(FeatureVector featureVector, DictionaryModel model) {
+        return classify(featureVector, model, accumulators.get());
+    }
+
+    /**
+     * <p>
+     * Classify using the given {@link ScoreAccumulator} as scratch space. The classifier keeps one accumulator per
+     * thread internally, so this method is only needed in case the caller wants to manage the accumulators on its own.
+     *
+     * @param featureVector The feature vector with the text to classify, not <code>null</code>.
+     * @param model         The model, not <code>null</code>.
+     * @param accumulator   The accumulator, not <code>null</code>; must not be used concurrently by other threads.
+     * @return The classification result.
+     */
+    public CategoryEntries classify(FeatureVector featureVector, DictionaryModel model, ScoreAccumulator accumulator) {
+        return classify(featureVector, model, accumulator, Integer.MAX_VALUE);
+    }
+
+    /**
+     * <p>
+     * Classify, but only return the <code>k</code> most likely categories. The probabilities of the returned categories
+     * are the same as in the full result, i.e. they are not normalized over the <code>k</code> categories. With many
+     * categories, this avoids creating the full {@link CategoryEntries}; combine this with a scorer which scores the
+     * non-matches analytically (e.g. a {@link BayesScorer} with {@link BayesScorer.Options#SPARSE}).
+     *
+     * @param featureVector The feature vector with the text to classify, not <code>null</code>.
+     * @param model         The model, not <code>null</code>.
+     * @param k             The maximum number of categories to return, greater zero.
+     * @return The classification result with at most <code>k</code> categories.
+     */
+    public CategoryEntries classifyTopK(FeatureVector featureVector, DictionaryModel model, int k) {
+        Validate.isTrue(k > 0, "k must be greater zero");
+        return classify(featureVector, model, accumulators.get(), k);
+    }
+
+    private CategoryEntries classify(FeatureVector featureVector, DictionaryModel model, ScoreAccumulator accumulator, int topK) {
+        Validate.notNull(featureVector, "featureVector must not be null");
+        Validate.notNull(model, "model must not be null");
+        Validate.notNull(accumulator, "accumulator must not be null");
+        TextValue textValue = (TextValue) featureVector.get(VECTOR_TEXT_IDENTIFIER);
+        if (preprocessor.isHashing() && model instanceof DictionaryHashModel) {
+            return accumulator.score(textValue.getText(), preprocessor, featureSetting.getMaxTerms(), (DictionaryHashModel) model, scorer, topK);
+        }
+        PreprocessingCache cache = preprocessingCache;
+        if (cache != null) {
+            return accumulator.score(cache.get(preprocessor, textValue.getText()), model, scorer, topK);
+        }
+        Iterator<String> iterator = preprocessor.apply(textValue.getText());
+        return accumulator.score(iterator, featureSetting.getMaxTerms(), model, scorer, topK);
     }
 
     public CategoryEntries classify(String text, DictionaryModel model) {
@@ -269,6 +468,18 @@ public class PalladianTextClassifier extends AbstractLearner<DictionaryModel> im
         return classify(featureVector, model);
     }
 
+    /**
+     * <p>
+     * Set a cache for the preprocessed texts, which is used during classification. Share one cache between several
+     * classifiers which classify the same texts with equal {@link FeatureSetting}s, so that each text is preprocessed
+     * only once. Not used for training and in case of feature hashing.
+     *
+     * @param preprocessingCache The cache, or <code>null</code> to disable caching.
+     */
+    public void setPreprocessingCache(PreprocessingCache preprocessingCache) {
+        this.preprocessingCache = preprocessingCache;
+    }
+
     @Override
     public String toString() {
         return this.getClass().getSimpleName() + "[scorer=" + scorer + ", featureSetting=" + featureSetting + "]";
@@ -0,0 +1,114 @@
+package ws.palladian.classification.text;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The preprocessed terms of a document as multiset, i.e. the unique terms in order of their first occurrence, with
+ * their occurrence counts. Instances are immutable and are shared via the {@link PreprocessingCache}.
+ *
+ * @author Philipp Katz
+ */
+public final class PreprocessedText {
+
+    private final String[] terms;
+
+    private final int[] counts;
+
+    private PreprocessedText(String[] terms, int[] counts) {
+        this.terms = terms;
+        this.counts = counts;
+    }
+
+    /**
+     * Collect the terms from the given iterator, until the iterator is exhausted or the maximum number of unique terms
+     * is reached; this is the same as the {@link PalladianTextClassifier} does during classification.
+     *
+     * @param termIterator The terms, not <code>null</code>.
+     * @param maxTerms     The maximum number of unique terms.
+     * @return The preprocessed text.
+     */
+    public static PreprocessedText create(Iterator<String> termIterator, int maxTerms) {
+        Validate.notNull(termIterator, "termIterator must not be null");
+        ObjectArrayList<String> terms = new ObjectArrayList<>();
+        Object2IntOpenHashMap<String> termCounts = new Object2IntOpenHashMap<>();
+        while (termIterator.hasNext() && terms.size() < maxTerms) {
+            String term = termIterator.next();
+            if (termCounts.addTo(term, 1) == 0) {
+                terms.add(term);
+            }
+        }
+        String[] termArray = terms.toArray(new String[0]);
+        int[] counts = new int[termArray.length];
+        for (int i = 0; i < termArray.length; i++) {
+            counts[i] = termCounts.getInt(termArray[i]);
+        }
+        return new PreprocessedText(termArray, counts);
+    }
+
+    /**
+     * @return The number of unique terms.
+     */
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * @param index The index of the term, between zero and {@link #size()}.
+     * @return The term.
+     */
+    public String getTerm(int index) {
+        return terms[index];
+    }
+
+    /**
+     * @param index The index of the term, between zero and {@link #size()}.
+     * @return The occurrence count of the term.
+     */
+    public int getCount(int index) {
+        return counts[index];
+    }
+
+    /**
+     * @return The unique terms in order of their first occurrence.
+     */
+    public List<String> getTerms() {
+        return Collections.unmodifiableList(Arrays.asList(terms));
+    }
+
+    /**
+     * Visit all terms with their counts, in order of their first occurrence.
+     *
+     * @param consumer The consumer, not <code>null</code>.
+     */
+    public void forEach(ObjIntConsumer<String> consumer) {
+        Validate.notNull(consumer, "consumer must not be null");
+        for (int i = 0; i < terms.length; i++) {
+            consumer.accept(terms[i], counts[i]);
+        }
+    }
+
+    /**
+     * @return The approximate memory footprint in bytes, used for eviction in the {@link PreprocessingCache}.
+     */
+    long getWeight() {
+        long weight = 32 + 12L * terms.length;
+        for (String term : terms) {
+            weight += 40 + 2L * term.length();
+        }
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return "PreprocessedText [#terms=" + terms.length + "]";
+    }
+
+}
@@ -0,0 +1,180 @@
+package ws.palladian.classification.text;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Memoizes the {@link PreprocessedText} of documents, so that several classifiers which process the same text with
+ * equal {@link FeatureSetting}s (e.g. a language detector, a topic and a sentiment classifier in one pipeline) tokenize
+ * the text only once. Entries are keyed by the feature setting (by equality, not identity) and the text, and are
+ * evicted in least-recently-used order, as soon as the approximate memory footprint of the cached texts and terms
+ * exceeds the given maximum.
+ * <p>
+ * One instance can be shared between several {@link PalladianTextClassifier}s (see
+ * {@link PalladianTextClassifier#setPreprocessingCache(PreprocessingCache)}) and threads. Texts which are processed by
+ * feature hashing are not cached, as the hashes are not represented as terms.
+ *
+ * @author Philipp Katz
+ */
+public final class PreprocessingCache {
+
+    /** The maximum footprint in bytes. */
+    private final long maxWeight;
+
+    /** The cached entries in access order; guarded by this. */
+    private final LinkedHashMap<Key, PreprocessedText> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** The current footprint in bytes; guarded by this. */
+    private long weight;
+
+    private long hitCount;
+
+    private long missCount;
+
+    /**
+     * Create a new cache.
+     *
+     * @param maxWeight The maximum approximate memory footprint of the cached entries in bytes, greater zero.
+     */
+    public PreprocessingCache(long maxWeight) {
+        Validate.isTrue(maxWeight > 0, "maxWeight must be greater zero");
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Get the preprocessed text from the cache, or preprocess it using the given preprocessor and cache it.
+     *
+     * @param preprocessor The preprocessor, not <code>null</code>.
+     * @param text         The text, not <code>null</code>.
+     * @return The preprocessed text, limited to {@link FeatureSetting#getMaxTerms()} unique terms.
+     */
+    public PreprocessedText get(Preprocessor preprocessor, String text) {
+        Validate.notNull(preprocessor, "preprocessor must not be null");
+        Validate.notNull(text, "text must not be null");
+        Key key = new Key(preprocessor, text);
+        synchronized (this) {
+            PreprocessedText result = entries.get(key);
+            if (result != null) {
+                hitCount++;
+                return result;
+            }
+            missCount++;
+        }
+        // preprocess outside the lock; in case another thread does the same concurrently, the last one wins
+        FeatureSetting featureSetting = preprocessor.getFeatureSetting();
+        PreprocessedText result = PreprocessedText.create(preprocessor.apply(text), featureSetting.getMaxTerms());
+        long entryWeight = key.getWeight() + result.getWeight();
+        if (entryWeight > maxWeight) {
+            return result;
+        }
+        synchronized (this) {
+            PreprocessedText previous = entries.put(key, result);
+            if (previous != null) {
+                weight -= key.getWeight() + previous.getWeight();
+            }
+            weight += entryWeight;
+            Iterator<Map.Entry<Key, PreprocessedText>> iterator = entries.entrySet().iterator();
+            while (weight > maxWeight && iterator.hasNext()) {
+                Map.Entry<Key, PreprocessedText> eldest = iterator.next();
+                weight -= eldest.getKey().getWeight() + eldest.getValue().getWeight();
+                iterator.remove();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of cached texts.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The approximate memory footprint of the cached entries in bytes.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return The number of requests which were answered from the cache.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return The number of requests which required preprocessing.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PreprocessingCache [size=" + entries.size() + ", weight=" + weight + ", maxWeight=" + maxWeight + ", hits=" + hitCount + ", misses=" + missCount + "]";
+    }
+
+    private static final class Key {
+        final FeatureSetting featureSetting;
+        final int featureSettingHash;
+        final String text;
+
+        Key(Preprocessor preprocessor, String text) {
+            this.featureSetting = preprocessor.getFeatureSetting();
+            this.featureSettingHash = preprocessor.getFeatureSettingHash();
+            this.text = text;
+        }
+
+        long getWeight() {
+            return 64 + 2L * text.length();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * featureSettingHash + text.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return featureSettingHash == other.featureSettingHash && text.equals(other.text) && sameSetting(featureSetting, other.featureSetting);
+        }
+
+        /** Feature setting equality does not consider the token combinations, but they change the terms. */
+        private static boolean sameSetting(FeatureSetting s1, FeatureSetting s2) {
+            if (s1 == s2) {
+                return true;
+            }
+            return s1.equals(s2) && s1.isUseTokenCombinations() == s2.isUseTokenCombinations()
+                    && s1.getTokenCombinationMinNgram() == s2.getTokenCombinationMinNgram()
+                    && s1.getTokenCombinationMaxNgram() == s2.getTokenCombinationMaxNgram();
+        }
+    }
+
+    /** Hash of the feature setting, consistent with {@link Key#sameSetting(FeatureSetting, FeatureSetting)}. */
+    static int hashFeatureSetting(FeatureSetting featureSetting) {
+        return Objects.hash(featureSetting, featureSetting.isUseTokenCombinations(), featureSetting.getTokenCombinationMinNgram(), featureSetting.getTokenCombinationMaxNgram());
+    }
+
+}
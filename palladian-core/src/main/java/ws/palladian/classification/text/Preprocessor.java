@@ -6,16 +6,19 @@ import ws.palladian.core.ImmutableToken;
 import ws.palladian.core.Token;
 import ws.palladian.extraction.feature.Stemmer;
 import ws.palladian.extraction.feature.StopWordRemover;
+import ws.palladian.extraction.token.CharacterNGramHasher;
 import ws.palladian.extraction.token.CharacterNGramTokenizer;
 import ws.palladian.extraction.token.NGramWrapperIterator;
 import ws.palladian.extraction.token.WordTokenizer;
 import ws.palladian.helper.collection.AbstractIterator2;
 import ws.palladian.helper.collection.CollectionHelper;
+import ws.palladian.helper.constants.Language;
 
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.LongPredicate;
 import java.util.function.Predicate;
 
 // TODO consider to replace the Iterator with a Stream?
@@ -26,9 +29,29 @@ public class Preprocessor implements Function<String, Iterator<String>> {
 
     private final FeatureSetting featureSetting;
 
+    /** The hasher for the character n-grams, in case feature hashing is enabled, else <code>null</code>. */
+    private final CharacterNGramHasher hasher;
+
+    /** Hash of the feature setting for the {@link PreprocessingCache}, calculated once, as it is rather expensive. */
+    private final int featureSettingHash;
+
     public Preprocessor(FeatureSetting featureSetting) {
         Validate.notNull(featureSetting, "featureSetting must not be null");
         this.featureSetting = featureSetting;
+        if (featureSetting.isFeatureHashing() && featureSetting.getTextFeatureType() == TextFeatureType.CHAR_NGRAMS) {
+            hasher = new CharacterNGramHasher(featureSetting.getMinNGramLength(), featureSetting.getMaxNGramLength(), featureSetting.isCharacterPadding());
+        } else {
+            hasher = null;
+        }
+        featureSettingHash = PreprocessingCache.hashFeatureSetting(featureSetting);
+    }
+
+    FeatureSetting getFeatureSetting() {
+        return featureSetting;
+    }
+
+    int getFeatureSettingHash() {
+        return featureSettingHash;
     }
 
     @Override
@@ -61,32 +84,26 @@ public class Preprocessor implements Function<String, Iterator<String>> {
         tokenIterator = CollectionHelper.filter(tokenIterator, (Predicate<Token>) t -> t != REMOVED_TOKEN);
         Iterator<String> stringTokens = CollectionHelper.convert(tokenIterator, Token.VALUE_CONVERTER);
 
-        if (featureSetting.isUseTokenCombinations()) {
-            Iterator<Token> combinationTokenIterator = new WordTokenizer().iterateTokens(content);
-            combinationTokenIterator = new NGramWrapperIterator(combinationTokenIterator, featureSetting.getTokenCombinationMinNgram(),
-                    featureSetting.getTokenCombinationMaxNgram());
-            List<String> list = new ArrayList<>();
-            while (combinationTokenIterator.hasNext()) {
-                list.add(combinationTokenIterator.next().getValue());
-            }
-            List<String> listCombos = new ArrayList<>();
+        if (featureSetting.isFeatureHashing()) {
+            stringTokens = CollectionHelper.convert(stringTokens, (Function<String, String>) t -> DictionaryHashModel.toTerm(CharacterNGramHasher.hash(t)));
+        }
 
-            for (int i = 0; i < list.size(); i++) {
-                for (int j = i + 1; j < list.size(); j++) {
-                    listCombos.add(list.get(i) + "#" + list.get(j));
-                }
+        if (featureSetting.isUseTokenCombinations()) {
+            Iterator<String> comboIterator = createTokenCombinations(content).iterator();
+            if (featureSetting.isFeatureHashing()) {
+                comboIterator = CollectionHelper.convert(comboIterator, (Function<String, String>) t -> DictionaryHashModel.toTerm(CharacterNGramHasher.hash(t)));
             }
-
-            final Iterator<String> comboIterator = listCombos.stream().iterator();
+            Iterator<String> combinations = comboIterator;
+            Iterator<String> terms = stringTokens;
             return new AbstractIterator2<String>() {
 
                 @Override
                 protected String getNext() {
-                    if (stringTokens.hasNext()) {
-                        return stringTokens.next();
+                    if (terms.hasNext()) {
+                        return terms.next();
                     }
-                    if (comboIterator.hasNext()) {
-                        return comboIterator.next();
+                    if (combinations.hasNext()) {
+                        return combinations.next();
                     }
                     return finished();
                 }
@@ -96,8 +113,65 @@ public class Preprocessor implements Function<String, Iterator<String>> {
         return stringTokens;
     }
 
+    /**
+     * Calculate the hashes of the character n-grams (and the token combinations, if enabled) for the given input,
+     * without creating the n-gram strings. The hashes are the same as the ones represented by the terms returned from
+     * {@link #apply(String)}, see {@link DictionaryHashModel#toTerm(long)}. Only available for character n-grams with
+     * {@link FeatureSetting#isFeatureHashing()} enabled, see {@link #isHashing()}.
+     *
+     * @param input    The input text, not <code>null</code>.
+     * @param consumer The consumer for the hashes, not <code>null</code>; in case it returns <code>false</code>, the
+     *                 hashing is stopped.
+     */
+    public void hash(String input, LongPredicate consumer) {
+        Validate.notNull(input, "input must not be null");
+        Validate.notNull(consumer, "consumer must not be null");
+        if (hasher == null) {
+            throw new UnsupportedOperationException("Feature hashing is not enabled for character n-grams.");
+        }
+        String content = featureSetting.isCaseSensitive() ? input : input.toLowerCase();
+        boolean[] stopped = {false};
+        hasher.hash(content, hash -> {
+            boolean proceed = consumer.test(hash);
+            stopped[0] = !proceed;
+            return proceed;
+        });
+        if (!stopped[0] && featureSetting.isUseTokenCombinations()) {
+            for (String combination : createTokenCombinations(content)) {
+                if (!consumer.test(CharacterNGramHasher.hash(combination))) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> in case {@link #hash(String, LongPredicate)} can be used.
+     */
+    public boolean isHashing() {
+        return hasher != null;
+    }
+
+    private List<String> createTokenCombinations(String content) {
+        Iterator<Token> combinationTokenIterator = new WordTokenizer().iterateTokens(content);
+        combinationTokenIterator = new NGramWrapperIterator(combinationTokenIterator, featureSetting.getTokenCombinationMinNgram(),
+                featureSetting.getTokenCombinationMaxNgram());
+        List<String> list = new ArrayList<>();
+        while (combinationTokenIterator.hasNext()) {
+            list.add(combinationTokenIterator.next().getValue());
+        }
+        List<String> listCombos = new ArrayList<>();
+
+        for (int i = 0; i < list.size(); i++) {
+            for (int j = i + 1; j < list.size(); j++) {
+                listCombos.add(list.get(i) + "#" + list.get(j));
+            }
+        }
+        return listCombos;
+    }
+
     private Iterator<Token> applyStemming(Iterator<Token> tokenIterator) {
-        Stemmer stemmer = new Stemmer(featureSetting.getLanguage());
+        Stemmer stemmer = Stemmer.forLanguage(featureSetting.getLanguage());
         return CollectionHelper.convert(tokenIterator, (Function<Token, Token>) t -> {
             String stemmedValue = stemmer.stem(t.getValue());
             return new ImmutableToken(t.getStartPosition(), stemmedValue);
@@ -105,7 +179,7 @@ public class Preprocessor implements Function<String, Iterator<String>> {
     }
 
     private Iterator<Token> removeStopwords(Iterator<Token> tokenIterator) {
-        StopWordRemover stopwordRemover = new StopWordRemover();
+        StopWordRemover stopwordRemover = StopWordRemover.forLanguage(Language.ENGLISH);
         return CollectionHelper.convert(tokenIterator, (Function<Token, Token>) t -> {
             boolean stopWord = stopwordRemover.isStopWord(t.getValue());
             return stopWord ? REMOVED_TOKEN : t;
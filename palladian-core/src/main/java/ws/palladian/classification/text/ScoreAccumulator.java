@@ -0,0 +1,402 @@
+package ws.palladian.classification.text;
+
+import it.unimi.dsi.fastutil.ints.IntHeapPriorityQueue;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import ws.palladian.classification.text.PalladianTextClassifier.Scorer;
+import ws.palladian.core.Category;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.core.CategoryEntriesBuilder;
+import ws.palladian.core.ImmutableCategory;
+import ws.palladian.core.ImmutableCategoryEntries;
+
+import java.util.*;
+import java.util.function.LongPredicate;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * <p>
+ * Reusable scratch space for the classification in the {@link PalladianTextClassifier}. Categories are addressed by
+ * their dense index from the {@link CategoryIndex}, and scores are summed up in a plain <code>double[]</code>, which is
+ * kept between invocations, so that the only objects created per classification are the resulting
+ * {@link CategoryEntries}. The scoring logic and thus the results are the same as when scoring with a map keyed by
+ * category names.
+ * <p>
+ * In case the scorer is a {@link BaselineScorer} which {@link BaselineScorer#useBaseline() uses the baseline}, the
+ * non-matches are not scored per term and category, but analytically once per category, so that the effort per term
+ * only depends on the number of categories which co-occur with the term. Additionally, the result can be limited to the
+ * top <i>k</i> categories, which avoids building the full {@link CategoryEntries} with thousands of categories.
+ * <p>
+ * Instances are <b>not</b> thread-safe; either use one instance per thread (the {@link PalladianTextClassifier} keeps
+ * one per thread internally), or pass a dedicated instance via
+ * {@link PalladianTextClassifier#classify(ws.palladian.core.FeatureVector, DictionaryModel, ScoreAccumulator)}.
+ *
+ * @author Philipp Katz
+ */
+public final class ScoreAccumulator {
+
+    /**
+     * Passed as term to the {@link Scorer} when scoring hashed terms, as the original term is not available; the
+     * scorers do not depend on the term's value.
+     */
+    static final String HASHED_TERM = "[HASHED]";
+
+    /** Terms of the current document in order of their first occurrence. */
+    private final ObjectArrayList<String> terms = new ObjectArrayList<>();
+
+    /** Occurrence counts of the terms in the current document. */
+    private final Object2IntOpenHashMap<String> termCounts = new Object2IntOpenHashMap<>();
+
+    /** Hashes of the terms of the current document in order of their first occurrence, when feature hashing. */
+    private final LongArrayList hashes = new LongArrayList();
+
+    /** Occurrence counts of the hashes in the current document, when feature hashing. */
+    private final Long2IntOpenHashMap hashCounts = new Long2IntOpenHashMap();
+
+    /** Collects the hashes from the {@link Preprocessor}. */
+    private final HashCollector hashCollector = new HashCollector();
+
+    /** Visits the category counts of the current term. */
+    private final TermScorer termScorer = new TermScorer();
+
+    /** The summed scores per category index. */
+    private double[] scores = new double[0];
+
+    /** Whether a category has been scored. */
+    private boolean[] scored = new boolean[0];
+
+    /** Stamp of the last term for which the category was matched; avoids clearing per term. */
+    private int[] matchedStamps = new int[0];
+
+    /** Counter which is incremented for each scored term, compared against {@link #matchedStamps}. */
+    private int stamp;
+
+    /** Sum of the {@link BaselineScorer#termBaseline(int, int, int)} of the terms which matched a category. */
+    private double[] matchedTermBaselines = new double[0];
+
+    /** Sum of the {@link BaselineScorer#termWeight(int, int, int)} of the terms which matched a category. */
+    private double[] matchedTermWeights = new double[0];
+
+    /** The final probabilities per category index, when determining the top k categories. */
+    private double[] probabilities = new double[0];
+
+    /** Min-heap of category indices by probability, when determining the top k categories. */
+    private final IntHeapPriorityQueue topCategories = new IntHeapPriorityQueue((c1, c2) -> Double.compare(probabilities[c1], probabilities[c2]));
+
+    /**
+     * Score the terms of a document against the given model.
+     *
+     * @param termIterator The preprocessed terms of the document.
+     * @param maxTerms     The maximum number of unique terms to consider.
+     * @param model        The model.
+     * @param scorer       The scorer.
+     * @param topK         The maximum number of categories in the result.
+     * @return The classification result.
+     */
+    CategoryEntries score(Iterator<String> termIterator, int maxTerms, DictionaryModel model, Scorer scorer, int topK) {
+        terms.clear();
+        termCounts.clear();
+        while (termIterator.hasNext() && terms.size() < maxTerms) {
+            String term = termIterator.next();
+            if (termCounts.addTo(term, 1) == 0) {
+                terms.add(term);
+            }
+        }
+
+        return scoreTerms(terms.size(), model, null, scorer, topK);
+    }
+
+    /**
+     * Score the already preprocessed terms of a document against the given model.
+     *
+     * @param text   The preprocessed document, e.g. from the {@link PreprocessingCache}.
+     * @param model  The model.
+     * @param scorer The scorer.
+     * @param topK   The maximum number of categories in the result.
+     * @return The classification result.
+     */
+    CategoryEntries score(PreprocessedText text, DictionaryModel model, Scorer scorer, int topK) {
+        terms.clear();
+        termCounts.clear();
+        for (int i = 0; i < text.size(); i++) {
+            String term = text.getTerm(i);
+            terms.add(term);
+            termCounts.put(term, text.getCount(i));
+        }
+        return scoreTerms(terms.size(), model, null, scorer, topK);
+    }
+
+    /**
+     * Score the hashed terms of a document against the given model; this avoids creating strings for the terms.
+     *
+     * @param text         The text of the document.
+     * @param preprocessor The preprocessor, which must support {@link Preprocessor#isHashing() hashing}.
+     * @param maxTerms     The maximum number of unique terms to consider.
+     * @param model        The model.
+     * @param scorer       The scorer.
+     * @param topK         The maximum number of categories in the result.
+     * @return The classification result.
+     */
+    CategoryEntries score(String text, Preprocessor preprocessor, int maxTerms, DictionaryHashModel model, Scorer scorer, int topK) {
+        hashes.clear();
+        hashCounts.clear();
+        hashCollector.maxTerms = maxTerms;
+        if (maxTerms > 0) {
+            preprocessor.hash(text, hashCollector);
+        }
+        return scoreTerms(hashes.size(), model, model, scorer, topK);
+    }
+
+    /**
+     * Score the collected terms; in case a hash model is given, the {@link #hashes} are used, else the {@link #terms}.
+     */
+    private CategoryEntries scoreTerms(int numUniqueTerms, DictionaryModel model, DictionaryHashModel hashModel, Scorer scorer, int topK) {
+        CategoryIndex index = model instanceof AbstractDictionaryModel ? ((AbstractDictionaryModel) model).getCategoryIndex() : CategoryIndex.create(model);
+        int numCategories = index.size();
+        prepare(numCategories);
+        BaselineScorer baselineScorer = null;
+        if (scorer.scoreNonMatches() && scorer instanceof BaselineScorer && ((BaselineScorer) scorer).useBaseline()) {
+            baselineScorer = (BaselineScorer) scorer;
+        }
+        termScorer.init(index, scorer, baselineScorer, model.getNumUniqTerms(), model.getNumDocuments(), model.getNumTerms());
+        boolean scoreNonMatches = scorer.scoreNonMatches() && baselineScorer == null;
+
+        for (int i = 0; i < numUniqueTerms; i++) {
+            String term;
+            CategoryEntries categoryEntries;
+            int docCount;
+            if (hashModel != null) {
+                long hash = hashes.getLong(i);
+                term = HASHED_TERM;
+                categoryEntries = hashModel.getCategoryEntries(hash);
+                docCount = hashCounts.get(hash);
+            } else {
+                term = terms.get(i);
+                categoryEntries = model.getCategoryEntries(term);
+                docCount = termCounts.getInt(term);
+            }
+            int stamp = nextStamp();
+            termScorer.setTerm(term, categoryEntries.getTotalCount(), docCount, stamp);
+            if (categoryEntries instanceof CategoryCounts) {
+                ((CategoryCounts) categoryEntries).forEachCount(termScorer);
+            } else {
+                for (Category category : categoryEntries) {
+                    termScorer.accept(category.getName(), category.getCount());
+                }
+            }
+            // do the scoring for the non-matches; i.e. term-category combinations with count zero;
+            // this is necessary e.g. for smoothing during the Bayes scoring. It's only done in case it is explicitly
+            // requested by Scorer#scoreNonMatches, because it takes time (especially with lots of categories).
+            if (scoreNonMatches) {
+                for (int c = 0; c < numCategories; c++) {
+                    if (index.inTermCounts[c] && matchedStamps[c] != stamp) {
+                        termScorer.score(c, 0);
+                    }
+                }
+            }
+        }
+        if (baselineScorer != null && numUniqueTerms > 0) {
+            scoreNonMatchBaselines(index, baselineScorer, model);
+        }
+
+        double totalScore = 0;
+        for (int c = 0; c < numCategories; c++) {
+            totalScore += scores[c];
+        }
+        boolean matched = totalScore != 0;
+        // the final category scores replace the summed term scores
+        int numResults = 0;
+        for (int c = 0; c < numCategories; c++) {
+            if (index.inDocumentCounts[c]) {
+                scores[c] = scorer.scoreCategory(index.names[c], scores[c], index.priors[c], matched);
+                scored[c] = true;
+            }
+            if (scored[c]) {
+                numResults++;
+            }
+        }
+        if (topK < numResults) {
+            return createTopK(index, topK);
+        }
+        CategoryEntriesBuilder builder = new CategoryEntriesBuilder();
+        for (int c = 0; c < numCategories; c++) {
+            if (scored[c]) {
+                builder.set(index.names[c], scores[c]);
+            }
+        }
+        return builder.create();
+    }
+
+    /**
+     * Add the scores of the non-matches for all categories; for each category, this is the sum of the term baselines
+     * and weights over all terms, minus the sums over the terms which matched the category.
+     */
+    private void scoreNonMatchBaselines(CategoryIndex index, BaselineScorer scorer, DictionaryModel model) {
+        double termBaselineSum = termScorer.termBaselineSum;
+        double termWeightSum = termScorer.termWeightSum;
+        int numUniqTerms = model.getNumUniqTerms();
+        int numTerms = model.getNumTerms();
+        for (int c = 0; c < index.size(); c++) {
+            if (!index.inTermCounts[c]) {
+                continue;
+            }
+            double categoryBaseline = scorer.categoryBaseline(index.termSums[c], numUniqTerms, numTerms);
+            if (!Double.isNaN(categoryBaseline)) {
+                scores[c] += termBaselineSum - matchedTermBaselines[c] + (termWeightSum - matchedTermWeights[c]) * categoryBaseline;
+            }
+            scored[c] = true;
+        }
+    }
+
+    /**
+     * Create the result with the k categories with the highest probabilities; the probabilities are the same as in the
+     * full result (see {@link CategoryEntriesBuilder#create()}), i.e. they are not normalized over the k categories.
+     */
+    private CategoryEntries createTopK(CategoryIndex index, int topK) {
+        int numCategories = index.size();
+        if (probabilities.length < numCategories) {
+            probabilities = new double[numCategories];
+        }
+        double total = 0;
+        for (int c = 0; c < numCategories; c++) {
+            if (scored[c]) {
+                total += scores[c];
+            }
+        }
+        topCategories.clear();
+        for (int c = 0; c < numCategories; c++) {
+            if (!scored[c]) {
+                continue;
+            }
+            double probability = 0;
+            if (total != 0) {
+                probability = scores[c] / total;
+                if (total < 0) { // summed up log probabilities; see CategoryEntriesBuilder
+                    probability = 1 - probability;
+                }
+            }
+            probabilities[c] = probability;
+            if (topCategories.size() < topK) {
+                topCategories.enqueue(c);
+            } else if (topK > 0 && probability > probabilities[topCategories.firstInt()]) {
+                topCategories.dequeueInt();
+                topCategories.enqueue(c);
+            }
+        }
+        Category[] categories = new Category[topCategories.size()];
+        for (int i = categories.length - 1; i >= 0; i--) {
+            int c = topCategories.dequeueInt();
+            categories[i] = new ImmutableCategory(index.names[c], probabilities[c]);
+        }
+        Map<String, Category> map = new LinkedHashMap<>();
+        for (Category category : categories) {
+            map.put(category.getName(), category);
+        }
+        return new ImmutableCategoryEntries(map, categories.length > 0 ? categories[0] : null);
+    }
+
+    private void prepare(int numCategories) {
+        if (scores.length < numCategories) {
+            scores = new double[numCategories];
+            scored = new boolean[numCategories];
+            matchedStamps = new int[numCategories];
+            stamp = 0;
+        } else {
+            Arrays.fill(scores, 0, numCategories, 0);
+            Arrays.fill(scored, 0, numCategories, false);
+        }
+        if (matchedTermBaselines.length < numCategories) {
+            matchedTermBaselines = new double[numCategories];
+            matchedTermWeights = new double[numCategories];
+        } else {
+            Arrays.fill(matchedTermBaselines, 0, numCategories, 0);
+            Arrays.fill(matchedTermWeights, 0, numCategories, 0);
+        }
+    }
+
+    private int nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) { // overflow; reset
+            Arrays.fill(matchedStamps, 0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+
+    /** Collects the unique hashes of a document, until the maximum number of terms is reached. */
+    private final class HashCollector implements LongPredicate {
+        private int maxTerms;
+
+        @Override
+        public boolean test(long hash) {
+            if (hashCounts.addTo(hash, 1) == 0) {
+                hashes.add(hash);
+            }
+            return hashes.size() < maxTerms;
+        }
+    }
+
+    /** Scores the category counts of a single term; reused for all terms to avoid allocations. */
+    private final class TermScorer implements ObjIntConsumer<String> {
+        private CategoryIndex index;
+        private Scorer scorer;
+        private BaselineScorer baselineScorer;
+        private int numUniqTerms;
+        private int numDocs;
+        private int numTerms;
+        private String term;
+        private int dictCount;
+        private int docCount;
+        private int stamp;
+        private double termBaseline;
+        private double termWeight;
+        private double termBaselineSum;
+        private double termWeightSum;
+
+        void init(CategoryIndex index, Scorer scorer, BaselineScorer baselineScorer, int numUniqTerms, int numDocs, int numTerms) {
+            this.index = index;
+            this.scorer = scorer;
+            this.baselineScorer = baselineScorer;
+            this.termBaselineSum = 0;
+            this.termWeightSum = 0;
+            this.numUniqTerms = numUniqTerms;
+            this.numDocs = numDocs;
+            this.numTerms = numTerms;
+        }
+
+        void setTerm(String term, int dictCount, int docCount, int stamp) {
+            this.term = term;
+            this.dictCount = dictCount;
+            this.docCount = docCount;
+            this.stamp = stamp;
+            if (baselineScorer != null) {
+                termBaseline = baselineScorer.termBaseline(dictCount, docCount, numDocs);
+                termWeight = baselineScorer.termWeight(dictCount, docCount, numDocs);
+                termBaselineSum += termBaseline;
+                termWeightSum += termWeight;
+            }
+        }
+
+        @Override
+        public void accept(String categoryName, int count) {
+            int c = index.indexOf(categoryName);
+            if (c < 0) {
+                // the index is built from the term counts, which cover all categories in the dictionary entries
+                return;
+            }
+            score(c, count);
+            matchedStamps[c] = stamp;
+            if (baselineScorer != null) {
+                matchedTermBaselines[c] += termBaseline;
+                matchedTermWeights[c] += termWeight;
+            }
+        }
+
+        void score(int c, int count) {
+            scores[c] += scorer.score(term, index.names[c], count, dictCount, docCount, index.termSums[c], numUniqTerms, numDocs, numTerms);
+            scored[c] = true;
+        }
+    }
+
+}
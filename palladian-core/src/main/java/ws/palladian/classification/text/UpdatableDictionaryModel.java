@@ -0,0 +1,589 @@
+package ws.palladian.classification.text;
+
+import org.apache.commons.lang3.Validate;
+import ws.palladian.core.AbstractCategoryEntries;
+import ws.palladian.core.Category;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.core.ImmutableCategory;
+import ws.palladian.helper.collection.AbstractIterator2;
+import ws.palladian.helper.math.MathHelper;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Duration;
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * A {@link DictionaryModel} which can be updated after it has been created, e.g. from a feedback stream, while other
+ * threads keep classifying with it. In contrast to the other models, documents can be added and removed at any time
+ * using {@link #addDocument(Collection, String, int)} and {@link #removeDocument(Collection, String, int)}; the
+ * {@link PalladianTextClassifier} provides the corresponding methods which take care of the preprocessing, see
+ * {@link PalladianTextClassifier#addInstance(ws.palladian.core.Instance, UpdatableDictionaryModel)}.
+ * <p>
+ * Readers never block: the terms are kept in a {@link ConcurrentHashMap}, and the category counts of each term are
+ * immutable; an update atomically replaces the counts of the affected terms with an updated copy (copy on write).
+ * Writers synchronize per term only (through the map's internal locking), so concurrent updates do not block each
+ * other either. A reader can observe a document which is only partly added, which is irrelevant for classification.
+ * <p>
+ * Optionally, counts can be decayed over time, so that the model follows drifting categories without retraining from
+ * scratch. With a half life set through {@link Builder#setHalfLife(Duration)}, all counts are halved (using integer
+ * division) once per elapsed half life; terms, of which the counts reach zero, are removed, which bounds the size of
+ * the dictionary. Decay can also be triggered explicitly using {@link #decay(double)}.
+ *
+ * @author Philipp Katz
+ */
+public final class UpdatableDictionaryModel extends AbstractDictionaryModel {
+
+    /**
+     * Builder for the {@link UpdatableDictionaryModel}; can be passed to the {@link PalladianTextClassifier} for
+     * training an initial model. The builder fills the model directly, {@link #create()} returns it, after which it
+     * should be updated through its own methods; the builder continues with a new, empty model.
+     */
+    public static final class Builder implements DictionaryBuilder {
+        private UpdatableDictionaryModel model = new UpdatableDictionaryModel();
+        /** The pruning strategy to apply when creating the model. */
+        private Predicate<? super CategoryEntries> pruningStrategy;
+
+        @Override
+        public DictionaryBuilder setName(String name) {
+            model.name = name;
+            return this;
+        }
+
+        @Override
+        public DictionaryBuilder setFeatureSetting(FeatureSetting featureSetting) {
+            model.featureSetting = featureSetting;
+            return this;
+        }
+
+        /**
+         * Enable time-based decay of the counts.
+         *
+         * @param halfLife The duration after which the counts are halved, not <code>null</code>, greater zero.
+         * @return The builder, to allow method chaining.
+         */
+        public Builder setHalfLife(Duration halfLife) {
+            Validate.notNull(halfLife, "halfLife must not be null");
+            Validate.isTrue(!halfLife.isNegative() && !halfLife.isZero(), "halfLife must be greater zero");
+            model.halfLifeMillis = halfLife.toMillis();
+            return this;
+        }
+
+        /** Set the time source in milliseconds for the decay; for testing. */
+        Builder setClock(LongSupplier clock) {
+            Validate.notNull(clock, "clock must not be null");
+            model.clock = clock;
+            model.lastDecay = clock.getAsLong();
+            return this;
+        }
+
+        @Override
+        public DictionaryBuilder addDocument(Collection<String> terms, String category) {
+            return addDocument(terms, category, 1);
+        }
+
+        @Override
+        public DictionaryBuilder addDocument(Collection<String> terms, String category, int weight) {
+            model.addDocument(terms, category, weight);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc} The strategy is applied once to the initial model in {@link #create()}; terms which are added
+         * later through the model's update methods are not pruned.
+         */
+        @Override
+        public DictionaryBuilder setPruningStrategy(Predicate<? super CategoryEntries> strategy) {
+            Validate.notNull(strategy, "strategy must not be null");
+            this.pruningStrategy = strategy;
+            return this;
+        }
+
+        @Override
+        public DictionaryBuilder addDictionary(DictionaryModel model) {
+            Validate.notNull(model, "model must not be null");
+            this.model.addDictionary(model);
+            return this;
+        }
+
+        @Override
+        public UpdatableDictionaryModel create() {
+            UpdatableDictionaryModel result = model;
+            if (pruningStrategy != null) {
+                result.prune(pruningStrategy);
+            }
+            // the model is updated through its own methods from now on; the builder starts from scratch
+            model = createEmptyModel();
+            return result;
+        }
+
+        @Override
+        public Builder newBuilder() {
+            Builder builder = new Builder();
+            builder.model = createEmptyModel();
+            builder.pruningStrategy = pruningStrategy;
+            return builder;
+        }
+
+        /** @return A new, empty model with the settings of the current one. */
+        private UpdatableDictionaryModel createEmptyModel() {
+            UpdatableDictionaryModel emptyModel = new UpdatableDictionaryModel();
+            emptyModel.name = model.name;
+            emptyModel.featureSetting = model.featureSetting;
+            emptyModel.halfLifeMillis = model.halfLifeMillis;
+            emptyModel.clock = model.clock;
+            emptyModel.lastDecay = model.clock.getAsLong();
+            return emptyModel;
+        }
+
+    }
+
+    /**
+     * Do not change this from now on, use the {@link #VERSION} instead, if you make incompatible changes, and ensure
+     * backwards compatibility.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /** Terms with their (immutable) category counts. */
+    private transient ConcurrentHashMap<String, TermEntries> dictionary;
+
+    /** Counts of the categories based on documents. */
+    private transient ConcurrentHashMap<String, Integer> documentCounts;
+
+    /** Counts of the categories based on terms. */
+    private transient ConcurrentHashMap<String, Integer> termCounts;
+
+    /**
+     * Updates hold the read lock (so that they can run concurrently), decay holds the write lock, as it recalculates
+     * the counts. Readers do not lock at all.
+     */
+    private transient ReadWriteLock updateLock;
+
+    /** Incremented with each update, to detect whether the cached {@link #snapshot} is outdated. */
+    private transient AtomicLong modificationCount;
+
+    /** Cached counts and category index, for the state at {@link Snapshot#modificationCount}. */
+    private transient volatile Snapshot snapshot;
+
+    /** Time source for decay. */
+    private transient LongSupplier clock;
+
+    /** Timestamp of the last decay in milliseconds. */
+    private transient volatile long lastDecay;
+
+    /** The half life in milliseconds, or zero in case decay is disabled. */
+    private transient long halfLifeMillis;
+
+    /** Configuration for the feature extraction. */
+    private transient FeatureSetting featureSetting;
+
+    /** The optional name of the model. */
+    private transient String name;
+
+    /** Constructor invoked from the builder only. */
+    private UpdatableDictionaryModel() {
+        init();
+    }
+
+    private void init() {
+        dictionary = new ConcurrentHashMap<>();
+        documentCounts = new ConcurrentHashMap<>();
+        termCounts = new ConcurrentHashMap<>();
+        updateLock = new ReentrantReadWriteLock();
+        modificationCount = new AtomicLong();
+        clock = System::currentTimeMillis;
+        lastDecay = clock.getAsLong();
+    }
+
+    /**
+     * Add a document to the model.
+     *
+     * @param terms    The (unique) terms of the document, not <code>null</code>.
+     * @param category The category of the document, not <code>null</code>.
+     * @param weight   The weight of the document, equal/greater one.
+     */
+    public void addDocument(Collection<String> terms, String category, int weight) {
+        Validate.notNull(terms, "terms must not be null");
+        Validate.notNull(category, "category must not be null");
+        Validate.isTrue(weight >= 1, "weight must be equal/greater one");
+        decayIfDue();
+        update(terms, category, weight);
+    }
+
+    /**
+     * Remove a document from the model, which has been added before (e.g. because it turned out that it was labeled
+     * incorrectly). Counts never drop below zero, so removing a document which has not been added before only removes
+     * its terms' counts as far as present.
+     *
+     * @param terms    The (unique) terms of the document, not <code>null</code>.
+     * @param category The category of the document, not <code>null</code>.
+     * @param weight   The weight with which the document was added, equal/greater one.
+     */
+    public void removeDocument(Collection<String> terms, String category, int weight) {
+        Validate.notNull(terms, "terms must not be null");
+        Validate.notNull(category, "category must not be null");
+        Validate.isTrue(weight >= 1, "weight must be equal/greater one");
+        decayIfDue();
+        update(terms, category, -weight);
+    }
+
+    private void update(Collection<String> terms, String category, int delta) {
+        updateLock.readLock().lock();
+        try {
+            for (String term : terms) {
+                int[] change = new int[1];
+                dictionary.compute(term, (t, entries) -> {
+                    TermEntries updated = TermEntries.update(entries, category, delta);
+                    change[0] = (updated != null ? updated.getCount(category) : 0) - (entries != null ? entries.getCount(category) : 0);
+                    return updated;
+                });
+                addCount(termCounts, category, change[0]);
+            }
+            addCount(documentCounts, category, delta);
+        } finally {
+            updateLock.readLock().unlock();
+            modificationCount.incrementAndGet();
+        }
+    }
+
+    /** Add all entries of the given model to this model. */
+    private void addDictionary(DictionaryModel model) {
+        Validate.notNull(model, "model must not be null");
+        for (DictionaryEntry entry : model) {
+            for (Category category : entry.getCategoryEntries()) {
+                dictionary.compute(entry.getTerm(), (t, entries) -> TermEntries.update(entries, category.getName(), category.getCount()));
+            }
+        }
+        for (Category category : model.getDocumentCounts()) {
+            addCount(documentCounts, category.getName(), category.getCount());
+        }
+        for (Category category : model.getTermCounts()) {
+            addCount(termCounts, category.getName(), category.getCount());
+        }
+        modificationCount.incrementAndGet();
+    }
+
+    private static void addCount(ConcurrentHashMap<String, Integer> counts, String category, int delta) {
+        if (delta != 0) {
+            counts.compute(category, (c, count) -> {
+                int newCount = Math.max(0, (count != null ? count : 0) + delta);
+                return newCount > 0 ? newCount : null;
+            });
+        }
+    }
+
+    private void decayIfDue() {
+        if (halfLifeMillis <= 0) {
+            return;
+        }
+        long elapsed = clock.getAsLong() - lastDecay;
+        if (elapsed < halfLifeMillis) {
+            return;
+        }
+        updateLock.writeLock().lock();
+        try {
+            // check again, another thread might have been faster
+            long numHalfLives = (clock.getAsLong() - lastDecay) / halfLifeMillis;
+            if (numHalfLives > 0) {
+                decayLocked(Math.pow(0.5, numHalfLives));
+                lastDecay += numHalfLives * halfLifeMillis;
+            }
+        } finally {
+            updateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Multiply all counts in the model with the given factor, rounding down; terms, which drop to a count of zero, are
+     * removed. Concurrent classifications are not blocked, concurrent updates wait until the decay has finished.
+     *
+     * @param factor The factor, in range [0, 1].
+     */
+    public void decay(double factor) {
+        Validate.inclusiveBetween(0., 1., factor, "factor must be in range [0, 1]");
+        updateLock.writeLock().lock();
+        try {
+            decayLocked(factor);
+        } finally {
+            updateLock.writeLock().unlock();
+        }
+    }
+
+    private void decayLocked(double factor) {
+        Map<String, Integer> newTermCounts = new HashMap<>();
+        for (String term : dictionary.keySet()) {
+            TermEntries decayed = dictionary.computeIfPresent(term, (t, entries) -> entries.decay(factor));
+            if (decayed != null) {
+                decayed.forEachCount((category, count) -> newTermCounts.merge(category, count, Integer::sum));
+            }
+        }
+        documentCounts.replaceAll((category, count) -> (int) (count * factor));
+        documentCounts.values().removeIf(count -> count == 0);
+        termCounts.keySet().retainAll(newTermCounts.keySet());
+        termCounts.putAll(newTermCounts);
+        modificationCount.incrementAndGet();
+    }
+
+    /** Remove the terms, of which the counts do not satisfy the given strategy. */
+    private void prune(Predicate<? super CategoryEntries> strategy) {
+        updateLock.writeLock().lock();
+        try {
+            Map<String, Integer> newTermCounts = new HashMap<>();
+            for (String term : dictionary.keySet()) {
+                TermEntries kept = dictionary.computeIfPresent(term, (t, entries) -> strategy.test(entries) ? entries : null);
+                if (kept != null) {
+                    kept.forEachCount((category, count) -> newTermCounts.merge(category, count, Integer::sum));
+                }
+            }
+            termCounts.keySet().retainAll(newTermCounts.keySet());
+            termCounts.putAll(newTermCounts);
+            modificationCount.incrementAndGet();
+        } finally {
+            updateLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public FeatureSetting getFeatureSetting() {
+        return featureSetting;
+    }
+
+    @Override
+    public CategoryEntries getCategoryEntries(String term) {
+        Validate.notNull(term, "term must not be null");
+        TermEntries entries = dictionary.get(term);
+        return entries != null ? entries : CategoryEntries.EMPTY;
+    }
+
+    @Override
+    public int getNumUniqTerms() {
+        return dictionary.size();
+    }
+
+    @Override
+    public CategoryEntries getDocumentCounts() {
+        return getSnapshot().documentCounts;
+    }
+
+    @Override
+    public CategoryEntries getTermCounts() {
+        return getSnapshot().termCounts;
+    }
+
+    @Override
+    CategoryIndex getCategoryIndex() {
+        return getSnapshot().categoryIndex;
+    }
+
+    private Snapshot getSnapshot() {
+        long currentModificationCount = modificationCount.get();
+        Snapshot result = snapshot;
+        if (result == null || result.modificationCount != currentModificationCount) {
+            // in case of concurrent modifications, the snapshot might already be outdated when we store it, but its
+            // modification count then does not match, so it will be recreated upon next access
+            result = new Snapshot(currentModificationCount, documentCounts, termCounts);
+            snapshot = result;
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<DictionaryEntry> iterator() {
+        return new AbstractIterator2<DictionaryEntry>() {
+            final Iterator<Entry<String, TermEntries>> iterator = dictionary.entrySet().iterator();
+
+            @Override
+            protected DictionaryEntry getNext() {
+                if (iterator.hasNext()) {
+                    Entry<String, TermEntries> entry = iterator.next();
+                    return new ImmutableDictionaryEntry(entry.getKey(), entry.getValue());
+                }
+                return finished();
+            }
+        };
+    }
+
+    /** Counts and category index for a given state of the model. */
+    private static final class Snapshot {
+        final long modificationCount;
+        final CategoryEntries documentCounts;
+        final CategoryEntries termCounts;
+        final CategoryIndex categoryIndex;
+
+        Snapshot(long modificationCount, Map<String, Integer> documentCounts, Map<String, Integer> termCounts) {
+            this.modificationCount = modificationCount;
+            this.documentCounts = new CountingCategoryEntriesBuilder(documentCounts).create();
+            this.termCounts = new CountingCategoryEntriesBuilder(termCounts).create();
+            this.categoryIndex = CategoryIndex.create(this.documentCounts, this.termCounts);
+        }
+    }
+
+    /** Immutable category counts of a term; updates create a copy. */
+    static final class TermEntries extends AbstractCategoryEntries implements CategoryCounts {
+        private final String[] categories;
+        private final int[] counts;
+        private final int totalCount;
+
+        private TermEntries(String[] categories, int[] counts) {
+            this.categories = categories;
+            this.counts = counts;
+            int sum = 0;
+            for (int count : counts) {
+                sum = MathHelper.add(sum, count);
+            }
+            this.totalCount = sum;
+        }
+
+        /**
+         * Create updated counts.
+         *
+         * @param entries  The existing counts, or <code>null</code>.
+         * @param category The category to update.
+         * @param delta    The value to add (or subtract, when negative); the count does not drop below zero.
+         * @return The new counts, or <code>null</code> in case no counts are left.
+         */
+        static TermEntries update(TermEntries entries, String category, int delta) {
+            if (entries == null) {
+                return delta > 0 ? new TermEntries(new String[]{category}, new int[]{delta}) : null;
+            }
+            int index = Arrays.asList(entries.categories).indexOf(category);
+            if (index == -1) {
+                if (delta <= 0) {
+                    return entries;
+                }
+                String[] newCategories = Arrays.copyOf(entries.categories, entries.categories.length + 1);
+                int[] newCounts = Arrays.copyOf(entries.counts, entries.counts.length + 1);
+                newCategories[entries.categories.length] = category;
+                newCounts[entries.counts.length] = delta;
+                return new TermEntries(newCategories, newCounts);
+            }
+            int newCount = Math.max(0, MathHelper.add(entries.counts[index], delta));
+            if (newCount > 0) {
+                int[] newCounts = entries.counts.clone();
+                newCounts[index] = newCount;
+                return new TermEntries(entries.categories, newCounts);
+            }
+            if (entries.categories.length == 1) {
+                return null;
+            }
+            String[] newCategories = new String[entries.categories.length - 1];
+            int[] newCounts = new int[entries.counts.length - 1];
+            System.arraycopy(entries.categories, 0, newCategories, 0, index);
+            System.arraycopy(entries.categories, index + 1, newCategories, index, newCategories.length - index);
+            System.arraycopy(entries.counts, 0, newCounts, 0, index);
+            System.arraycopy(entries.counts, index + 1, newCounts, index, newCounts.length - index);
+            return new TermEntries(newCategories, newCounts);
+        }
+
+        /**
+         * @return The counts multiplied by the factor (rounded down), or <code>null</code> in case no counts are left.
+         */
+        TermEntries decay(double factor) {
+            TermEntries result = this;
+            for (int i = 0; i < categories.length && result != null; i++) {
+                int decayedCount = (int) (counts[i] * factor);
+                result = update(result, categories[i], decayedCount - counts[i]);
+            }
+            return result;
+        }
+
+        @Override
+        public Iterator<Category> iterator() {
+            return new AbstractIterator2<Category>() {
+                int index = 0;
+
+                @Override
+                protected Category getNext() {
+                    if (index >= categories.length) {
+                        return finished();
+                    }
+                    int count = counts[index];
+                    return new ImmutableCategory(categories[index++], (double) count / totalCount, count);
+                }
+            };
+        }
+
+        @Override
+        public int getTotalCount() {
+            return totalCount;
+        }
+
+        @Override
+        public void forEachCount(ObjIntConsumer<String> consumer) {
+            for (int i = 0; i < categories.length; i++) {
+                consumer.accept(categories[i], counts[i]);
+            }
+        }
+    }
+
+    // serialization code
+
+    // Implementation note: in case you make any incompatible changes to the serialization protocol, provide backwards
+    // compatibility by using the #VERSION constant. Add a test case for the new version and make sure, deserialization
+    // of existing models still works (we keep a serialized form of each version from now on for the tests).
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        updateLock.writeLock().lock();
+        try {
+            writeObject_(out);
+            // half life
+            out.writeLong(halfLifeMillis);
+        } finally {
+            updateLock.writeLock().unlock();
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        // version
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version: " + version);
+        }
+        init();
+        // header
+        int numCategories = in.readInt();
+        String[] categoryNames = new String[numCategories];
+        for (int i = 0; i < numCategories; i++) {
+            String categoryName = (String) in.readObject();
+            int categoryCount = in.readInt();
+            addCount(documentCounts, categoryName, categoryCount);
+            categoryNames[i] = categoryName;
+        }
+        // terms
+        int numTerms = in.readInt();
+        for (int i = 0; i < numTerms; i++) {
+            String term = (String) in.readObject();
+            int numProbabilityEntries = in.readInt();
+            String[] categories = new String[numProbabilityEntries];
+            int[] counts = new int[numProbabilityEntries];
+            for (int j = 0; j < numProbabilityEntries; j++) {
+                categories[j] = categoryNames[in.readInt()];
+                counts[j] = in.readInt();
+                addCount(termCounts, categories[j], counts[j]);
+            }
+            dictionary.put(term, new TermEntries(categories, counts));
+        }
+        // feature setting
+        featureSetting = (FeatureSetting) in.readObject();
+        // name
+        name = (String) in.readObject();
+        // half life
+        halfLifeMillis = in.readLong();
+    }
+
+}
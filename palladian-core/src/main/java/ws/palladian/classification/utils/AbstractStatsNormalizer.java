@@ -3,7 +3,11 @@ package ws.palladian.classification.utils;
 import org.apache.commons.lang3.Validate;
 import ws.palladian.core.FeatureVector;
 import ws.palladian.core.Instance;
+import ws.palladian.core.dataset.ColumnarDataset;
 import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.statistics.DatasetStatistics;
+import ws.palladian.core.dataset.statistics.DatasetStatistics.ValueStatistics;
+import ws.palladian.core.dataset.statistics.NumericValueStatistics;
 import ws.palladian.core.value.NumericValue;
 import ws.palladian.core.value.Value;
 import ws.palladian.helper.collection.LazyMap;
@@ -11,6 +15,7 @@ import ws.palladian.helper.collection.Vector.VectorEntry;
 import ws.palladian.helper.math.SlimStats;
 import ws.palladian.helper.math.Stats;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -57,7 +62,22 @@ abstract class AbstractStatsNormalizer implements Normalizer {
         Map<String, Stats> statsMap = new LazyMap<>(SlimStats::new);
 
         Set<String> numericFeatures = dataset.getFeatureInformation().getFeatureNamesOfType(NumericValue.class);
-        if (numericFeatures.size() > 0) {
+        if (dataset instanceof ColumnarDataset) {
+            // scan the primitive columns, without materializing the rows
+            ColumnarDataset columnarDataset = (ColumnarDataset) dataset;
+            for (String numericFeature : numericFeatures) {
+                double[] values = columnarDataset.getNumericColumn(numericFeature);
+                Stats stats = null;
+                for (double value : values) {
+                    if (!Double.isNaN(value)) {
+                        if (stats == null) {
+                            stats = statsMap.get(numericFeature);
+                        }
+                        stats.add(value);
+                    }
+                }
+            }
+        } else if (numericFeatures.size() > 0) {
             for (Instance instance : dataset) {
                 FeatureVector featureVector = instance.getVector();
                 //	    		for (String numericFeature : numericFeatures) {
@@ -87,6 +107,21 @@ abstract class AbstractStatsNormalizer implements Normalizer {
         return create(statsMap);
     }
 
+    @Override
+    public Normalization calculate(DatasetStatistics statistics) {
+        Validate.notNull(statistics, "statistics must not be null");
+
+        Map<String, Stats> statsMap = new HashMap<>();
+        for (String featureName : statistics.getFeatureNames()) {
+            ValueStatistics valueStatistics = statistics.getValueStatistics(featureName);
+            if (valueStatistics instanceof NumericValueStatistics) {
+                statsMap.put(featureName, ((NumericValueStatistics) valueStatistics).getStats());
+            }
+        }
+
+        return create(statsMap);
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName();
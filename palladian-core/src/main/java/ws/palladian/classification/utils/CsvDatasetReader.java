@@ -1,5 +1,6 @@
 package ws.palladian.classification.utils;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +16,7 @@ import ws.palladian.core.value.Value;
 import ws.palladian.core.value.io.ValueParser;
 import ws.palladian.core.value.io.ValueParserException;
 import ws.palladian.helper.StopWatch;
+import ws.palladian.helper.ThreadHelper;
 import ws.palladian.helper.collection.AbstractIterator2;
 import ws.palladian.helper.collection.CollectionHelper;
 import ws.palladian.helper.io.CloseableIterator;
@@ -22,12 +24,14 @@ import ws.palladian.helper.io.CsvReader;
 import ws.palladian.helper.io.FileHelper;
 import ws.palladian.helper.nlp.StringPool;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * <p>
@@ -47,6 +51,10 @@ import java.util.List;
  * {@link CsvDatasetReaderConfig.Builder#parser(String, ValueParser)} method.
  * </p>
  *
+ * <p>
+ * Large files can be parsed using multiple threads, see {@link CsvDatasetReaderConfig.Builder#parallel(int)}.
+ * </p>
+ *
  * @author Philipp Katz
  */
 public class CsvDatasetReader extends AbstractDataset {
@@ -87,17 +95,11 @@ public class CsvDatasetReader extends AbstractDataset {
                 return next();
             }
 
-            if (splitLine.size() < 2) {
-                throw new IllegalStateException("Separator '" + config.fieldSeparator() + "' was not found, lines cannot be split ('" + csvReader.getLineNumber() + "').");
-            }
-            if (expectedColumns != splitLine.size()) {
-                throw new IllegalStateException(
-                        "Unexpected number of entries in line " + csvReader.getLineNumber() + " (" + splitLine.size() + ", but should be " + expectedColumns + ")");
-            }
+            checkLine(splitLine, csvReader.getLineNumber(), "");
 
             instanceCounter++;
 
-            Instance instance = parseInstance(splitLine);
+            Instance instance = parseInstance(splitLine, csvReader.getLineNumber(), "");
             if (instanceCounter % LOG_EVERY_N_LINES == 0) {
                 LOGGER.debug("Read {} lines in {}", instanceCounter, stopWatch);
             }
@@ -105,47 +107,210 @@ public class CsvDatasetReader extends AbstractDataset {
 
         }
 
-        private Instance parseInstance(List<String> splitLine) {
-            FlyweightVectorBuilder builder = vectorSchema.builder();
-            for (int f = 0; f < splitLine.size() - (config.readClassFromLastColumn() ? 1 : 0); f++) {
-                String name = headNames[f];
-                if (name == null) {
-                    continue;
+        @Override
+        public void close() throws IOException {
+            csvReader.close();
+        }
+    }
+
+    /**
+     * Iterator which parses the lines on multiple worker threads. Uncompressed files are split into chunks of bytes
+     * aligned to line boundaries, which are read and parsed completely by the workers. Compressed files (and files
+     * with quoted values which might span multiple lines) are decompressed and split into lines on the iterating
+     * thread, while batches of lines are parsed by the workers.
+     */
+    private final class ParallelCsvDatasetIterator extends AbstractIterator2<Instance> implements CloseableIterator<Instance> {
+        /** Number of chunks which are read ahead per thread. */
+        static final int CHUNKS_PER_THREAD = 2;
+
+        final ExecutorService executor;
+        final CompletionService<List<Instance>> completionService;
+        /** The submitted chunks in file order; only used when reading ordered. */
+        final Deque<Future<List<Instance>>> pendingChunks = new ArrayDeque<>();
+        final int maxPendingChunks;
+        int numPendingChunks;
+
+        /** Used when the file can be split into chunks. */
+        FileChannel channel;
+        long position;
+
+        /** Used otherwise. */
+        CsvReader csvReader;
+
+        Iterator<Instance> currentChunk = Collections.emptyIterator();
+        long instanceCounter;
+        final StopWatch stopWatch = new StopWatch();
+
+        ParallelCsvDatasetIterator() {
+            try {
+                if (config.isSplittable()) {
+                    channel = FileChannel.open(config.filePath().toPath(), StandardOpenOption.READ);
+                    position = config.readHeader() ? findLineEnd(channel, 0) : 0;
+                } else {
+                    csvReader = new CsvReader(config.openInputStream(), config.fieldSeparator(), config.quoteCharacter(), config.isUnescapeDoubleQuotes());
+                    if (config.readHeader() && csvReader.hasNext()) {
+                        csvReader.next();
+                    }
                 }
-                String value = splitLine.get(f);
-                if (config.isTrim()) {
-                    value = value.trim();
+            } catch (FileNotFoundException | NoSuchFileException e) {
+                throw new IllegalStateException(config.filePath() + " not found.");
+            } catch (IOException e) {
+                throw new IllegalStateException("IOException for" + config.filePath());
+            }
+            executor = ThreadHelper.newDaemonThreadPool(config.numThreads(), CsvDatasetReader.class.getSimpleName());
+            completionService = config.isOrdered() ? null : new ExecutorCompletionService<>(executor);
+            maxPendingChunks = CHUNKS_PER_THREAD * config.numThreads();
+        }
+
+        @Override
+        protected Instance getNext() {
+            if (instanceCounter == config.getLimit() + 1) {
+                LOGGER.debug("Limit of {} reached, stopping", config.getLimit());
+                FileHelper.close(this);
+                return finished();
+            }
+            while (!currentChunk.hasNext()) {
+                List<Instance> chunk = nextChunk();
+                if (chunk == null) {
+                    LOGGER.debug("Finished reading {} instances", instanceCounter);
+                    FileHelper.close(this);
+                    return finished();
+                }
+                currentChunk = chunk.iterator();
+            }
+            instanceCounter++;
+            if (instanceCounter % LOG_EVERY_N_LINES == 0) {
+                LOGGER.debug("Read {} lines in {}", instanceCounter, stopWatch);
+            }
+            return currentChunk.next();
+        }
+
+        /** @return The instances of the next parsed chunk, or <code>null</code> in case there are no more chunks. */
+        private List<Instance> nextChunk() {
+            try {
+                submitChunks();
+                if (numPendingChunks == 0) {
+                    return null;
                 }
-                Value parsedValue;
-                if (config.isNullValue(value)) {
-                    parsedValue = NullValue.NULL;
+                Future<List<Instance>> future = config.isOrdered() ? pendingChunks.removeFirst() : completionService.take();
+                numPendingChunks--;
+                List<Instance> chunk = future.get();
+                submitChunks();
+                return chunk;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reading " + config.filePath(), e);
+            } catch (ExecutionException e) {
+                throw ThreadHelper.unwrap(e);
+            } catch (IOException e) {
+                throw new IllegalStateException("IOException for" + config.filePath());
+            }
+        }
+
+        private void submitChunks() throws IOException {
+            while (numPendingChunks < maxPendingChunks) {
+                Callable<List<Instance>> task = channel != null ? createChunkTask() : createBatchTask();
+                if (task == null) {
+                    break;
+                }
+                if (config.isOrdered()) {
+                    pendingChunks.add(executor.submit(task));
                 } else {
-                    try {
-                        parsedValue = parsers[f].parse(value);
-                    } catch (ValueParserException e) {
-                        throw new IllegalStateException(
-                                "Could not parse value \"" + value + "\" in column \"" + name + "\", row " + csvReader.getLineNumber() + " using " + parsers[f].getClass().getName()
-                                        + ".", e);
-                    }
+                    completionService.submit(task);
                 }
-                builder.set(name, parsedValue);
+                numPendingChunks++;
+            }
+        }
+
+        /** @return A task which reads and parses the next chunk from the file, or <code>null</code> at the end. */
+        private Callable<List<Instance>> createChunkTask() throws IOException {
+            long start = position;
+            long size = channel.size();
+            if (start >= size) {
+                return null;
             }
-            String targetClass;
-            if (config.readClassFromLastColumn()) {
-                String value = splitLine.get(splitLine.size() - 1);
-                if (config.isTrim()) {
-                    value = value.trim();
+            long end = size - start > config.chunkSize() ? findLineEnd(channel, start + config.chunkSize()) : size;
+            position = end;
+            FileChannel channel = this.channel;
+            return () -> {
+                ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) < 0) {
+                        throw new IllegalStateException("Unexpected end of " + config.filePath());
+                    }
                 }
-                targetClass = stringPool.get(value);
-            } else {
-                targetClass = Instance.NO_CATEGORY_DUMMY;
+                String text = new String(buffer.array(), Charset.defaultCharset());
+                String location = " of chunk at byte " + start;
+                List<Instance> instances = new ArrayList<>();
+                try (CsvReader chunkReader = new CsvReader(new BufferedReader(new StringReader(text)), config.fieldSeparator(), config.quoteCharacter(), config.isUnescapeDoubleQuotes())) {
+                    while (chunkReader.hasNext()) {
+                        List<String> splitLine = chunkReader.next();
+                        checkLine(splitLine, chunkReader.getLineNumber(), location);
+                        instances.add(parseInstance(splitLine, chunkReader.getLineNumber(), location));
+                    }
+                }
+                return instances;
+            };
+        }
+
+        /**
+         * @return A task which parses the next batch of lines which are read from the stream on the calling thread, or
+         * <code>null</code> at the end.
+         */
+        private Callable<List<Instance>> createBatchTask() {
+            List<List<String>> splitLines = new ArrayList<>();
+            IntArrayList lineNumbers = new IntArrayList();
+            long batchSize = 0;
+            while (batchSize < config.chunkSize() && csvReader.hasNext()) {
+                List<String> splitLine = csvReader.next();
+                checkLine(splitLine, csvReader.getLineNumber(), "");
+                splitLines.add(splitLine);
+                lineNumbers.add(csvReader.getLineNumber());
+                for (String value : splitLine) {
+                    batchSize += value.length() + 1;
+                }
+            }
+            if (splitLines.isEmpty()) {
+                return null;
             }
-            return new ImmutableInstance(builder.create(), targetClass);
+            return () -> {
+                List<Instance> instances = new ArrayList<>(splitLines.size());
+                for (int i = 0; i < splitLines.size(); i++) {
+                    instances.add(parseInstance(splitLines.get(i), lineNumbers.getInt(i), ""));
+                }
+                return instances;
+            };
         }
 
         @Override
         public void close() throws IOException {
-            csvReader.close();
+            executor.shutdownNow();
+            FileHelper.close(channel, csvReader);
+        }
+    }
+
+    /**
+     * Find the end of the line at the given position.
+     *
+     * @param channel  The channel.
+     * @param position The position.
+     * @return The position after the next line break at or after the given position, or the size of the channel.
+     * @throws IOException In case of an I/O error.
+     */
+    private static long findLineEnd(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        for (; ; ) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
         }
     }
 
@@ -293,6 +458,61 @@ public class CsvDatasetReader extends AbstractDataset {
         }
     }
 
+    /**
+     * Check, whether the split line has the expected number of columns.
+     *
+     * @param splitLine  The split line.
+     * @param lineNumber The line number for error messages.
+     * @param location   Further information about the location of the line for error messages, or empty.
+     */
+    private void checkLine(List<String> splitLine, int lineNumber, String location) {
+        if (splitLine.size() < 2) {
+            throw new IllegalStateException("Separator '" + config.fieldSeparator() + "' was not found, lines cannot be split ('" + lineNumber + location + "').");
+        }
+        if (expectedColumns != splitLine.size()) {
+            throw new IllegalStateException(
+                    "Unexpected number of entries in line " + lineNumber + location + " (" + splitLine.size() + ", but should be " + expectedColumns + ")");
+        }
+    }
+
+    private Instance parseInstance(List<String> splitLine, int lineNumber, String location) {
+        FlyweightVectorBuilder builder = vectorSchema.builder();
+        for (int f = 0; f < splitLine.size() - (config.readClassFromLastColumn() ? 1 : 0); f++) {
+            String name = headNames[f];
+            if (name == null) {
+                continue;
+            }
+            String value = splitLine.get(f);
+            if (config.isTrim()) {
+                value = value.trim();
+            }
+            Value parsedValue;
+            if (config.isNullValue(value)) {
+                parsedValue = NullValue.NULL;
+            } else {
+                try {
+                    parsedValue = parsers[f].parse(value);
+                } catch (ValueParserException e) {
+                    throw new IllegalStateException(
+                            "Could not parse value \"" + value + "\" in column \"" + name + "\", row " + lineNumber + location + " using " + parsers[f].getClass().getName()
+                                    + ".", e);
+                }
+            }
+            builder.set(name, parsedValue);
+        }
+        String targetClass;
+        if (config.readClassFromLastColumn()) {
+            String value = splitLine.get(splitLine.size() - 1);
+            if (config.isTrim()) {
+                value = value.trim();
+            }
+            targetClass = stringPool.get(value);
+        } else {
+            targetClass = Instance.NO_CATEGORY_DUMMY;
+        }
+        return new ImmutableInstance(builder.create(), targetClass);
+    }
+
     /**
      * Initialize appropriate parsers for the data; either by consider the
      * parsers provided via configuration, or by trying to parse the value as
@@ -331,6 +551,9 @@ public class CsvDatasetReader extends AbstractDataset {
 
     @Override
     public CloseableIterator<Instance> iterator() {
+        if (config.numThreads() > 1) {
+            return new ParallelCsvDatasetIterator();
+        }
         return new CsvDatasetIterator();
     }
 
@@ -26,6 +26,9 @@ public class CsvDatasetReaderConfig {
 
         public static final String DEFAULT_NULL_VALUE = "?";
 
+        /** Default size of the chunks in bytes, when reading in parallel. */
+        public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
         private static final ValueParser[] DEFAULT_PARSERS = new ValueParser[]{ImmutableBooleanValue.PARSER, ImmutableDoubleValue.PARSER, ImmutableStringValue.PARSER};
 
         private final File filePath;
@@ -41,6 +44,9 @@ public class CsvDatasetReaderConfig {
         private char quoteCharacter = '\u0000';
         private boolean trim = false;
         private boolean unescapeDoubleQuotes = false;
+        private int numThreads = 1;
+        private boolean ordered = true;
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
 
         private Builder(File filePath) {
             Validate.notNull(filePath, "filePath must not be null");
@@ -257,6 +263,49 @@ public class CsvDatasetReaderConfig {
             return this;
         }
 
+        /**
+         * Parse the lines using the given number of threads. Uncompressed files without quote character are split
+         * into chunks of bytes aligned to line boundaries which are read and parsed independently. Compressed files
+         * (which cannot be split) and files with quoted values (which might span multiple lines) are decompressed
+         * and split into lines on the iterating thread, while the values are parsed on the worker threads. The
+         * {@link ValueParser}s are shared by the worker threads and must therefore be thread-safe.
+         *
+         * @param numThreads The number of threads, <code>1</code> to read sequentially (default).
+         * @return The builder.
+         */
+        public Builder parallel(int numThreads) {
+            Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+            this.numThreads = numThreads;
+            return this;
+        }
+
+        /**
+         * Specify whether the instances are delivered in the order of the file when reading in parallel. Unordered
+         * reading avoids waiting for slow chunks, but the order of the instances is not deterministic.
+         *
+         * @param ordered <code>true</code> to keep the order of the file (default).
+         * @return The builder.
+         * @see #parallel(int)
+         */
+        public Builder ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        /**
+         * Set the size of the chunks (in case of uncompressed files), resp. the approximate size of the batches of
+         * lines (in case of compressed files) which are parsed by one worker when reading in parallel.
+         *
+         * @param chunkSize The size in bytes, default is {@value #DEFAULT_CHUNK_SIZE}.
+         * @return The builder.
+         * @see #parallel(int)
+         */
+        public Builder chunkSize(int chunkSize) {
+            Validate.isTrue(chunkSize > 0, "chunkSize must be greater zero");
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
         @Override
         public CsvDatasetReader create() {
             return new CsvDatasetReader(createConfig());
@@ -315,6 +364,9 @@ public class CsvDatasetReaderConfig {
     private final char quoteCharacter;
     private final boolean trim;
     private final boolean unescapeDoubleQuotes;
+    private final int numThreads;
+    private final boolean ordered;
+    private final int chunkSize;
 
     private CsvDatasetReaderConfig(Builder builder) {
         this.filePath = builder.filePath;
@@ -330,6 +382,9 @@ public class CsvDatasetReaderConfig {
         this.quoteCharacter = builder.quoteCharacter;
         this.trim = builder.trim;
         this.unescapeDoubleQuotes = builder.unescapeDoubleQuotes;
+        this.numThreads = builder.numThreads;
+        this.ordered = builder.ordered;
+        this.chunkSize = builder.chunkSize;
     }
 
     File filePath() {
@@ -399,4 +454,21 @@ public class CsvDatasetReaderConfig {
     boolean isUnescapeDoubleQuotes() {
         return unescapeDoubleQuotes;
     }
+
+    int numThreads() {
+        return numThreads;
+    }
+
+    boolean isOrdered() {
+        return ordered;
+    }
+
+    int chunkSize() {
+        return chunkSize;
+    }
+
+    /** @return <code>true</code> in case the file can be split into chunks at line boundaries. */
+    boolean isSplittable() {
+        return compression == Compressions.NONE && quoteCharacter == '\u0000';
+    }
 }
@@ -2,6 +2,7 @@ package ws.palladian.classification.utils;
 
 import ws.palladian.core.FeatureVector;
 import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.statistics.DatasetStatistics;
 
 /**
  * <p>
@@ -35,4 +36,18 @@ public interface Normalizer {
      */
     Normalization calculate(Dataset dataset);
 
+    /**
+     * <p>
+     * Calculate normalization information from precalculated statistics. The default implementation calculates the
+     * normalization from the underlying dataset via {@link #calculate(Dataset)}; implementations which can use the
+     * statistics directly override this, so that the data is not scanned again.
+     *
+     * @param statistics The statistics of the dataset for which to calculate the normalization, not
+     *                   <code>null</code>.
+     * @return The {@link Normalization}
+     */
+    default Normalization calculate(DatasetStatistics statistics) {
+        return calculate(statistics.getDataset());
+    }
+
 }
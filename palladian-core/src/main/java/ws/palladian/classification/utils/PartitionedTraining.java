@@ -0,0 +1,211 @@
+package ws.palladian.classification.utils;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ws.palladian.core.MergeableLearner;
+import ws.palladian.core.Model;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.helper.StopWatch;
+import ws.palladian.helper.ThreadHelper;
+import ws.palladian.helper.functional.Factory;
+import ws.palladian.helper.io.FileHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * <p>
+ * Training of a {@link MergeableLearner} on partitions of the training data. The partial statistics of the partitions
+ * are created independently and merged into one model afterwards. Partitions can be trained either by threads within
+ * this JVM ({@link #train(MergeableLearner, List, int)}), or by separate JVM processes on CSV files
+ * ({@link #trainInProcesses(Class, List, int)}), which exchange their statistics through serialization; in the latter
+ * case, the data of all partitions never needs to be held by one JVM.
+ *
+ * @author Philipp Katz
+ */
+public final class PartitionedTraining {
+
+    /** The logger for this class. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionedTraining.class);
+
+    private PartitionedTraining() {
+        // utility class
+    }
+
+    /**
+     * Train the given partitions with multiple threads and merge them into one model.
+     *
+     * @param learner    The learner, not <code>null</code>.
+     * @param partitions The partitions of the training data, not <code>null</code> or empty.
+     * @param numThreads The number of threads for training the partitions, greater zero.
+     * @return The model trained from all partitions.
+     */
+    public static <M extends Model, S extends Serializable> M train(MergeableLearner<M, S> learner, List<? extends Dataset> partitions, int numThreads) {
+        Validate.notNull(learner, "learner must not be null");
+        Validate.notEmpty(partitions, "partitions must not be empty");
+        Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+        StopWatch stopWatch = new StopWatch();
+        List<S> statistics = new ArrayList<>();
+        if (numThreads == 1) {
+            for (Dataset partition : partitions) {
+                statistics.add(learner.trainPartial(partition));
+            }
+        } else {
+            ExecutorService executor = ThreadHelper.newDaemonThreadPool(numThreads, PartitionedTraining.class.getSimpleName());
+            try {
+                List<Future<S>> futures = new ArrayList<>();
+                for (Dataset partition : partitions) {
+                    futures.add(executor.submit(() -> learner.trainPartial(partition)));
+                }
+                for (Future<S> future : futures) {
+                    statistics.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while training", e);
+            } catch (ExecutionException e) {
+                throw ThreadHelper.unwrap(e);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        M model = learner.createModel(merge(learner, statistics));
+        LOGGER.debug("Trained {} partitions with {} threads in {}", partitions.size(), numThreads, stopWatch);
+        return model;
+    }
+
+    /**
+     * Merge the given statistics pairwise, so that the merged statistics stay balanced in size.
+     *
+     * @param learner    The learner, not <code>null</code>.
+     * @param statistics The statistics to merge, not <code>null</code> or empty; the list is not modified, but its
+     *                   elements may be.
+     * @return The merged statistics.
+     */
+    public static <S extends Serializable> S merge(MergeableLearner<?, S> learner, List<? extends S> statistics) {
+        Validate.notNull(learner, "learner must not be null");
+        Validate.notEmpty(statistics, "statistics must not be empty");
+        List<S> current = new ArrayList<>(statistics);
+        while (current.size() > 1) {
+            List<S> next = new ArrayList<>((current.size() + 1) / 2);
+            for (int i = 0; i < current.size(); i += 2) {
+                next.add(i + 1 < current.size() ? learner.merge(current.get(i), current.get(i + 1)) : current.get(i));
+            }
+            current = next;
+        }
+        return current.get(0);
+    }
+
+    /**
+     * Train the given CSV partitions in separate JVM processes, which are started with the class path of this JVM.
+     * Each process creates the learner through the given factory, trains its partition (see
+     * {@link CsvDatasetReaderConfig} for the expected format), and serializes the statistics to a temporary file; the
+     * statistics are merged into one model by this JVM.
+     *
+     * @param factoryClass     The class of the factory for creating the learner; it must be public and provide a public
+     *                         no-argument constructor, not <code>null</code>.
+     * @param partitionFiles   The CSV files with the partitions, not <code>null</code> or empty.
+     * @param numProcesses     The maximum number of processes which run at the same time, greater zero.
+     * @return The model trained from all partitions.
+     */
+    public static <M extends Model, S extends Serializable> M trainInProcesses(Class<? extends Factory<? extends MergeableLearner<M, S>>> factoryClass, List<File> partitionFiles, int numProcesses) {
+        Validate.notNull(factoryClass, "factoryClass must not be null");
+        Validate.notEmpty(partitionFiles, "partitionFiles must not be empty");
+        Validate.isTrue(numProcesses > 0, "numProcesses must be greater zero");
+        MergeableLearner<M, S> learner = createLearner(factoryClass);
+        StopWatch stopWatch = new StopWatch();
+        List<File> outputFiles = new ArrayList<>();
+        try {
+            for (int i = 0; i < partitionFiles.size(); i++) {
+                File outputFile = File.createTempFile("partition-" + i + "-", ".ser");
+                outputFile.deleteOnExit();
+                outputFiles.add(outputFile);
+            }
+            List<Process> running = new ArrayList<>();
+            try {
+                for (int i = 0; i < partitionFiles.size(); i++) {
+                    if (running.size() == numProcesses) {
+                        waitFor(running.get(0));
+                        running.remove(0);
+                    }
+                    running.add(startWorker(factoryClass, partitionFiles.get(i), outputFiles.get(i)));
+                }
+                for (Process process : running) {
+                    waitFor(process);
+                }
+            } finally {
+                // in case one worker failed, the remaining ones are not needed any more
+                for (Process process : running) {
+                    if (process.isAlive()) {
+                        process.destroyForcibly();
+                    }
+                }
+            }
+            List<S> statistics = new ArrayList<>();
+            for (File outputFile : outputFiles) {
+                statistics.add(FileHelper.<S>deserialize(outputFile.getPath()));
+            }
+            M model = learner.createModel(merge(learner, statistics));
+            LOGGER.debug("Trained {} partitions with {} processes in {}", partitionFiles.size(), numProcesses, stopWatch);
+            return model;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            for (File outputFile : outputFiles) {
+                outputFile.delete();
+            }
+        }
+    }
+
+    private static Process startWorker(Class<?> factoryClass, File partitionFile, File outputFile) throws IOException {
+        String javaBinary = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = Arrays.asList(javaBinary, "-cp", System.getProperty("java.class.path"), PartitionedTraining.class.getName(), factoryClass.getName(), partitionFile.getPath(), outputFile.getPath());
+        LOGGER.debug("Starting worker for {}", partitionFile);
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    private static void waitFor(Process process) {
+        try {
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IllegalStateException("Worker process failed with exit code " + exitCode);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for worker process", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <M extends Model, S extends Serializable> MergeableLearner<M, S> createLearner(Class<?> factoryClass) {
+        try {
+            Constructor<?> constructor = factoryClass.getConstructor();
+            return ((Factory<? extends MergeableLearner<M, S>>) constructor.newInstance()).create();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Could not instantiate " + factoryClass.getName() + "; it must be public and have a public no-argument constructor", e);
+        }
+    }
+
+    /**
+     * Entry point for the worker processes started by {@link #trainInProcesses(Class, List, int)}.
+     *
+     * @param args The factory class name, the path to the CSV partition, and the path to the output file.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 3) {
+            System.err.println("Usage: " + PartitionedTraining.class.getName() + " <factoryClass> <partition.csv> <output>");
+            System.exit(1);
+        }
+        MergeableLearner<?, ?> learner = createLearner(Class.forName(args[0]));
+        Dataset partition = CsvDatasetReaderConfig.filePath(new File(args[1])).create();
+        FileHelper.serialize(learner.trainPartial(partition), args[2]);
+    }
+
+}
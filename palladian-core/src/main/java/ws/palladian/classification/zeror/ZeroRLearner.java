@@ -1,27 +1,54 @@
 package ws.palladian.classification.zeror;
 
+import org.apache.commons.lang3.Validate;
 import ws.palladian.core.AbstractLearner;
 import ws.palladian.core.Instance;
+import ws.palladian.core.MergeableLearner;
 import ws.palladian.core.dataset.Dataset;
 import ws.palladian.helper.collection.Bag;
 
+import java.util.Map.Entry;
+
 /**
  * <p>
  * Baseline classifier which does not consider any features but just learns the class distribution during training.
+ * The partial statistics for {@link MergeableLearner} are the category counts.
  * </p>
  *
  * @author Philipp Katz
  * @see <a href="http://www.saedsayad.com/zeror.htm">ZeroR</a>
  */
-public final class ZeroRLearner extends AbstractLearner<ZeroRModel> {
+public final class ZeroRLearner extends AbstractLearner<ZeroRModel> implements MergeableLearner<ZeroRModel, Bag<String>> {
 
     @Override
     public ZeroRModel train(Dataset dataset) {
+        return createModel(trainPartial(dataset));
+    }
+
+    @Override
+    public Bag<String> trainPartial(Dataset partition) {
+        Validate.notNull(partition, "partition must not be null");
         Bag<String> categoryCounts = new Bag<>();
-        for (Instance trainingInstance : dataset) {
+        for (Instance trainingInstance : partition) {
             categoryCounts.add(trainingInstance.getCategory());
         }
-        return new ZeroRModel(categoryCounts);
+        return categoryCounts;
+    }
+
+    @Override
+    public Bag<String> merge(Bag<String> statistics1, Bag<String> statistics2) {
+        Validate.notNull(statistics1, "statistics1 must not be null");
+        Validate.notNull(statistics2, "statistics2 must not be null");
+        for (Entry<String, Integer> entry : statistics2.unique()) {
+            statistics1.add(entry.getKey(), entry.getValue());
+        }
+        return statistics1;
+    }
+
+    @Override
+    public ZeroRModel createModel(Bag<String> statistics) {
+        Validate.notNull(statistics, "statistics must not be null");
+        return new ZeroRModel(statistics);
     }
 
 }
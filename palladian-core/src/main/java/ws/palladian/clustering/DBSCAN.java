@@ -1,10 +1,11 @@
 package ws.palladian.clustering;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import org.apache.commons.lang3.Validate;
-import ws.palladian.helper.collection.CollectionHelper;
 import ws.palladian.helper.functional.Distance;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 /**
  * <p>
@@ -12,6 +13,15 @@ import java.util.*;
  * "A density-based algorithm for discovering clusters in large spatial databases with noise", Martin Ester, Hans-Peter
  * Kriegel, Jörg Sander, Xiaowei Xu, 1996.
  *
+ * <p>
+ * The epsilon neighborhoods are retrieved using a {@link NeighborhoodIndex}. With the default
+ * {@link LinearScanIndex}, clustering takes O(n²) distance calculations; for geo coordinates, the
+ * {@link GeoGridIndex} and for metric distances, the {@link MetricTreeIndex} can be used instead. The clustering
+ * works in two phases: first, the neighborhoods of all items are queried to detect the core points (which can happen
+ * in parallel), then the clusters are expanded. The neighborhoods of the core points are queried again during the
+ * expansion instead of being kept, so that the memory does not grow with the size of the neighborhoods. The result
+ * does not depend on the index or the parallelization.
+ *
  * @param <T> Type of the objects to cluster.
  * @author Philipp Katz
  * @see <a href="http://en.wikipedia.org/wiki/DBSCAN">Wikipedia: DBSCAN</a>
@@ -22,7 +32,9 @@ public class DBSCAN<T> {
 
     private final int minPts;
 
-    private final Distance<? super T> distance;
+    private final NeighborhoodIndexFactory<? super T> indexFactory;
+
+    private final boolean parallel;
 
     /**
      * <p>
@@ -33,12 +45,28 @@ public class DBSCAN<T> {
      * @param distance The distance measure.
      */
     public DBSCAN(double eps, int minPts, Distance<? super T> distance) {
+        this(eps, minPts, LinearScanIndex.factory(distance), false);
+    }
+
+    /**
+     * <p>
+     * Create a new DBSCAN clusterer which uses the given index for the neighborhood queries.
+     *
+     * @param eps          Maximum distance for the epsilon neighborhood, greater zero.
+     * @param minPts       Minimum number of required points in the neighborhood to form a "dense region", greater
+     *                     zero.
+     * @param indexFactory The factory for the neighborhood index, which determines the distance measure.
+     * @param parallel     <code>true</code> to query the neighborhoods in parallel; in this case, the distance measure
+     *                     must be thread-safe.
+     */
+    public DBSCAN(double eps, int minPts, NeighborhoodIndexFactory<? super T> indexFactory, boolean parallel) {
         Validate.isTrue(eps > 0, "eps must be greater zero");
         Validate.isTrue(minPts > 0, "minPts must be greater zero");
-        Validate.notNull(distance, "distance must not be null");
+        Validate.notNull(indexFactory, "indexFactory must not be null");
         this.eps = eps;
         this.minPts = minPts;
-        this.distance = distance;
+        this.indexFactory = indexFactory;
+        this.parallel = parallel;
     }
 
     /**
@@ -50,59 +78,74 @@ public class DBSCAN<T> {
      */
     public Set<Set<T>> cluster(Iterable<? extends T> data) {
         Validate.notNull(data, "data must not be null");
+        // equal items are treated as one, in the order of their first occurrence
+        Set<T> uniqueItems = new LinkedHashSet<>();
+        data.forEach(uniqueItems::add);
+        List<T> items = new ArrayList<>(uniqueItems);
+        int numItems = items.size();
+
+        // detect the core points
+        NeighborhoodIndex index = indexFactory.create(items, eps);
+        boolean[] core = new boolean[numItems];
+        IntStream indices = IntStream.range(0, numItems);
+        (parallel ? indices.parallel() : indices).forEach(i -> core[i] = index.getNeighbors(i).length >= minPts);
+
         Set<Set<T>> clusters = new HashSet<>();
-        Set<T> visited = new HashSet<>();
-        Set<T> clustered = new HashSet<>();
-        for (T d : data) {
-            if (visited.contains(d)) {
+        boolean[] visited = new boolean[numItems];
+        boolean[] clustered = new boolean[numItems];
+        for (int i = 0; i < numItems; i++) {
+            if (visited[i]) {
                 continue;
             }
-            visited.add(d);
-            Set<T> neighbors = regionQuery(d, data);
-            if (neighbors.size() < minPts) {
+            visited[i] = true;
+            if (!core[i]) {
                 // modification to original algorithm; add noise points as singleton clusters
-                clusters.add(Collections.singleton(d));
+                clusters.add(Collections.singleton(items.get(i)));
             } else {
-                Set<T> currentCluster = expandCluster(d, neighbors, data, visited, clustered);
-                clustered.addAll(currentCluster);
-                clusters.add(currentCluster);
+                IntArrayList currentCluster = expandCluster(i, index, core, visited, clustered);
+                Set<T> cluster = new HashSet<>();
+                for (int j = 0; j < currentCluster.size(); j++) {
+                    cluster.add(items.get(currentCluster.getInt(j)));
+                }
+                clusters.add(cluster);
             }
         }
         return clusters;
     }
 
-    private Set<T> expandCluster(T d, Set<T> neighbors, Iterable<? extends T> data, Set<T> visited, Set<T> clustered) {
-        Set<T> cluster = CollectionHelper.newHashSet(d);
-        Queue<T> neighborQueue = new LinkedList<T>(neighbors);
+    /**
+     * Collect all items which are density-reachable from the given core point, except those which already belong to a
+     * previous cluster, and mark them as clustered.
+     */
+    private static IntArrayList expandCluster(int i, NeighborhoodIndex index, boolean[] core, boolean[] visited, boolean[] clustered) {
+        IntArrayList cluster = new IntArrayList();
+        cluster.add(i);
+        clustered[i] = true;
+        IntArrayList neighborQueue = new IntArrayList(index.getNeighbors(i));
         while (!neighborQueue.isEmpty()) {
-            T n = neighborQueue.poll();
-            if (!visited.contains(n)) {
-                visited.add(n);
-                Set<T> currentNeighbors = regionQuery(n, data);
-                if (currentNeighbors.size() >= minPts) {
-                    neighborQueue.addAll(currentNeighbors);
+            int n = neighborQueue.popInt();
+            if (!visited[n]) {
+                visited[n] = true;
+                if (core[n]) {
+                    for (int neighbor : index.getNeighbors(n)) {
+                        // skip items, for which a visit would have no effect
+                        if (!visited[neighbor] || !clustered[neighbor]) {
+                            neighborQueue.add(neighbor);
+                        }
+                    }
                 }
             }
-            if (!clustered.contains(n)) {
+            if (!clustered[n]) {
+                clustered[n] = true;
                 cluster.add(n);
             }
         }
         return cluster;
     }
 
-    private Set<T> regionQuery(T d, Iterable<? extends T> data) {
-        Set<T> neighbors = new HashSet<>();
-        for (T n : data) {
-            if (distance.getDistance(d, n) < eps) {
-                neighbors.add(n);
-            }
-        }
-        return neighbors;
-    }
-
     @Override
     public String toString() {
-        return "DBSCAN [eps=" + eps + ", minPts=" + minPts + ", distance=" + distance + "]";
+        return "DBSCAN [eps=" + eps + ", minPts=" + minPts + ", index=" + indexFactory + ", parallel=" + parallel + "]";
     }
 
 }
@@ -0,0 +1,169 @@
+package ws.palladian.clustering;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.apache.commons.lang3.Validate;
+import ws.palladian.helper.geo.GeoCoordinate;
+import ws.palladian.helper.geo.GeoUtils;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * A {@link NeighborhoodIndex} for geo coordinates, which uses the great-circle distance in kilometers as calculated by
+ * {@link GeoUtils#computeDistance(double, double, double, double)} (i.e. it gives the same neighborhoods as
+ * {@link GeoUtils#DISTANCE}). The coordinates are put into a grid with cells of (at most) epsilon in latitude and
+ * longitude direction; a query checks only the cells which intersect with the bounding box of the query's epsilon
+ * neighborhood on the sphere, which correctly handles the date line and the poles.
+ *
+ * <p>
+ * {@link GeoCoordinate#NULL} is treated like in {@link GeoUtils#DISTANCE}: it has no neighbors, but other coordinates
+ * consider it located at latitude and longitude zero.
+ *
+ * @param <T> Type of the indexed items.
+ * @author Philipp Katz
+ */
+public final class GeoGridIndex<T> implements NeighborhoodIndex {
+
+    /** Relative tolerance for the bounding box, so that rounding errors cannot cause missing neighbors. */
+    private static final double TOLERANCE = 1e-9;
+
+    private final double eps;
+
+    private final double[] latitudes;
+
+    private final double[] longitudes;
+
+    /** Marks the items which have no neighbors (i.e. {@link GeoCoordinate#NULL}). */
+    private final boolean[] isNull;
+
+    /** The epsilon neighborhood as angle in radians, including the tolerance. */
+    private final double angle;
+
+    private final int numRows;
+
+    private final int numColumns;
+
+    private final double rowHeight;
+
+    private final double columnWidth;
+
+    /** The item indices in each cell; the key is row times number of columns plus column. */
+    private final Long2ObjectOpenHashMap<int[]> cells = new Long2ObjectOpenHashMap<>();
+
+    /** The item indices in each row, for queries which span all columns (i.e. close to the poles). */
+    private final Int2ObjectOpenHashMap<int[]> rows = new Int2ObjectOpenHashMap<>();
+
+    private GeoGridIndex(List<? extends T> items, double eps, Function<? super T, ? extends GeoCoordinate> coordinateFunction) {
+        this.eps = eps;
+        this.latitudes = new double[items.size()];
+        this.longitudes = new double[items.size()];
+        this.isNull = new boolean[items.size()];
+        this.angle = eps / GeoUtils.EARTH_RADIUS_KM * (1 + TOLERANCE);
+        double cellSize = Math.min(180, Math.toDegrees(angle));
+        this.numRows = (int) Math.ceil(180 / cellSize);
+        this.numColumns = (int) Math.ceil(360 / cellSize);
+        this.rowHeight = 180. / numRows;
+        this.columnWidth = 360. / numColumns;
+        Long2ObjectOpenHashMap<IntArrayList> cellLists = new Long2ObjectOpenHashMap<>();
+        Int2ObjectOpenHashMap<IntArrayList> rowLists = new Int2ObjectOpenHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            GeoCoordinate coordinate = coordinateFunction.apply(items.get(i));
+            Validate.notNull(coordinate, "coordinate of %s must not be null", items.get(i));
+            latitudes[i] = coordinate.getLatitude();
+            longitudes[i] = coordinate.getLongitude();
+            isNull[i] = coordinate == GeoCoordinate.NULL;
+            int row = getRow(latitudes[i]);
+            long cell = (long) row * numColumns + getColumn(longitudes[i]);
+            cellLists.computeIfAbsent(cell, k -> new IntArrayList()).add(i);
+            rowLists.computeIfAbsent(row, k -> new IntArrayList()).add(i);
+        }
+        cellLists.long2ObjectEntrySet().forEach(e -> cells.put(e.getLongKey(), e.getValue().toIntArray()));
+        rowLists.int2ObjectEntrySet().forEach(e -> rows.put(e.getIntKey(), e.getValue().toIntArray()));
+    }
+
+    /**
+     * @param coordinateFunction The function which gives the coordinate of an item, not <code>null</code>.
+     * @return A factory for {@link GeoGridIndex}es for items with coordinates.
+     */
+    public static <T> NeighborhoodIndexFactory<T> factory(Function<? super T, ? extends GeoCoordinate> coordinateFunction) {
+        Validate.notNull(coordinateFunction, "coordinateFunction must not be null");
+        return new NeighborhoodIndexFactory<T>() {
+            @Override
+            public NeighborhoodIndex create(List<? extends T> items, double eps) {
+                Validate.notNull(items, "items must not be null");
+                Validate.isTrue(eps > 0, "eps must be greater zero");
+                return new GeoGridIndex<>(items, eps, coordinateFunction);
+            }
+
+            @Override
+            public String toString() {
+                return "GeoGridIndex";
+            }
+        };
+    }
+
+    /**
+     * @return A factory for {@link GeoGridIndex}es for {@link GeoCoordinate}s.
+     */
+    public static <T extends GeoCoordinate> NeighborhoodIndexFactory<T> factory() {
+        return factory(coordinate -> coordinate);
+    }
+
+    private int getRow(double latitude) {
+        return Math.max(0, Math.min(numRows - 1, (int) Math.floor((latitude + 90) / rowHeight)));
+    }
+
+    private int getColumn(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / columnWidth), numColumns);
+    }
+
+    @Override
+    public int[] getNeighbors(int index) {
+        IntArrayList neighbors = new IntArrayList();
+        if (isNull[index]) {
+            return neighbors.toIntArray();
+        }
+        double latitude = latitudes[index];
+        double longitude = longitudes[index];
+        double angleDegrees = Math.toDegrees(angle);
+        int firstRow = getRow(latitude - angleDegrees);
+        int lastRow = getRow(latitude + angleDegrees);
+        // maximum longitude difference of the spherical cap, unless it contains a pole
+        double longitudeDifference = 180;
+        if (Math.abs(latitude) + angleDegrees < 90) {
+            double sine = Math.sin(angle) / Math.cos(Math.toRadians(latitude));
+            if (sine < 1) {
+                longitudeDifference = Math.toDegrees(Math.asin(sine)) * (1 + TOLERANCE);
+            }
+        }
+        int firstColumn = (int) Math.floor((longitude - longitudeDifference + 180) / columnWidth);
+        int lastColumn = (int) Math.floor((longitude + longitudeDifference + 180) / columnWidth);
+        boolean allColumns = longitudeDifference >= 180 || lastColumn - firstColumn + 1 >= numColumns;
+        for (int row = firstRow; row <= lastRow; row++) {
+            if (allColumns) {
+                addNeighbors(index, rows.get(row), neighbors);
+            } else {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    addNeighbors(index, cells.get((long) row * numColumns + Math.floorMod(column, numColumns)), neighbors);
+                }
+            }
+        }
+        return neighbors.toIntArray();
+    }
+
+    private void addNeighbors(int index, int[] candidates, IntArrayList neighbors) {
+        if (candidates == null) {
+            return;
+        }
+        for (int candidate : candidates) {
+            double distance = GeoUtils.computeDistance(latitudes[index], longitudes[index], latitudes[candidate], longitudes[candidate]);
+            if (distance < eps) {
+                neighbors.add(candidate);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package ws.palladian.clustering;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.apache.commons.lang3.Validate;
+import ws.palladian.helper.functional.Distance;
+
+import java.util.List;
+
+/**
+ * A {@link NeighborhoodIndex} without any index structure; each query compares the item with all other items, which
+ * gives a runtime of O(n) per query. It works with arbitrary {@link Distance} measures, also with those which are not
+ * a metric.
+ *
+ * @param <T> Type of the indexed items.
+ * @author Philipp Katz
+ */
+public final class LinearScanIndex<T> implements NeighborhoodIndex {
+
+    private final List<? extends T> items;
+
+    private final double eps;
+
+    private final Distance<? super T> distance;
+
+    private LinearScanIndex(List<? extends T> items, double eps, Distance<? super T> distance) {
+        this.items = items;
+        this.eps = eps;
+        this.distance = distance;
+    }
+
+    /**
+     * @param distance The distance measure, not <code>null</code>.
+     * @return A factory for {@link LinearScanIndex}es with the given distance measure.
+     */
+    public static <T> NeighborhoodIndexFactory<T> factory(Distance<? super T> distance) {
+        Validate.notNull(distance, "distance must not be null");
+        return new NeighborhoodIndexFactory<T>() {
+            @Override
+            public NeighborhoodIndex create(List<? extends T> items, double eps) {
+                Validate.notNull(items, "items must not be null");
+                return new LinearScanIndex<>(items, eps, distance);
+            }
+
+            @Override
+            public String toString() {
+                return "LinearScanIndex [distance=" + distance + "]";
+            }
+        };
+    }
+
+    @Override
+    public int[] getNeighbors(int index) {
+        T item = items.get(index);
+        IntArrayList neighbors = new IntArrayList();
+        for (int i = 0; i < items.size(); i++) {
+            if (distance.getDistance(item, items.get(i)) < eps) {
+                neighbors.add(i);
+            }
+        }
+        return neighbors.toIntArray();
+    }
+
+}
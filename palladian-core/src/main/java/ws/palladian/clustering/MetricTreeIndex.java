@@ -0,0 +1,122 @@
+package ws.palladian.clustering;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import org.apache.commons.lang3.Validate;
+import ws.palladian.helper.functional.Distance;
+
+import java.util.List;
+
+/**
+ * <p>
+ * A {@link NeighborhoodIndex} for arbitrary {@link Distance} measures, implemented as vantage-point tree: each node
+ * picks one item as vantage point and splits the remaining items at the median of their distances to it. Queries
+ * prune subtrees using the triangle inequality, which requires that the distance is a <b>metric</b> (symmetric, and
+ * fulfilling the triangle inequality); for other measures, the {@link LinearScanIndex} must be used. Building the
+ * index takes O(n log n) distance calculations.
+ *
+ * @param <T> Type of the indexed items.
+ * @author Philipp Katz
+ * @see <a href="https://en.wikipedia.org/wiki/Vantage-point_tree">Wikipedia: Vantage-point tree</a>
+ */
+public final class MetricTreeIndex<T> implements NeighborhoodIndex {
+
+    /** Nodes with up to this number of items are searched linearly. */
+    private static final int LEAF_SIZE = 8;
+
+    /** Relative tolerance for the pruning, so that rounding errors cannot cause missing neighbors. */
+    private static final double TOLERANCE = 1e-9;
+
+    private final List<? extends T> items;
+
+    private final double eps;
+
+    private final Distance<? super T> distance;
+
+    /** The item indices in tree order; each inner node spans a range, with the vantage point at its first position. */
+    private final int[] order;
+
+    /** The median distance to the vantage point, stored at the position of the vantage point. */
+    private final double[] radius;
+
+    private MetricTreeIndex(List<? extends T> items, double eps, Distance<? super T> distance) {
+        this.items = items;
+        this.eps = eps;
+        this.distance = distance;
+        this.order = new int[items.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        this.radius = new double[items.size()];
+        build(0, order.length, new double[items.size()]);
+    }
+
+    /**
+     * @param distance The distance measure, must be a metric, not <code>null</code>.
+     * @return A factory for {@link MetricTreeIndex}es with the given distance measure.
+     */
+    public static <T> NeighborhoodIndexFactory<T> factory(Distance<? super T> distance) {
+        Validate.notNull(distance, "distance must not be null");
+        return new NeighborhoodIndexFactory<T>() {
+            @Override
+            public NeighborhoodIndex create(List<? extends T> items, double eps) {
+                Validate.notNull(items, "items must not be null");
+                return new MetricTreeIndex<>(items, eps, distance);
+            }
+
+            @Override
+            public String toString() {
+                return "MetricTreeIndex [distance=" + distance + "]";
+            }
+        };
+    }
+
+    private void build(int from, int to, double[] distances) {
+        if (to - from <= LEAF_SIZE) {
+            return;
+        }
+        T vantagePoint = items.get(order[from]);
+        for (int i = from + 1; i < to; i++) {
+            distances[order[i]] = distance.getDistance(vantagePoint, items.get(order[i]));
+        }
+        IntArrays.quickSort(order, from + 1, to, (i1, i2) -> Double.compare(distances[i1], distances[i2]));
+        int median = (from + 1 + to) >>> 1;
+        radius[from] = distances[order[median]];
+        build(from + 1, median, distances);
+        build(median, to, distances);
+    }
+
+    @Override
+    public int[] getNeighbors(int index) {
+        IntArrayList neighbors = new IntArrayList();
+        search(items.get(index), 0, order.length, neighbors);
+        return neighbors.toIntArray();
+    }
+
+    private void search(T item, int from, int to, IntArrayList neighbors) {
+        if (to - from <= LEAF_SIZE) {
+            for (int i = from; i < to; i++) {
+                if (distance.getDistance(item, items.get(order[i])) < eps) {
+                    neighbors.add(order[i]);
+                }
+            }
+            return;
+        }
+        double vantagePointDistance = distance.getDistance(item, items.get(order[from]));
+        if (vantagePointDistance < eps) {
+            neighbors.add(order[from]);
+        }
+        double mu = radius[from];
+        double threshold = eps + TOLERANCE * (eps + mu);
+        int median = (from + 1 + to) >>> 1;
+        // the inner items have a distance <= mu to the vantage point, the outer ones >= mu; the negated comparisons
+        // make sure, that subtrees are only skipped when this is safe (i.e. not for NaNs)
+        if (!(vantagePointDistance - mu >= threshold)) {
+            search(item, from + 1, median, neighbors);
+        }
+        if (!(mu - vantagePointDistance >= threshold)) {
+            search(item, median, to, neighbors);
+        }
+    }
+
+}
@@ -0,0 +1,23 @@
+package ws.palladian.clustering;
+
+/**
+ * <p>
+ * An index over a fixed list of items, which answers epsilon neighborhood queries (i.e. it retrieves all items within
+ * a given distance of an item). Items are referred to by their position in the list. Implementations must be safe for
+ * concurrent queries, so that they can be used by multiple threads in parallel.
+ *
+ * @author Philipp Katz
+ * @see NeighborhoodIndexFactory
+ */
+public interface NeighborhoodIndex {
+
+    /**
+     * Retrieve the epsilon neighborhood of an item.
+     *
+     * @param index The index of the item.
+     * @return The indices of all items, whose distance from the given item is less than epsilon (this includes the item
+     * itself, in case its distance to itself is less than epsilon).
+     */
+    int[] getNeighbors(int index);
+
+}
@@ -0,0 +1,22 @@
+package ws.palladian.clustering;
+
+import java.util.List;
+
+/**
+ * Factory for {@link NeighborhoodIndex}es; it encapsulates the distance measure which is used by the index.
+ *
+ * @param <T> Type of the indexed items.
+ * @author Philipp Katz
+ */
+public interface NeighborhoodIndexFactory<T> {
+
+    /**
+     * Create an index over the given items.
+     *
+     * @param items The items to index, not <code>null</code>.
+     * @param eps   The maximum distance for the epsilon neighborhood queries, greater zero.
+     * @return The index.
+     */
+    NeighborhoodIndex create(List<? extends T> items, double eps);
+
+}
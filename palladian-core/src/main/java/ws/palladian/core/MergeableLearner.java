@@ -0,0 +1,52 @@
+package ws.palladian.core;
+
+import ws.palladian.core.dataset.Dataset;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * A {@link Learner} which can be trained on partitions of the training data independently. For each partition, the
+ * learner creates partial statistics, which are sufficient for building the model (e.g. counts). These statistics can
+ * be serialized and shipped to a different process or machine, where they are merged into the final model. This way,
+ * partitions can be trained in parallel, without one pass over all data in one JVM (see
+ * {@link ws.palladian.classification.utils.PartitionedTraining}).
+ *
+ * <p>
+ * The merge operation must be associative, so that the statistics of multiple partitions can be merged in any grouping;
+ * the model created from the merged statistics equals (up to floating point precision) the model which is trained on
+ * all partitions at once.
+ *
+ * @param <M> The type of the model that is created.
+ * @param <S> The type of the partial statistics.
+ * @author Philipp Katz
+ */
+public interface MergeableLearner<M extends Model, S extends Serializable> extends Learner<M> {
+
+    /**
+     * Create the partial statistics for one partition of the training data.
+     *
+     * @param partition The partition of the training data, not <code>null</code>.
+     * @return The statistics.
+     */
+    S trainPartial(Dataset partition);
+
+    /**
+     * Merge two partial statistics. The first statistics may be modified and returned, the second ones are not
+     * modified.
+     *
+     * @param statistics1 The first statistics, not <code>null</code>.
+     * @param statistics2 The second statistics, not <code>null</code>.
+     * @return The merged statistics.
+     */
+    S merge(S statistics1, S statistics2);
+
+    /**
+     * Create the model from the (merged) statistics.
+     *
+     * @param statistics The statistics, not <code>null</code>.
+     * @return The model.
+     */
+    M createModel(S statistics);
+
+}
@@ -32,7 +32,7 @@ public abstract class AbstractDataset implements Dataset {
 
     @Override
     public Dataset buffer() {
-        return new CollectionDataset(this);
+        return new ColumnarDataset(this);
     }
 
     @Override
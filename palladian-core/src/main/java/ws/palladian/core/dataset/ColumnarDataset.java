@@ -0,0 +1,686 @@
+package ws.palladian.core.dataset;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.apache.commons.lang3.Validate;
+import ws.palladian.core.AbstractFeatureVector;
+import ws.palladian.core.ImmutableFeatureVectorEntry;
+import ws.palladian.core.ImmutableInstance;
+import ws.palladian.core.Instance;
+import ws.palladian.core.featurevector.FlyweightVectorSchema;
+import ws.palladian.core.value.*;
+import ws.palladian.helper.collection.AbstractIterator2;
+import ws.palladian.helper.collection.Vector.VectorEntry;
+import ws.palladian.helper.io.CloseableIterator;
+
+import java.util.*;
+
+/**
+ * <p>
+ * An in-memory dataset which stores the values column by column in primitive arrays, instead of keeping an
+ * {@link Instance} with boxed {@link Value}s per row. Double, float, integer, long and boolean features are stored in
+ * primitive arrays with a bitmap marking the <code>null</code> values; nominal features are dictionary encoded as
+ * <code>int</code> codes. Columns which contain values of different types (or of types without a primitive
+ * representation, such as dates or texts) fall back to an array of the {@link Value} objects. The categories are
+ * dictionary encoded as well.
+ * <p>
+ * The instances returned by the {@link #iterator()} are views on a row, which decode the values on access; the key
+ * lookup is shared via a {@link FlyweightVectorSchema}. For analyses which process single features, such as
+ * statistics or normalization, {@link #getNumericColumn(String)} allows to scan a column without creating any rows.
+ *
+ * @author Philipp Katz
+ */
+public final class ColumnarDataset extends AbstractDataset {
+
+    private final FeatureInformation featureInformation;
+
+    private final FlyweightVectorSchema schema;
+
+    private final String[] featureNames;
+
+    private final Column[] columns;
+
+    private final int numRows;
+
+    /** The dictionary encoded categories. */
+    private final String[] categoryDictionary;
+    private final int[] categoryCodes;
+
+    /** The weights, or <code>null</code> in case all weights are one. */
+    private final int[] weights;
+
+    /**
+     * Read the given dataset into memory.
+     *
+     * @param dataset The dataset, not <code>null</code>.
+     */
+    public ColumnarDataset(Dataset dataset) {
+        Objects.requireNonNull(dataset, "dataset was null");
+        featureInformation = dataset.getFeatureInformation();
+        schema = new FlyweightVectorSchema(featureInformation);
+        featureNames = schema.keys().toArray(new String[0]);
+        ColumnBuilder[] builders = new ColumnBuilder[featureNames.length];
+        for (int i = 0; i < builders.length; i++) {
+            builders[i] = new ColumnBuilder();
+        }
+        Object2IntMap<String> categoryIndices = new Object2IntOpenHashMap<>();
+        categoryIndices.defaultReturnValue(-1);
+        List<String> categories = new ArrayList<>();
+        int[] categoryCodes = new int[16];
+        int[] weights = null;
+        Value[] rowValues = new Value[featureNames.length];
+        int row = 0;
+        for (Instance instance : dataset) {
+            Arrays.fill(rowValues, null);
+            for (VectorEntry<String, Value> entry : instance.getVector()) {
+                schema.set(entry.key(), entry.value(), rowValues);
+            }
+            for (int i = 0; i < builders.length; i++) {
+                builders[i].append(rowValues[i]);
+            }
+            if (row == categoryCodes.length) {
+                categoryCodes = Arrays.copyOf(categoryCodes, row * 2);
+                if (weights != null) {
+                    weights = Arrays.copyOf(weights, row * 2);
+                }
+            }
+            String category = instance.getCategory();
+            int categoryCode = -1;
+            if (category != null) {
+                categoryCode = categoryIndices.getInt(category);
+                if (categoryCode == -1) {
+                    categoryCode = categories.size();
+                    categoryIndices.put(category, categoryCode);
+                    categories.add(category);
+                }
+            }
+            categoryCodes[row] = categoryCode;
+            if (instance.getWeight() != 1 && weights == null) {
+                weights = new int[categoryCodes.length];
+                Arrays.fill(weights, 0, row, 1);
+            }
+            if (weights != null) {
+                weights[row] = instance.getWeight();
+            }
+            row++;
+        }
+        this.numRows = row;
+        this.columns = new Column[builders.length];
+        for (int i = 0; i < builders.length; i++) {
+            columns[i] = builders[i].create();
+        }
+        this.categoryDictionary = categories.toArray(new String[0]);
+        this.categoryCodes = Arrays.copyOf(categoryCodes, numRows);
+        this.weights = weights != null ? Arrays.copyOf(weights, numRows) : null;
+    }
+
+    @Override
+    public CloseableIterator<Instance> iterator() {
+        return new CloseableIterator<Instance>() {
+            int row = 0;
+
+            @Override
+            public boolean hasNext() {
+                return row < numRows;
+            }
+
+            @Override
+            public Instance next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return getInstance(row++);
+            }
+
+            @Override
+            public void close() {
+                // nothing to do
+            }
+        };
+    }
+
+    /**
+     * Get the instance at the given row.
+     *
+     * @param row The row, between zero and {@link #size()}.
+     * @return The instance.
+     */
+    public Instance getInstance(int row) {
+        Validate.isTrue(row >= 0 && row < numRows, "row must be between zero and %s", numRows);
+        int categoryCode = categoryCodes[row];
+        String category = categoryCode != -1 ? categoryDictionary[categoryCode] : null;
+        return new ImmutableInstance(new RowVector(row), category, weights != null ? weights[row] : 1);
+    }
+
+    /**
+     * Get the values of a feature as <code>double</code>s, without creating any intermediate objects.
+     *
+     * @param featureName The name of the feature, not <code>null</code>.
+     * @return The values of all rows; {@link Double#NaN} for <code>null</code> and non-numeric values.
+     */
+    public double[] getNumericColumn(String featureName) {
+        Validate.notNull(featureName, "featureName must not be null");
+        int index = schema.indexOf(featureName);
+        Validate.isTrue(index != -1, "No feature with name \"%s\".", featureName);
+        double[] result = new double[numRows];
+        columns[index].getDoubles(result);
+        return result;
+    }
+
+    @Override
+    public FeatureInformation getFeatureInformation() {
+        return featureInformation;
+    }
+
+    @Override
+    public long size() {
+        return numRows;
+    }
+
+    @Override
+    public Dataset buffer() {
+        return this; // already buffered
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("ColumnarDataset [#rows=").append(numRows).append(", columns=[");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(featureNames[i]).append(':').append(columns[i].getClass().getSimpleName());
+        }
+        return builder.append("]]").toString();
+    }
+
+    /** View on one row of the dataset. */
+    private final class RowVector extends AbstractFeatureVector {
+        private final int row;
+
+        RowVector(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Value get(String k) {
+            int index = schema.indexOf(k);
+            if (index == -1) { // there is no such key
+                return null;
+            }
+            return columns[index].get(row);
+        }
+
+        @Override
+        public int size() {
+            return featureNames.length;
+        }
+
+        @Override
+        public Set<String> keys() {
+            return schema.keys();
+        }
+
+        @Override
+        public Iterator<VectorEntry<String, Value>> iterator() {
+            return new AbstractIterator2<VectorEntry<String, Value>>() {
+                int index = 0;
+
+                @Override
+                protected VectorEntry<String, Value> getNext() {
+                    if (index < featureNames.length) {
+                        String name = featureNames[index];
+                        Value value = columns[index].get(row);
+                        index++;
+                        return new ImmutableFeatureVectorEntry(name, value);
+                    }
+                    return finished();
+                }
+            };
+        }
+    }
+
+    // columns
+
+    /** Collects the values of one column, choosing the storage by the type of the first non-null value. */
+    private static final class ColumnBuilder {
+        Column column;
+        int leadingNulls;
+
+        void append(Value value) {
+            boolean isNull = value == null || value.isNull();
+            if (column == null) {
+                if (isNull) {
+                    leadingNulls++;
+                    return;
+                }
+                column = Column.forType(value.getClass());
+                for (int i = 0; i < leadingNulls; i++) {
+                    column.appendNull();
+                }
+            }
+            if (isNull) {
+                column.appendNull();
+            } else {
+                if (!column.accepts(value)) {
+                    column = new ObjectColumn(column);
+                }
+                column.append(value);
+            }
+        }
+
+        Column create() {
+            if (column == null) {
+                column = new ObjectColumn();
+                for (int i = 0; i < leadingNulls; i++) {
+                    column.appendNull();
+                }
+            }
+            column.trim();
+            return column;
+        }
+    }
+
+    private static abstract class Column {
+        int size;
+
+        static Column forType(Class<?> type) {
+            if (type == ImmutableDoubleValue.class) {
+                return new DoubleColumn();
+            } else if (type == ImmutableFloatValue.class) {
+                return new FloatColumn();
+            } else if (type == ImmutableIntegerValue.class) {
+                return new IntColumn();
+            } else if (type == ImmutableLongValue.class) {
+                return new LongColumn();
+            } else if (type == ImmutableBooleanValue.class) {
+                return new BooleanColumn();
+            } else if (type == ImmutableStringValue.class) {
+                return new DictionaryColumn();
+            }
+            return new ObjectColumn();
+        }
+
+        /** @return <code>true</code> in case the non-null value can be stored in this column. */
+        abstract boolean accepts(Value value);
+
+        /** Append a non-null, {@link #accepts(Value) accepted} value. */
+        abstract void append(Value value);
+
+        abstract void appendNull();
+
+        /** @return The value, or {@link NullValue#NULL}. */
+        abstract Value get(int row);
+
+        /** Write the values as doubles to the given array, {@link Double#NaN} for null and non-numeric values. */
+        void getDoubles(double[] result) {
+            for (int row = 0; row < size; row++) {
+                Value value = get(row);
+                result[row] = value instanceof NumericValue ? ((NumericValue) value).getDouble() : Double.NaN;
+            }
+        }
+
+        /** Shrink the arrays to the actual size, after all values have been appended. */
+        abstract void trim();
+    }
+
+    /** Base class for columns of primitive values with a bitmap for the nulls. */
+    private static abstract class PrimitiveColumn extends Column {
+        long[] nulls = new long[1];
+
+        final void setNull(int row, boolean isNull) {
+            int word = row >>> 6;
+            if (word >= nulls.length) {
+                nulls = Arrays.copyOf(nulls, Math.max(word + 1, nulls.length * 2));
+            }
+            if (isNull) {
+                nulls[word] |= 1L << row;
+            }
+        }
+
+        final boolean isNull(int row) {
+            return (nulls[row >>> 6] & 1L << row) != 0;
+        }
+
+        @Override
+        void trim() {
+            nulls = Arrays.copyOf(nulls, (size + 63) >>> 6);
+        }
+    }
+
+    private static final class DoubleColumn extends PrimitiveColumn {
+        double[] values = new double[16];
+
+        private void ensureCapacity() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+        }
+
+        @Override
+        boolean accepts(Value value) {
+            return value.getClass() == ImmutableDoubleValue.class;
+        }
+
+        @Override
+        void append(Value value) {
+            ensureCapacity();
+            setNull(size, false);
+            values[size++] = ((ImmutableDoubleValue) value).getDouble();
+        }
+
+        @Override
+        void appendNull() {
+            ensureCapacity();
+            setNull(size++, true);
+        }
+
+        @Override
+        Value get(int row) {
+            return isNull(row) ? NullValue.NULL : new ImmutableDoubleValue(values[row]);
+        }
+
+        @Override
+        void getDoubles(double[] result) {
+            for (int row = 0; row < size; row++) {
+                result[row] = isNull(row) ? Double.NaN : values[row];
+            }
+        }
+
+        @Override
+        void trim() {
+            super.trim();
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class FloatColumn extends PrimitiveColumn {
+        float[] values = new float[16];
+
+        private void ensureCapacity() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+        }
+
+        @Override
+        boolean accepts(Value value) {
+            return value.getClass() == ImmutableFloatValue.class;
+        }
+
+        @Override
+        void append(Value value) {
+            ensureCapacity();
+            setNull(size, false);
+            values[size++] = ((ImmutableFloatValue) value).getFloat();
+        }
+
+        @Override
+        void appendNull() {
+            ensureCapacity();
+            setNull(size++, true);
+        }
+
+        @Override
+        Value get(int row) {
+            return isNull(row) ? NullValue.NULL : new ImmutableFloatValue(values[row]);
+        }
+
+        @Override
+        void getDoubles(double[] result) {
+            for (int row = 0; row < size; row++) {
+                result[row] = isNull(row) ? Double.NaN : values[row];
+            }
+        }
+
+        @Override
+        void trim() {
+            super.trim();
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class IntColumn extends PrimitiveColumn {
+        int[] values = new int[16];
+
+        private void ensureCapacity() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+        }
+
+        @Override
+        boolean accepts(Value value) {
+            return value.getClass() == ImmutableIntegerValue.class;
+        }
+
+        @Override
+        void append(Value value) {
+            ensureCapacity();
+            setNull(size, false);
+            values[size++] = ((ImmutableIntegerValue) value).getInt();
+        }
+
+        @Override
+        void appendNull() {
+            ensureCapacity();
+            setNull(size++, true);
+        }
+
+        @Override
+        Value get(int row) {
+            return isNull(row) ? NullValue.NULL : ImmutableIntegerValue.valueOf(values[row]);
+        }
+
+        @Override
+        void getDoubles(double[] result) {
+            for (int row = 0; row < size; row++) {
+                result[row] = isNull(row) ? Double.NaN : values[row];
+            }
+        }
+
+        @Override
+        void trim() {
+            super.trim();
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class LongColumn extends PrimitiveColumn {
+        long[] values = new long[16];
+
+        private void ensureCapacity() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+        }
+
+        @Override
+        boolean accepts(Value value) {
+            return value.getClass() == ImmutableLongValue.class;
+        }
+
+        @Override
+        void append(Value value) {
+            ensureCapacity();
+            setNull(size, false);
+            values[size++] = ((ImmutableLongValue) value).getLong();
+        }
+
+        @Override
+        void appendNull() {
+            ensureCapacity();
+            setNull(size++, true);
+        }
+
+        @Override
+        Value get(int row) {
+            return isNull(row) ? NullValue.NULL : ImmutableLongValue.valueOf(values[row]);
+        }
+
+        @Override
+        void getDoubles(double[] result) {
+            for (int row = 0; row < size; row++) {
+                result[row] = isNull(row) ? Double.NaN : values[row];
+            }
+        }
+
+        @Override
+        void trim() {
+            super.trim();
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class BooleanColumn extends PrimitiveColumn {
+        long[] values = new long[1];
+
+        @Override
+        boolean accepts(Value value) {
+            return value.getClass() == ImmutableBooleanValue.class;
+        }
+
+        @Override
+        void append(Value value) {
+            ensureCapacity();
+            setNull(size, false);
+            if (((ImmutableBooleanValue) value).getBoolean()) {
+                values[size >>> 6] |= 1L << size;
+            }
+            size++;
+        }
+
+        @Override
+        void appendNull() {
+            ensureCapacity();
+            setNull(size++, true);
+        }
+
+        private void ensureCapacity() {
+            if (size >>> 6 >= values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+        }
+
+        @Override
+        Value get(int row) {
+            return isNull(row) ? NullValue.NULL : ImmutableBooleanValue.create((values[row >>> 6] & 1L << row) != 0);
+        }
+
+        @Override
+        void trim() {
+            super.trim();
+            values = Arrays.copyOf(values, (size + 63) >>> 6);
+        }
+    }
+
+    /** Dictionary encoded nominal values; code -1 denotes null. */
+    private static final class DictionaryColumn extends Column {
+        final Object2IntMap<String> indices = new Object2IntOpenHashMap<>();
+        final List<ImmutableStringValue> dictionary = new ArrayList<>();
+        int[] codes = new int[16];
+        ImmutableStringValue[] dictionaryArray;
+
+        DictionaryColumn() {
+            indices.defaultReturnValue(-1);
+        }
+
+        @Override
+        boolean accepts(Value value) {
+            return value.getClass() == ImmutableStringValue.class;
+        }
+
+        @Override
+        void append(Value value) {
+            ImmutableStringValue stringValue = (ImmutableStringValue) value;
+            int code = indices.getInt(stringValue.getString());
+            if (code == -1) {
+                code = dictionary.size();
+                indices.put(stringValue.getString(), code);
+                dictionary.add(stringValue);
+            }
+            appendCode(code);
+        }
+
+        @Override
+        void appendNull() {
+            appendCode(-1);
+        }
+
+        private void appendCode(int code) {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            codes[size++] = code;
+        }
+
+        @Override
+        Value get(int row) {
+            int code = codes[row];
+            if (code == -1) {
+                return NullValue.NULL;
+            }
+            return dictionaryArray != null ? dictionaryArray[code] : dictionary.get(code);
+        }
+
+        @Override
+        void getDoubles(double[] result) {
+            Arrays.fill(result, 0, size, Double.NaN);
+        }
+
+        @Override
+        void trim() {
+            codes = Arrays.copyOf(codes, size);
+            dictionaryArray = dictionary.toArray(new ImmutableStringValue[0]);
+            indices.clear();
+            dictionary.clear();
+        }
+    }
+
+    /** Fallback for values without a primitive representation, or columns with mixed types. */
+    private static final class ObjectColumn extends Column {
+        Value[] values = new Value[16];
+
+        ObjectColumn() {
+        }
+
+        /** Convert the given column. */
+        ObjectColumn(Column column) {
+            values = new Value[Math.max(16, column.size * 2)];
+            for (int row = 0; row < column.size; row++) {
+                values[row] = column.get(row);
+            }
+            size = column.size;
+        }
+
+        @Override
+        boolean accepts(Value value) {
+            return true;
+        }
+
+        @Override
+        void append(Value value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        @Override
+        void appendNull() {
+            append(NullValue.NULL);
+        }
+
+        @Override
+        Value get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+}
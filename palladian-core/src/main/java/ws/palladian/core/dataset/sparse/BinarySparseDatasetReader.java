@@ -0,0 +1,382 @@
+package ws.palladian.core.dataset.sparse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ws.palladian.core.AbstractFeatureVector;
+import ws.palladian.core.ImmutableFeatureVectorEntry;
+import ws.palladian.core.ImmutableInstance;
+import ws.palladian.core.Instance;
+import ws.palladian.core.dataset.AbstractDataset;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.FeatureInformation;
+import ws.palladian.core.dataset.FeatureInformationBuilder;
+import ws.palladian.core.featurevector.FlyweightVectorSchema;
+import ws.palladian.core.value.*;
+import ws.palladian.helper.collection.AbstractIterator2;
+import ws.palladian.helper.io.CloseableIterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+
+import static ws.palladian.core.dataset.sparse.BinarySparseDatasetWriter.*;
+
+/**
+ * <p>
+ * Reader for the binary sparse dataset format, written by {@link BinarySparseDatasetWriter}. The file is memory-mapped,
+ * and the instances are decoded directly from the mapped bytes, without any string parsing (except for the values of
+ * nominal and text features). The returned feature vectors only contain the non-null values; all other features of
+ * the dataset are <code>null</code>.
+ * <p>
+ * As the data is served from the (shared) mapping, {@link #buffer()} returns this dataset itself, instead of copying
+ * the sparse data into a dense in-memory representation.
+ *
+ * @author Philipp Katz
+ */
+public class BinarySparseDatasetReader extends AbstractDataset {
+
+    /** The logger for this class. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinarySparseDatasetReader.class);
+
+    /** The maximum size of one mapped segment. */
+    private static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+    /** The mapped file, split into segments, as a single buffer is limited to 2 GB. */
+    private final ByteBuffer[] segments;
+
+    private final int segmentSize;
+
+    private final FeatureInformation featureInformation;
+
+    private final FlyweightVectorSchema schema;
+
+    private final String[] featureNames;
+
+    private final byte[] declaredTypes;
+
+    /** Position of the first instance. */
+    private final long dataStart;
+
+    private final long numInstances;
+
+    /**
+     * Create a new reader for the given file.
+     *
+     * @param sparseDataFile The file, written by the {@link BinarySparseDatasetWriter}.
+     */
+    public BinarySparseDatasetReader(File sparseDataFile) {
+        this(sparseDataFile, DEFAULT_SEGMENT_SIZE);
+    }
+
+    BinarySparseDatasetReader(File sparseDataFile, int segmentSize) {
+        Objects.requireNonNull(sparseDataFile, "sparseDataFile must not be null");
+        this.segmentSize = segmentSize;
+        try (FileChannel channel = FileChannel.open(sparseDataFile.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            int numSegments = (int) ((fileSize + segmentSize - 1) / segmentSize);
+            segments = new ByteBuffer[numSegments];
+            for (int i = 0; i < numSegments; i++) {
+                long offset = (long) i * segmentSize;
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(segmentSize, fileSize - offset));
+                segments[i] = segment;
+            }
+            if (fileSize < 5 + TRAILER_SIZE) {
+                throw new IllegalStateException(sparseDataFile + " is no binary sparse dataset or incomplete");
+            }
+            Input input = new Input(fileSize - TRAILER_SIZE);
+            numInstances = input.readLong();
+            if (input.readInt() != MAGIC) {
+                throw new IllegalStateException(sparseDataFile + " is incomplete (no trailer), was the writer closed?");
+            }
+            input = new Input(0);
+            if (input.readInt() != MAGIC) {
+                throw new IllegalStateException(sparseDataFile + " is no binary sparse dataset");
+            }
+            byte version = input.readByte();
+            if (version != VERSION) {
+                throw new IllegalStateException("Unsupported version " + version + " (expected " + VERSION + ")");
+            }
+            int numFeatures = input.readVarInt();
+            featureNames = new String[numFeatures];
+            declaredTypes = new byte[numFeatures];
+            FeatureInformationBuilder featureInformationBuilder = new FeatureInformationBuilder();
+            for (int i = 0; i < numFeatures; i++) {
+                featureNames[i] = input.readString();
+                String typeName = input.readString();
+                Class<? extends Value> type = getType(typeName);
+                declaredTypes[i] = getTypeCode(type);
+                featureInformationBuilder.set(featureNames[i], type);
+            }
+            featureInformation = featureInformationBuilder.create();
+            schema = new FlyweightVectorSchema(featureNames);
+            dataStart = input.position;
+            LOGGER.debug("Mapped {} with {} instances and {} features", sparseDataFile, numInstances, numFeatures);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Value> getType(String typeName) {
+        try {
+            Class<?> type = Class.forName(typeName);
+            if (Value.class.isAssignableFrom(type)) {
+                return (Class<? extends Value>) type;
+            }
+        } catch (ClassNotFoundException e) {
+            // fall through
+        }
+        LOGGER.warn("Unknown type {}, fall back to string value", typeName);
+        return ImmutableStringValue.class;
+    }
+
+    @Override
+    public CloseableIterator<Instance> iterator() {
+        return new BinarySparseDatasetIterator();
+    }
+
+    @Override
+    public FeatureInformation getFeatureInformation() {
+        return featureInformation;
+    }
+
+    @Override
+    public long size() {
+        return numInstances;
+    }
+
+    @Override
+    public Dataset buffer() {
+        return this; // already memory-mapped
+    }
+
+    private final class BinarySparseDatasetIterator extends AbstractIterator2<Instance> implements CloseableIterator<Instance> {
+        final Input input = new Input(dataStart);
+        /** The dictionaries are rebuilt while reading, exactly as they were created while writing. */
+        final List<String> categoryDictionary = new ArrayList<>();
+        final List<List<ImmutableStringValue>> valueDictionaries = new ArrayList<>(Collections.nCopies(featureNames.length, null));
+        long instanceCount = 0;
+
+        @Override
+        protected Instance getNext() {
+            if (instanceCount >= numInstances) {
+                return finished();
+            }
+            instanceCount++;
+            String category = readDictionaryEntry(categoryDictionary);
+            int weight = input.readVarInt();
+            int numValues = input.readVarInt();
+            int[] indices = new int[numValues];
+            Value[] values = new Value[numValues];
+            int index = -1;
+            for (int i = 0; i < numValues; i++) {
+                int key = input.readVarInt();
+                index += (key >>> 1) + 1;
+                byte type = (key & 1) != 0 ? input.readByte() : declaredTypes[index];
+                indices[i] = index;
+                values[i] = readValue(index, type);
+            }
+            return new ImmutableInstance(new SparseFeatureVector(indices, values), category, weight);
+        }
+
+        private Value readValue(int index, byte type) {
+            switch (type) {
+                case TYPE_BOOLEAN:
+                    return ImmutableBooleanValue.create(input.readByte() != 0);
+                case TYPE_INTEGER:
+                    return ImmutableIntegerValue.valueOf(unZigZag(input.readVarInt()));
+                case TYPE_LONG:
+                    return ImmutableLongValue.valueOf(unZigZag(input.readVarLong()));
+                case TYPE_FLOAT:
+                    return new ImmutableFloatValue(Float.intBitsToFloat(input.readInt()));
+                case TYPE_DOUBLE:
+                    return new ImmutableDoubleValue(Double.longBitsToDouble(input.readLong()));
+                case TYPE_NOMINAL:
+                    if (valueDictionaries.get(index) == null) {
+                        valueDictionaries.set(index, new ArrayList<>());
+                    }
+                    return readNominal(valueDictionaries.get(index));
+                case TYPE_TEXT:
+                    return new ImmutableTextValue(input.readString());
+                case TYPE_DATE:
+                    return new ImmutableDateValue(new Date(input.readLong()));
+                case TYPE_LOCAL_DATE:
+                    return new ImmutableLocalDateValue(LocalDate.ofEpochDay(unZigZag(input.readVarLong())));
+                default:
+                    throw new IllegalStateException("Unknown type code " + type + " at position " + input.position);
+            }
+        }
+
+        private ImmutableStringValue readNominal(List<ImmutableStringValue> dictionary) {
+            int code = input.readVarInt();
+            if (code == 1) {
+                return ImmutableStringValue.valueOf(input.readString());
+            }
+            int dictionaryIndex = code - 2;
+            if (dictionaryIndex == dictionary.size()) {
+                dictionary.add(ImmutableStringValue.valueOf(input.readString()));
+            }
+            return dictionary.get(dictionaryIndex);
+        }
+
+        private String readDictionaryEntry(List<String> dictionary) {
+            int code = input.readVarInt();
+            if (code == 0) {
+                return null;
+            }
+            if (code == 1) {
+                return input.readString();
+            }
+            int dictionaryIndex = code - 2;
+            if (dictionaryIndex == dictionary.size()) {
+                dictionary.add(input.readString());
+            }
+            return dictionary.get(dictionaryIndex);
+        }
+
+        @Override
+        public void close() {
+            // the mapping is released by the garbage collector
+        }
+    }
+
+    /** Feature vector with the non-null values, sorted by feature index. */
+    private final class SparseFeatureVector extends AbstractFeatureVector {
+        private final int[] indices;
+        private final Value[] values;
+
+        SparseFeatureVector(int[] indices, Value[] values) {
+            this.indices = indices;
+            this.values = values;
+        }
+
+        @Override
+        public Value get(String k) {
+            int index = schema.indexOf(k);
+            if (index != -1) {
+                int position = Arrays.binarySearch(indices, index);
+                if (position >= 0) {
+                    return values[position];
+                }
+            }
+            return NullValue.NULL;
+        }
+
+        @Override
+        public int size() {
+            return indices.length;
+        }
+
+        @Override
+        public Iterator<VectorEntry<String, Value>> iterator() {
+            return new AbstractIterator2<VectorEntry<String, Value>>() {
+                int position = 0;
+
+                @Override
+                protected VectorEntry<String, Value> getNext() {
+                    if (position < indices.length) {
+                        VectorEntry<String, Value> entry = new ImmutableFeatureVectorEntry(featureNames[indices[position]], values[position]);
+                        position++;
+                        return entry;
+                    }
+                    return finished();
+                }
+            };
+        }
+    }
+
+    /** Sequential reader over the mapped segments. */
+    private final class Input {
+        long position;
+        ByteBuffer segment;
+
+        Input(long position) {
+            this.position = position;
+            int segmentIndex = (int) (position / segmentSize);
+            segment = segments[segmentIndex].duplicate();
+            segment.position((int) (position % segmentSize));
+        }
+
+        byte readByte() {
+            if (!segment.hasRemaining()) {
+                int segmentIndex = (int) (position / segmentSize);
+                segment = segments[segmentIndex].duplicate();
+            }
+            position++;
+            return segment.get();
+        }
+
+        int readInt() {
+            if (segment.remaining() >= 4) {
+                position += 4;
+                return segment.getInt();
+            }
+            return (readByte() & 0xFF) << 24 | (readByte() & 0xFF) << 16 | (readByte() & 0xFF) << 8 | readByte() & 0xFF;
+        }
+
+        long readLong() {
+            if (segment.remaining() >= 8) {
+                position += 8;
+                return segment.getLong();
+            }
+            return (long) readInt() << 32 | readInt() & 0xFFFFFFFFL;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        String readString() {
+            int length = readVarInt();
+            byte[] bytes = new byte[length];
+            for (int offset = 0; offset < length; ) {
+                if (!segment.hasRemaining()) {
+                    segment = segments[(int) (position / segmentSize)].duplicate();
+                }
+                int chunk = Math.min(length - offset, segment.remaining());
+                segment.get(bytes, offset, chunk);
+                offset += chunk;
+                position += chunk;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static int unZigZag(int value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private static long unZigZag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [#instances=" + numInstances + ", #features=" + featureNames.length + "]";
+    }
+
+}
@@ -0,0 +1,324 @@
+package ws.palladian.core.dataset.sparse;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import ws.palladian.core.Instance;
+import ws.palladian.core.dataset.AbstractDatasetWriter;
+import ws.palladian.core.dataset.DatasetAppender;
+import ws.palladian.core.dataset.FeatureInformation;
+import ws.palladian.core.dataset.FeatureInformation.FeatureInformationEntry;
+import ws.palladian.core.featurevector.FlyweightVectorSchema;
+import ws.palladian.core.value.*;
+import ws.palladian.helper.collection.Vector.VectorEntry;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Writer for a compact, binary sparse dataset format, which can be read with the {@link BinarySparseDatasetReader}.
+ * Only the non-null values of each instance are stored, which makes the format suitable for high-dimensional datasets
+ * where most values are empty (e.g. text-derived features).
+ * <p>
+ * The file consists of the following sections:
+ * <ol>
+ * <li>a header with the feature names and their declared types (the feature name dictionary),</li>
+ * <li>the instances; each starts with the category and the weight, followed by the number of values and the values
+ * sorted by feature index. The feature indices are delta encoded as variable length integers; the values are encoded
+ * depending on the declared type of the feature (primitives in binary, nominal values and categories via dictionaries
+ * which are built while writing),</li>
+ * <li>a trailer with the number of instances, which is written when the appender is closed.</li>
+ * </ol>
+ *
+ * @author Philipp Katz
+ */
+public class BinarySparseDatasetWriter extends AbstractDatasetWriter {
+
+    /** Identifies the file format ("PSD" + version). */
+    static final int MAGIC = 0x50534431;
+
+    static final byte VERSION = 1;
+
+    /** Size of the trailer: number of instances and magic. */
+    static final int TRAILER_SIZE = 12;
+
+    /** Codes for the value types. */
+    static final byte TYPE_BOOLEAN = 0;
+    static final byte TYPE_INTEGER = 1;
+    static final byte TYPE_LONG = 2;
+    static final byte TYPE_FLOAT = 3;
+    static final byte TYPE_DOUBLE = 4;
+    static final byte TYPE_NOMINAL = 5;
+    static final byte TYPE_TEXT = 6;
+    static final byte TYPE_DATE = 7;
+    static final byte TYPE_LOCAL_DATE = 8;
+    /** Declared type of a feature without a specific encoding; each value carries its type code. */
+    static final byte TYPE_NONE = -1;
+
+    /**
+     * Maximum number of entries in the dictionary of a nominal feature; further values are written as literals, so
+     * that features with mostly unique values (such as identifiers) do not fill up the memory.
+     */
+    static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    private static final class BinarySparseDatasetAppender implements DatasetAppender {
+        private final DataOutputStream out;
+        private final FlyweightVectorSchema schema;
+        private final byte[] declaredTypes;
+        private final Object2IntMap<String> categoryDictionary = createDictionary();
+        private final List<Object2IntMap<String>> valueDictionaries;
+        /** The values of the current instance by feature index, and the indices which are set. */
+        private final Value[] values;
+        private int[] indices = new int[16];
+        private long numInstances;
+
+        BinarySparseDatasetAppender(DataOutputStream out, FeatureInformation featureInformation) throws IOException {
+            this.out = out;
+            this.schema = new FlyweightVectorSchema(featureInformation);
+            this.declaredTypes = new byte[schema.size()];
+            this.valueDictionaries = new ArrayList<>(Collections.nCopies(schema.size(), null));
+            this.values = new Value[schema.size()];
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            writeVarInt(out, schema.size());
+            int index = 0;
+            for (String name : schema.keys()) {
+                FeatureInformationEntry entry = featureInformation.getFeatureInformation(name);
+                declaredTypes[index++] = getTypeCode(entry.getType());
+                writeString(out, name);
+                writeString(out, entry.getType().getName());
+            }
+        }
+
+        @Override
+        public void append(Instance instance) {
+            Objects.requireNonNull(instance, "instance must not be null");
+            int numValues = 0;
+            try {
+                // collect and validate all values first, so that nothing is written for an invalid instance
+                for (VectorEntry<String, Value> entry : instance.getVector()) {
+                    Value value = entry.value();
+                    if (value == null || value.isNull()) {
+                        continue;
+                    }
+                    int index = schema.indexOf(entry.key());
+                    if (index == -1) {
+                        throw new IllegalArgumentException("Schema contains no key with name \"" + entry.key() + "\".");
+                    }
+                    if (values[index] == null) {
+                        if (numValues == indices.length) {
+                            indices = IntArrays.grow(indices, numValues + 1);
+                        }
+                        indices[numValues++] = index;
+                    }
+                    values[index] = value;
+                }
+                IntArrays.quickSort(indices, 0, numValues);
+                writeDictionaryEntry(categoryDictionary, instance.getCategory());
+                writeVarInt(out, instance.getWeight());
+                writeVarInt(out, numValues);
+                int previousIndex = -1;
+                for (int i = 0; i < numValues; i++) {
+                    int index = indices[i];
+                    Value value = values[index];
+                    byte type = getTypeCode(value.getClass());
+                    if (type == TYPE_NONE) {
+                        type = value instanceof NumericValue ? TYPE_DOUBLE : TYPE_NOMINAL;
+                    }
+                    // the lowest bit signals, that the type code follows
+                    boolean explicitType = type != declaredTypes[index];
+                    writeVarInt(out, (index - previousIndex - 1) << 1 | (explicitType ? 1 : 0));
+                    if (explicitType) {
+                        out.writeByte(type);
+                    }
+                    writeValue(index, type, value);
+                    previousIndex = index;
+                }
+                numInstances++;
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                // clear the buffer for the next instance, also in case of an exception
+                for (int i = 0; i < numValues; i++) {
+                    values[indices[i]] = null;
+                }
+            }
+        }
+
+        private void writeValue(int index, byte type, Value value) throws IOException {
+            switch (type) {
+                case TYPE_BOOLEAN:
+                    out.writeBoolean(((BooleanValue) value).getBoolean());
+                    break;
+                case TYPE_INTEGER:
+                    writeVarInt(out, zigZag(((NumericValue) value).getInt()));
+                    break;
+                case TYPE_LONG:
+                    writeVarLong(out, zigZag(((NumericValue) value).getLong()));
+                    break;
+                case TYPE_FLOAT:
+                    out.writeFloat(((NumericValue) value).getFloat());
+                    break;
+                case TYPE_DOUBLE:
+                    out.writeDouble(((NumericValue) value).getDouble());
+                    break;
+                case TYPE_TEXT:
+                    writeString(out, ((TextValue) value).getText());
+                    break;
+                case TYPE_DATE:
+                    out.writeLong(((DateValue) value).getDate().getTime());
+                    break;
+                case TYPE_LOCAL_DATE:
+                    writeVarLong(out, zigZag(((LocalDateValue) value).getLocalDate().toEpochDay()));
+                    break;
+                default:
+                    String string = value instanceof NominalValue ? ((NominalValue) value).getString() : value.toString();
+                    if (valueDictionaries.get(index) == null) {
+                        valueDictionaries.set(index, createDictionary());
+                    }
+                    writeDictionaryEntry(valueDictionaries.get(index), string);
+            }
+        }
+
+        /**
+         * Write a string using the dictionary: 0 denotes <code>null</code>, 1 a literal string which is not added to
+         * the dictionary, otherwise the dictionary index plus two; in case the index is new, the string follows.
+         */
+        private void writeDictionaryEntry(Object2IntMap<String> dictionary, String string) throws IOException {
+            if (string == null) {
+                writeVarInt(out, 0);
+                return;
+            }
+            int code = dictionary.getInt(string);
+            if (code != -1) {
+                writeVarInt(out, code + 2);
+            } else if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+                code = dictionary.size();
+                dictionary.put(string, code);
+                writeVarInt(out, code + 2);
+                writeString(out, string);
+            } else {
+                writeVarInt(out, 1);
+                writeString(out, string);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.writeLong(numInstances);
+            out.writeInt(MAGIC);
+            out.close();
+        }
+    }
+
+    private final File outputFile;
+
+    /**
+     * Create a new {@link BinarySparseDatasetWriter} with the given destination file.
+     *
+     * @param outputFile The destination file.
+     */
+    public BinarySparseDatasetWriter(File outputFile) {
+        this(outputFile, false);
+    }
+
+    /**
+     * Create a new {@link BinarySparseDatasetWriter} with the given destination file.
+     *
+     * @param outputFile The destination file.
+     * @param overwrite  <code>true</code> to overwrite, in case the file already exists. If the file exists and this
+     *                   value is <code>false</code>, an exception will be thrown.
+     */
+    public BinarySparseDatasetWriter(File outputFile, boolean overwrite) {
+        Objects.requireNonNull(outputFile, "outputFile must not be null");
+        if (outputFile.exists()) {
+            if (overwrite) {
+                if (!outputFile.delete()) {
+                    throw new IllegalStateException(outputFile + " already exists and cannot be deleted");
+                }
+            } else {
+                throw new IllegalArgumentException(outputFile + " already exists");
+            }
+        }
+        this.outputFile = outputFile;
+    }
+
+    @Override
+    public DatasetAppender write(FeatureInformation featureInformation) {
+        Objects.requireNonNull(featureInformation, "featureInformation must not be null");
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile), 1 << 16));
+            return new BinarySparseDatasetAppender(out, featureInformation);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // encoding
+
+    /** @return The type code for values of the given type, or {@link #TYPE_NONE}. */
+    static byte getTypeCode(Class<?> type) {
+        if (type == ImmutableBooleanValue.class) {
+            return TYPE_BOOLEAN;
+        } else if (type == ImmutableIntegerValue.class) {
+            return TYPE_INTEGER;
+        } else if (type == ImmutableLongValue.class) {
+            return TYPE_LONG;
+        } else if (type == ImmutableFloatValue.class) {
+            return TYPE_FLOAT;
+        } else if (type == ImmutableDoubleValue.class) {
+            return TYPE_DOUBLE;
+        } else if (type == ImmutableStringValue.class) {
+            return TYPE_NOMINAL;
+        } else if (type == ImmutableTextValue.class) {
+            return TYPE_TEXT;
+        } else if (type == ImmutableDateValue.class) {
+            return TYPE_DATE;
+        } else if (type == ImmutableLocalDateValue.class) {
+            return TYPE_LOCAL_DATE;
+        }
+        return TYPE_NONE;
+    }
+
+    private static Object2IntMap<String> createDictionary() {
+        Object2IntMap<String> dictionary = new Object2IntOpenHashMap<>();
+        dictionary.defaultReturnValue(-1);
+        return dictionary;
+    }
+
+    private static int zigZag(int value) {
+        return value << 1 ^ value >> 31;
+    }
+
+    private static long zigZag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static void writeString(DataOutput out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+}
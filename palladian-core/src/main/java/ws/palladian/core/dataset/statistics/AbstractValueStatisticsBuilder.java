@@ -25,17 +25,48 @@ public abstract class AbstractValueStatisticsBuilder<V extends Value, S extends
 
     @Override
     public final void add(Value value) {
+        add(value, null);
+    }
+
+    @Override
+    public final void add(Value value, String category) {
         if (value instanceof NullValue) {
             numNullValues++;
         } else if (valueType.isInstance(value)) {
-            addValue(valueType.cast(value));
+            addValue(valueType.cast(value), category);
         } else {
             throw new IllegalArgumentException("Expected value to be of type " + valueType + ", but was " + value.getClass());
         }
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void merge(ValueStatisticsBuilder<S> other) {
+        Validate.isTrue(getClass().isInstance(other), "Expected builder to be of type " + getClass() + ", but was " + other.getClass());
+        AbstractValueStatisticsBuilder<V, S> otherBuilder = (AbstractValueStatisticsBuilder<V, S>) other;
+        numNullValues += otherBuilder.numNullValues;
+        mergeValues(otherBuilder);
+    }
+
     protected abstract void addValue(V value);
 
+    /**
+     * Add a value of an instance with the given category; override, in case the statistics consider the categories.
+     *
+     * @param value    The value.
+     * @param category The category, or <code>null</code> in case the category is unknown.
+     */
+    protected void addValue(V value, String category) {
+        addValue(value);
+    }
+
+    /**
+     * Merge the values of the given builder, which is of the same type as this builder.
+     *
+     * @param other The builder to merge.
+     */
+    protected abstract void mergeValues(AbstractValueStatisticsBuilder<V, S> other);
+
     protected final int getNumNullValues() {
         return numNullValues;
     }
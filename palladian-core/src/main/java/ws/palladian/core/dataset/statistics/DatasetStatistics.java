@@ -9,17 +9,23 @@ import ws.palladian.core.dataset.Dataset;
 import ws.palladian.core.dataset.FeatureInformation.FeatureInformationEntry;
 import ws.palladian.core.dataset.statistics.NominalValueStatistics.NominalValueStatisticsBuilder;
 import ws.palladian.core.dataset.statistics.NumericValueStatistics.NumericValueStatisticsBuilder;
+import ws.palladian.core.dataset.statistics.SketchedNominalValueStatistics.SketchedNominalValueStatisticsBuilder;
 import ws.palladian.core.value.ImmutableStringValue;
 import ws.palladian.core.value.NominalValue;
 import ws.palladian.core.value.NumericValue;
 import ws.palladian.core.value.Value;
+import ws.palladian.helper.NoProgress;
+import ws.palladian.helper.ThreadHelper;
 import ws.palladian.helper.functional.Factory;
 
 import java.util.*;
 import java.util.Map.Entry;
 
 /**
- * Allows to calculate value statistics for a {@link Dataset}.
+ * Allows to calculate value statistics for a {@link Dataset}. Numeric values are summarized with
+ * {@link NumericValueStatistics}, which include approximate quantiles; nominal values either exactly with
+ * {@link NominalValueStatistics}, or, for huge datasets, approximately in bounded memory with
+ * {@link SketchedNominalValueStatistics}.
  *
  * @author Philipp Katz
  */
@@ -34,31 +40,134 @@ public class DatasetStatistics {
 
     public interface ValueStatisticsBuilder<S extends ValueStatistics> extends Factory<S> {
         void add(Value value);
+
+        /**
+         * Add a value of an instance with the given category.
+         *
+         * @param value    The value.
+         * @param category The category of the instance, or <code>null</code> in case it is unknown.
+         */
+        default void add(Value value, String category) {
+            add(value);
+        }
+
+        /**
+         * Merge another builder of the same type into this builder; used for combining the statistics which were
+         * calculated for parts of the data in parallel.
+         *
+         * @param other The other builder.
+         */
+        void merge(ValueStatisticsBuilder<S> other);
+    }
+
+    /** The builders for the statistics of one part of the data. */
+    private final class StatisticsBuilders {
+
+        private final Map<String, ValueStatisticsBuilder<?>> valueStatsBuilders = new HashMap<>();
+
+        private final NominalValueStatisticsBuilder categoryStatsBuilder = new NominalValueStatisticsBuilder();
+
+        StatisticsBuilders(boolean includeValueStatistics) {
+            if (includeValueStatistics) {
+                for (FeatureInformationEntry entry : dataset.getFeatureInformation()) {
+                    ValueStatisticsBuilder<?> statsBuilder = createValueStatsBuilder(entry);
+                    if (statsBuilder != null) {
+                        valueStatsBuilders.put(entry.getName(), statsBuilder);
+                    }
+                }
+            }
+        }
+
+        void add(Instance instance) {
+            String category = instance.getCategory();
+            if (!valueStatsBuilders.isEmpty()) {
+                FeatureVector vector = instance.getVector();
+                for (Entry<String, ValueStatisticsBuilder<?>> builder : valueStatsBuilders.entrySet()) {
+                    Value value = vector.get(builder.getKey());
+                    builder.getValue().add(value, category);
+                }
+            }
+            categoryStatsBuilder.add(ImmutableStringValue.valueOf(category));
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        void merge(StatisticsBuilders other) {
+            for (Entry<String, ValueStatisticsBuilder<?>> builder : valueStatsBuilders.entrySet()) {
+                ((ValueStatisticsBuilder) builder.getValue()).merge(other.valueStatsBuilders.get(builder.getKey()));
+            }
+            categoryStatsBuilder.merge(other.categoryStatsBuilder);
+        }
+
     }
 
     private static final String OUTPUT_FORMAT = "%25s | %-25s | %s";
 
     private final Dataset dataset;
 
+    private final int numThreads;
+
+    private final boolean sketchNominalValues;
+
+    private final boolean includeCategorySketches;
+
     private Map<String, ValueStatistics> valueStats;
 
     private NominalValueStatistics categoryStats;
 
     public DatasetStatistics(Dataset dataset) {
+        this(dataset, 1, false);
+    }
+
+    /**
+     * Create new statistics for the given dataset. The statistics are calculated in one pass over the data, which can
+     * be split between multiple threads; the statistics of each thread are merged at the end.
+     *
+     * @param dataset             The dataset, not <code>null</code>.
+     * @param numThreads          The number of threads for calculating the statistics, greater zero.
+     * @param sketchNominalValues <code>true</code> to estimate the statistics of nominal values in bounded memory
+     *                            ({@link SketchedNominalValueStatistics}) instead of counting each distinct value
+     *                            ({@link NominalValueStatistics}).
+     */
+    public DatasetStatistics(Dataset dataset, int numThreads, boolean sketchNominalValues) {
+        this(dataset, numThreads, sketchNominalValues, false);
+    }
+
+    /**
+     * Create new statistics for the given dataset, see {@link #DatasetStatistics(Dataset, int, boolean)}.
+     *
+     * @param dataset                 The dataset, not <code>null</code>.
+     * @param numThreads              The number of threads for calculating the statistics, greater zero.
+     * @param sketchNominalValues     <code>true</code> to estimate the statistics of nominal values in bounded memory.
+     * @param includeCategorySketches <code>true</code> to keep a quantile sketch for each category in the
+     *                                {@link NumericValueStatistics}, which is needed for a
+     *                                {@link ws.palladian.classification.discretization.Discretization} from the
+     *                                statistics; this costs one sketch per category and numeric feature, thus it is
+     *                                only done when requested.
+     */
+    public DatasetStatistics(Dataset dataset, int numThreads, boolean sketchNominalValues, boolean includeCategorySketches) {
         Validate.notNull(dataset, "dataset must not be null");
+        Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
         this.dataset = dataset;
+        this.numThreads = numThreads;
+        this.sketchNominalValues = sketchNominalValues;
+        this.includeCategorySketches = includeCategorySketches;
     }
 
-    private static ValueStatisticsBuilder<?> createValueStatsBuilder(FeatureInformationEntry entry) {
+    private ValueStatisticsBuilder<?> createValueStatsBuilder(FeatureInformationEntry entry) {
         if (entry.isCompatible(NominalValue.class)) {
-            return new NominalValueStatisticsBuilder();
+            return sketchNominalValues ? new SketchedNominalValueStatisticsBuilder() : new NominalValueStatisticsBuilder();
         } else if (entry.isCompatible(NumericValue.class)) {
-            return new NumericValueStatisticsBuilder();
+            return new NumericValueStatisticsBuilder(includeCategorySketches);
         } else {
             return null;
         }
     }
 
+    /** @return The dataset for which the statistics are calculated. */
+    public Dataset getDataset() {
+        return dataset;
+    }
+
     public ValueStatistics getValueStatistics(String featureName) {
         Validate.notEmpty(featureName, "featureName must not be null or empty");
         if (valueStats == null) {
@@ -67,6 +176,16 @@ public class DatasetStatistics {
         return valueStats.get(featureName);
     }
 
+    /**
+     * @return The names of the features for which value statistics are available (i.e. nominal and numeric features).
+     */
+    public Set<String> getFeatureNames() {
+        if (valueStats == null) {
+            calculateStatistics(true);
+        }
+        return valueStats.keySet();
+    }
+
     /**
      * Calculate the statistics.
      *
@@ -82,38 +201,29 @@ public class DatasetStatistics {
             LOGGER.info("Calculate category statistics");
         }
 
-        Map<String, ValueStatisticsBuilder<?>> statsBuilders = new HashMap<>();
-        NominalValueStatisticsBuilder categoryStatsBuilder = new NominalValueStatisticsBuilder();
-
-        if (includeValueStatistics) {
-            for (FeatureInformationEntry entry : dataset.getFeatureInformation()) {
-                ValueStatisticsBuilder<?> statsBuilder = createValueStatsBuilder(entry);
-                if (statsBuilder != null) {
-                    statsBuilders.put(entry.getName(), statsBuilder);
-                }
-            }
-        }
-
-        for (Instance instance : dataset) {
-            if (includeValueStatistics) {
-                FeatureVector vector = instance.getVector();
-                for (Entry<String, ValueStatisticsBuilder<?>> builder : statsBuilders.entrySet()) {
-                    Value value = vector.get(builder.getKey());
-                    builder.getValue().add(value);
-                }
+        StatisticsBuilders builders;
+        if (numThreads == 1) {
+            builders = new StatisticsBuilders(includeValueStatistics);
+            for (Instance instance : dataset) {
+                builders.add(instance);
             }
-            categoryStatsBuilder.add(ImmutableStringValue.valueOf(instance.getCategory()));
+        } else {
+            builders = calculateParallel(includeValueStatistics);
         }
 
         if (includeValueStatistics) {
             Map<String, ValueStatistics> valueStats = new HashMap<>();
-            for (Entry<String, ValueStatisticsBuilder<?>> builder : statsBuilders.entrySet()) {
+            for (Entry<String, ValueStatisticsBuilder<?>> builder : builders.valueStatsBuilders.entrySet()) {
                 valueStats.put(builder.getKey(), builder.getValue().create());
             }
             this.valueStats = Collections.unmodifiableMap(valueStats);
         }
 
-        categoryStats = categoryStatsBuilder.create();
+        categoryStats = builders.categoryStatsBuilder.create();
+    }
+
+    private StatisticsBuilders calculateParallel(boolean includeValueStatistics) {
+        return ThreadHelper.aggregateBatches(dataset.iterator(), numThreads, DatasetStatistics.class.getSimpleName(), () -> new StatisticsBuilders(includeValueStatistics), StatisticsBuilders::add, StatisticsBuilders::merge, NoProgress.INSTANCE);
     }
 
     public NominalValueStatistics getCategoryStatistics() {
@@ -6,6 +6,7 @@ import ws.palladian.helper.collection.CollectionHelper.Order;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 public class NominalValueStatistics implements DatasetStatistics.ValueStatistics {
@@ -26,6 +27,13 @@ public class NominalValueStatistics implements DatasetStatistics.ValueStatistics
         protected void addValue(NominalValue nominalValue) {
             stats.add(nominalValue.getString());
         }
+
+        @Override
+        protected void mergeValues(AbstractValueStatisticsBuilder<NominalValue, NominalValueStatistics> other) {
+            for (Entry<String, Integer> entry : ((NominalValueStatisticsBuilder) other).stats.unique()) {
+                stats.add(entry.getKey(), entry.getValue());
+            }
+        }
     }
 
     private static final int MAX_PRINTABLE_VALUES = 10;
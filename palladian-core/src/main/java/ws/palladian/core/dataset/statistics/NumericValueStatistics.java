@@ -2,19 +2,47 @@ package ws.palladian.core.dataset.statistics;
 
 import ws.palladian.core.dataset.statistics.DatasetStatistics.ValueStatistics;
 import ws.palladian.core.value.NumericValue;
+import ws.palladian.helper.math.QuantileSketch;
 import ws.palladian.helper.math.SlimStats;
 import ws.palladian.helper.math.Stats;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Locale;
-
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Statistics for numeric values. Besides mean, standard deviation, minimum and maximum, approximate quantiles are
+ * provided through a {@link QuantileSketch}; optionally, a sketch is kept for the values of each category, which
+ * allows supervised discretization without scanning the data again (see
+ * {@link ws.palladian.classification.discretization.Binner#Binner(NumericValueStatistics, String)}).
+ *
+ * @author Philipp Katz
+ */
 public class NumericValueStatistics implements ValueStatistics {
 
     public static class NumericValueStatisticsBuilder extends AbstractValueStatisticsBuilder<NumericValue, NumericValueStatistics> {
 
         private final SlimStats stats = new SlimStats();
 
+        private final QuantileSketch sketch = new QuantileSketch();
+
+        private final Map<String, QuantileSketch> categorySketches = new HashMap<>();
+
+        private final boolean includeCategorySketches;
+
         public NumericValueStatisticsBuilder() {
+            this(false);
+        }
+
+        /**
+         * @param includeCategorySketches <code>true</code> to keep an additional sketch for the values of each
+         *                                category.
+         */
+        public NumericValueStatisticsBuilder(boolean includeCategorySketches) {
             super(NumericValue.class);
+            this.includeCategorySketches = includeCategorySketches;
         }
 
         @Override
@@ -24,16 +52,46 @@ public class NumericValueStatistics implements ValueStatistics {
 
         @Override
         protected void addValue(NumericValue value) {
+            addValue(value, null);
+        }
+
+        @Override
+        protected void addValue(NumericValue value, String category) {
             stats.add(value.getNumber());
+            double doubleValue = value.getDouble();
+            if (!Double.isNaN(doubleValue)) {
+                sketch.add(doubleValue);
+                if (includeCategorySketches && category != null) {
+                    categorySketches.computeIfAbsent(category, c -> new QuantileSketch()).add(doubleValue);
+                }
+            }
+        }
+
+        @Override
+        protected void mergeValues(AbstractValueStatisticsBuilder<NumericValue, NumericValueStatistics> other) {
+            NumericValueStatisticsBuilder otherBuilder = (NumericValueStatisticsBuilder) other;
+            stats.add(otherBuilder.stats);
+            sketch.merge(otherBuilder.sketch);
+            for (Entry<String, QuantileSketch> entry : otherBuilder.categorySketches.entrySet()) {
+                categorySketches.computeIfAbsent(entry.getKey(), c -> new QuantileSketch()).merge(entry.getValue());
+            }
         }
     }
 
     private final int numNullValues;
     private final Stats stats;
+    private final QuantileSketch sketch;
+    private final Map<String, QuantileSketch> categorySketches;
 
     protected NumericValueStatistics(NumericValueStatisticsBuilder builder) {
         numNullValues = builder.getNumNullValues();
         stats = new SlimStats(builder.stats);
+        sketch = new QuantileSketch().merge(builder.sketch);
+        Map<String, QuantileSketch> categorySketches = new HashMap<>();
+        for (Entry<String, QuantileSketch> entry : builder.categorySketches.entrySet()) {
+            categorySketches.put(entry.getKey(), new QuantileSketch().merge(entry.getValue()));
+        }
+        this.categorySketches = Collections.unmodifiableMap(categorySketches);
     }
 
     @Override
@@ -57,9 +115,40 @@ public class NumericValueStatistics implements ValueStatistics {
         return stats.getMax();
     }
 
+    /** @return The approximate median. */
+    public double getMedian() {
+        return sketch.getMedian();
+    }
+
+    /**
+     * @param quantile The quantile, in range [0,1].
+     * @return The approximate value at the given quantile.
+     */
+    public double getQuantile(double quantile) {
+        return sketch.getQuantile(quantile);
+    }
+
+    /** @return The stats (mean, standard deviation, etc.); not to be modified. */
+    public Stats getStats() {
+        return stats;
+    }
+
+    /** @return The sketch of all values; not to be modified. */
+    public QuantileSketch getQuantileSketch() {
+        return sketch;
+    }
+
+    /**
+     * @return The sketches of the values for each category; empty in case they were not requested or the categories
+     * were not available; the sketches are not to be modified.
+     */
+    public Map<String, QuantileSketch> getCategoryQuantileSketches() {
+        return categorySketches;
+    }
+
     @Override
     public String toString() {
-        return String.format(Locale.US, "mean=%.2f, stdDev=%.2f, min=%.2f, max=%.2f, numNullValues=%s", getMean(), getStandardDeviation(), getMin(), getMax(), getNumNullValues());
+        return String.format(Locale.US, "mean=%.2f, stdDev=%.2f, min=%.2f, median=%.2f, max=%.2f, numNullValues=%s", getMean(), getStandardDeviation(), getMin(), getMedian(), getMax(), getNumNullValues());
     }
 
 }
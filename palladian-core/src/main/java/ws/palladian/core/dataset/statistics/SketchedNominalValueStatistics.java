@@ -0,0 +1,111 @@
+package ws.palladian.core.dataset.statistics;
+
+import ws.palladian.core.dataset.statistics.DatasetStatistics.ValueStatistics;
+import ws.palladian.core.value.NominalValue;
+import ws.palladian.helper.collection.CountMinSketch;
+import ws.palladian.helper.collection.HyperLogLog;
+
+import java.util.Map;
+
+/**
+ * Statistics for nominal values in bounded memory. In contrast to {@link NominalValueStatistics}, which counts each
+ * distinct value exactly, the number of distinct values is estimated using a {@link HyperLogLog}, and the counts of
+ * the values using a {@link CountMinSketch}, which also tracks the most frequent values.
+ *
+ * @author Philipp Katz
+ */
+public class SketchedNominalValueStatistics implements ValueStatistics {
+
+    public static class SketchedNominalValueStatisticsBuilder extends AbstractValueStatisticsBuilder<NominalValue, SketchedNominalValueStatistics> {
+
+        private final HyperLogLog distinctValues = new HyperLogLog();
+
+        private final CountMinSketch valueCounts = new CountMinSketch();
+
+        public SketchedNominalValueStatisticsBuilder() {
+            super(NominalValue.class);
+        }
+
+        @Override
+        public SketchedNominalValueStatistics create() {
+            return new SketchedNominalValueStatistics(this);
+        }
+
+        @Override
+        protected void addValue(NominalValue nominalValue) {
+            String value = nominalValue.getString();
+            distinctValues.add(value);
+            valueCounts.add(value);
+        }
+
+        @Override
+        protected void mergeValues(AbstractValueStatisticsBuilder<NominalValue, SketchedNominalValueStatistics> other) {
+            SketchedNominalValueStatisticsBuilder otherBuilder = (SketchedNominalValueStatisticsBuilder) other;
+            distinctValues.merge(otherBuilder.distinctValues);
+            valueCounts.merge(otherBuilder.valueCounts);
+        }
+    }
+
+    private static final int MAX_PRINTABLE_VALUES = 10;
+
+    private final int numNullValues;
+    private final long numUniqueValues;
+    private final CountMinSketch valueCounts;
+
+    protected SketchedNominalValueStatistics(SketchedNominalValueStatisticsBuilder builder) {
+        numNullValues = builder.getNumNullValues();
+        numUniqueValues = builder.distinctValues.getCardinality();
+        valueCounts = builder.valueCounts;
+    }
+
+    @Override
+    public int getNumNullValues() {
+        return numNullValues;
+    }
+
+    /** @return The estimated number of distinct values. */
+    public long getNumUniqueValues() {
+        return numUniqueValues;
+    }
+
+    /** @return The number of (non-null) values. */
+    public long getNumValues() {
+        return valueCounts.getTotalCount();
+    }
+
+    /**
+     * @param value The value.
+     * @return The estimated count, which is greater/equal than the actual count.
+     */
+    public long getCount(String value) {
+        return valueCounts.getCount(value);
+    }
+
+    /**
+     * @param value The value.
+     * @return The estimated probability.
+     */
+    public double getProbability(String value) {
+        return (double) getCount(value) / getNumValues();
+    }
+
+    /** @return The most frequent values with their estimated counts, sorted by descending count. */
+    public Map<String, Long> getHeavyHitters() {
+        return valueCounts.getHeavyHitters();
+    }
+
+    @Override
+    public String toString() {
+        Map<String, Long> heavyHitters = getHeavyHitters();
+        StringBuilder topValues = new StringBuilder();
+        int count = 0;
+        for (Map.Entry<String, Long> entry : heavyHitters.entrySet()) {
+            if (count++ == MAX_PRINTABLE_VALUES) {
+                break;
+            }
+            topValues.append(count > 1 ? ", " : "").append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return String.format("numUniqueValues~%s, topCounts~[%s], numNullValues=%s", numUniqueValues, topValues, numNullValues);
+    }
+
+}
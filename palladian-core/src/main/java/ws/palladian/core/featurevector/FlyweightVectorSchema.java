@@ -55,6 +55,15 @@ public class FlyweightVectorSchema {
         values[index] = value;
     }
 
+    /**
+     * @param name The name of the key.
+     * @return The index of the key in the value array, or -1 in case the schema contains no such key.
+     */
+    public int indexOf(String name) {
+        Integer index = keys.get(name);
+        return index != null ? index : -1;
+    }
+
     public int size() {
         return keys.size();
     }
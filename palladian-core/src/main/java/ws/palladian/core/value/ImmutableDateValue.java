@@ -10,21 +10,26 @@ import java.util.Date;
 
 public final class ImmutableDateValue extends AbstractValue implements DateValue {
 
+    /**
+     * Parser for dates with a {@link SimpleDateFormat} pattern. As {@link SimpleDateFormat} is not thread-safe, each
+     * thread uses its own instance, so that the parser can be shared by multiple threads.
+     */
     public static final class ValueParser extends AbstractValueParser {
 
-        private final SimpleDateFormat format;
-        private String pattern;
+        private final ThreadLocal<SimpleDateFormat> format;
+        private final String pattern;
 
         public ValueParser(String pattern) {
             super(ImmutableDateValue.class);
-            this.format = new SimpleDateFormat(pattern);
+            SimpleDateFormat prototype = new SimpleDateFormat(pattern);
+            this.format = ThreadLocal.withInitial(() -> (SimpleDateFormat) prototype.clone());
             this.pattern = pattern;
         }
 
         @Override
         public Value parse(String input) throws ValueParserException {
             try {
-                return new ImmutableDateValue(format.parse(input), pattern);
+                return new ImmutableDateValue(format.get().parse(input), pattern);
             } catch (ParseException e) {
                 throw new ValueParserException(e);
             }
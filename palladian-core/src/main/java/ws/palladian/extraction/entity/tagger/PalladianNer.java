@@ -22,7 +22,7 @@ import ws.palladian.helper.io.LineAction;
 import ws.palladian.helper.math.MathHelper;
 import ws.palladian.helper.nlp.StringHelper;
 
-import java.io.IOException;
+import java.io.*;
 import java.text.NumberFormat;
 import java.util.*;
 import java.util.Map.Entry;
@@ -82,6 +82,9 @@ public class PalladianNer extends TrainableNamedEntityRecognizer implements Clas
 
     private final static String NO_ENTITY = "###NO_ENTITY###";
 
+    /** File ending for models which are saved in the binary format. */
+    public static final String BINARY_MODEL_FILE_ENDING = "model.bin";
+
     private PalladianNerTrainingSettings trainingSettings;
 
     private PalladianNerModel model;
@@ -123,7 +126,7 @@ public class PalladianNer extends TrainableNamedEntityRecognizer implements Clas
         Validate.notEmpty(configModelFilePath, "configModelFilePath must not be empty");
         model = null; // save memory
         try {
-            model = FileHelper.deserialize(configModelFilePath);
+            model = isBinaryModel(configModelFilePath) ? readBinaryModel(configModelFilePath) : FileHelper.deserialize(configModelFilePath);
             taggingSettings = model.getTaggingSettings();
         } catch (IOException e) {
             throw new IllegalStateException("Error while loading model from \"" + configModelFilePath + "\".", e);
@@ -132,16 +135,42 @@ public class PalladianNer extends TrainableNamedEntityRecognizer implements Clas
         return true;
     }
 
+    /** Check, whether the given file contains a model in the binary format, see {@link PalladianNerModel#write(OutputStream)}. */
+    private static boolean isBinaryModel(String modelFilePath) throws IOException {
+        if (modelFilePath.startsWith("http://")) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(modelFilePath))) {
+            return in.readInt() == PalladianNerModel.MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    private static PalladianNerModel readBinaryModel(String modelFilePath) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(modelFilePath))) {
+            return PalladianNerModel.read(in);
+        }
+    }
+
     /**
-     * Save the tagger to the specified file.
+     * Save the tagger to the specified file. In case the file ends with "{@value #BINARY_MODEL_FILE_ENDING}", the
+     * model is saved in the binary format (see {@link PalladianNerModel#write(OutputStream)}), which loads faster,
+     * else using Java serialization.
      *
      * @param modelFilePath The file where the tagger should be saved to. You do not need to add the file ending but if
-     *                      you do, it should be "model.gz".
+     *                      you do, it should be "model.gz" or "{@value #BINARY_MODEL_FILE_ENDING}".
      */
     private void saveModel(String modelFilePath) {
         LOGGER.info(model.toString());
         try {
-            FileHelper.serialize(model, modelFilePath);
+            if (modelFilePath.endsWith(BINARY_MODEL_FILE_ENDING)) {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(modelFilePath))) {
+                    model.write(out);
+                }
+            } else {
+                FileHelper.serialize(model, modelFilePath);
+            }
         } catch (IOException e) {
             throw new IllegalStateException("Error while serializing to \"" + modelFilePath + "\".", e);
         }
@@ -5,14 +5,20 @@ import org.tartarus.snowball.SnowballProgram;
 import org.tartarus.snowball.ext.*;
 import ws.palladian.helper.constants.Language;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.function.Function;
 
 /**
  * Stemmer using <a href="http://snowball.tartarus.org">Snowball</a>. Important: This class is <b>not</b> Thread-safe!
+ * Use {@link #forLanguage(Language)} to get a cached instance for the current thread.
  *
  * @author Philipp Katz
  */
 public final class Stemmer implements Function<String, String> {
+    /** Cached instances per language, one cache per thread, as the stemmers are not thread-safe. */
+    private static final ThreadLocal<Map<Language, Stemmer>> CACHE = ThreadLocal.withInitial(() -> new EnumMap<>(Language.class));
+
     private final SnowballProgram stemmer;
 
     /**
@@ -27,6 +33,18 @@ public final class Stemmer implements Function<String, String> {
         stemmer = createStemmer(language);
     }
 
+    /**
+     * Get a cached stemmer for the specified language. The instances are cached per thread, so the returned instance
+     * must not be handed to other threads.
+     *
+     * @param language The language to stem, not <code>null</code>.
+     * @return The stemmer for the current thread.
+     */
+    public static Stemmer forLanguage(Language language) {
+        Validate.notNull(language, "language must not be null");
+        return CACHE.get().computeIfAbsent(language, Stemmer::new);
+    }
+
     /**
      * Create a new Snowball stemmer for the specified {@link Language}.
      */
@@ -11,9 +11,9 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
-import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 /**
@@ -22,7 +22,10 @@ import java.util.function.Predicate;
  * </p>
  */
 public class StopWordRemover implements Predicate<String> {
-    private static final Map<String, LinkedHashSet<String>> CACHE = new HashMap<>();
+    private static final Map<String, LinkedHashSet<String>> CACHE = new ConcurrentHashMap<>();
+
+    /** Shared instances per language, see {@link #forLanguage(Language)}. */
+    private static final Map<Language, StopWordRemover> INSTANCES = new ConcurrentHashMap<>();
 
     private final LinkedHashSet<String> stopwords;
 
@@ -98,19 +101,20 @@ public class StopWordRemover implements Predicate<String> {
         }
     }
 
+    /**
+     * Get a shared instance for the specified language. The instance may be used concurrently, but must not be
+     * modified using {@link #addStopWord(String)} or {@link #removeStopWord(String)}.
+     *
+     * @param language The language for which the stop words should be removed, not <code>null</code>.
+     * @return The shared instance.
+     */
+    public static StopWordRemover forLanguage(Language language) {
+        Validate.notNull(language, "language must not be null");
+        return INSTANCES.computeIfAbsent(language, StopWordRemover::new);
+    }
+
     private static LinkedHashSet<String> loadStopwordsResourceCached(String resourcePath) {
-        LinkedHashSet<String> stopwords = CACHE.get(resourcePath);
-        if (stopwords != null) {
-            return stopwords;
-        }
-        synchronized (CACHE) {
-            stopwords = CACHE.get(resourcePath);
-            if (stopwords == null) {
-                stopwords = loadStopwordsResource(resourcePath);
-                CACHE.put(resourcePath, stopwords);
-            }
-        }
-        return stopwords;
+        return CACHE.computeIfAbsent(resourcePath, StopWordRemover::loadStopwordsResource);
     }
 
     private static LinkedHashSet<String> loadStopwordsResource(String resourcePath) {
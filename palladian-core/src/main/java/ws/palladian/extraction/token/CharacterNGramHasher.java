@@ -0,0 +1,120 @@
+package ws.palladian.extraction.token;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.function.LongPredicate;
+
+/**
+ * <p>
+ * Counterpart to the {@link CharacterNGramTokenizer}, which does not create a string and a token for each n-gram, but
+ * calculates a 64-bit hash directly over the characters of the text. The n-grams (including the optional padding) are
+ * the same as produced by the {@link CharacterNGramTokenizer}, and the hash of an n-gram is the same as
+ * {@link #hash(CharSequence)} of the n-gram string, independent of its position in the text. Longer n-grams reuse the
+ * intermediate hash of the shorter n-grams at the same offset, so each character is processed at most
+ * <code>maxLength</code> times and no objects are created.
+ * <p>
+ * The hash is a 64-bit FNV-1a over the UTF-16 characters, finalized with the MurmurHash3 mixing function for a better
+ * distribution of the bits.
+ *
+ * @author Philipp Katz
+ */
+public final class CharacterNGramHasher {
+    /** Character used to fill up left/right padding; same as in the {@link CharacterNGramTokenizer}. */
+    private static final char PADDING_CHARACTER = '#';
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int minLength;
+    private final int maxLength;
+    private final boolean padding;
+
+    public CharacterNGramHasher(int minLength, int maxLength) {
+        this(minLength, maxLength, false);
+    }
+
+    public CharacterNGramHasher(int minLength, int maxLength, boolean padding) {
+        Validate.isTrue(minLength > 0, "minLength must be greater zero");
+        Validate.isTrue(maxLength >= minLength, "maxLength must be greater/equal zero");
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.padding = padding;
+    }
+
+    /**
+     * Calculate the hashes of all n-grams in the given text and pass them to the consumer.
+     *
+     * @param text     The text, not <code>null</code>.
+     * @param consumer The consumer for the hashes, not <code>null</code>; in case it returns <code>false</code>, the
+     *                 hashing is stopped.
+     */
+    public void hash(CharSequence text, LongPredicate consumer) {
+        Validate.notNull(text, "text must not be null");
+        Validate.notNull(consumer, "consumer must not be null");
+        // the padding is not materialized, but emulated by shifting the positions
+        int paddingLength = padding ? maxLength - 1 : 0;
+        int length = text.length() + 2 * paddingLength;
+        for (int offset = 0; offset + minLength <= length; offset++) {
+            long hash = FNV_OFFSET_BASIS;
+            boolean onlyPadding = true;
+            int end = Math.min(offset + maxLength, length);
+            for (int position = offset; position < end; position++) {
+                int textPosition = position - paddingLength;
+                char character;
+                if (textPosition < 0 || textPosition >= text.length()) {
+                    character = PADDING_CHARACTER;
+                } else {
+                    character = text.charAt(textPosition);
+                }
+                onlyPadding &= character == PADDING_CHARACTER;
+                hash = (hash ^ character) * FNV_PRIME;
+                // skip n-grams which only consist of padding character, like the tokenizer does
+                if (position - offset + 1 >= minLength && !onlyPadding) {
+                    if (!consumer.test(mix(hash))) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculate the hash of a single n-gram.
+     *
+     * @param nGram The n-gram, not <code>null</code>.
+     * @return The hash, which is equal to the hash calculated by {@link #hash(CharSequence, LongPredicate)}.
+     */
+    public static long hash(CharSequence nGram) {
+        Validate.notNull(nGram, "nGram must not be null");
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < nGram.length(); i++) {
+            hash = (hash ^ nGram.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /** Finalization step of MurmurHash3 (fmix64). */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("CharacterNGramHasher [minLength=");
+        builder.append(minLength);
+        builder.append(", maxLength=");
+        builder.append(maxLength);
+        builder.append(", padding=");
+        builder.append(padding);
+        builder.append("]");
+        return builder.toString();
+    }
+
+}
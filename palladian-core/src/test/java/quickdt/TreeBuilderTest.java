@@ -15,6 +15,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class TreeBuilderTest {
@@ -38,6 +39,42 @@ public class TreeBuilderTest {
         assertTrue("Building this node should take far less than 20 seconds", (System.currentTimeMillis() - startTime) < 20000);
     }
 
+    @Test
+    public void simpleBmiTest_histogram() throws Exception {
+        final List<Instance> instances = new ArrayList<>();
+        for (int x = 0; x < 10000; x++) {
+            final double height = (4 * 12) + Misc.random.nextInt(3 * 12);
+            final double weight = 120 + Misc.random.nextInt(110);
+            instances.add(Instance.create(bmiHealthy(weight, height), "weight", weight, "height", height));
+        }
+        final TreeBuilder tb = new TreeBuilder().minNominalAttributeValueOccurances(0).histogramBins(TreeBuilder.DEFAULT_HISTOGRAM_BINS);
+        final Node node = tb.buildPredictiveModel(instances).node;
+
+        serializeDeserialize(node);
+
+        assertTrue("Confirm that the node achieves full recall on the training set", node.fullRecall());
+        assertTrue("Tree size should be less than 400 nodes", node.size() < 400);
+        assertTrue("Mean depth should be less than 6", node.meanDepth() < 6);
+    }
+
+    @Test
+    public void histogramNominalAndMissingTest() {
+        final List<Instance> instances = new ArrayList<>();
+        for (int x = 0; x < 1000; x++) {
+            final String color = x % 3 == 0 ? "red" : x % 3 == 1 ? "green" : "blue";
+            final Instance instance = Instance.create(color.equals("red") ? "yes" : "no", "color", color, "noise", (double) (x % 7));
+            if (x % 10 == 0) {
+                instance.getAttributes().remove("noise");
+            }
+            instances.add(instance);
+        }
+        final Tree tree = new TreeBuilder().histogramBins(4).buildPredictiveModel(instances);
+        assertTrue(tree.node instanceof NominalBranch);
+        assertEquals("yes", tree.getClassificationByMaxProb(HashMapAttributes.create("color", "red")));
+        assertEquals("no", tree.getClassificationByMaxProb(HashMapAttributes.create("color", "blue", "noise", 3.)));
+        assertEquals(1., tree.getProbability(HashMapAttributes.create("color", "green"), "no"), 0);
+    }
+
     private static void serializeDeserialize(final Serializable object) throws IOException, ClassNotFoundException {
         final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(1000);
         ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
@@ -50,6 +87,23 @@ public class TreeBuilderTest {
         objectInputStream.close();
     }
 
+    @Test
+    public void scorerCountsTest() {
+        final ClassificationCounter a = new ClassificationCounter();
+        a.addClassification("x", 3);
+        a.addClassification("y", 1);
+        final ClassificationCounter b = new ClassificationCounter();
+        b.addClassification("y", 2);
+        b.addClassification("z", 2);
+        final double[] aCounts = {3, 1, 0};
+        final double[] bCounts = {0, 2, 2};
+        final Scorer scorer = new Scorer1();
+        assertEquals(scorer.scoreSplit(a, b), scorer.scoreSplit(aCounts, bCounts), 0.000001);
+        // the default implementation goes through the counters
+        final Scorer counterScorer = scorer::scoreSplit;
+        assertEquals(scorer.scoreSplit(a, b), counterScorer.scoreSplit(aCounts, bCounts), 0.000001);
+    }
+
     @Test
     @Ignore
     public void multiScorerBmiTest() {
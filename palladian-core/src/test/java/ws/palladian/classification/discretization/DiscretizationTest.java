@@ -2,11 +2,14 @@ package ws.palladian.classification.discretization;
 
 import org.junit.Test;
 import ws.palladian.classification.discretization.Binner.Interval;
-import ws.palladian.classification.utils.CsvDatasetReader;
+import ws.palladian.classification.utils.CsvDatasetReaderConfig;
 import ws.palladian.core.Instance;
 import ws.palladian.core.InstanceBuilder;
 import ws.palladian.core.dataset.Dataset;
 import ws.palladian.core.dataset.DefaultDataset;
+import ws.palladian.core.dataset.statistics.DatasetStatistics;
+import ws.palladian.core.value.NumericValue;
+import ws.palladian.helper.NoProgress;
 
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
@@ -47,7 +50,7 @@ public class DiscretizationTest {
 
     @Test
     public void testBinner_wineData() throws FileNotFoundException {
-        Dataset dataset = new CsvDatasetReader(getResourceFile("/classifier/wineData.csv"), true);
+        Dataset dataset = CsvDatasetReaderConfig.filePath(getResourceFile("/classifier/wineData.csv")).create();
         Discretization discretization = new Discretization(dataset);
         assertFuzzyEquals(asList(12.185, 12.78), discretization.getBinner("alcohol").getBoundaries(), DELTA);
         assertFuzzyEquals(asList(1.42, 2.235), discretization.getBinner("malicAcid").getBoundaries(), DELTA);
@@ -64,6 +67,17 @@ public class DiscretizationTest {
         assertFuzzyEquals(asList(468., 755., 987.5), discretization.getBinner("proline").getBoundaries(), DELTA);
     }
 
+    @Test
+    public void testBinner_fromStatistics() throws FileNotFoundException {
+        Dataset dataset = CsvDatasetReaderConfig.filePath(getResourceFile("/classifier/wineData.csv")).create();
+        Discretization expected = new Discretization(dataset);
+        // the dataset is small enough, that the sketches keep all values, so the boundaries are exact
+        Discretization actual = new Discretization(new DatasetStatistics(dataset, 2, false, true), NoProgress.INSTANCE);
+        for (String featureName : dataset.getFeatureInformation().getFeatureNamesOfType(NumericValue.class)) {
+            assertFuzzyEquals(expected.getBinner(featureName).getBoundaries(), actual.getBinner(featureName).getBoundaries(), DELTA);
+        }
+    }
+
     private static void assertFuzzyEquals(List<Double> expected, List<Double> actual, double delta) {
         assertEquals(expected.size(), actual.size());
         for (int i = 0; i < expected.size(); i++) {
@@ -1,20 +1,26 @@
 package ws.palladian.classification.dt;
 
 import org.junit.Test;
-import ws.palladian.classification.utils.CsvDatasetReader;
+import ws.palladian.classification.evaluation.ConfusionMatrixEvaluator;
+import ws.palladian.classification.utils.CsvDatasetReaderConfig;
 import ws.palladian.core.CategoryEntries;
 import ws.palladian.core.FeatureVector;
 import ws.palladian.core.Instance;
 import ws.palladian.core.InstanceBuilder;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.DefaultDataset;
+import ws.palladian.core.dataset.split.AbstractFilterSplit;
+import ws.palladian.core.dataset.split.TrainTestSplit;
 import ws.palladian.helper.math.ConfusionMatrix;
 
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
-import static ws.palladian.classification.utils.ClassifierEvaluation.evaluate;
 import static ws.palladian.helper.io.ResourceHelper.getResourceFile;
 
 public class QuickDtTest {
@@ -56,7 +62,7 @@ public class QuickDtTest {
         instances.add(new InstanceBuilder().set("height", 83.).set("weight", 223.).set("gender", "male").create("healthy"));
 
         QuickDtLearner learner = QuickDtLearner.tree();
-        QuickDtModel model = learner.train(instances);
+        QuickDtModel model = learner.train(new DefaultDataset(instances));
 
         FeatureVector featureVector = new InstanceBuilder().set("height", 62.).set("weight", 201.).set("gender", "female").create();
         QuickDtClassifier classifier = new QuickDtClassifier();
@@ -70,22 +76,55 @@ public class QuickDtTest {
 
     @Test
     public void testWithAdultIncomeData() throws FileNotFoundException {
-        List<Instance> instances = new CsvDatasetReader(getResourceFile("/classifier/adultData.txt"), false).readAll();
-        ConfusionMatrix confusionMatrix = evaluate(QuickDtLearner.randomForest(), new QuickDtClassifier(), instances);
+        Dataset dataset = readDataset("/classifier/adultData.txt");
+        ConfusionMatrix confusionMatrix = evaluate(QuickDtLearner.randomForest(), dataset);
         double accuracy = confusionMatrix.getAccuracy();
         assertGreater(0.75, accuracy);
     }
 
+    @Test
+    public void testWithAdultIncomeData_histogram() throws FileNotFoundException {
+        Dataset dataset = readDataset("/classifier/adultData.txt");
+        ConfusionMatrix confusionMatrix = evaluate(QuickDtLearner.histogramRandomForest(10), dataset);
+        assertGreater(0.75, confusionMatrix.getAccuracy());
+        confusionMatrix = evaluate(QuickDtLearner.histogramTree(), dataset);
+        assertGreater(0.75, confusionMatrix.getAccuracy());
+    }
+
+    private static Dataset readDataset(String resourcePath) throws FileNotFoundException {
+        return CsvDatasetReaderConfig.filePath(getResourceFile(resourcePath)).readHeader(false).create();
+    }
+
+    /** Train with the first half of the dataset, and evaluate with the second half. */
+    private static ConfusionMatrix evaluate(QuickDtLearner learner, Dataset dataset) {
+        long trainSize = dataset.size() / 2;
+        TrainTestSplit split = new AbstractFilterSplit(dataset) {
+            @Override
+            protected Predicate<? super Instance> createFilter() {
+                AtomicLong index = new AtomicLong();
+                return instance -> index.getAndIncrement() < trainSize;
+            }
+        };
+        return new ConfusionMatrixEvaluator().evaluate(learner, new QuickDtClassifier(), split.getTrain(), split.getTest());
+    }
+
     private void assertGreater(double expected, double actual) {
         assertTrue("value should be > " + expected + ", but was " + actual, actual > expected);
     }
 
     @Test
     public void testWithDiabetesData() throws FileNotFoundException {
-        List<Instance> instances = new CsvDatasetReader(getResourceFile("/classifier/diabetesData.txt"), false).readAll();
-        ConfusionMatrix confusionMatrix = evaluate(QuickDtLearner.randomForest(), new QuickDtClassifier(), instances);
+        Dataset dataset = readDataset("/classifier/diabetesData.txt");
+        ConfusionMatrix confusionMatrix = evaluate(QuickDtLearner.randomForest(), dataset);
         double accuracy = confusionMatrix.getAccuracy();
         assertGreater(0.72, accuracy);
     }
 
+    @Test
+    public void testWithDiabetesData_histogram() throws FileNotFoundException {
+        Dataset dataset = readDataset("/classifier/diabetesData.txt");
+        ConfusionMatrix confusionMatrix = evaluate(QuickDtLearner.histogramRandomForest(10), dataset);
+        assertGreater(0.72, confusionMatrix.getAccuracy());
+    }
+
 }
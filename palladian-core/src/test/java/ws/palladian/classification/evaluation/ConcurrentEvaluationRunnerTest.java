@@ -0,0 +1,58 @@
+package ws.palladian.classification.evaluation;
+
+import org.junit.Test;
+import ws.palladian.classification.evaluation.ConcurrentEvaluationRunner.EvaluationResult;
+import ws.palladian.classification.evaluation.ConcurrentEvaluationRunner.FoldResult;
+import ws.palladian.classification.evaluation.CrossValidator.Fold;
+import ws.palladian.classification.nb.NaiveBayesClassifier;
+import ws.palladian.classification.nb.NaiveBayesLearner;
+import ws.palladian.classification.nb.NaiveBayesModel;
+import ws.palladian.classification.utils.CsvDatasetReaderConfig;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.helper.math.ConfusionMatrix;
+import ws.palladian.helper.math.ThresholdAnalyzer;
+
+import java.io.FileNotFoundException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static ws.palladian.helper.io.ResourceHelper.getResourceFile;
+
+public class ConcurrentEvaluationRunnerTest {
+
+    @Test
+    public void testConcurrentEvaluation() throws FileNotFoundException {
+        Dataset dataset = CsvDatasetReaderConfig.filePath(getResourceFile("/classifier/diabetes2.csv")).create().buffer();
+        RandomCrossValidator crossValidator = new RandomCrossValidator(dataset, 5);
+
+        // sequential evaluation for comparison
+        ConfusionMatrix expectedConfusionMatrix = new ConfusionMatrix();
+        ThresholdAnalyzer expectedThresholdAnalyzer = new ThresholdAnalyzer();
+        for (Fold fold : crossValidator) {
+            NaiveBayesModel model = new NaiveBayesLearner().train(fold.getTrain());
+            expectedConfusionMatrix.add(new ConfusionMatrixEvaluator().evaluate(new NaiveBayesClassifier(), model, fold.getTest()));
+            expectedThresholdAnalyzer.add(new ThresholdAnalysisEvaluator("1").evaluate(new NaiveBayesClassifier(), model, fold.getTest()));
+        }
+
+        EvaluationResult result = new ConcurrentEvaluationRunner<>(NaiveBayesLearner::new, NaiveBayesClassifier::new, 4, "1").evaluate(crossValidator);
+        assertEquals(5, result.getFolds().size());
+        for (int i = 0; i < 5; i++) {
+            FoldResult foldResult = result.getFolds().get(i);
+            assertEquals(i, foldResult.getFold());
+            assertTrue(foldResult.getTrainingTime() >= 0);
+            assertTrue(foldResult.getClassificationTime() >= 0);
+        }
+        ConfusionMatrix confusionMatrix = result.getConfusionMatrix();
+        assertEquals(768, confusionMatrix.getTotalDocuments());
+        for (String realCategory : expectedConfusionMatrix.getCategories()) {
+            for (String predictedCategory : expectedConfusionMatrix.getCategories()) {
+                assertEquals(expectedConfusionMatrix.getConfusions(realCategory, predictedCategory), confusionMatrix.getConfusions(realCategory, predictedCategory));
+            }
+        }
+        ThresholdAnalyzer thresholdAnalyzer = result.getThresholdAnalyzer();
+        for (double threshold = 0; threshold <= 1; threshold += 0.2) {
+            assertEquals(expectedThresholdAnalyzer.getEntry(threshold).getF1(), thresholdAnalyzer.getEntry(threshold).getF1(), 0);
+        }
+    }
+
+}
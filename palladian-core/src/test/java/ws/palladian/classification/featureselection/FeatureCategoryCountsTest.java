@@ -0,0 +1,81 @@
+package ws.palladian.classification.featureselection;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ws.palladian.classification.discretization.Discretization;
+import ws.palladian.classification.utils.CsvDatasetReaderConfig;
+import ws.palladian.core.Instance;
+import ws.palladian.core.InstanceBuilder;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.DefaultDataset;
+import ws.palladian.core.value.NullValue;
+import ws.palladian.helper.NoProgress;
+import ws.palladian.helper.io.ResourceHelper;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class FeatureCategoryCountsTest {
+
+    private static final double DELTA = 0.0001;
+
+    private static Dataset dataset;
+
+    @BeforeClass
+    public static void getData() throws FileNotFoundException {
+        File testFile = ResourceHelper.getResourceFile("/classifier/wineData.csv");
+        Dataset wineDataset = CsvDatasetReaderConfig.filePath(testFile).create().buffer();
+        // replicate, so that the counting is split into multiple batches
+        List<Instance> replicatedInstances = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            wineDataset.forEach(replicatedInstances::add);
+        }
+        dataset = new DefaultDataset(replicatedInstances);
+    }
+
+    @Test
+    public void testParallelCounting() {
+        Discretization discretization = new Discretization(dataset);
+        FeatureCategoryCounts sequential = FeatureCategoryCounts.count(dataset, discretization, 1, NoProgress.INSTANCE);
+        FeatureCategoryCounts parallel = FeatureCategoryCounts.count(dataset, discretization, 4, NoProgress.INSTANCE);
+        assertEquals(178 * 20, parallel.getNumInstances());
+        assertEquals(sequential.getCategoryCounts(), parallel.getCategoryCounts());
+        assertEquals(sequential.getFeatureNames(), parallel.getFeatureNames());
+        for (String featureName : sequential.getFeatureNames()) {
+            assertEquals(sequential.getValueCounts(featureName, false), parallel.getValueCounts(featureName, false));
+        }
+    }
+
+    @Test
+    public void testParallelRanking() {
+        FeatureRanking sequential = new InformationGainFeatureRanker().rankFeatures(dataset);
+        FeatureRanking parallel = new InformationGainFeatureRanker(4).rankFeatures(dataset);
+        for (RankedFeature rankedFeature : sequential.getAll()) {
+            assertEquals(rankedFeature.getScore(), parallel.getFeature(rankedFeature.getName()).getScore(), DELTA);
+        }
+        FeatureRanking chiSquared = new ChiSquaredFeatureRanker(new AverageMergingStrategy(), 4).rankFeatures(dataset);
+        assertEquals(13, chiSquared.size());
+    }
+
+    @Test
+    public void testMissingValues() {
+        List<Instance> instances = new ArrayList<>();
+        instances.add(new InstanceBuilder().set("a", "x").create("c1"));
+        instances.add(new InstanceBuilder().set("a", "x").set("b", "y").create("c1"));
+        instances.add(new InstanceBuilder().setNull("a").create("c2"));
+        instances.add(new InstanceBuilder().create("c2"));
+        Dataset dataset = new DefaultDataset(instances);
+        FeatureCategoryCounts counts = FeatureCategoryCounts.count(dataset, new Discretization(dataset), 1, NoProgress.INSTANCE);
+        assertEquals(4, counts.getNumInstances());
+        assertEquals(2, counts.getCount("a", "x", "c1"));
+        assertEquals(1, counts.getCount("a", NullValue.NULL.toString(), "c2"));
+        assertEquals(2, (int) counts.getValueCounts("a", true).get(NullValue.NULL.toString()).get("c2"));
+        assertEquals(1, counts.getValueCounts("b", false).size());
+        assertEquals(3, counts.getValueCounts("b", true).get(NullValue.NULL.toString()).values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+}
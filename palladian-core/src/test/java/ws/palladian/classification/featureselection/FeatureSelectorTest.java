@@ -70,4 +70,19 @@ public class FeatureSelectorTest {
         assertEquals("plasma|bmi|pedigree", bestFeatureValue);
     }
 
+    @Test
+    public void testPreselection() throws FileNotFoundException {
+        FeatureSelectorConfig.Builder<NaiveBayesModel> builder = FeatureSelectorConfig.with(new NaiveBayesLearner(), new NaiveBayesClassifier());
+        builder.backward();
+        builder.preselect(new InformationGainFeatureRanker(2), 3);
+        FeatureSelector selector = builder.create();
+        FeatureRanking ranking = selector.rankFeatures(instances, NoProgress.INSTANCE);
+        assertEquals(8, ranking.size());
+        List<RankedFeature> rankedFeatures = ranking.getAll();
+        for (int i = 0; i < rankedFeatures.size(); i++) {
+            // the three preselected features are ranked above the others
+            assertEquals(i < 3, rankedFeatures.get(i).getScore() > 0);
+        }
+    }
+
 }
@@ -0,0 +1,32 @@
+package ws.palladian.classification.featureselection;
+
+import org.junit.Test;
+import ws.palladian.classification.utils.CsvDatasetReaderConfig;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.split.RandomSplit;
+import ws.palladian.helper.math.ConfusionMatrix;
+import ws.palladian.helper.io.ResourceHelper;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SingleFeatureClassificationTest {
+
+    @Test
+    public void testOneRule() throws FileNotFoundException {
+        File testFile = ResourceHelper.getResourceFile("/classifier/diabetes2.csv");
+        Dataset dataset = CsvDatasetReaderConfig.filePath(testFile).readHeader(true).create().buffer();
+        RandomSplit split = new RandomSplit(dataset, 0.5, new Random(1));
+        FeatureRanking ranking = SingleFeatureClassification.oneRule(ConfusionMatrix::getAccuracy, 2).rankFeatures(split.getTrain(), split.getTest());
+        assertEquals(8, ranking.size());
+        assertEquals("plasma", ranking.getAll().get(0).getName());
+        for (RankedFeature rankedFeature : ranking.getAll()) {
+            assertTrue(rankedFeature.getScore() > 0.5 && rankedFeature.getScore() <= 1);
+        }
+    }
+
+}
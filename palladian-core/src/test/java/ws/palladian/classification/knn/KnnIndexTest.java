@@ -0,0 +1,171 @@
+package ws.palladian.classification.knn;
+
+import it.unimi.dsi.fastutil.objects.Object2FloatMap;
+import it.unimi.dsi.fastutil.objects.Object2FloatOpenHashMap;
+import org.junit.Test;
+import ws.palladian.classification.knn.KnnIndex.Neighbors;
+import ws.palladian.classification.utils.MinMaxNormalizer;
+import ws.palladian.classification.utils.NoNormalizer;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.core.FeatureVector;
+import ws.palladian.core.Instance;
+import ws.palladian.core.InstanceBuilder;
+import ws.palladian.core.value.NominalValue;
+import ws.palladian.core.value.NumericValue;
+import ws.palladian.core.value.Value;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class KnnIndexTest {
+
+    private static final int NUM_FEATURES = 4;
+
+    private static List<Instance> createInstances(Random random, int count, boolean withCategory) {
+        List<Instance> instances = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            InstanceBuilder builder = new InstanceBuilder();
+            for (int f = 0; f < NUM_FEATURES; f++) {
+                double r = random.nextDouble();
+                if (r < 0.05) {
+                    builder.setNull("f" + f);
+                } else {
+                    // coarse values to provoke ties
+                    builder.set("f" + f, (double) random.nextInt(20));
+                }
+            }
+            builder.set("t", "v" + random.nextInt(3));
+            instances.add(builder.create(withCategory ? "c" + random.nextInt(5) : "x"));
+        }
+        return instances;
+    }
+
+    private static Object2FloatMap<String> numericFields() {
+        Object2FloatMap<String> numericFields = new Object2FloatOpenHashMap<>();
+        for (int f = 0; f < NUM_FEATURES; f++) {
+            numericFields.put("f" + f, 1 + f);
+        }
+        return numericFields;
+    }
+
+    private static Object2FloatMap<String> textualFields() {
+        Object2FloatMap<String> textualFields = new Object2FloatOpenHashMap<>();
+        textualFields.put("t", 5);
+        return textualFields;
+    }
+
+    @Test
+    public void testTreeSearchEqualsExhaustiveSearch() {
+        Random random = new Random(1);
+        KnnModel model = new KnnLearner(new NoNormalizer()).train(createInstances(random, 2000, true), numericFields(), textualFields());
+        KnnIndex index = model.getIndex();
+        assertEquals(2000, index.size());
+        for (Instance query : createInstances(random, 200, false)) {
+            for (int k : new int[]{1, 3, 10}) {
+                Neighbors expected = searchReference(query.getVector(), model, k);
+                Neighbors actual = index.search(query.getVector(), k);
+                Neighbors exhaustive = index.searchExhaustive(query.getVector(), k);
+                assertArrayEquals(expected.rows, actual.rows);
+                assertArrayEquals(expected.distances, actual.distances, 0);
+                assertArrayEquals(expected.categories, actual.categories);
+                assertArrayEquals(expected.rows, exhaustive.rows);
+            }
+        }
+    }
+
+    @Test
+    public void testNegativeTextualWeight() {
+        Random random = new Random(4);
+        Object2FloatMap<String> textualFields = new Object2FloatOpenHashMap<>();
+        textualFields.put("t", -50);
+        KnnModel model = new KnnLearner(new NoNormalizer()).train(createInstances(random, 1000, true), numericFields(), textualFields);
+        KnnIndex index = model.getIndex();
+        for (Instance query : createInstances(random, 100, false)) {
+            Neighbors expected = index.searchExhaustive(query.getVector(), 5);
+            Neighbors actual = index.search(query.getVector(), 5);
+            assertArrayEquals(expected.rows, actual.rows);
+            assertArrayEquals(expected.distances, actual.distances, 0);
+            assertArrayEquals(searchReference(query.getVector(), model, 5).rows, actual.rows);
+        }
+    }
+
+    @Test
+    public void testMoreNeighborsThanRows() {
+        Random random = new Random(2);
+        KnnModel model = new KnnLearner(new NoNormalizer()).train(createInstances(random, 5, true), numericFields(), textualFields());
+        FeatureVector query = createInstances(random, 1, false).get(0).getVector();
+        Neighbors neighbors = model.getIndex().search(query, 10);
+        assertEquals(5, neighbors.size());
+        assertArrayEquals(searchReference(query, model, 5).rows, neighbors.rows);
+    }
+
+    @Test
+    public void testBatchClassification() {
+        Random random = new Random(3);
+        KnnModel model = new KnnLearner(new MinMaxNormalizer()).train(createInstances(random, 1000, true), numericFields(), textualFields());
+        List<FeatureVector> queries = new ArrayList<>();
+        for (Instance instance : createInstances(random, 100, false)) {
+            queries.add(instance.getVector());
+        }
+        KnnClassifier classifier = new KnnClassifier(5);
+        List<CategoryEntries> results = classifier.classify(queries, model);
+        assertEquals(queries.size(), results.size());
+        for (int i = 0; i < queries.size(); i++) {
+            assertEquals(classifier.classify(queries.get(i), model), results.get(i));
+        }
+    }
+
+    /** The exhaustive search with full sort, as the {@link KnnClassifier} did before the index was introduced. */
+    private static Neighbors searchReference(FeatureVector inputVector, KnnModel model, int k) {
+        List<Object[]> neighbors = new ArrayList<>();
+        int row = 0;
+        for (String y : model.getRowKeys()) {
+            FeatureVector trainedVector = model.getFeatureVector(y);
+            double distance = computeDistance(inputVector, trainedVector, model);
+            neighbors.add(new Object[]{row++, distance, trainedVector.getNominal("category").getString()});
+        }
+        neighbors.sort(Comparator.comparingDouble(neighbor -> (double) neighbor[1]));
+        int size = Math.min(k, neighbors.size());
+        int[] rows = new int[size];
+        double[] distances = new double[size];
+        String[] categories = new String[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = (int) neighbors.get(i)[0];
+            distances[i] = (double) neighbors.get(i)[1];
+            categories[i] = (String) neighbors.get(i)[2];
+        }
+        return new Neighbors(rows, distances, categories);
+    }
+
+    private static double computeDistance(FeatureVector inputVector, FeatureVector trainedVector, KnnModel model) {
+        double distance = 0;
+        for (Object2FloatMap.Entry<String> entry : model.getNumericFieldsAndWeights().object2FloatEntrySet()) {
+            Value inputValue = inputVector.get(entry.getKey());
+            Value trainedValue = trainedVector.get(entry.getKey());
+            if (inputValue.isNull() || trainedValue.isNull()) {
+                distance += entry.getFloatValue();
+            } else if (inputValue instanceof NumericValue && trainedValue instanceof NumericValue) {
+                float diff = ((NumericValue) inputValue).getFloat() - ((NumericValue) trainedValue).getFloat();
+                distance += entry.getFloatValue() * diff * diff;
+            }
+        }
+        for (Object2FloatMap.Entry<String> entry : model.getTextualFieldsAndWeights().object2FloatEntrySet()) {
+            Value inputValue = inputVector.get(entry.getKey());
+            Value trainedValue = trainedVector.get(entry.getKey());
+            if (inputValue instanceof NominalValue && trainedValue instanceof NominalValue) {
+                if (!((NominalValue) inputValue).getString().equals(((NominalValue) trainedValue).getString())) {
+                    distance += entry.getFloatValue();
+                }
+            } else {
+                distance += entry.getFloatValue();
+            }
+        }
+        return distance;
+    }
+
+}
@@ -0,0 +1,89 @@
+package ws.palladian.classification.text;
+
+import org.junit.Test;
+import ws.palladian.helper.constants.Language;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BinaryModelFormatTest extends AbstractDictionaryModelTest {
+
+    private static DictionaryModel writeAndRead(DictionaryModel model) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryModelFormat.write(model, out);
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        DictionaryModel result = BinaryModelFormat.read(in);
+        assertEquals("stream must be consumed completely", 0, in.available());
+        return result;
+    }
+
+    @Test
+    public void testTrieModel() throws IOException {
+        DictionaryModel result = writeAndRead(model);
+        assertTrue(result instanceof DictionaryTrieModel);
+        assertEquals(model, result);
+        assertEquals(model.getTermCounts(), result.getTermCounts());
+    }
+
+    @Test
+    public void testMapModel() throws IOException {
+        FeatureSetting featureSetting = FeatureSettingBuilder.words(1, 2).language(Language.GERMAN).create();
+        featureSetting.setUseTokenCombinations(true);
+        featureSetting.setTokenCombinationMaxNgram(3);
+        DictionaryModel mapModel = new DictionaryMapModel.Builder().setName("test").setFeatureSetting(featureSetting).addDictionary(model).create();
+        DictionaryModel result = writeAndRead(mapModel);
+        assertTrue(result instanceof DictionaryMapModel);
+        assertEquals(mapModel, result);
+        assertEquals("test", result.getName());
+        assertTrue(result.getFeatureSetting().isUseTokenCombinations());
+        assertEquals(3, result.getFeatureSetting().getTokenCombinationMaxNgram());
+    }
+
+    @Test
+    public void testMultipleChunks() throws IOException {
+        DictionaryTrieModel.Builder builder = new DictionaryTrieModel.Builder();
+        for (int i = 0; i < 200000; i++) {
+            builder.addDocument(Arrays.asList("term" + i, "täxt" + (i % 1000)), "category" + (i % 50), 1 + i % 300);
+        }
+        DictionaryModel largeModel = builder.create();
+        DictionaryModel result = writeAndRead(largeModel);
+        assertEquals(largeModel, result);
+        assertEquals(largeModel.getNumUniqTerms(), result.getNumUniqTerms());
+        assertEquals(largeModel.getNumTerms(), result.getNumTerms());
+    }
+
+    @Test
+    public void testStrings() throws IOException {
+        List<String> strings = Arrays.asList("one", "twö", "", "three");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream dataOut = new DataOutputStream(out);
+        BinaryModelFormat.writeStrings(strings, dataOut);
+        BinaryModelFormat.writeStrings(Collections.emptyList(), dataOut);
+        DataInputStream dataIn = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(strings, BinaryModelFormat.readStrings(dataIn));
+        assertEquals(Collections.emptyList(), BinaryModelFormat.readStrings(dataIn));
+    }
+
+    @Test
+    public void testStringsMultipleChunks() throws IOException {
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < 500000; i++) {
+            strings.add("string number " + i);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryModelFormat.writeStrings(strings, new DataOutputStream(out));
+        // the chunks are decoded in parallel, but must keep their order
+        assertEquals(strings, BinaryModelFormat.readStrings(new DataInputStream(new ByteArrayInputStream(out.toByteArray()))));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidData() throws IOException {
+        BinaryModelFormat.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+
+}
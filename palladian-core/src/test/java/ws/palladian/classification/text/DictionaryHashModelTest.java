@@ -0,0 +1,110 @@
+package ws.palladian.classification.text;
+
+import org.junit.Test;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.core.Instance;
+import ws.palladian.core.InstanceBuilder;
+import ws.palladian.helper.io.FileHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DictionaryHashModelTest {
+
+    private static final FeatureSetting FEATURE_SETTING = FeatureSettingBuilder.chars(3, 5).characterPadding().featureHashing().create();
+
+    private static final List<Instance> DOCS = createDocs();
+
+    private static List<Instance> createDocs() {
+        List<Instance> docs = new ArrayList<>();
+        docs.add(new InstanceBuilder().setText("the quick brown fox jumps over the lazy dog").create("en"));
+        docs.add(new InstanceBuilder().setText("where is the next train station").create("en"));
+        docs.add(new InstanceBuilder().setText("der schnelle braune fuchs springt über den faulen hund").create("de"));
+        docs.add(new InstanceBuilder().setText("wo ist der nächste bahnhof").create("de"));
+        return docs;
+    }
+
+    @Test
+    public void testSameAsStringModel() {
+        // hashed training/classification must give the same results as using the hexadecimal terms with a trie
+        PalladianTextClassifier hashClassifier = new PalladianTextClassifier(FEATURE_SETTING);
+        DictionaryModel hashModel = hashClassifier.train(DOCS);
+        assertTrue(hashModel instanceof DictionaryHashModel);
+        PalladianTextClassifier trieClassifier = new PalladianTextClassifier(FEATURE_SETTING, new DictionaryTrieModel.Builder());
+        DictionaryModel trieModel = trieClassifier.train(DOCS);
+        assertEquals(trieModel.getNumUniqTerms(), hashModel.getNumUniqTerms());
+        assertEquals(trieModel.getTermCounts(), hashModel.getTermCounts());
+        for (DictionaryModel.DictionaryEntry entry : trieModel) {
+            assertEquals(entry.getCategoryEntries(), hashModel.getCategoryEntries(entry.getTerm()));
+        }
+        for (String text : new String[]{"the fox is in the station", "der fuchs ist im bahnhof", "xyz"}) {
+            CategoryEntries hashResult = hashClassifier.classify(text, hashModel);
+            CategoryEntries trieResult = trieClassifier.classify(text, trieModel);
+            assertEquals(trieResult.getMostLikelyCategory(), hashResult.getMostLikelyCategory());
+            assertEquals(trieResult.getProbability("en"), hashResult.getProbability("en"), 0);
+        }
+        assertEquals("en", hashClassifier.classify("the lazy dog", hashModel).getMostLikelyCategory());
+        assertEquals("de", hashClassifier.classify("der faule hund", hashModel).getMostLikelyCategory());
+    }
+
+    @Test
+    public void testAddDictionary() {
+        DictionaryModel model = new PalladianTextClassifier(FEATURE_SETTING).train(DOCS);
+        DictionaryModel parallelModel = new PalladianTextClassifier(FEATURE_SETTING, new DictionaryHashModel.Builder(), PalladianTextClassifier.DEFAULT_SCORER, 3).train(DOCS);
+        assertEquals(model, parallelModel);
+        DictionaryBuilder builder = new DictionaryHashModel.Builder();
+        builder.addDictionary(model);
+        builder.addDictionary(new PalladianTextClassifier(FEATURE_SETTING, new DictionaryTrieModel.Builder()).train(DOCS));
+        DictionaryModel mergedModel = builder.create();
+        assertEquals(model.getNumUniqTerms(), mergedModel.getNumUniqTerms());
+        assertEquals(2 * model.getNumDocuments(), mergedModel.getNumDocuments());
+        assertEquals(2 * model.getNumTerms(), mergedModel.getNumTerms());
+    }
+
+    @Test
+    public void testBuilderReuse() {
+        DictionaryHashModel.Builder builder = new DictionaryHashModel.Builder();
+        builder.addDocument(Arrays.asList(DictionaryHashModel.toTerm(1), DictionaryHashModel.toTerm(2)), "a");
+        DictionaryModel model = builder.create();
+        builder.addDocument(Arrays.asList(DictionaryHashModel.toTerm(1), DictionaryHashModel.toTerm(3)), "b");
+        builder.setPruningStrategy(PruningStrategies.termCount(2));
+        DictionaryModel second = builder.create();
+        // the second model only contains the second document, of which all terms are pruned
+        assertEquals(0, second.getNumUniqTerms());
+        assertEquals(1, second.getNumDocuments());
+        assertEquals(2, model.getNumUniqTerms());
+        assertEquals(1, model.getCategoryEntries(DictionaryHashModel.toTerm(1)).getCount("a"));
+        assertEquals(0, model.getCategoryEntries(DictionaryHashModel.toTerm(1)).getCount("b"));
+        assertEquals(1, model.getNumDocuments());
+    }
+
+    @Test
+    public void testSerialization() throws IOException {
+        DictionaryModel model = new PalladianTextClassifier(FEATURE_SETTING).train(DOCS);
+        File tempFile = new File(FileHelper.getTempDir(), "dictionaryHashModel.ser");
+        FileHelper.serialize(model, tempFile.getPath());
+        DictionaryModel deserializedModel = FileHelper.deserialize(tempFile.getPath());
+        assertEquals(model, deserializedModel);
+        assertEquals(FEATURE_SETTING, deserializedModel.getFeatureSetting());
+    }
+
+    @Test
+    public void testTermConversion() {
+        assertEquals("0000000000000000", DictionaryHashModel.toTerm(0));
+        assertEquals("ffffffffffffffff", DictionaryHashModel.toTerm(-1));
+        assertEquals(-1, DictionaryHashModel.toHash("ffffffffffffffff"));
+        assertEquals(42, DictionaryHashModel.toHash(DictionaryHashModel.toTerm(42)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFeatureHashingOnlyForCharNGrams() {
+        FeatureSettingBuilder.words().featureHashing();
+    }
+
+}
@@ -1,5 +1,24 @@
 package ws.palladian.classification.text;
 
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
 public class DictionaryMapModelTest extends AbstractDictionaryModelTest {
 
+    @Test
+    public void testBuilderReuse() {
+        DictionaryMapModel.Builder builder = new DictionaryMapModel.Builder();
+        DictionaryModel first = builder.addDictionary(model).create();
+        DictionaryModel second = builder.addDocument(Arrays.asList("word"), CATEGORY_1).create();
+        assertEquals(4, first.getNumUniqTerms());
+        assertEquals(6, first.getNumDocuments());
+        assertEquals(3, first.getCategoryEntries(WORD_3).getCount(CATEGORY_1));
+        assertEquals(0, first.getCategoryEntries("word").getTotalCount());
+        assertEquals(1, second.getNumUniqTerms());
+        assertEquals(1, second.getDocumentCounts().getTotalCount());
+    }
+
 }
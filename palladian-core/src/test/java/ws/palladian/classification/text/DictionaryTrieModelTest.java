@@ -6,6 +6,7 @@ import ws.palladian.helper.io.ResourceHelper;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -30,4 +31,33 @@ public class DictionaryTrieModelTest extends AbstractDictionaryModelTest {
         assertEquals(4, model.getTermCounts().getCount(CATEGORY_2));
     }
 
+    @Test
+    public void testBuilderReuse() {
+        DictionaryTrieModel.Builder builder = new DictionaryTrieModel.Builder();
+        DictionaryModel first = builder.addDictionary(model).create();
+        DictionaryModel second = builder.addDocument(Arrays.asList("word"), CATEGORY_1).create();
+        assertEquals(model, first);
+        assertEquals(1, second.getNumUniqTerms());
+        assertEquals(1, second.getDocumentCounts().getTotalCount());
+    }
+
+    @Test
+    public void testAddBuilder() {
+        DictionaryTrieModel.Builder shard1 = new DictionaryTrieModel.Builder();
+        shard1.addDocument(Arrays.asList("word1", "word2"), CATEGORY_1);
+        DictionaryTrieModel.Builder shard2 = new DictionaryTrieModel.Builder();
+        shard2.addDocument(Arrays.asList("word2", "word3"), CATEGORY_2, 2);
+        DictionaryModel merged = new DictionaryTrieModel.Builder().addBuilder(shard1).addBuilder(shard2).create();
+        // expected result via the models of identically filled shards; not reusing the shards above, as create()
+        // resets a builder
+        DictionaryTrieModel.Builder model1 = new DictionaryTrieModel.Builder();
+        model1.addDocument(Arrays.asList("word1", "word2"), CATEGORY_1);
+        DictionaryTrieModel.Builder model2 = new DictionaryTrieModel.Builder();
+        model2.addDocument(Arrays.asList("word2", "word3"), CATEGORY_2, 2);
+        DictionaryModel expected = new DictionaryTrieModel.Builder().addDictionary(model1.create()).addDictionary(model2.create()).create();
+        assertEquals(expected, merged);
+        assertEquals(3, merged.getNumUniqTerms());
+        assertEquals(3, merged.getDocumentCounts().getTotalCount());
+    }
+
 }
@@ -0,0 +1,70 @@
+package ws.palladian.classification.text;
+
+import org.junit.Before;
+import org.junit.Test;
+import ws.palladian.core.Category;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.helper.io.FileHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappedDictionaryModelTest extends AbstractDictionaryModelTest {
+
+    private DictionaryModel originalModel;
+
+    @Before
+    public void setUpMappedModel() throws IOException {
+        originalModel = model;
+        File modelFile = new File(FileHelper.getTempDir(), "mappedDictionaryModel.bin");
+        MappedDictionaryModel.write(model, modelFile);
+        model = MappedDictionaryModel.open(modelFile);
+    }
+
+    @Test
+    public void testSameEntries() {
+        assertEquals(originalModel.getNumUniqTerms(), model.getNumUniqTerms());
+        for (DictionaryModel.DictionaryEntry entry : originalModel) {
+            assertSameCounts(entry.getCategoryEntries(), model.getCategoryEntries(entry.getTerm()));
+        }
+        for (DictionaryModel.DictionaryEntry entry : model) {
+            assertSameCounts(entry.getCategoryEntries(), originalModel.getCategoryEntries(entry.getTerm()));
+        }
+        assertEquals(originalModel.getDocumentCounts(), model.getDocumentCounts());
+        assertEquals(originalModel.getTermCounts(), model.getTermCounts());
+    }
+
+    @Test
+    public void testNonAsciiTerms() throws IOException {
+        DictionaryTrieModel.Builder builder = new DictionaryTrieModel.Builder();
+        builder.setName("nonAscii");
+        builder.addDocument(new HashSet<>(Arrays.asList("über", "uber", "z", "😀", "ﬁ")), CATEGORY_1);
+        builder.addDocument(new HashSet<>(Arrays.asList("über", "ünter", "a")), CATEGORY_2);
+        DictionaryModel trieModel = builder.create();
+        File modelFile = new File(FileHelper.getTempDir(), "mappedDictionaryModelNonAscii.bin");
+        MappedDictionaryModel.write(trieModel, modelFile);
+        DictionaryModel mappedModel = MappedDictionaryModel.open(modelFile);
+        assertEquals("nonAscii", mappedModel.getName());
+        assertEquals(7, mappedModel.getNumUniqTerms());
+        for (DictionaryModel.DictionaryEntry entry : trieModel) {
+            assertSameCounts(entry.getCategoryEntries(), mappedModel.getCategoryEntries(entry.getTerm()));
+        }
+        assertEquals(2, mappedModel.getCategoryEntries("über").getTotalCount());
+        assertEquals(0, mappedModel.getCategoryEntries("übe").size());
+        assertEquals(0, mappedModel.getCategoryEntries("").size());
+    }
+
+    private static void assertSameCounts(CategoryEntries expected, CategoryEntries actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.getTotalCount(), actual.getTotalCount());
+        for (Category category : expected) {
+            assertEquals(category.getCount(), actual.getCount(category.getName()));
+            assertEquals(category.getProbability(), actual.getProbability(category.getName()), 0);
+        }
+    }
+
+}
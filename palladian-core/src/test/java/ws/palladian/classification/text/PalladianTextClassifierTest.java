@@ -1,16 +1,14 @@
 package ws.palladian.classification.text;
 
 import org.junit.Test;
-import ws.palladian.core.CategoryEntries;
-import ws.palladian.core.Instance;
-import ws.palladian.core.InstanceBuilder;
+import ws.palladian.core.*;
+import ws.palladian.core.value.TextValue;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.Map.Entry;
 
 import static org.junit.Assert.assertEquals;
-import static ws.palladian.classification.text.BayesScorer.Options.COMPLEMENT;
-import static ws.palladian.classification.text.BayesScorer.Options.PRIORS;
+import static ws.palladian.classification.text.BayesScorer.Options.*;
 
 public class PalladianTextClassifierTest {
 
@@ -58,4 +56,139 @@ public class PalladianTextClassifierTest {
         assertEquals(0.88, result.getMostLikely().getProbability(), 0.01);
     }
 
+    @Test
+    public void testPalladianTextClassifier_parallelTraining() {
+        List<Instance> trainingDocs = new ArrayList<>();
+        Random random = new Random(1);
+        String[] words = {"Chinese", "Beijing", "Shanghai", "Macao", "Tokyo", "Japan", "Osaka", "Kyoto"};
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int j = 0; j < 5; j++) {
+                text.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            trainingDocs.add(new InstanceBuilder().setText(text.toString()).create(i % 3 == 0 ? "no" : "yes"));
+        }
+        DictionaryModel sequentialModel = new PalladianTextClassifier(featureSetting).train(trainingDocs);
+        PalladianTextClassifier parallelClassifier = new PalladianTextClassifier(featureSetting, new DictionaryTrieModel.Builder(), new BayesScorer(PRIORS), 4);
+        DictionaryModel parallelModel = parallelClassifier.train(trainingDocs);
+        assertEquals(sequentialModel, parallelModel);
+        assertEquals(sequentialModel.getNumUniqTerms(), parallelModel.getNumUniqTerms());
+        assertEquals(1000, parallelModel.getNumDocuments());
+    }
+
+    @Test
+    public void testPalladianTextClassifier_sameScoresAsMapBasedScoring() {
+        List<Instance> trainingDocs = createRandomDocs(500, 2);
+        List<Instance> testDocs = createRandomDocs(50, 3);
+        PalladianTextClassifier.Scorer[] scorers = {PalladianTextClassifier.DEFAULT_SCORER, new BayesScorer(), new BayesScorer(PRIORS)};
+        for (PalladianTextClassifier.Scorer scorer : scorers) {
+            PalladianTextClassifier classifier = new PalladianTextClassifier(featureSetting, scorer);
+            DictionaryModel model = classifier.train(trainingDocs);
+            Preprocessor preprocessor = new Preprocessor(featureSetting);
+            ScoreAccumulator accumulator = new ScoreAccumulator();
+            for (Instance testDoc : testDocs) {
+                String text = ((TextValue) testDoc.getVector().get(PalladianTextClassifier.VECTOR_TEXT_IDENTIFIER)).getText();
+                CategoryEntries expected = classifyMapBased(preprocessor.apply(text), model, scorer);
+                CategoryEntries actual = classifier.classify(testDoc.getVector(), model, accumulator);
+                assertEquals(expected.size(), actual.size());
+                for (Category category : expected) {
+                    assertEquals(category.getProbability(), actual.getProbability(category.getName()), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPalladianTextClassifier_sparseBayesScoring() {
+        List<Instance> trainingDocs = createRandomDocs(500, 2);
+        List<Instance> testDocs = createRandomDocs(50, 3);
+        testDocs.add(new InstanceBuilder().setText("unknown words only").create("category0"));
+        BayesScorer.Options[][] optionCombinations = {{LAPLACE}, {LAPLACE, PRIORS}, {COMPLEMENT}, {LAPLACE, PRIORS, FREQUENCIES, COMPLEMENT}};
+        for (BayesScorer.Options[] options : optionCombinations) {
+            BayesScorer.Options[] sparseOptions = Arrays.copyOf(options, options.length + 1);
+            sparseOptions[options.length] = SPARSE;
+            PalladianTextClassifier classifier = new PalladianTextClassifier(featureSetting, new BayesScorer(options));
+            PalladianTextClassifier sparseClassifier = new PalladianTextClassifier(featureSetting, new BayesScorer(sparseOptions));
+            DictionaryModel model = classifier.train(trainingDocs);
+            for (Instance testDoc : testDocs) {
+                CategoryEntries expected = classifier.classify(testDoc.getVector(), model);
+                CategoryEntries actual = sparseClassifier.classify(testDoc.getVector(), model);
+                assertEquals(expected.size(), actual.size());
+                for (Category category : expected) {
+                    assertEquals(category.getProbability(), actual.getProbability(category.getName()), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPalladianTextClassifier_topK() {
+        List<Instance> trainingDocs = createRandomDocs(500, 2);
+        List<Instance> testDocs = createRandomDocs(50, 3);
+        PalladianTextClassifier classifier = new PalladianTextClassifier(featureSetting, new BayesScorer(LAPLACE, PRIORS, SPARSE));
+        DictionaryModel model = classifier.train(trainingDocs);
+        for (Instance testDoc : testDocs) {
+            CategoryEntries expected = classifier.classify(testDoc.getVector(), model);
+            CategoryEntries actual = classifier.classifyTopK(testDoc.getVector(), model, 2);
+            assertEquals(2, actual.size());
+            assertEquals(expected.getMostLikelyCategory(), actual.getMostLikelyCategory());
+            Iterator<Category> expectedIterator = expected.iterator();
+            for (Category category : actual) {
+                Category expectedCategory = expectedIterator.next();
+                assertEquals(expectedCategory.getName(), category.getName());
+                assertEquals(expectedCategory.getProbability(), category.getProbability(), 0);
+            }
+        }
+        assertEquals(5, classifier.classifyTopK(testDocs.get(0).getVector(), model, 10).size());
+    }
+
+    private static List<Instance> createRandomDocs(int numDocs, long seed) {
+        List<Instance> docs = new ArrayList<>();
+        Random random = new Random(seed);
+        for (int i = 0; i < numDocs; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int j = 0; j < 10; j++) {
+                text.append("word").append(random.nextInt(100)).append(' ');
+            }
+            docs.add(new InstanceBuilder().setText(text.toString()).create("category" + random.nextInt(5)));
+        }
+        return docs;
+    }
+
+    /** Reference implementation with maps keyed by category names; terms are scored in order of first occurrence. */
+    private static CategoryEntries classifyMapBased(Iterator<String> terms, DictionaryModel model, PalladianTextClassifier.Scorer scorer) {
+        CategoryEntriesBuilder builder = new CategoryEntriesBuilder();
+        Map<String, Integer> termCounts = new LinkedHashMap<>();
+        while (terms.hasNext() && termCounts.size() < featureSetting.getMaxTerms()) {
+            termCounts.merge(terms.next(), 1, Integer::sum);
+        }
+        CategoryEntries termSums = model.getTermCounts();
+        for (Entry<String, Integer> termCount : termCounts.entrySet()) {
+            String term = termCount.getKey();
+            CategoryEntries categoryEntries = model.getCategoryEntries(term);
+            int dictCount = categoryEntries.getTotalCount();
+            Set<String> matchedCategories = new HashSet<>();
+            for (Category category : categoryEntries) {
+                int categorySum = termSums.getCount(category.getName());
+                builder.add(category.getName(), scorer.score(term, category.getName(), category.getCount(), dictCount, termCount.getValue(), categorySum,
+                        model.getNumUniqTerms(), model.getNumDocuments(), model.getNumTerms()));
+                matchedCategories.add(category.getName());
+            }
+            if (scorer.scoreNonMatches()) {
+                for (Category category : termSums) {
+                    if (!matchedCategories.contains(category.getName())) {
+                        builder.add(category.getName(), scorer.score(term, category.getName(), 0, dictCount, termCount.getValue(), category.getCount(),
+                                model.getNumUniqTerms(), model.getNumDocuments(), model.getNumTerms()));
+                    }
+                }
+            }
+        }
+        boolean matched = builder.getTotalScore() != 0;
+        for (Category category : model.getDocumentCounts()) {
+            double termScore = builder.getScore(category.getName());
+            builder.set(category.getName(), scorer.scoreCategory(category.getName(), termScore, category.getProbability(), matched));
+        }
+        return builder.create();
+    }
+
 }
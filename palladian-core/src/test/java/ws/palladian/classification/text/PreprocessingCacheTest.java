@@ -0,0 +1,83 @@
+package ws.palladian.classification.text;
+
+import org.junit.Test;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.core.Instance;
+import ws.palladian.core.InstanceBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PreprocessingCacheTest {
+
+    private static final String TEXT = "the quick brown fox jumps over the lazy dog";
+
+    @Test
+    public void testCache() {
+        PreprocessingCache cache = new PreprocessingCache(100000);
+        // equal, but not identical feature settings share the entries
+        Preprocessor preprocessor1 = new Preprocessor(FeatureSettingBuilder.words().create());
+        Preprocessor preprocessor2 = new Preprocessor(FeatureSettingBuilder.words().create());
+        PreprocessedText text1 = cache.get(preprocessor1, TEXT);
+        PreprocessedText text2 = cache.get(preprocessor2, new String(TEXT));
+        assertSame(text1, text2);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(8, text1.size());
+        assertEquals("the", text1.getTerm(0));
+        assertEquals(2, text1.getCount(0));
+        assertEquals(Arrays.asList("the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog"), text1.getTerms());
+
+        // different feature settings are cached separately
+        Preprocessor preprocessor3 = new Preprocessor(FeatureSettingBuilder.chars(3).create());
+        assertNotSame(text1, cache.get(preprocessor3, TEXT));
+        FeatureSetting tokenCombinations = FeatureSettingBuilder.words().create();
+        tokenCombinations.setUseTokenCombinations(true);
+        assertNotSame(text1, cache.get(new Preprocessor(tokenCombinations), TEXT));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testEviction() {
+        Preprocessor preprocessor = new Preprocessor(FeatureSettingBuilder.words().create());
+        PreprocessingCache cache = new PreprocessingCache(2000);
+        for (int i = 0; i < 100; i++) {
+            cache.get(preprocessor, TEXT + " " + i);
+            assertTrue(cache.getWeight() <= 2000);
+        }
+        assertTrue(cache.size() > 0);
+        assertTrue(cache.size() < 100);
+        // most recently used entries are kept
+        cache.get(preprocessor, TEXT + " 99");
+        assertEquals(1, cache.getHitCount());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void testClassifiersWithSharedCache() {
+        FeatureSetting featureSetting = FeatureSettingBuilder.words().create();
+        List<Instance> docs = new ArrayList<>();
+        docs.add(new InstanceBuilder().setText("Chinese Beijing Chinese").create("yes"));
+        docs.add(new InstanceBuilder().setText("Tokyo Japan Chinese").create("no"));
+        PalladianTextClassifier classifier1 = new PalladianTextClassifier(featureSetting);
+        PalladianTextClassifier classifier2 = new PalladianTextClassifier(FeatureSettingBuilder.words().create(), new BayesScorer());
+        DictionaryModel model1 = classifier1.train(docs);
+        DictionaryModel model2 = classifier2.train(docs);
+        CategoryEntries expected1 = classifier1.classify(TEXT, model1);
+        CategoryEntries expected2 = classifier2.classify(TEXT, model2);
+
+        PreprocessingCache cache = new PreprocessingCache(100000);
+        classifier1.setPreprocessingCache(cache);
+        classifier2.setPreprocessingCache(cache);
+        assertEquals(expected1, classifier1.classify(TEXT, model1));
+        assertEquals(expected2, classifier2.classify(TEXT, model2));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+}
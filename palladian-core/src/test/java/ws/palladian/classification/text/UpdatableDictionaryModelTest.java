@@ -0,0 +1,173 @@
+package ws.palladian.classification.text;
+
+import org.junit.Before;
+import org.junit.Test;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.core.Instance;
+import ws.palladian.core.InstanceBuilder;
+import ws.palladian.helper.io.FileHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class UpdatableDictionaryModelTest extends AbstractDictionaryModelTest {
+
+    @Before
+    public void setUpUpdatableModel() {
+        model = new UpdatableDictionaryModel.Builder().addDictionary(model).create();
+    }
+
+    @Test
+    public void testAddRemoveDocument() {
+        UpdatableDictionaryModel updatableModel = (UpdatableDictionaryModel) model;
+        updatableModel.addDocument(Arrays.asList(WORD_3, WORD_5), CATEGORY_2, 2);
+        assertEquals(5, model.getNumUniqTerms());
+        assertEquals(6, model.getCategoryEntries(WORD_3).getTotalCount());
+        assertEquals(0.5, model.getCategoryEntries(WORD_3).getProbability(CATEGORY_2), 0);
+        assertEquals(2, model.getCategoryEntries(WORD_5).getCount(CATEGORY_2));
+        assertEquals(8, model.getNumDocuments());
+        assertEquals(9, model.getTermCounts().getCount(CATEGORY_2));
+
+        updatableModel.removeDocument(Arrays.asList(WORD_3, WORD_5), CATEGORY_2, 2);
+        assertEquals(4, model.getNumUniqTerms());
+        assertEquals(0, model.getCategoryEntries(WORD_5).getTotalCount());
+        assertEquals(0.25, model.getCategoryEntries(WORD_3).getProbability(CATEGORY_2), 0);
+        assertEquals(6, model.getNumDocuments());
+        assertEquals(5, model.getTermCounts().getCount(CATEGORY_2));
+
+        // removing more than present does not create negative counts
+        updatableModel.removeDocument(Collections.singletonList(WORD_2), CATEGORY_2, 5);
+        assertEquals(3, model.getNumUniqTerms());
+        assertEquals(0, model.getCategoryEntries(WORD_2).getTotalCount());
+        assertEquals(4, model.getTermCounts().getCount(CATEGORY_2));
+        assertEquals(3, model.getDocumentCounts().getCount(CATEGORY_1));
+        assertEquals(0, model.getDocumentCounts().getCount(CATEGORY_2));
+    }
+
+    @Test
+    public void testSerializationAfterRemoveDocument() throws IOException {
+        UpdatableDictionaryModel updatableModel = (UpdatableDictionaryModel) model;
+        // removes all documents of category 2, but some of its term counts remain
+        updatableModel.removeDocument(Collections.singletonList(WORD_2), CATEGORY_2, 3);
+        assertEquals(0, model.getDocumentCounts().getCount(CATEGORY_2));
+        assertEquals(4, model.getTermCounts().getCount(CATEGORY_2));
+        String tempFile = new File(FileHelper.getTempDir(), "updatableDictionaryModel.ser").getPath();
+        FileHelper.serialize(model, tempFile);
+        DictionaryModel deserializedModel = FileHelper.deserialize(tempFile);
+        assertEquals(model, deserializedModel);
+        assertEquals(1, deserializedModel.getCategoryEntries(WORD_3).getCount(CATEGORY_2));
+    }
+
+    @Test
+    public void testPruning() {
+        UpdatableDictionaryModel.Builder builder = new UpdatableDictionaryModel.Builder();
+        builder.addDictionary(model);
+        builder.setPruningStrategy(PruningStrategies.termCount(3));
+        UpdatableDictionaryModel prunedModel = builder.create();
+        assertEquals(2, prunedModel.getNumUniqTerms());
+        assertEquals(0, prunedModel.getCategoryEntries(WORD_1).getTotalCount());
+        assertEquals(4, prunedModel.getCategoryEntries(WORD_3).getTotalCount());
+        assertEquals(3, prunedModel.getTermCounts().getCount(CATEGORY_1));
+        assertEquals(4, prunedModel.getTermCounts().getCount(CATEGORY_2));
+        assertEquals(6, prunedModel.getNumDocuments());
+    }
+
+    @Test
+    public void testBuilderReuse() {
+        UpdatableDictionaryModel.Builder builder = new UpdatableDictionaryModel.Builder();
+        builder.addDictionary(model);
+        UpdatableDictionaryModel first = builder.create();
+        builder.addDocument(Arrays.asList("word"), CATEGORY_1);
+        UpdatableDictionaryModel second = builder.create();
+        assertEquals(model, first);
+        assertEquals(1, second.getNumUniqTerms());
+        assertEquals(1, second.getDocumentCounts().getTotalCount());
+        second.addDocument(Arrays.asList(WORD_1), CATEGORY_1, 1);
+        assertEquals(model, first);
+    }
+
+    @Test
+    public void testDecay() {
+        AtomicLong time = new AtomicLong();
+        UpdatableDictionaryModel.Builder builder = new UpdatableDictionaryModel.Builder().setHalfLife(Duration.ofHours(1)).setClock(time::get);
+        builder.addDocument(Arrays.asList(WORD_1, WORD_2), CATEGORY_1, 4);
+        builder.addDocument(Collections.singletonList(WORD_2), CATEGORY_2, 1);
+        UpdatableDictionaryModel decayingModel = builder.create();
+        assertEquals(9, decayingModel.getNumTerms());
+
+        time.set(Duration.ofMinutes(59).toMillis());
+        decayingModel.addDocument(Collections.singletonList(WORD_3), CATEGORY_2, 1);
+        assertEquals(10, decayingModel.getNumTerms());
+
+        // one half life has passed since creation; counts are halved before adding the document
+        time.set(Duration.ofMinutes(61).toMillis());
+        decayingModel.addDocument(Collections.singletonList(WORD_4), CATEGORY_1, 2);
+        assertEquals(2, decayingModel.getCategoryEntries(WORD_1).getCount(CATEGORY_1));
+        assertEquals(2, decayingModel.getCategoryEntries(WORD_2).getCount(CATEGORY_1));
+        assertEquals(0, decayingModel.getCategoryEntries(WORD_2).getCount(CATEGORY_2));
+        assertEquals(0, decayingModel.getCategoryEntries(WORD_3).getTotalCount());
+        assertEquals(2, decayingModel.getCategoryEntries(WORD_4).getCount(CATEGORY_1));
+        assertEquals(3, decayingModel.getNumUniqTerms());
+        assertEquals(6, decayingModel.getNumTerms());
+        assertEquals(6, decayingModel.getTermCounts().getCount(CATEGORY_1));
+        assertEquals(0, decayingModel.getTermCounts().getCount(CATEGORY_2));
+        assertEquals(5, decayingModel.getNumDocuments());
+
+        decayingModel.decay(0);
+        assertEquals(0, decayingModel.getNumUniqTerms());
+        assertEquals(0, decayingModel.getNumDocuments());
+    }
+
+    @Test
+    public void testConcurrentUpdatesAndClassification() throws Exception {
+        FeatureSetting featureSetting = FeatureSettingBuilder.words().create();
+        PalladianTextClassifier classifier = new PalladianTextClassifier(featureSetting, new UpdatableDictionaryModel.Builder());
+        List<Instance> docs = new ArrayList<>();
+        docs.add(new InstanceBuilder().setText("Chinese Beijing Chinese").create("yes"));
+        docs.add(new InstanceBuilder().setText("Tokyo Japan Chinese").create("no"));
+        UpdatableDictionaryModel updatableModel = (UpdatableDictionaryModel) classifier.train(docs);
+
+        int numUpdates = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < numUpdates; j++) {
+                        classifier.addInstance(new InstanceBuilder().setText("Osaka Kyoto Japan").create("no"), updatableModel);
+                    }
+                }));
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < numUpdates; j++) {
+                        CategoryEntries result = classifier.classify("Chinese Japan Osaka", updatableModel);
+                        assertEquals(1, result.getProbability("yes") + result.getProbability("no"), 0.0001);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2 + 2 * numUpdates, updatableModel.getNumDocuments());
+        assertEquals(2 * numUpdates + 1, updatableModel.getCategoryEntries("japan").getCount("no"));
+        assertEquals("no", classifier.classify("Chinese Japan Osaka", updatableModel).getMostLikelyCategory());
+
+        for (int i = 0; i < numUpdates; i++) {
+            classifier.removeInstance(new InstanceBuilder().setText("Osaka Kyoto Japan").create("no"), updatableModel);
+            classifier.removeInstance(new InstanceBuilder().setText("Osaka Kyoto Japan").create("no"), updatableModel);
+        }
+        DictionaryModel initialModel = new PalladianTextClassifier(featureSetting).train(docs);
+        assertEquals(initialModel.getNumUniqTerms(), updatableModel.getNumUniqTerms());
+        assertEquals(initialModel.getDocumentCounts(), updatableModel.getDocumentCounts());
+        assertEquals(initialModel.getTermCounts(), updatableModel.getTermCounts());
+    }
+
+}
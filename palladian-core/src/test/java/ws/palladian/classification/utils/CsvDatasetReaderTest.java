@@ -1,14 +1,24 @@
 package ws.palladian.classification.utils;
 
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import ws.palladian.classification.utils.CsvDatasetReaderConfig.Builder;
 import ws.palladian.core.Instance;
+import ws.palladian.core.value.DateValue;
+import ws.palladian.core.value.ImmutableDateValue;
 import ws.palladian.core.value.ImmutableStringValue;
 import ws.palladian.helper.collection.CollectionHelper;
 import ws.palladian.helper.functional.Predicates;
 import ws.palladian.helper.io.CloseableIterator;
 
-import java.io.IOException;
+import java.io.*;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -20,6 +30,9 @@ public class CsvDatasetReaderTest {
 
     private static final double DELTA = 0.1;
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     @Test
     public void testCsvReading() throws IOException {
         Builder config = CsvDatasetReaderConfig.filePath(getResourceFile("/classifier/adultData.txt"));
@@ -201,4 +214,84 @@ public class CsvDatasetReaderTest {
         }
     }
 
+    @Test
+    public void testCsvReading_parallel() throws IOException {
+        File file = getResourceFile("/classifier/adultData.txt");
+        List<Instance> expected = readAll(CsvDatasetReaderConfig.filePath(file).readHeader(false).create());
+        assertEquals(1000, expected.size());
+        // small chunks, so that the file is split into many parts
+        assertEquals(expected, readAll(CsvDatasetReaderConfig.filePath(file).readHeader(false).parallel(4).chunkSize(1000).create()));
+        assertEquals(expected, readAll(CsvDatasetReaderConfig.filePath(file).readHeader(false).parallel(4).create()));
+        List<Instance> unordered = readAll(CsvDatasetReaderConfig.filePath(file).readHeader(false).parallel(4).chunkSize(1000).ordered(false).create());
+        assertEquals(expected.size(), unordered.size());
+        assertTrue(unordered.containsAll(expected));
+        assertEquals(readAll(CsvDatasetReaderConfig.filePath(file).readHeader(false).limit(50).create()),
+                readAll(CsvDatasetReaderConfig.filePath(file).readHeader(false).parallel(4).chunkSize(1000).limit(50).create()));
+
+        file = getResourceFile("/classifier/diabetes2.csv");
+        expected = readAll(CsvDatasetReaderConfig.filePath(file).create());
+        assertEquals(768, expected.size());
+        assertEquals(expected, readAll(CsvDatasetReaderConfig.filePath(file).parallel(3).chunkSize(100).create()));
+    }
+
+    @Test
+    public void testCsvReading_parallelCompressed() throws IOException {
+        File file = tempFolder.newFile("adultData.txt.gz");
+        try (InputStream in = new FileInputStream(getResourceFile("/classifier/adultData.txt")); OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            IOUtils.copy(in, out);
+        }
+        List<Instance> expected = readAll(CsvDatasetReaderConfig.filePath(file).readHeader(false).create());
+        assertEquals(1000, expected.size());
+        assertEquals(expected, readAll(CsvDatasetReaderConfig.filePath(file).readHeader(false).parallel(4).chunkSize(1000).create()));
+    }
+
+    @Test
+    public void testCsvReading_parallelTextWithLinebreaks() throws IOException {
+        Builder config = CsvDatasetReaderConfig.filePath(getResourceFile("/csvDatasetTextWithLinebreaks.csv"));
+        config.readClassFromLastColumn(false);
+        config.quoteCharacter('"');
+        config.defaultParsers(stringValue());
+        List<Instance> expected = readAll(config.create());
+        assertEquals(expected, readAll(config.parallel(2).chunkSize(1).create()));
+        assertEquals("b,\nc", expected.get(0).getVector().getNominal("value2").getString());
+    }
+
+    @Test
+    public void testCsvReading_parallelDates() throws IOException {
+        File file = tempFolder.newFile("dates.csv");
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        List<Date> expected = new ArrayList<>();
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("date;class\n");
+            for (int i = 0; i < 10000; i++) {
+                Date date = new Date(1000000000000L + i * 3661000L);
+                expected.add(date);
+                writer.write(format.format(date) + ";" + i % 2 + "\n");
+            }
+        }
+        Builder config = CsvDatasetReaderConfig.filePath(file).parser("date", new ImmutableDateValue.ValueParser("yyyy-MM-dd HH:mm:ss"));
+        List<Instance> instances = readAll(config.parallel(8).chunkSize(1000).create());
+        assertEquals(expected.size(), instances.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), ((DateValue) instances.get(i).getVector().get("date")).getDate());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCsvReading_parallelInvalidLine() throws IOException {
+        File file = tempFolder.newFile("invalid.csv");
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("a;b;class\n1;2;x\n3;4;y\n5;z\n");
+        }
+        readAll(CsvDatasetReaderConfig.filePath(file).parallel(2).chunkSize(5).create());
+    }
+
+    private static List<Instance> readAll(CsvDatasetReader reader) throws IOException {
+        List<Instance> instances = new ArrayList<>();
+        try (CloseableIterator<Instance> iterator = reader.iterator()) {
+            iterator.forEachRemaining(instances::add);
+        }
+        return instances;
+    }
+
 }
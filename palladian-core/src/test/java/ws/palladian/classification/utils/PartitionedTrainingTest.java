@@ -0,0 +1,215 @@
+package ws.palladian.classification.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ws.palladian.classification.nb.NaiveBayesLearner;
+import ws.palladian.classification.nb.NaiveBayesModel;
+import ws.palladian.classification.nominal.NominalClassifier;
+import ws.palladian.classification.nominal.NominalClassifierModel;
+import ws.palladian.classification.text.DictionaryMapModel;
+import ws.palladian.classification.text.DictionaryModel;
+import ws.palladian.classification.text.FeatureSettingBuilder;
+import ws.palladian.classification.text.PalladianTextClassifier;
+import ws.palladian.classification.zeror.ZeroRLearner;
+import ws.palladian.classification.zeror.ZeroRModel;
+import ws.palladian.core.AbstractLearner;
+import ws.palladian.core.Instance;
+import ws.palladian.core.InstanceBuilder;
+import ws.palladian.core.MergeableLearner;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.DefaultDataset;
+import ws.palladian.core.dataset.csv.CsvDatasetWriter;
+import ws.palladian.helper.collection.CountMatrix;
+import ws.palladian.helper.collection.Matrix.MatrixVector;
+import ws.palladian.helper.collection.Vector.VectorEntry;
+import ws.palladian.helper.functional.Factory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static ws.palladian.helper.io.ResourceHelper.getResourceFile;
+
+public class PartitionedTrainingTest {
+
+    private static final double DELTA = 0.0001;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    /** Factory for the worker processes; must be public with a no-argument constructor. */
+    public static final class NaiveBayesFactory implements Factory<NaiveBayesLearner> {
+        @Override
+        public NaiveBayesLearner create() {
+            return new NaiveBayesLearner();
+        }
+    }
+
+    /** Learner which takes a minute for training a partition. */
+    public static final class SlowLearner extends AbstractLearner<NaiveBayesModel> implements MergeableLearner<NaiveBayesModel, NaiveBayesLearner.Statistics> {
+        private final NaiveBayesLearner learner = new NaiveBayesLearner();
+
+        @Override
+        public NaiveBayesLearner.Statistics trainPartial(Dataset partition) {
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return learner.trainPartial(partition);
+        }
+
+        @Override
+        public NaiveBayesLearner.Statistics merge(NaiveBayesLearner.Statistics statistics1, NaiveBayesLearner.Statistics statistics2) {
+            return learner.merge(statistics1, statistics2);
+        }
+
+        @Override
+        public NaiveBayesModel createModel(NaiveBayesLearner.Statistics statistics) {
+            return learner.createModel(statistics);
+        }
+
+        @Override
+        public NaiveBayesModel train(Dataset dataset) {
+            return learner.train(dataset);
+        }
+    }
+
+    /** Factory for worker processes which take a minute for training. */
+    public static final class SlowFactory implements Factory<MergeableLearner<NaiveBayesModel, NaiveBayesLearner.Statistics>> {
+        @Override
+        public MergeableLearner<NaiveBayesModel, NaiveBayesLearner.Statistics> create() {
+            return new SlowLearner();
+        }
+    }
+
+    private static Dataset readDiabetes() throws FileNotFoundException {
+        return CsvDatasetReaderConfig.filePath(getResourceFile("/classifier/diabetes2.csv")).create().buffer();
+    }
+
+    private static List<Dataset> partition(Dataset dataset, int numPartitions) {
+        List<List<Instance>> instances = new ArrayList<>();
+        for (int i = 0; i < numPartitions; i++) {
+            instances.add(new ArrayList<>());
+        }
+        int index = 0;
+        for (Instance instance : dataset) {
+            instances.get(index++ % numPartitions).add(instance);
+        }
+        List<Dataset> partitions = new ArrayList<>();
+        for (List<Instance> partition : instances) {
+            partitions.add(new DefaultDataset(partition));
+        }
+        return partitions;
+    }
+
+    private static void assertModelEquals(NaiveBayesModel expected, NaiveBayesModel actual) {
+        assertEquals(expected.getCategories(), actual.getCategories());
+        assertEquals(expected.getLearnedFeatures(), actual.getLearnedFeatures());
+        for (String category : expected.getCategories()) {
+            assertEquals(expected.getPrior(category), actual.getPrior(category), DELTA);
+            for (String feature : expected.getLearnedFeatures()) {
+                for (double value : new double[]{0, 1, 25, 100}) {
+                    assertEquals(expected.getDensity(feature, value, category), actual.getDensity(feature, value, category), DELTA);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNaiveBayes() throws FileNotFoundException {
+        Dataset dataset = readDiabetes();
+        NaiveBayesLearner learner = new NaiveBayesLearner();
+        NaiveBayesModel expected = learner.train(dataset);
+        assertModelEquals(expected, PartitionedTraining.train(learner, partition(dataset, 5), 1));
+        assertModelEquals(expected, PartitionedTraining.train(learner, partition(dataset, 7), 3));
+    }
+
+    @Test
+    public void testZeroR() throws FileNotFoundException {
+        Dataset dataset = readDiabetes();
+        ZeroRLearner learner = new ZeroRLearner();
+        ZeroRModel expected = learner.train(dataset);
+        ZeroRModel actual = PartitionedTraining.train(learner, partition(dataset, 4), 2);
+        assertEquals(expected.getCategoryProbabilities(), actual.getCategoryProbabilities());
+    }
+
+    @Test
+    public void testNominalClassifier() {
+        List<Instance> instances = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            instances.add(new InstanceBuilder().set("a", "a" + i % 3).set("b", "b" + i % 5).create("c" + i % 2));
+        }
+        Dataset dataset = new DefaultDataset(instances);
+        NominalClassifier learner = new NominalClassifier();
+        CountMatrix<String> expected = learner.train(dataset).getCooccurrenceMatrix();
+        NominalClassifierModel actual = PartitionedTraining.train(learner, partition(dataset, 3), 2);
+        assertEquals(expected.size(), actual.getCooccurrenceMatrix().size());
+        for (MatrixVector<String, Integer> row : expected.rows()) {
+            for (VectorEntry<String, Integer> cell : row) {
+                assertEquals(cell.value(), actual.getCooccurrenceMatrix().get(cell.key(), row.key()));
+            }
+        }
+    }
+
+    @Test
+    public void testPalladianTextClassifier() {
+        List<Instance> instances = new ArrayList<>();
+        instances.add(new InstanceBuilder().setText("Chinese Beijing Chinese").create("yes"));
+        instances.add(new InstanceBuilder().setText("Chinese Chinese Shanghai").create("yes"));
+        instances.add(new InstanceBuilder().setText("Chinese Macao").create("yes"));
+        instances.add(new InstanceBuilder().setText("Tokyo Japan Chinese").create("no"));
+        Dataset dataset = new DefaultDataset(instances);
+        DictionaryModel expected = new PalladianTextClassifier(FeatureSettingBuilder.words().create()).train(dataset);
+        DictionaryModel actual = PartitionedTraining.train(new PalladianTextClassifier(FeatureSettingBuilder.words().create()), partition(dataset, 3), 2);
+        assertEquals(expected, actual);
+
+        // repeated training with the same classifier must not accumulate the counts of the previous runs
+        PalladianTextClassifier classifier = new PalladianTextClassifier(FeatureSettingBuilder.words().create(), new DictionaryMapModel.Builder());
+        DictionaryModel first = PartitionedTraining.train(classifier, partition(dataset, 3), 2);
+        DictionaryModel second = PartitionedTraining.train(classifier, partition(dataset, 3), 2);
+        DictionaryModel third = classifier.train(dataset);
+        assertEquals(4, first.getNumDocuments());
+        assertEquals(first, second);
+        assertEquals(first, third);
+    }
+
+    @Test
+    public void testTrainInProcesses() throws IOException {
+        Dataset dataset = readDiabetes();
+        List<File> partitionFiles = new ArrayList<>();
+        List<Dataset> partitions = partition(dataset, 3);
+        for (int i = 0; i < partitions.size(); i++) {
+            File partitionFile = new File(tempFolder.getRoot(), "partition" + i + ".csv");
+            new CsvDatasetWriter(partitionFile).write(partitions.get(i));
+            partitionFiles.add(partitionFile);
+        }
+        NaiveBayesModel expected = new NaiveBayesLearner().train(dataset);
+        NaiveBayesModel actual = PartitionedTraining.trainInProcesses(NaiveBayesFactory.class, partitionFiles, 2);
+        assertModelEquals(expected, actual);
+    }
+
+    @Test
+    public void testTrainInProcessesFailure() throws IOException, InterruptedException {
+        File partitionFile = new File(tempFolder.getRoot(), "partition.csv");
+        new CsvDatasetWriter(partitionFile).write(readDiabetes());
+        File missingFile = new File(tempFolder.getRoot(), "missing.csv");
+        try {
+            PartitionedTraining.trainInProcesses(SlowFactory.class, Arrays.asList(missingFile, partitionFile), 2);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        // the slow worker is destroyed, once the other one failed
+        for (int i = 0; i < 100 && ProcessHandle.current().children().anyMatch(ProcessHandle::isAlive); i++) {
+            Thread.sleep(100);
+        }
+        assertFalse(ProcessHandle.current().children().anyMatch(ProcessHandle::isAlive));
+    }
+
+}
@@ -2,7 +2,11 @@ package ws.palladian.classification.utils;
 
 import org.junit.Test;
 import ws.palladian.core.FeatureVector;
+import ws.palladian.core.Instance;
 import ws.palladian.core.InstanceBuilder;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.DefaultDataset;
+import ws.palladian.core.dataset.statistics.DatasetStatistics;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -41,4 +45,17 @@ public class ZScoreNormalizerTest {
         assertEquals(0.9, normalization.normalize("test", 1.8), 0.001);
     }
 
+    @Test
+    public void testNormalizationFromStatistics() {
+        List<Instance> instances = new ArrayList<>();
+        for (double value : new double[]{35, 36, 46, 68, 70}) {
+            instances.add(new InstanceBuilder().set("v1", value).create("category"));
+        }
+        Dataset dataset = new DefaultDataset(instances);
+        Normalization expected = new ZScoreNormalizer().calculate(dataset);
+        Normalization actual = new ZScoreNormalizer().calculate(new DatasetStatistics(dataset));
+        assertEquals(expected.normalize("v1", 35.), actual.normalize("v1", 35.), 0.001);
+        assertEquals(expected.normalize("v1", 70.), actual.normalize("v1", 70.), 0.001);
+    }
+
 }
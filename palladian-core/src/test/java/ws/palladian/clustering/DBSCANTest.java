@@ -3,13 +3,16 @@ package ws.palladian.clustering;
 import org.apache.commons.math3.util.FastMath;
 import org.junit.Test;
 import ws.palladian.helper.functional.Distance;
+import ws.palladian.helper.geo.GeoCoordinate;
+import ws.palladian.helper.geo.GeoUtils;
 import ws.palladian.helper.nlp.JaroWinklerSimilarity;
 
 import java.awt.*;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class DBSCANTest {
     private final class EuclideanDistance implements Distance<Point> {
@@ -51,4 +54,57 @@ public class DBSCANTest {
         assertEquals(4, clusters.size());
         // CollectionHelper.print(clusters);
     }
+
+    @Test
+    public void testMetricTreeIndex() {
+        Random random = new Random(1);
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            points.add(new Point(random.nextInt(200), random.nextInt(200)));
+        }
+        Set<Set<Point>> expected = new DBSCAN<Point>(5.5, 4, new EuclideanDistance()).cluster(points);
+        Set<Set<Point>> actual = new DBSCAN<>(5.5, 4, MetricTreeIndex.factory(new EuclideanDistance()), true).cluster(points);
+        assertTrue(expected.size() > 1);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testGeoGridIndex() {
+        Random random = new Random(1);
+        List<GeoCoordinate> coordinates = new ArrayList<>();
+        // dense areas at the poles, the date line and the prime meridian, and some uniformly distributed noise
+        double[][] centers = {{89.9, 0}, {-89.7, 100}, {10, 179.9}, {-30, -179.95}, {51.5, 0}};
+        for (double[] center : centers) {
+            for (int i = 0; i < 400; i++) {
+                double lat = Math.max(-90, Math.min(90, center[0] + random.nextGaussian() * 0.5));
+                double lng = GeoUtils.normalizeLongitude(center[1] + random.nextGaussian() * 0.5);
+                coordinates.add(GeoCoordinate.from(lat, lng));
+            }
+        }
+        for (int i = 0; i < 500; i++) {
+            coordinates.add(GeoCoordinate.from(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        coordinates.add(GeoCoordinate.NULL);
+        coordinates.add(GeoCoordinate.from(0, 0));
+
+        double eps = 25;
+        NeighborhoodIndex linearIndex = LinearScanIndex.factory(GeoUtils.DISTANCE).create(coordinates, eps);
+        NeighborhoodIndex gridIndex = GeoGridIndex.factory().create(coordinates, eps);
+        for (int i = 0; i < coordinates.size(); i++) {
+            assertEquals(toSet(linearIndex.getNeighbors(i)), toSet(gridIndex.getNeighbors(i)));
+        }
+
+        Set<Set<GeoCoordinate>> expected = new DBSCAN<GeoCoordinate>(eps, 5, GeoUtils.DISTANCE).cluster(coordinates);
+        Set<Set<GeoCoordinate>> actual = new DBSCAN<GeoCoordinate>(eps, 5, GeoGridIndex.factory(), true).cluster(coordinates);
+        assertEquals(expected, actual);
+    }
+
+    private static Set<Integer> toSet(int[] indices) {
+        Set<Integer> set = new HashSet<>();
+        for (int index : indices) {
+            set.add(index);
+        }
+        return set;
+    }
+
 }
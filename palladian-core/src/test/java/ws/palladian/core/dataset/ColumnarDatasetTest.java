@@ -0,0 +1,103 @@
+package ws.palladian.core.dataset;
+
+import org.junit.Test;
+import ws.palladian.core.Instance;
+import ws.palladian.core.InstanceBuilder;
+import ws.palladian.core.value.ImmutableDateValue;
+import ws.palladian.core.value.ImmutableDoubleValue;
+import ws.palladian.core.value.ImmutableStringValue;
+import ws.palladian.core.value.NullValue;
+import ws.palladian.helper.io.CloseableIterator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ColumnarDatasetTest {
+
+    private static Dataset createDataset(int numItems) {
+        List<Instance> instances = new ArrayList<>();
+        for (int i = 0; i < numItems; i++) {
+            InstanceBuilder builder = new InstanceBuilder();
+            builder.set("double", i * 0.5);
+            builder.set("float", (float) i);
+            builder.set("int", i);
+            builder.set("long", (long) i * Integer.MAX_VALUE);
+            builder.set("bool", i % 3 == 0);
+            builder.set("nominal", "value" + i % 4);
+            builder.set("date", new ImmutableDateValue(new Date(i * 1000L)));
+            if (i % 7 == 0) {
+                builder.setNull("double").setNull("int").setNull("bool").setNull("nominal");
+            }
+            // starts with nulls
+            if (i < 5) {
+                builder.setNull("leadingNulls");
+            } else {
+                builder.set("leadingNulls", i);
+            }
+            builder.weight(i == 50 ? 3 : 1);
+            instances.add(builder.create(i % 7 == 0 ? "seven" : "other"));
+        }
+        return new DefaultDataset(instances);
+    }
+
+    @Test
+    public void testColumnarDataset() throws IOException {
+        Dataset dataset = createDataset(200);
+        ColumnarDataset columnarDataset = new ColumnarDataset(dataset);
+        assertEquals(200, columnarDataset.size());
+        assertEquals(dataset.getFeatureInformation(), columnarDataset.getFeatureInformation());
+        assertEquals(dataset, columnarDataset);
+
+        try (CloseableIterator<Instance> expected = dataset.iterator(); CloseableIterator<Instance> actual = columnarDataset.iterator()) {
+            while (expected.hasNext()) {
+                Instance expectedInstance = expected.next();
+                Instance actualInstance = actual.next();
+                assertEquals(expectedInstance.getVector(), actualInstance.getVector());
+                assertEquals(expectedInstance.getCategory(), actualInstance.getCategory());
+                assertEquals(expectedInstance.getWeight(), actualInstance.getWeight());
+                for (String name : dataset.getFeatureInformation().getFeatureNames()) {
+                    assertEquals(expectedInstance.getVector().get(name), actualInstance.getVector().get(name));
+                }
+            }
+            assertFalse(actual.hasNext());
+        }
+
+        Instance instance = columnarDataset.getInstance(14);
+        assertEquals(NullValue.NULL, instance.getVector().get("double"));
+        assertEquals(NullValue.NULL, instance.getVector().get("nominal"));
+        assertNull(instance.getVector().get("nonExisting"));
+        assertEquals(new ImmutableDoubleValue(7.5), columnarDataset.getInstance(15).getVector().get("double"));
+        assertSame(ImmutableStringValue.valueOf("value3"), columnarDataset.getInstance(15).getVector().get("nominal"));
+        assertEquals(3, columnarDataset.getInstance(50).getWeight());
+        assertEquals(1, columnarDataset.getInstance(51).getWeight());
+    }
+
+    @Test
+    public void testNumericColumn() {
+        ColumnarDataset columnarDataset = new ColumnarDataset(createDataset(20));
+        double[] column = columnarDataset.getNumericColumn("double");
+        assertEquals(20, column.length);
+        assertTrue(Double.isNaN(column[0]));
+        assertEquals(0.5, column[1], 0);
+        assertEquals(9.5, column[19], 0);
+        double[] longColumn = columnarDataset.getNumericColumn("long");
+        assertEquals(19. * Integer.MAX_VALUE, longColumn[19], 0);
+        double[] nominalColumn = columnarDataset.getNumericColumn("nominal");
+        assertTrue(Double.isNaN(nominalColumn[1]));
+    }
+
+    @Test
+    public void testBuffer() {
+        Dataset dataset = createDataset(10);
+        Dataset buffered = dataset.buffer();
+        assertTrue(buffered instanceof ColumnarDataset);
+        assertSame(buffered, buffered.buffer());
+        assertEquals(dataset, buffered);
+        assertEquals(0, new ColumnarDataset(createDataset(0)).size());
+    }
+
+}
@@ -0,0 +1,151 @@
+package ws.palladian.core.dataset.sparse;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ws.palladian.core.Instance;
+import ws.palladian.core.InstanceBuilder;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.DatasetAppender;
+import ws.palladian.core.dataset.DefaultDataset;
+import ws.palladian.core.value.ImmutableLocalDateValue;
+import ws.palladian.core.value.ImmutableStringValue;
+import ws.palladian.core.value.ImmutableTextValue;
+import ws.palladian.core.value.NullValue;
+import ws.palladian.helper.collection.CollectionHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BinarySparseDatasetTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static Dataset createDataset(int numItems) {
+        List<Instance> instances = new ArrayList<>();
+        for (int i = 0; i < numItems; i++) {
+            InstanceBuilder builder = new InstanceBuilder();
+            builder.set("double", i * 0.5);
+            builder.set("float", (float) -i);
+            builder.set("int", i % 2 == 0 ? i : -i);
+            builder.set("long", (long) i * Integer.MAX_VALUE);
+            builder.set("bool", i % 3 == 0);
+            builder.set("nominal", "välue " + i % 4);
+            builder.set("text", new ImmutableTextValue("some text " + i));
+            builder.set("localDate", new ImmutableLocalDateValue(LocalDate.of(2020, 1, 1).plusDays(i)));
+            if (i % 7 == 0) {
+                builder.setNull("double").setNull("int").setNull("nominal");
+            }
+            builder.weight(i == 5 ? 3 : 1);
+            instances.add(builder.create("category" + i % 3));
+        }
+        return new DefaultDataset(instances);
+    }
+
+    private static void assertDatasetEquals(Dataset expected, Dataset actual) {
+        assertEquals(expected.getFeatureInformation(), actual.getFeatureInformation());
+        assertEquals(expected.size(), actual.size());
+        Iterator<Instance> expectedIterator = expected.iterator();
+        Iterator<Instance> actualIterator = actual.iterator();
+        while (expectedIterator.hasNext()) {
+            Instance expectedInstance = expectedIterator.next();
+            Instance actualInstance = actualIterator.next();
+            assertEquals(expectedInstance.getCategory(), actualInstance.getCategory());
+            assertEquals(expectedInstance.getWeight(), actualInstance.getWeight());
+            for (String name : expected.getFeatureInformation().getFeatureNames()) {
+                assertEquals(expectedInstance.getVector().get(name), actualInstance.getVector().get(name));
+            }
+        }
+        assertFalse(actualIterator.hasNext());
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        Dataset dataset = createDataset(100);
+        File file = tempFolder.newFile("dataset.bin");
+        new BinarySparseDatasetWriter(file, true).write(dataset);
+
+        BinarySparseDatasetReader reader = new BinarySparseDatasetReader(file);
+        assertDatasetEquals(dataset, reader);
+        // iterate again, dictionaries are rebuilt for each iterator
+        assertDatasetEquals(dataset, reader);
+        assertSame(reader, reader.buffer());
+
+        Instance instance = CollectionHelper.getFirst(reader);
+        assertEquals(5, instance.getVector().size());
+        assertEquals(NullValue.NULL, instance.getVector().get("double"));
+        assertEquals(NullValue.NULL, instance.getVector().get("nonExisting"));
+        assertEquals("category0", instance.getCategory());
+
+        // small segments, so that values span segment boundaries
+        assertDatasetEquals(dataset, new BinarySparseDatasetReader(file, 64));
+    }
+
+    @Test
+    public void testLargeDictionary() throws IOException {
+        List<Instance> instances = new ArrayList<>();
+        for (int i = 0; i < BinarySparseDatasetWriter.MAX_DICTIONARY_SIZE + 100; i++) {
+            instances.add(new InstanceBuilder().set("id", "id" + i / 2).create("category"));
+        }
+        Dataset dataset = new DefaultDataset(instances);
+        File file = tempFolder.newFile("dataset.bin");
+        new BinarySparseDatasetWriter(file, true).write(dataset);
+        assertDatasetEquals(dataset, new BinarySparseDatasetReader(file));
+    }
+
+    @Test
+    public void testAppender() throws IOException {
+        Dataset dataset = createDataset(10);
+        File file = tempFolder.newFile("dataset.bin");
+        try (DatasetAppender appender = new BinarySparseDatasetWriter(file, true).write(dataset.getFeatureInformation())) {
+            for (Instance instance : dataset) {
+                appender.append(instance);
+            }
+        }
+        BinarySparseDatasetReader reader = new BinarySparseDatasetReader(file);
+        assertEquals(10, reader.size());
+        assertEquals(ImmutableStringValue.valueOf("välue 1"), CollectionHelper.getFirst(reader.subset(i -> i.getWeight() == 1 && "category1".equals(i.getCategory()))).getVector().get("nominal"));
+    }
+
+    @Test
+    public void testAppendUnknownFeature() throws IOException {
+        File file = tempFolder.newFile("dataset.bin");
+        try (DatasetAppender appender = new BinarySparseDatasetWriter(file, true).write(createDataset(1).getFeatureInformation())) {
+            try {
+                appender.append(new InstanceBuilder().set("double", 1.).set("unknown", 2.).create("category1"));
+                fail();
+            } catch (IllegalArgumentException e) {
+                // expected, nothing must have been written for the instance
+            }
+            appender.append(new InstanceBuilder().set("int", 3).create("category2"));
+        }
+        BinarySparseDatasetReader reader = new BinarySparseDatasetReader(file);
+        assertEquals(1, reader.size());
+        Instance instance = CollectionHelper.getFirst(reader);
+        assertEquals("category2", instance.getCategory());
+        assertEquals(1, instance.getVector().size());
+        assertEquals(NullValue.NULL, instance.getVector().get("double"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testIncompleteFile() throws IOException {
+        File file = tempFolder.newFile("dataset.bin");
+        DatasetAppender appender = new BinarySparseDatasetWriter(file, true).write(createDataset(1).getFeatureInformation());
+        appender.append(new InstanceBuilder().set("double", 1.).create("category"));
+        // not closed
+        new BinarySparseDatasetReader(file);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExistingFile() throws IOException {
+        new BinarySparseDatasetWriter(tempFolder.newFile("dataset.bin"));
+    }
+
+}
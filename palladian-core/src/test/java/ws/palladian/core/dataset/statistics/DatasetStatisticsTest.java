@@ -3,11 +3,17 @@ package ws.palladian.core.dataset.statistics;
 import org.junit.Test;
 import ws.palladian.classification.utils.CsvDatasetReaderConfig;
 import ws.palladian.classification.utils.CsvDatasetReaderConfig.Builder;
+import ws.palladian.core.Instance;
+import ws.palladian.core.InstanceBuilder;
 import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.DefaultDataset;
 import ws.palladian.core.dataset.statistics.DatasetStatistics.ValueStatistics;
 import ws.palladian.helper.io.ResourceHelper;
 
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -41,4 +47,43 @@ public class DatasetStatisticsTest {
         // System.out.println(statistics);
     }
 
+    @Test
+    public void testParallelSketches() {
+        List<Instance> instances = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            InstanceBuilder builder = new InstanceBuilder();
+            builder.set("numeric", random.nextDouble() * 100);
+            builder.set("nominal", i % 10 == 0 ? "frequent" : "value" + i % 5000);
+            instances.add(builder.create(i % 2 == 0 ? "a" : "b"));
+        }
+        Dataset dataset = new DefaultDataset(instances);
+
+        DatasetStatistics sequential = new DatasetStatistics(dataset);
+        DatasetStatistics parallel = new DatasetStatistics(dataset, 4, true, true);
+
+        NumericValueStatistics numericSequential = (NumericValueStatistics) sequential.getValueStatistics("numeric");
+        NumericValueStatistics numericParallel = (NumericValueStatistics) parallel.getValueStatistics("numeric");
+        assertEquals(numericSequential.getMean(), numericParallel.getMean(), 0.0001);
+        assertEquals(numericSequential.getStandardDeviation(), numericParallel.getStandardDeviation(), 0.0001);
+        assertEquals(numericSequential.getMin(), numericParallel.getMin(), 0);
+        assertEquals(numericSequential.getMax(), numericParallel.getMax(), 0);
+        assertEquals(50, numericSequential.getMedian(), 2);
+        assertEquals(50, numericParallel.getMedian(), 2);
+        assertEquals(90, numericParallel.getQuantile(0.9), 2);
+        assertEquals(2, numericParallel.getCategoryQuantileSketches().size());
+        assertEquals(50000, numericParallel.getCategoryQuantileSketches().get("a").getCount());
+        assertTrue(numericSequential.getCategoryQuantileSketches().isEmpty());
+
+        NominalValueStatistics nominalSequential = (NominalValueStatistics) sequential.getValueStatistics("nominal");
+        SketchedNominalValueStatistics nominalParallel = (SketchedNominalValueStatistics) parallel.getValueStatistics("nominal");
+        assertEquals(nominalSequential.getNumUniqueValues(), nominalParallel.getNumUniqueValues(), 100);
+        assertEquals(100000, nominalParallel.getNumValues());
+        assertEquals(10000, nominalSequential.getCount("frequent"));
+        assertEquals(10000, nominalParallel.getCount("frequent"), 500);
+        assertEquals("frequent", nominalParallel.getHeavyHitters().keySet().iterator().next());
+
+        assertEquals(sequential.getCategoryStatistics().getMap(), parallel.getCategoryStatistics().getMap());
+    }
+
 }
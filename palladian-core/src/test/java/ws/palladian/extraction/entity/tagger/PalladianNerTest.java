@@ -2,11 +2,18 @@ package ws.palladian.extraction.entity.tagger;
 
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
+import ws.palladian.classification.text.DictionaryMapModel;
+import ws.palladian.classification.text.DictionaryTrieModel;
+import ws.palladian.classification.text.FeatureSettingBuilder;
 import ws.palladian.core.Annotation;
 import ws.palladian.core.ImmutableAnnotation;
+import ws.palladian.extraction.entity.tagger.PalladianNerTrainingSettings.LanguageMode;
+import ws.palladian.extraction.entity.tagger.PalladianNerTrainingSettings.TrainingMode;
 
-import java.util.List;
-import java.util.Set;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
 
 import static org.junit.Assert.*;
 
@@ -68,4 +75,31 @@ public class PalladianNerTest {
         assertFalse(caseDictionary.contains("according"));
         assertTrue(caseDictionary.contains("involvement"));
     }
+
+    @Test
+    public void testBinaryModelFormat() throws IOException {
+        PalladianNerModel model = new PalladianNerModel();
+        model.entityDictionary = new DictionaryTrieModel.Builder().addDocument(Arrays.asList("John Hiatt"), "PER").addDocument(Arrays.asList("Berlin"), "LOC").create();
+        model.annotationDictionary = new DictionaryTrieModel.Builder().setFeatureSetting(FeatureSettingBuilder.chars(3, 5).create()).addDocument(Arrays.asList("joh", "ohn", "hia"), "PER").create();
+        model.contextDictionary = new DictionaryMapModel.Builder().addDocument(Arrays.asList("in", "mr"), "LOC").create();
+        model.conceptLikelihoodOrder = Arrays.asList("PER", "LOC");
+        model.lowerCaseDictionary = new HashSet<>(Arrays.asList("the", "involvement"));
+        model.leftContexts = new HashSet<>(Arrays.asList("in", "mr."));
+        model.languageMode = LanguageMode.English;
+        model.trainingMode = TrainingMode.Complete;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        model.write(out);
+        PalladianNerModel result = PalladianNerModel.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(model.entityDictionary, result.entityDictionary);
+        assertEquals(model.annotationDictionary, result.annotationDictionary);
+        assertEquals(model.contextDictionary, result.contextDictionary);
+        assertEquals(model.conceptLikelihoodOrder, result.conceptLikelihoodOrder);
+        assertEquals(model.lowerCaseDictionary, result.lowerCaseDictionary);
+        assertEquals(model.leftContexts, result.leftContexts);
+        assertNull(result.removeAnnotations);
+        assertEquals(LanguageMode.English, result.languageMode);
+        assertEquals(TrainingMode.Complete, result.trainingMode);
+        assertEquals(model.getTags(), result.getTags());
+    }
 }
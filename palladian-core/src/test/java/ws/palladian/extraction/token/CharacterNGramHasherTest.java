@@ -0,0 +1,46 @@
+package ws.palladian.extraction.token;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.junit.Test;
+import ws.palladian.core.Token;
+
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+
+public class CharacterNGramHasherTest {
+
+    private static final String STRING = "palladian";
+
+    @Test
+    public void testSameNGramsAsTokenizer() {
+        assertSameNGrams(3, 3, false, STRING);
+        assertSameNGrams(15, 15, false, STRING);
+        assertSameNGrams(3, 8, false, STRING);
+        assertSameNGrams(3, 3, true, STRING);
+        assertSameNGrams(1, 6, true, "#a##b c#");
+        assertSameNGrams(2, 4, true, "");
+    }
+
+    @Test
+    public void testStopConsumer() {
+        LongArrayList hashes = new LongArrayList();
+        new CharacterNGramHasher(3, 8).hash(STRING, hash -> {
+            hashes.add(hash);
+            return hashes.size() < 5;
+        });
+        assertEquals(5, hashes.size());
+    }
+
+    private static void assertSameNGrams(int minLength, int maxLength, boolean padding, String text) {
+        LongArrayList expected = new LongArrayList();
+        Iterator<Token> nGrams = new CharacterNGramTokenizer(minLength, maxLength, padding).iterateTokens(text);
+        while (nGrams.hasNext()) {
+            expected.add(CharacterNGramHasher.hash(nGrams.next().getValue()));
+        }
+        LongArrayList actual = new LongArrayList();
+        new CharacterNGramHasher(minLength, maxLength, padding).hash(text, actual::add);
+        assertEquals(expected, actual);
+    }
+
+}
@@ -46,12 +46,17 @@ public final class LuceneDictionaryModel extends AbstractDictionaryModel impleme
      */
     public static final class Builder implements DictionaryBuilder {
 
-        private final DictionaryBuilder delegate = new DictionaryTrieModel.Builder();
+        private final DictionaryBuilder delegate;
         private final File directoryPath;
 
         public Builder(File directoryPath) {
+            this(directoryPath, new DictionaryTrieModel.Builder());
+        }
+
+        private Builder(File directoryPath, DictionaryBuilder delegate) {
             Validate.notNull(directoryPath, "directoryPath must not be null");
             this.directoryPath = directoryPath;
+            this.delegate = delegate;
         }
 
         @Override
@@ -59,6 +64,11 @@ public final class LuceneDictionaryModel extends AbstractDictionaryModel impleme
             return index(delegate.create(), directoryPath);
         }
 
+        @Override
+        public DictionaryBuilder newBuilder() {
+            return new Builder(directoryPath, delegate.newBuilder());
+        }
+
         @Override
         public DictionaryBuilder setName(String name) {
             delegate.setName(name);
@@ -152,6 +152,19 @@ public class JsonObject extends AbstractMap<String, Object> implements Json, Jso
         }
     }
 
+    /**
+     * <p>
+     * Construct a {@link JsonObject} from a {@link Reader}. The JSON text is parsed incrementally, without reading it
+     * into a string first, so that it can be parsed e.g. while downloading.
+     * </p>
+     *
+     * @param reader The reader with the JSON text, beginning with <code>{</code>&nbsp;<small>(left brace)</small>.
+     * @throws JsonException If there is a syntax error in the JSON text or a duplicated key.
+     */
+    public JsonObject(Reader reader) throws JsonException {
+        this(new JsonTokener(reader));
+    }
+
     JsonObject(JsonTokener x) throws JsonException {
         this();
         parseFallback(x);
@@ -7,14 +7,25 @@ import org.junit.rules.ErrorCollector;
 import ws.palladian.helper.io.FileHelper;
 import ws.palladian.helper.io.ResourceHelper;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 
 public class JsonObjectTest {
 
     @Rule
     public ErrorCollector collector = new ErrorCollector();
 
+    @Test
+    public void testParseReader() throws JsonException, IOException {
+        File resourceFile = ResourceHelper.getResourceFile("/json/data.json");
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(resourceFile), StandardCharsets.UTF_8)) {
+            JsonObject jso = new JsonObject(reader);
+            collector.checkThat(jso.queryJsonPath("$.product.products[*].upc"), Matchers.is("071022280213"));
+            collector.checkThat(jso.queryJsonPath("$..specifications..brand.displayValue"), Matchers.is("Mariani"));
+        }
+    }
+
     @Test
     public void testJQuery() throws JsonException, IOException {
 
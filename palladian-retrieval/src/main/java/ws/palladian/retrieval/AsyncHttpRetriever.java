@@ -0,0 +1,493 @@
+package ws.palladian.retrieval;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.protocol.RedirectLocations;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.*;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ws.palladian.helper.UrlHelper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>
+ * Non-blocking counterpart of the {@link HttpRetriever}, based on the asynchronous client of Apache HttpComponents.
+ * Requests are executed by a small number of I/O threads, so that thousands of requests can be kept in flight
+ * without a thread per request; with HTTPS, HTTP/2 is negotiated via ALPN, and requests to the same host are
+ * multiplexed over one connection.
+ * </p>
+ *
+ * <p>
+ * The number of requests in flight is bounded globally and per host; further requests are queued and dispatched
+ * round-robin over the hosts, as soon as running requests complete. Results are buffered completely (up to
+ * {@link #setMaxFileSize(long)}), just like with the {@link HttpRetriever}.
+ * </p>
+ *
+ * <p>
+ * <b>Important:</b> The returned futures are completed on the I/O threads, so dependent actions (and the callbacks
+ * of {@link #retrieveAll(Collection, BiConsumer, BiConsumer)}) must not block; expensive processing should be moved
+ * to an own executor, e.g. using {@link CompletableFuture#thenAcceptAsync(java.util.function.Consumer,
+ * java.util.concurrent.Executor)}. Instances are thread safe and must be closed after usage.
+ * </p>
+ *
+ * @author Philipp Katz
+ */
+public class AsyncHttpRetriever implements Closeable {
+
+    /** The logger for this class. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncHttpRetriever.class);
+
+    /** The default maximum number of requests in flight. */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1000;
+
+    /** The default maximum number of requests in flight per host. */
+    public static final int DEFAULT_MAX_IN_FLIGHT_PER_HOST = 10;
+
+    private final CloseableHttpAsyncClient httpClient;
+
+    private final int maxInFlight;
+
+    private final int maxInFlightPerHost;
+
+    /** The maximum file size in bytes to download; -1 means no limit. */
+    private volatile long maxFileSize = -1;
+
+    /** Guards the following fields. */
+    private final Object lock = new Object();
+
+    /** Hosts with queued or running requests. */
+    private final Map<String, HostQueue> hostQueues = new HashMap<>();
+
+    /** Hosts which have queued requests and are below their limit, in round-robin order. */
+    private final Deque<HostQueue> readyHosts = new ArrayDeque<>();
+
+    private int numInFlight;
+
+    private int numQueued;
+
+    private boolean closed;
+
+    /**
+     * Tasks to start by the current thread, in case it is already starting tasks. Requests which fail synchronously
+     * (e.g. because the request cannot be created) release their slot immediately; queueing the tasks which are then
+     * dispatched avoids a recursion, which grows with the number of queued requests.
+     */
+    private final ThreadLocal<Deque<Task>> pendingStarts = new ThreadLocal<>();
+
+    /** Create a new retriever with default limits, which negotiates HTTP/2 for HTTPS connections. */
+    public AsyncHttpRetriever() {
+        this(DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT_PER_HOST, HttpVersionPolicy.NEGOTIATE);
+    }
+
+    /**
+     * Create a new retriever.
+     *
+     * @param maxInFlight        The maximum number of requests in flight, greater zero.
+     * @param maxInFlightPerHost The maximum number of requests in flight per host, greater zero.
+     * @param versionPolicy      The HTTP version policy, not <code>null</code>; {@link HttpVersionPolicy#NEGOTIATE} uses
+     *                           HTTP/2 in case the server supports it.
+     */
+    public AsyncHttpRetriever(int maxInFlight, int maxInFlightPerHost, HttpVersionPolicy versionPolicy) {
+        Validate.isTrue(maxInFlight > 0, "maxInFlight must be greater zero");
+        Validate.isTrue(maxInFlightPerHost > 0, "maxInFlightPerHost must be greater zero");
+        Validate.notNull(versionPolicy, "versionPolicy must not be null");
+        this.maxInFlight = maxInFlight;
+        this.maxInFlightPerHost = maxInFlightPerHost;
+
+        ConnectionConfig connectionConfig = ConnectionConfig.custom() //
+                .setConnectTimeout(Timeout.ofMilliseconds(HttpRetriever.DEFAULT_CONNECTION_TIMEOUT)) //
+                .setSocketTimeout(Timeout.ofMilliseconds(HttpRetriever.DEFAULT_SOCKET_TIMEOUT)) //
+                .build();
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create() //
+                .setMaxConnTotal(maxInFlight) //
+                .setMaxConnPerRoute(maxInFlightPerHost) //
+                .setDefaultConnectionConfig(connectionConfig) //
+                .setDefaultTlsConfig(TlsConfig.custom().setVersionPolicy(versionPolicy).build()) //
+                .build();
+        RequestConfig requestConfig = RequestConfig.custom() //
+                .setResponseTimeout(Timeout.ofMilliseconds(HttpRetriever.DEFAULT_SOCKET_TIMEOUT)) //
+                .setMaxRedirects(HttpRetriever.MAX_REDIRECTS) //
+                .build();
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom() //
+                .setSoTimeout(Timeout.ofMilliseconds(HttpRetriever.DEFAULT_SOCKET_TIMEOUT)) //
+                .build();
+        httpClient = HttpAsyncClients.custom() //
+                .setConnectionManager(connectionManager) //
+                .setIOReactorConfig(ioReactorConfig) //
+                .setDefaultRequestConfig(requestConfig) //
+                .setUserAgent(HttpRetriever.USER_AGENT) //
+                .build();
+        httpClient.start();
+    }
+
+    /**
+     * Execute the given request asynchronously. In case the limits for requests in flight are reached, the request is
+     * queued.
+     *
+     * @param request The request, not <code>null</code>.
+     * @return A future for the result, which fails with an {@link HttpException} in case the request could not be
+     * executed, or with a {@link CancellationException} in case the retriever was closed before.
+     */
+    public CompletableFuture<HttpResult> execute(HttpRequest2 request) {
+        Validate.notNull(request, "request must not be null");
+        Task task = new Task(request, UrlHelper.getDomain(request.getUrl(), false));
+        List<Task> tasksToStart;
+        synchronized (lock) {
+            if (closed) {
+                task.future.completeExceptionally(new CancellationException("AsyncHttpRetriever was closed"));
+                return task.future;
+            }
+            HostQueue hostQueue = hostQueues.computeIfAbsent(task.host, HostQueue::new);
+            hostQueue.tasks.add(task);
+            numQueued++;
+            markReady(hostQueue);
+            tasksToStart = dispatch();
+        }
+        startAll(tasksToStart);
+        return task.future;
+    }
+
+    /**
+     * Execute the given requests asynchronously; the callbacks are invoked for each request as soon as it completes
+     * (on the I/O threads, see the class documentation).
+     *
+     * @param requests       The requests, not <code>null</code>.
+     * @param resultCallback Receives the successful results, not <code>null</code>.
+     * @param errorCallback  Receives the exceptions of the failed requests, not <code>null</code>.
+     * @return A future which completes after all requests and callbacks have completed.
+     */
+    public CompletableFuture<Void> retrieveAll(Collection<? extends HttpRequest2> requests, BiConsumer<HttpRequest2, HttpResult> resultCallback, BiConsumer<HttpRequest2, Throwable> errorCallback) {
+        Validate.notNull(requests, "requests must not be null");
+        Validate.notNull(resultCallback, "resultCallback must not be null");
+        Validate.notNull(errorCallback, "errorCallback must not be null");
+        List<CompletableFuture<Void>> futures = new ArrayList<>(requests.size());
+        for (HttpRequest2 request : requests) {
+            futures.add(execute(request).handle((result, error) -> {
+                if (error != null) {
+                    errorCallback.accept(request, error);
+                } else {
+                    resultCallback.accept(request, result);
+                }
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /** Must be called while holding the lock. */
+    private void markReady(HostQueue hostQueue) {
+        if (!hostQueue.ready && !hostQueue.tasks.isEmpty() && hostQueue.numInFlight < maxInFlightPerHost) {
+            hostQueue.ready = true;
+            readyHosts.add(hostQueue);
+        }
+    }
+
+    /**
+     * Take queued tasks within the limits; must be called while holding the lock, the returned tasks must be started
+     * after releasing it.
+     */
+    private List<Task> dispatch() {
+        List<Task> tasks = new ArrayList<>();
+        while (numInFlight < maxInFlight && !readyHosts.isEmpty()) {
+            HostQueue hostQueue = readyHosts.poll();
+            hostQueue.ready = false;
+            tasks.add(hostQueue.tasks.poll());
+            hostQueue.numInFlight++;
+            numInFlight++;
+            numQueued--;
+            markReady(hostQueue);
+        }
+        return tasks;
+    }
+
+    private void startAll(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        Deque<Task> pending = pendingStarts.get();
+        if (pending != null) {
+            pending.addAll(tasks);
+            return;
+        }
+        pending = new ArrayDeque<>(tasks);
+        pendingStarts.set(pending);
+        try {
+            Task task;
+            while ((task = pending.poll()) != null) {
+                start(task);
+            }
+        } finally {
+            pendingStarts.remove();
+        }
+    }
+
+    private void start(Task task) {
+        SimpleHttpRequest httpRequest;
+        try {
+            httpRequest = createRequest(task.request);
+        } catch (IOException | RuntimeException e) {
+            complete(task, null, e);
+            return;
+        }
+        HttpClientContext context = HttpClientContext.create();
+        ResultConsumer consumer = new ResultConsumer(task.request.getUrl(), context, maxFileSize);
+        httpClient.execute(SimpleRequestProducer.create(httpRequest), consumer, context, new FutureCallback<HttpResult>() {
+            @Override
+            public void completed(HttpResult result) {
+                complete(task, result, null);
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                // the transfer was aborted intentionally, as the maximum file size was reached
+                if (consumer.truncatedResult != null) {
+                    complete(task, consumer.truncatedResult, null);
+                } else {
+                    complete(task, null, ex);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                complete(task, null, new CancellationException());
+            }
+        });
+    }
+
+    private static SimpleHttpRequest createRequest(HttpRequest2 request) throws IOException {
+        SimpleRequestBuilder builder = SimpleRequestBuilder.create(request.getMethod().name()).setUri(request.getUrl());
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.setHeader(header.getKey(), header.getValue());
+        }
+        HttpEntity entity = request.getEntity();
+        if (entity != null) {
+            byte[] body;
+            try (InputStream inputStream = entity.getInputStream()) {
+                body = inputStream.readAllBytes();
+            }
+            ContentType contentType = entity.getContentType() != null ? ContentType.parse(entity.getContentType()) : ContentType.DEFAULT_BINARY;
+            builder.setBody(body, contentType);
+        }
+        return builder.build();
+    }
+
+    private void complete(Task task, HttpResult result, Exception error) {
+        List<Task> tasksToStart;
+        synchronized (lock) {
+            numInFlight--;
+            HostQueue hostQueue = hostQueues.get(task.host);
+            hostQueue.numInFlight--;
+            if (hostQueue.numInFlight == 0 && hostQueue.tasks.isEmpty()) {
+                hostQueues.remove(task.host);
+            } else {
+                markReady(hostQueue);
+            }
+            tasksToStart = dispatch();
+        }
+        startAll(tasksToStart);
+        if (error instanceof CancellationException) {
+            task.future.completeExceptionally(error);
+        } else if (error != null) {
+            LOGGER.debug("Exception for {}: {}", task.request.getUrl(), error.toString());
+            task.future.completeExceptionally(new HttpException("Exception " + error + " for URL \"" + task.request.getUrl() + "\"", error));
+        } else {
+            task.future.complete(result);
+        }
+    }
+
+    /**
+     * Set the maximum number of bytes to download per request; longer responses are truncated and marked with
+     * {@link HttpResult#isMaxFileSizeReached()}. Applies to requests which are started afterwards.
+     *
+     * @param maxFileSize The maximum number of bytes, or -1 for no limit.
+     */
+    public void setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /** @return The number of requests which are currently executed. */
+    public int getNumInFlight() {
+        synchronized (lock) {
+            return numInFlight;
+        }
+    }
+
+    /** @return The number of requests which are waiting for execution. */
+    public int getNumQueued() {
+        synchronized (lock) {
+            return numQueued;
+        }
+    }
+
+    /**
+     * Close the retriever. Queued requests are cancelled, running requests are completed.
+     */
+    @Override
+    public void close() {
+        List<Task> queuedTasks = new ArrayList<>();
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (HostQueue hostQueue : hostQueues.values()) {
+                queuedTasks.addAll(hostQueue.tasks);
+                hostQueue.tasks.clear();
+            }
+            readyHosts.clear();
+            numQueued = 0;
+        }
+        for (Task task : queuedTasks) {
+            task.future.completeExceptionally(new CancellationException("AsyncHttpRetriever was closed"));
+        }
+        httpClient.close(CloseMode.GRACEFUL);
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncHttpRetriever [maxInFlight=" + maxInFlight + ", maxInFlightPerHost=" + maxInFlightPerHost + ", numInFlight=" + getNumInFlight() + ", numQueued=" + getNumQueued() + "]";
+    }
+
+    private static final class Task {
+        final HttpRequest2 request;
+        final String host;
+        final CompletableFuture<HttpResult> future = new CompletableFuture<>();
+
+        Task(HttpRequest2 request, String host) {
+            this.request = request;
+            this.host = host;
+        }
+    }
+
+    private static final class HostQueue {
+        final String host;
+        final Deque<Task> tasks = new ArrayDeque<>();
+        int numInFlight;
+        boolean ready;
+
+        HostQueue(String host) {
+            this.host = host;
+        }
+    }
+
+    /** Buffers the response into an {@link HttpResult}, up to the maximum file size. */
+    private static final class ResultConsumer implements AsyncResponseConsumer<HttpResult> {
+        private final String url;
+        private final HttpClientContext context;
+        private final long maxFileSize;
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        private HttpResponse response;
+        private FutureCallback<HttpResult> resultCallback;
+        /** Set in case the transfer was aborted, as the maximum file size was reached. */
+        volatile HttpResult truncatedResult;
+
+        ResultConsumer(String url, HttpClientContext context, long maxFileSize) {
+            this.url = url;
+            this.context = context;
+            this.maxFileSize = maxFileSize;
+        }
+
+        @Override
+        public void consumeResponse(HttpResponse response, EntityDetails entityDetails, HttpContext context, FutureCallback<HttpResult> resultCallback) {
+            this.response = response;
+            if (entityDetails == null) {
+                resultCallback.completed(createResult(false));
+            } else {
+                this.resultCallback = resultCallback;
+            }
+        }
+
+        @Override
+        public void informationResponse(HttpResponse response, HttpContext context) {
+            // ignore 1xx responses
+        }
+
+        @Override
+        public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+            capacityChannel.update(Integer.MAX_VALUE);
+        }
+
+        @Override
+        public void consume(ByteBuffer src) throws IOException {
+            int length = src.remaining();
+            if (maxFileSize != -1 && content.size() + length >= maxFileSize) {
+                length = (int) (maxFileSize - content.size());
+            }
+            byte[] buffer = new byte[length];
+            src.get(buffer);
+            content.write(buffer);
+            if (maxFileSize != -1 && content.size() >= maxFileSize) {
+                LOGGER.debug("Cancel transfer of {}, as max. file size limit of {} bytes was reached", url, maxFileSize);
+                truncatedResult = createResult(true);
+                throw new IOException("Maximum file size of " + maxFileSize + " bytes reached");
+            }
+        }
+
+        @Override
+        public void streamEnd(List<? extends Header> trailers) {
+            resultCallback.completed(createResult(false));
+        }
+
+        @Override
+        public void failed(Exception cause) {
+            // the exception is passed to the callback of the request
+        }
+
+        @Override
+        public void releaseResources() {
+            // nothing to release
+        }
+
+        private HttpResult createResult(boolean maxFileSizeReached) {
+            Map<String, List<String>> headers = new HashMap<>();
+            for (Header header : response.getHeaders()) {
+                headers.computeIfAbsent(header.getName(), k -> new ArrayList<>()).add(header.getValue());
+            }
+            List<String> locations = new ArrayList<>();
+            locations.add(url);
+            RedirectLocations redirectLocations = context.getRedirectLocations();
+            if (redirectLocations != null) {
+                for (URI location : redirectLocations.getAll()) {
+                    locations.add(location.toString());
+                }
+            }
+            byte[] bytes = content.toByteArray();
+            HttpResult result = new HttpResult(url, bytes, headers, response.getCode(), bytes.length, locations);
+            result.setMaxFileSizeReached(maxFileSizeReached);
+            return result;
+        }
+    }
+
+}
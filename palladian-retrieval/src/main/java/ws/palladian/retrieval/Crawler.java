@@ -6,17 +6,19 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import ws.palladian.helper.Callback;
 import ws.palladian.helper.StopWatch;
-import ws.palladian.helper.ThreadHelper;
 import ws.palladian.helper.UrlHelper;
 import ws.palladian.helper.html.HtmlHelper;
 import ws.palladian.helper.html.XPathHelper;
 import ws.palladian.helper.io.FileHelper;
 import ws.palladian.helper.nlp.PatternHelper;
+import ws.palladian.retrieval.crawler.CrawlFrontier;
+import ws.palladian.retrieval.crawler.CrawlState;
 import ws.palladian.retrieval.helper.NoThrottle;
 import ws.palladian.retrieval.helper.RequestThrottle;
 
 import java.net.UnknownHostException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -32,6 +34,19 @@ import java.util.stream.Collectors;
  * A simple web crawler which can crawl web pages within a domain or crawl cross domain.
  * </p>
  *
+ * <p>
+ * The URLs to crawl are scheduled through a {@link CrawlFrontier}, which keeps a queue per host; this allows to
+ * configure a politeness delay and a maximum number of concurrent requests per host (see
+ * {@link #setPolitenessDelay(long, TimeUnit)} and {@link #setMaxConnectionsPerHost(int)}), while the worker threads
+ * stay busy with other hosts.
+ * </p>
+ *
+ * <p>
+ * For large crawls, a {@link CrawlState} can be set via {@link #setCrawlState(CrawlState)}. In this case, the visited
+ * URLs and the URL stack are not kept in memory, but in the crawl state, and the frontier is filled from it in windows
+ * of {@link #setFrontierWindowSize(int)} URLs. Starting a crawl with an existing crawl state resumes it.
+ * </p>
+ *
  * @author David Urbansky
  */
 public class Crawler {
@@ -50,18 +65,37 @@ public class Crawler {
     /** If a web page could not be reached we can put it back on the stack to try another time. */
     private boolean retryFailedRetrievals = true;
 
+    /** Interval in milliseconds between two checkpoints of the crawl state. */
+    private static final long CHECKPOINT_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
     /** Number of active threads. */
     private final AtomicInteger threadCount = new AtomicInteger(0);
 
     /** If true, we'll remember for each URL where we found a reference that linked to it. */
     private boolean trackLinks = false;
-    private Map<String, String> trackedLinks = Collections.synchronizedMap(new HashMap<>());
-
-    private ExecutorService executor = Executors.newFixedThreadPool(maxThreads);
+    private Map<String, String> trackedLinks = new ConcurrentHashMap<>();
 
     /** The number of milliseconds each host gets between two requests. */
     private RequestThrottle requestThrottle = NoThrottle.INSTANCE;
 
+    /** The minimum delay in milliseconds between two requests to the same host. */
+    private long politenessDelay = 0;
+
+    /** The maximum number of concurrent requests to the same host. */
+    private int maxConnectionsPerHost = Integer.MAX_VALUE;
+
+    /** The frontier of the currently running crawl. */
+    private CrawlFrontier frontier;
+
+    /** The persistent state for large or resumable crawls, or <code>null</code> to keep the state in memory. */
+    private CrawlState crawlState;
+
+    /** The maximum number of URLs which are taken from the crawl state into the frontier at the same time. */
+    private int frontierWindowSize = 10000;
+
+    /** The time of the last finished crawl of a page. */
+    private final AtomicLong lastCrawlTime = new AtomicLong();
+
     private Consumer<String> errorCallback;
 
     // ///////////////////////////////////////////////////////
@@ -94,8 +128,13 @@ public class Crawler {
 
     /** Do not look for more URLs if visited stopCount pages already, -1 for infinity. */
     private int stopCount = -1;
-    private Set<String> urlStack = Collections.synchronizedSet(new HashSet<>());
-    private Set<String> visitedUrls = Collections.synchronizedSet(new HashSet<>());
+    private Set<String> urlStack = ConcurrentHashMap.newKeySet();
+    private Set<String> visitedUrls = ConcurrentHashMap.newKeySet();
+    /**
+     * All URLs which were added to the stack or visited during the crawl (without crawl state); URLs are never removed,
+     * so that adding to this set is an atomic check whether a URL is new.
+     */
+    private final Set<String> seenUrls = ConcurrentHashMap.newKeySet();
 
     /** If true, all query params in the URL ?= will be stripped. */
     private boolean stripQueryParams = true;
@@ -223,46 +262,58 @@ public class Crawler {
      * Start the crawling process.
      */
     private void startCrawl() {
-        // crawl
-        final AtomicLong lastCrawlTime = new AtomicLong(System.currentTimeMillis());
+        frontier = new CrawlFrontier(politenessDelay, TimeUnit.MILLISECONDS, maxConnectionsPerHost);
+        if (crawlState != null) {
+            for (String url : urlStack) {
+                crawlState.add(url);
+            }
+            urlStack.clear();
+            fillFrontier();
+        } else {
+            seenUrls.clear();
+            seenUrls.addAll(visitedUrls);
+            seenUrls.addAll(urlStack);
+            for (String url : urlStack) {
+                frontier.add(url);
+            }
+        }
+        lastCrawlTime.set(System.currentTimeMillis());
         long silentStopTimeMillis = TimeUnit.MINUTES.toMillis(silentStopTime);
-        while ((stopCount == -1 || visitedUrls.size() < stopCount) && ((System.currentTimeMillis() - lastCrawlTime.get()) < silentStopTimeMillis)) {
-            try {
-                final String url = getUrlFromStack();
-                if (url != null) {
-                    Thread ct = new Thread("CrawlThread-" + url) {
-                        @Override
-                        public void run() {
-                            try {
-                                if (stopCount == 0) {
-                                    return;
-                                }
-                                crawl(url);
-                                lastCrawlTime.set(System.currentTimeMillis());
-                            } catch (Throwable t) {
-                                // whatever
-                                t.printStackTrace();
-                                LOGGER.error(t.getMessage(), t);
-                                if (errorCallback != null) {
-                                    errorCallback.accept(url);
-                                }
-                            }
-                        }
-                    };
-
-                    if (!executor.isShutdown()) {
-                        executor.submit(ct);
-                    }
-                } else {
-                    // powernap
-                    ThreadHelper.deepSleep(1000);
+        long lastCheckpointTime = System.currentTimeMillis();
+
+        ExecutorService executor = Executors.newFixedThreadPool(maxThreads, runnable -> {
+            Thread thread = new Thread(runnable, "CrawlThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < maxThreads; i++) {
+            executor.execute(this::crawlFromFrontier);
+        }
+
+        // wait until the frontier runs empty, or one of the stop criteria applies
+        try {
+            for (; ; ) {
+                if (frontier.awaitIdle(1, TimeUnit.SECONDS) && !fillFrontier()) {
+                    break;
+                }
+                if (crawlState != null && System.currentTimeMillis() - lastCheckpointTime >= CHECKPOINT_INTERVAL) {
+                    crawlState.checkpoint();
+                    lastCheckpointTime = System.currentTimeMillis();
+                }
+                if (isStopCountReached()) {
+                    LOGGER.debug("stop count reached");
+                    break;
+                }
+                if (System.currentTimeMillis() - lastCrawlTime.get() >= silentStopTimeMillis) {
+                    LOGGER.debug("silent stop time reached");
+                    break;
                 }
-            } catch (Exception e) {
-                LOGGER.error(e.getMessage(), e);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error(e.getMessage(), e);
         }
-
-        // wait for the threads to finish
+        frontier.close();
         executor.shutdown();
 
         // wait until all threads are finish
@@ -273,23 +324,89 @@ public class Crawler {
                 LOGGER.debug("wait crawling");
             }
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             LOGGER.error(e.getMessage(), e);
         }
         LOGGER.debug("...all threads finished in " + sw.getTotalElapsedTimeString());
-
-        // LOGGER.info("-----------------------------------------------");
-        // LOGGER.info("-----------------------------------------------");
-        // LOGGER.info("-------------------URL DUMP--------------------");
-        // Iterator<String> urlDumpIterator = urlDump.iterator();
-        // while (urlDumpIterator.hasNext()) {
-        // LOGGER.info(urlDumpIterator.next());
-        // }
+        if (crawlState != null) {
+            crawlState.checkpoint();
+        }
 
         if (crawlerCallbackOnFinish != null) {
             crawlerCallbackOnFinish.callback();
         }
     }
 
+    private boolean isStopCountReached() {
+        int numVisited = crawlState != null ? crawlState.getNumCompleted() : visitedUrls.size();
+        return stopCount != -1 && numVisited >= stopCount;
+    }
+
+    /**
+     * Move URLs from the crawl state into the frontier, until the frontier window is full.
+     *
+     * @return <code>true</code> in case URLs were added to the frontier.
+     */
+    private boolean fillFrontier() {
+        if (crawlState == null) {
+            return false;
+        }
+        boolean added = false;
+        synchronized (crawlState) {
+            while (crawlState.getNumInProgress() < frontierWindowSize) {
+                String url = crawlState.poll();
+                if (url == null) {
+                    break;
+                }
+                frontier.add(url);
+                added = true;
+            }
+        }
+        return added;
+    }
+
+    /** The loop of the worker threads, which take the URLs from the frontier until it is closed. */
+    private void crawlFromFrontier() {
+        for (; ; ) {
+            String url;
+            try {
+                url = frontier.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (url == null) { // closed
+                return;
+            }
+            threadCount.incrementAndGet();
+            boolean processed = false;
+            try {
+                if (isStopCountReached()) {
+                    frontier.close();
+                    continue;
+                }
+                processed = true;
+                addVisitedUrl(url);
+                urlStack.remove(url);
+                crawl(url);
+                lastCrawlTime.set(System.currentTimeMillis());
+            } catch (Throwable t) {
+                LOGGER.error(t.getMessage(), t);
+                if (errorCallback != null) {
+                    errorCallback.accept(url);
+                }
+            } finally {
+                threadCount.decrementAndGet();
+                // unprocessed URLs stay in progress, so that they are taken up again when the crawl is resumed
+                if (crawlState != null && processed) {
+                    crawlState.complete(url);
+                    fillFrontier();
+                }
+                frontier.release(url);
+            }
+        }
+    }
+
     /**
      * Start the crawling process.
      *
@@ -322,19 +439,10 @@ public class Crawler {
         startCrawl();
     }
 
-    private synchronized String getUrlFromStack() {
-        Iterator<String> iterator = urlStack.iterator();
-        if (iterator.hasNext()) {
-            String url = iterator.next();
-            urlStack.remove(url);
-            addVisitedUrl(url);
-            return url;
-        }
-        return null;
-    }
-
     protected void addVisitedUrl(String url) {
-        visitedUrls.add(url);
+        if (crawlState == null) {
+            visitedUrls.add(url);
+        }
     }
 
     public void setStopCount(int number) {
@@ -389,7 +497,7 @@ public class Crawler {
         this.urlAttributeModification.add(attributeToAddToUrl);
     }
 
-    protected synchronized void addUrlsToStack(Set<String> urls, String sourceUrl) {
+    protected void addUrlsToStack(Set<String> urls, String sourceUrl) {
         for (String url : urls) {
             addUrlToStack(url, sourceUrl);
         }
@@ -423,11 +531,11 @@ public class Crawler {
         return url;
     }
 
-    protected synchronized void addUrlToStack(String url, String sourceUrl) {
+    protected void addUrlToStack(String url, String sourceUrl) {
         url = cleanUrl(url);
 
         // check URL first
-        if (url != null && url.length() < 400 && !visitedUrls.contains(url) && documentRetriever.getDownloadFilter().test(url) && validate(url)) {
+        if (url != null && url.length() < 400 && (crawlState != null || !seenUrls.contains(url)) && documentRetriever.getDownloadFilter().test(url) && validate(url)) {
             boolean follow = true;
 
             // check whether the url should be followed
@@ -449,8 +557,14 @@ public class Crawler {
                 }
             }
 
-            if (follow) {
-                urlStack.add(url);
+            // the URL is only added in case it was never seen before; checking and adding is one atomic step
+            if (follow && (crawlState != null ? crawlState.add(url) : seenUrls.add(url))) {
+                if (crawlState == null) {
+                    urlStack.add(url);
+                    if (frontier != null) {
+                        frontier.add(url);
+                    }
+                }
                 if (trackLinks) {
                     trackedLinks.put(url, sourceUrl);
                 }
@@ -464,7 +578,60 @@ public class Crawler {
 
     public void setMaxThreads(int maxThreads) {
         this.maxThreads = maxThreads;
-        executor = Executors.newFixedThreadPool(maxThreads);
+    }
+
+    public long getPolitenessDelay() {
+        return politenessDelay;
+    }
+
+    /**
+     * Set the minimum delay between two requests to the same host; requests to other hosts are not affected.
+     *
+     * @param politenessDelay The delay, zero for no delay (default).
+     * @param unit            The time unit.
+     */
+    public void setPolitenessDelay(long politenessDelay, TimeUnit unit) {
+        this.politenessDelay = unit.toMillis(politenessDelay);
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Set the maximum number of concurrent requests to the same host.
+     *
+     * @param maxConnectionsPerHost The maximum number of requests, greater zero (default is unlimited).
+     */
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public CrawlState getCrawlState() {
+        return crawlState;
+    }
+
+    /**
+     * Set a persistent state, which keeps the visited URLs and the URL stack on disk instead of in memory. The crawl
+     * state is not closed by the crawler.
+     *
+     * @param crawlState The crawl state, or <code>null</code> to keep the state in memory (default).
+     */
+    public void setCrawlState(CrawlState crawlState) {
+        this.crawlState = crawlState;
+    }
+
+    public int getFrontierWindowSize() {
+        return frontierWindowSize;
+    }
+
+    /**
+     * Set the maximum number of URLs from the {@link CrawlState} which are queued or processed at the same time.
+     *
+     * @param frontierWindowSize The window size, greater zero.
+     */
+    public void setFrontierWindowSize(int frontierWindowSize) {
+        this.frontierWindowSize = frontierWindowSize;
     }
 
     public int getThreadCount() {
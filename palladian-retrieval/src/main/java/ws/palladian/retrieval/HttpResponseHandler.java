@@ -0,0 +1,33 @@
+package ws.palladian.retrieval;
+
+import java.io.InputStream;
+
+/**
+ * <p>
+ * Processes the content of a response while it is downloaded, see
+ * {@link HttpRetriever#execute(HttpRequest2, HttpResponseHandler)}. This avoids buffering the complete content in
+ * memory; e.g. a {@link ws.palladian.retrieval.parser.DocumentParser} can be used as handler via
+ * <code>parser::parse</code>.
+ * </p>
+ *
+ * @param <T> Type of the value which is produced from the content.
+ * @author Philipp Katz
+ */
+@FunctionalInterface
+public interface HttpResponseHandler<T> {
+
+    /**
+     * Process the content of a response.
+     *
+     * @param httpResult The result with status code, header fields and locations, but without content; in case the
+     *                   maximum file size was reached, {@link HttpResult#isMaxFileSizeReached()} is set after the content
+     *                   was read.
+     * @param content    The content, which ends after the maximum file size of the {@link HttpRetriever}; it is closed
+     *                   by the retriever.
+     * @return The value which was produced from the content.
+     * @throws Exception In case processing fails; {@link java.io.IOException}s are treated like failures of the
+     *                   transfer.
+     */
+    T handle(HttpResult httpResult, InputStream content) throws Exception;
+
+}
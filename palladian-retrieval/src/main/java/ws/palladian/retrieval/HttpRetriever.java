@@ -31,14 +31,16 @@ import ws.palladian.helper.UrlHelper;
 import ws.palladian.helper.constants.SizeUnit;
 import ws.palladian.helper.io.FileHelper;
 import ws.palladian.helper.nlp.StringHelper;
+import ws.palladian.retrieval.cache.HttpCache;
 import ws.palladian.retrieval.helper.HttpHelper;
 
-import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * <p>
@@ -179,6 +181,11 @@ public class HttpRetriever {
      */
     private String userAgent = null;
 
+    /**
+     * The cache for responses, or <code>null</code> for no caching.
+     */
+    private HttpCache cache = null;
+
     // ////////////////////////////////////////////////////////////////
     // constructor
     // ////////////////////////////////////////////////////////////////
@@ -298,9 +305,41 @@ public class HttpRetriever {
 
     public HttpResult execute(HttpRequest2 request) throws HttpException {
         Validate.notNull(request, "request must not be null");
+        if (cache != null) {
+            return cache.execute(request, this::executeUncached);
+        }
+        return executeUncached(request);
+    }
+
+    private HttpResult executeUncached(HttpRequest2 request) throws HttpException {
         return execute(request.getUrl(), new ApacheRequestAdapter(request));
     }
 
+    /**
+     * <p>
+     * Execute the given request and pass the content to the given handler while it is downloaded, instead of
+     * buffering it completely; e.g. <code>execute(request, parser::parse)</code> parses a document, or
+     * <code>execute(request, feedParser::getFeed)</code> parses a feed, while downloading. The content ends after the
+     * maximum file size (see {@link #setMaxFileSize(long)}). The cache (see {@link #setCache(HttpCache)}) is not used,
+     * and a {@link ProxyRemoverCallback} receives the result without content.
+     * </p>
+     *
+     * @param request The request, not <code>null</code>.
+     * @param handler The handler for the content, not <code>null</code>.
+     * @return The value which was returned by the handler.
+     * @throws HttpException In case the request fails, or the handler throws an exception.
+     */
+    public <T> T execute(HttpRequest2 request, HttpResponseHandler<T> handler) throws HttpException {
+        Validate.notNull(request, "request must not be null");
+        Validate.notNull(handler, "handler must not be null");
+        AtomicReference<T> value = new AtomicReference<>();
+        execute(request.getUrl(), new ApacheRequestAdapter(request), (httpResult, content) -> {
+            value.set(handler.handle(httpResult, content));
+            return null;
+        });
+        return value.get();
+    }
+
     // ////////////////////////////////////////////////////////////////
     // internal functionality
     // ////////////////////////////////////////////////////////////////
@@ -395,8 +434,22 @@ public class HttpRetriever {
      * @throws HttpException
      */
     private HttpResult execute(String url, HttpUriRequest request) throws HttpException {
+        return execute(url, request, null);
+    }
+
+    /**
+     * <p>
+     * Internal method for executing the specified request; in case a handler is given, the content is passed to it
+     * while downloading, and the returned result has no content, else the content is buffered completely. In both
+     * cases, the content is read up to the specified limit in maxFileSize.
+     * </p>
+     *
+     * @throws HttpException
+     */
+    private HttpResult execute(String url, HttpUriRequest request, HttpResponseHandler<?> handler) throws HttpException {
         HttpResult result;
         InputStream in = null;
+        Exception handlerException = null;
 
         HttpClientBuilder clientBuilder = createHttpClientBuilder();
 
@@ -429,51 +482,37 @@ public class HttpRetriever {
             }
             HttpConnectionMetrics metrics = (HttpConnectionMetrics) context.getAttribute(CONTEXT_METRICS_ID);
 
+            int statusCode = response.getCode();
+            Map<String, List<String>> headers = convertHeaders(response.getHeaders());
+
+            // did we get redirected?
+            List<String> locations = (List<String>) context.getAttribute(CONTEXT_LOCATIONS_ID);
+
+            // read the payload, stop if a download size limitation has been set
+            HttpResult headerResult = new HttpResult(url, new byte[0], headers, statusCode, 0, locations);
             HttpEntity entity = response.getEntity();
-            byte[] entityContent;
-            boolean maxFileSizeReached = false;
-            if (entity != null) {
-                in = entity.getContent();
-
-                // read the payload, stop if a download size limitation has been set
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                byte[] buffer = new byte[1024];
-                for (; ; ) {
-                    if (maxFileSize != -1 && out.size() >= maxFileSize) {
-                        LOGGER.debug("Cancel transfer of {}, as max. file size limit of {} bytes was reached", url, maxFileSize);
-                        maxFileSizeReached = true;
-                        break;
-                    }
-                    int bytesToRead = buffer.length;
-                    if (maxFileSize != -1) {
-                        bytesToRead = (int) Math.min(maxFileSize - out.size(), buffer.length);
-                    }
-                    int bytesRead = in.read(buffer, 0, bytesToRead);
-                    if (bytesRead == -1) {
-                        break;
-                    }
-                    out.write(buffer, 0, bytesRead);
+            in = new MaxFileSizeInputStream(entity != null ? entity.getContent() : InputStream.nullInputStream(), headerResult);
+            byte[] entityContent = new byte[0];
+            if (handler != null) {
+                try {
+                    handler.handle(headerResult, in);
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    handlerException = e;
                 }
-
-                entityContent = out.toByteArray();
             } else {
-                entityContent = new byte[0];
+                entityContent = in.readAllBytes();
             }
 
-            int statusCode = response.getCode();
             long receivedBytes = 0;
 
             if (metrics != null) {
                 receivedBytes = metrics.getReceivedBytesCount();
             }
 
-            Map<String, List<String>> headers = convertHeaders(response.getHeaders());
-
-            // did we get redirected?
-            List<String> locations = (List<String>) context.getAttribute(CONTEXT_LOCATIONS_ID);
-
             result = new HttpResult(url, entityContent, headers, statusCode, receivedBytes, locations);
-            result.setMaxFileSizeReached(maxFileSizeReached);
+            result.setMaxFileSizeReached(headerResult.isMaxFileSizeReached());
             addDownload(receivedBytes);
 
             if (proxyRemoveStatusCodes.contains(statusCode) || proxyRemoveCallback != null && proxyRemoveCallback.shouldRemove(result)) {
@@ -491,9 +530,80 @@ public class HttpRetriever {
             request.abort();
         }
 
+        if (handlerException != null) {
+            throw new HttpException("Exception " + handlerException + " while processing content of URL \"" + url + "\": " + handlerException.getMessage(), handlerException);
+        }
+
         return result;
     }
 
+    /**
+     * Ends the content after the maximum file size, and marks the result accordingly.
+     */
+    private final class MaxFileSizeInputStream extends FilterInputStream {
+        private final HttpResult result;
+        private long numBytesRead;
+
+        MaxFileSizeInputStream(InputStream in, HttpResult result) {
+            super(in);
+            this.result = result;
+        }
+
+        private long getRemaining() {
+            if (maxFileSize == -1) {
+                return Long.MAX_VALUE;
+            }
+            long remaining = maxFileSize - numBytesRead;
+            if (remaining <= 0 && !result.isMaxFileSizeReached()) {
+                LOGGER.debug("Cancel transfer of {}, as max. file size limit of {} bytes was reached", result.getUrl(), maxFileSize);
+                result.setMaxFileSizeReached(true);
+            }
+            return remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (getRemaining() <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                numBytesRead++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long remaining = getRemaining();
+            if (remaining <= 0) {
+                return -1;
+            }
+            int bytesRead = super.read(b, off, (int) Math.min(len, remaining));
+            if (bytesRead > 0) {
+                numBytesRead += bytesRead;
+            }
+            return bytesRead;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, Math.max(0, getRemaining())));
+            numBytesRead += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), Math.max(0, getRemaining()));
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
     private Proxy setProxy(String url, HttpUriRequest request, HttpClientBuilder clientBuilder) throws HttpException {
         Proxy proxy = proxyProvider.getProxy(url);
         if (proxy == null) {
@@ -662,15 +772,20 @@ public class HttpRetriever {
     public boolean downloadAndSave(String url, String filePath, Map<String, String> requestHeaders, boolean includeHttpResponseHeaders) {
         boolean result = false;
         try {
-            HttpResult httpResult = execute(new HttpRequest2Builder(HttpMethod.GET, url).addHeaders(requestHeaders).create());
-            if (httpResult.getStatusCode() != 200) {
-                throw new HttpException("status code != 200 (code: " + httpResult.getStatusCode() + ") for " + url);
-            }
-            if (httpResult.isMaxFileSizeReached()) {
-                LOGGER.error("downloading aborted due to file size limitations (limit: " + maxFileSize + ") for " + url);
-                return false;
-            }
-            result = HttpHelper.saveToFile(httpResult, filePath, includeHttpResponseHeaders);
+            // the content is written to the file while downloading, and removed in case it turns out to be incomplete
+            result = execute(new HttpRequest2Builder(HttpMethod.GET, url).addHeaders(requestHeaders).create(), (httpResult, content) -> {
+                if (httpResult.getStatusCode() != 200) {
+                    LOGGER.error("Error while downloading {}: status code != 200 (code: {})", url, httpResult.getStatusCode());
+                    return false;
+                }
+                boolean saved = HttpHelper.saveToFile(httpResult, content, filePath, includeHttpResponseHeaders);
+                if (httpResult.isMaxFileSizeReached()) {
+                    LOGGER.error("downloading aborted due to file size limitations (limit: " + maxFileSize + ") for " + url);
+                    FileHelper.delete(filePath);
+                    return false;
+                }
+                return saved;
+            });
         } catch (HttpException e) {
             LOGGER.error("Error while downloading {}", url, e);
         }
@@ -717,6 +832,20 @@ public class HttpRetriever {
         this.maxFileSize = maxFileSize;
     }
 
+    /**
+     * Set a cache for the responses of requests which are executed via {@link #execute(HttpRequest2)} (this includes
+     * {@link #httpGet(String)}).
+     *
+     * @param cache The cache, or <code>null</code> to disable caching (default).
+     */
+    public void setCache(HttpCache cache) {
+        this.cache = cache;
+    }
+
+    public HttpCache getCache() {
+        return cache;
+    }
+
     public void setCookieStore(CookieStore cookieStore) {
         this.cookieStore = cookieStore;
     }
@@ -11,6 +11,7 @@ import org.apache.hc.core5.http.config.Registry;
 import org.apache.hc.core5.http.config.RegistryBuilder;
 import org.apache.hc.core5.http.io.SocketConfig;
 import ws.palladian.helper.functional.Factory;
+import ws.palladian.retrieval.cache.HttpCache;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
@@ -63,6 +64,11 @@ public class HttpRetrieverFactory implements Factory<HttpRetriever>, Closeable {
      */
     private final PoolingHttpClientConnectionManager connectionManager;
 
+    /**
+     * The cache which is shared by all created instances, or <code>null</code>.
+     */
+    private HttpCache cache;
+
     private static Factory<HttpRetriever> _factory = new HttpRetrieverFactory();
 
     /**
@@ -119,7 +125,22 @@ public class HttpRetrieverFactory implements Factory<HttpRetriever>, Closeable {
 
     @Override
     public HttpRetriever create() {
-        return new HttpRetriever(connectionManager);
+        HttpRetriever retriever = new HttpRetriever(connectionManager);
+        retriever.setCache(cache);
+        return retriever;
+    }
+
+    /**
+     * Set a cache which is shared by all {@link HttpRetriever} instances created by this factory.
+     *
+     * @param cache The cache, or <code>null</code> to disable caching (default).
+     */
+    public void setCache(HttpCache cache) {
+        this.cache = cache;
+    }
+
+    public HttpCache getCache() {
+        return cache;
     }
 
     /**
@@ -0,0 +1,98 @@
+package ws.palladian.retrieval.cache;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The directives of a <code>Cache-Control</code> header which are relevant for a private cache, see <a
+ * href="https://www.rfc-editor.org/rfc/rfc9111#section-5.2">RFC 9111, section 5.2</a>.
+ *
+ * @author Philipp Katz
+ */
+final class CacheControl {
+
+    /** Value for {@link #maxStale} in case the directive has no value (any staleness is accepted). */
+    static final long UNLIMITED = Long.MAX_VALUE;
+
+    private static final Pattern DIRECTIVE_PATTERN = Pattern.compile("([^=,\\s]+)(?:\\s*=\\s*(\"[^\"]*\"|[^,\\s]*))?");
+
+    boolean noStore;
+    boolean noCache;
+    boolean mustRevalidate;
+    boolean onlyIfCached;
+    /** The values in seconds, or -1 in case the directive is not present. */
+    long maxAge = -1;
+    long maxStale = -1;
+    long minFresh = -1;
+
+    private CacheControl() {
+        // created through parse method
+    }
+
+    /**
+     * @param headerValues The values of the <code>Cache-Control</code> header, may be <code>null</code>.
+     * @param pragma       The values of the <code>Pragma</code> header, which is considered for the
+     *                     <code>no-cache</code> directive in case there is no <code>Cache-Control</code> header, may
+     *                     be <code>null</code>.
+     * @return The parsed directives.
+     */
+    static CacheControl parse(List<String> headerValues, List<String> pragma) {
+        CacheControl cacheControl = new CacheControl();
+        if (headerValues == null || headerValues.isEmpty()) {
+            cacheControl.noCache = pragma != null && StringUtils.join(pragma, ",").toLowerCase(Locale.ROOT).contains("no-cache");
+            return cacheControl;
+        }
+        Matcher matcher = DIRECTIVE_PATTERN.matcher(StringUtils.join(headerValues, ","));
+        while (matcher.find()) {
+            String name = matcher.group(1).toLowerCase();
+            String value = matcher.group(2) != null ? StringUtils.strip(matcher.group(2), "\"") : null;
+            switch (name) {
+                case "no-store":
+                    cacheControl.noStore = true;
+                    break;
+                case "no-cache":
+                    // a no-cache with field names only applies to these fields; we do not store partial
+                    // responses, so it is treated like a no-cache without field names
+                    cacheControl.noCache = true;
+                    break;
+                case "must-revalidate":
+                case "proxy-revalidate":
+                    cacheControl.mustRevalidate = true;
+                    break;
+                case "only-if-cached":
+                    cacheControl.onlyIfCached = true;
+                    break;
+                case "max-age":
+                    cacheControl.maxAge = parseSeconds(value, -1);
+                    break;
+                case "max-stale":
+                    cacheControl.maxStale = value == null ? UNLIMITED : parseSeconds(value, UNLIMITED);
+                    break;
+                case "min-fresh":
+                    cacheControl.minFresh = parseSeconds(value, -1);
+                    break;
+                default:
+                    // other directives (e.g. public, private, s-maxage) are not relevant for a private cache
+                    break;
+            }
+        }
+        return cacheControl;
+    }
+
+    private static long parseSeconds(String value, long defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            // values which exceed the range are treated as infinity
+            return value.matches("\\d+") ? Integer.MAX_VALUE : defaultValue;
+        }
+    }
+
+}
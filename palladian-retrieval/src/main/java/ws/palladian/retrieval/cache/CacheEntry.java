@@ -0,0 +1,205 @@
+package ws.palladian.retrieval.cache;
+
+import ws.palladian.helper.collection.CaseInsensitiveMap;
+import ws.palladian.retrieval.HttpResult;
+import ws.palladian.retrieval.helper.HttpHelper;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A stored response together with the information which is needed for calculating its freshness, see <a
+ * href="https://www.rfc-editor.org/rfc/rfc9111#section-4.2">RFC 9111, section 4.2</a>.
+ *
+ * @author Philipp Katz
+ */
+final class CacheEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Fraction of the time since the last modification which is used as heuristic freshness lifetime. */
+    private static final double HEURISTIC_FRACTION = 0.1;
+
+    /** Upper bound for the heuristic freshness lifetime. */
+    private static final long MAX_HEURISTIC_LIFETIME = TimeUnit.DAYS.toMillis(1);
+
+    /** Header fields of a 304 response which must not replace the stored ones. */
+    private static final Set<String> EXCLUDED_UPDATE_HEADERS = new HashSet<>(Arrays.asList("content-length", "content-encoding", "transfer-encoding", "content-range"));
+
+    final String url;
+    final int statusCode;
+    final CaseInsensitiveMap<List<String>> headers;
+    final List<String> locations;
+    /** The content; <code>null</code> for the metadata which is stored separately by the {@link DiskStore}. */
+    final byte[] content;
+    /** The values of the request header fields which are nominated by the <code>Vary</code> header. */
+    final Map<String, String> varyValues;
+    /** The time when the request was sent and the response was received. */
+    final long requestTime;
+    final long responseTime;
+
+    CacheEntry(String url, int statusCode, CaseInsensitiveMap<List<String>> headers, List<String> locations, byte[] content, Map<String, String> varyValues, long requestTime, long responseTime) {
+        this.url = url;
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.locations = locations;
+        this.content = content;
+        this.varyValues = varyValues;
+        this.requestTime = requestTime;
+        this.responseTime = responseTime;
+    }
+
+    static CacheEntry create(HttpResult result, Map<String, String> varyValues, long requestTime, long responseTime) {
+        return new CacheEntry(result.getUrl(), result.getStatusCode(), new CaseInsensitiveMap<>(result.getHeaders()), new ArrayList<>(result.getLocations()), result.getContent(), varyValues, requestTime, responseTime);
+    }
+
+    /**
+     * Update the entry with the header fields of a <code>304 Not Modified</code> response.
+     *
+     * @param notModified The 304 response.
+     * @return The updated entry.
+     */
+    CacheEntry update(HttpResult notModified, long requestTime, long responseTime) {
+        CaseInsensitiveMap<List<String>> updatedHeaders = new CaseInsensitiveMap<>(headers);
+        for (Map.Entry<String, List<String>> header : notModified.getHeaders().entrySet()) {
+            if (header.getKey() != null && !EXCLUDED_UPDATE_HEADERS.contains(header.getKey().toLowerCase())) {
+                updatedHeaders.put(header.getKey(), header.getValue());
+            }
+        }
+        return new CacheEntry(url, statusCode, updatedHeaders, locations, content, varyValues, requestTime, responseTime);
+    }
+
+    CacheEntry withContent(byte[] content) {
+        return new CacheEntry(url, statusCode, headers, locations, content, varyValues, requestTime, responseTime);
+    }
+
+    CacheControl getCacheControl() {
+        return CacheControl.parse(headers.get("Cache-Control"), headers.get("Pragma"));
+    }
+
+    String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values != null ? String.join(", ", values) : null;
+    }
+
+    boolean hasValidators() {
+        return getHeader("ETag") != null || getHeader("Last-Modified") != null;
+    }
+
+    private long getDate(String headerName) {
+        if (!headers.containsKey(headerName)) {
+            return -1;
+        }
+        HttpResult result = new HttpResult(url, new byte[0], Collections.singletonMap(headerName, headers.get(headerName)), statusCode, 0, locations);
+        Date date = HttpHelper.getDateFromHeader(result, headerName, true);
+        return date != null ? date.getTime() : -1;
+    }
+
+    /** @return The freshness lifetime in milliseconds. */
+    long getFreshnessLifetime() {
+        CacheControl cacheControl = getCacheControl();
+        if (cacheControl.maxAge >= 0) {
+            return TimeUnit.SECONDS.toMillis(cacheControl.maxAge);
+        }
+        long date = getDate("Date");
+        if (date == -1) {
+            date = responseTime;
+        }
+        if (getHeader("Expires") != null) {
+            // invalid values (e.g. "0") represent a time in the past
+            long expires = getDate("Expires");
+            return expires != -1 ? Math.max(0, expires - date) : 0;
+        }
+        long lastModified = getDate("Last-Modified");
+        if (lastModified != -1) {
+            return Math.min(MAX_HEURISTIC_LIFETIME, (long) (HEURISTIC_FRACTION * Math.max(0, date - lastModified)));
+        }
+        return 0;
+    }
+
+    /** @return The current age in milliseconds. */
+    long getAge(long now) {
+        long date = getDate("Date");
+        long apparentAge = date != -1 ? Math.max(0, responseTime - date) : 0;
+        long ageValue = 0;
+        String age = getHeader("Age");
+        if (age != null) {
+            try {
+                ageValue = TimeUnit.SECONDS.toMillis(Long.parseLong(age.trim()));
+            } catch (NumberFormatException e) {
+                // ignore invalid values
+            }
+        }
+        long correctedAge = ageValue + (responseTime - requestTime);
+        return Math.max(apparentAge, correctedAge) + (now - responseTime);
+    }
+
+    /**
+     * Check whether the entry can be used without revalidation.
+     *
+     * @param now                 The current time.
+     * @param requestCacheControl The directives of the request.
+     * @return <code>true</code> in case the entry can be used.
+     */
+    boolean isFresh(long now, CacheControl requestCacheControl) {
+        CacheControl cacheControl = getCacheControl();
+        if (cacheControl.noCache || requestCacheControl.noCache) {
+            return false;
+        }
+        long age = getAge(now);
+        long lifetime = getFreshnessLifetime();
+        if (requestCacheControl.maxAge >= 0 && age > TimeUnit.SECONDS.toMillis(requestCacheControl.maxAge)) {
+            return false;
+        }
+        if (requestCacheControl.minFresh >= 0) {
+            return lifetime - age >= TimeUnit.SECONDS.toMillis(requestCacheControl.minFresh);
+        }
+        if (lifetime > age) {
+            return true;
+        }
+        // stale; can only be used, in case the client accepts it
+        if (requestCacheControl.maxStale >= 0 && !cacheControl.mustRevalidate) {
+            return requestCacheControl.maxStale == CacheControl.UNLIMITED || age - lifetime <= TimeUnit.SECONDS.toMillis(requestCacheControl.maxStale);
+        }
+        return false;
+    }
+
+    /**
+     * @param requestHeaders The header fields of the request, with lower case names.
+     * @return <code>true</code> in case the request has the same values for the fields nominated by <code>Vary</code>.
+     */
+    boolean matchesVary(Map<String, String> requestHeaders) {
+        for (Map.Entry<String, String> varyValue : varyValues.entrySet()) {
+            if (!Objects.equals(varyValue.getValue(), requestHeaders.get(varyValue.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create the result which is returned to the client, with an <code>Age</code> header field for the current age.
+     *
+     * @param now The current time.
+     * @return The result.
+     */
+    HttpResult createResult(long now) {
+        CaseInsensitiveMap<List<String>> resultHeaders = new CaseInsensitiveMap<>(headers);
+        resultHeaders.put("Age", Collections.singletonList(String.valueOf(TimeUnit.MILLISECONDS.toSeconds(getAge(now)))));
+        return new HttpResult(url, content, resultHeaders, statusCode, 0, locations);
+    }
+
+    /** @return The approximate number of bytes which this entry occupies in memory. */
+    long getWeight() {
+        long weight = 256 + (content != null ? content.length : 0) + 2L * url.length();
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            weight += 2L * header.getKey().length();
+            for (String value : header.getValue()) {
+                weight += 2L * value.length();
+            }
+        }
+        return weight;
+    }
+
+}
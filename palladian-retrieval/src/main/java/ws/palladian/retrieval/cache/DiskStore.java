@@ -0,0 +1,356 @@
+package ws.palladian.retrieval.cache;
+
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ws.palladian.helper.io.FileHelper;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * On-disk tier of the {@link HttpCache}. The metadata of each entry is stored in a file named by the hash of the URL,
+ * the content is stored LZ4 compressed in a file named by the hash of the content (i.e. content-addressed), so that
+ * identical content of different URLs (or of successive versions of the same URL) is stored only once. Files are
+ * written to a temporary file first and moved in place, so that concurrent readers never see partial files.
+ *
+ * <p>
+ * The store keeps an index of the entries and counts the references to each content file; content files which are no
+ * longer referenced are deleted. When the total size of the files exceeds the limit, the least recently used entries
+ * are evicted. The index is rebuilt from the files when the store is opened; at this point, content files without
+ * entry (e.g. left over after a crash) are deleted as well. Files are compressed and written outside of the lock,
+ * which only guards the moves and the index.
+ *
+ * @author Philipp Katz
+ */
+final class DiskStore {
+
+    /** The logger for this class. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskStore.class);
+
+    private static final String ENTRY_EXTENSION = ".ser";
+
+    private static final String CONTENT_EXTENSION = ".lz4";
+
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    /** An entry in the index. */
+    private static final class IndexEntry {
+        final String contentHash;
+        /** The size of the entry file (without the content). */
+        final long size;
+
+        IndexEntry(String contentHash, long size) {
+            this.contentHash = contentHash;
+            this.size = size;
+        }
+    }
+
+    /** A content file with the number of entries which reference it. */
+    private static final class StoredContent {
+        final long size;
+        int numReferences;
+
+        StoredContent(long size) {
+            this.size = size;
+        }
+    }
+
+    private final Path entryDirectory;
+
+    private final Path contentDirectory;
+
+    private final long maxSize;
+
+    /** Hash of the URL -> entry; in access order for the LRU eviction. */
+    private final LinkedHashMap<String, IndexEntry> index = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Hash of the content -> content. */
+    private final Map<String, StoredContent> contents = new HashMap<>();
+
+    /** The total size of all entry and content files. */
+    private long size;
+
+    /**
+     * @param directory The directory, existing entries are used.
+     * @param maxSize   The maximum size of all files in bytes.
+     */
+    DiskStore(File directory, long maxSize) {
+        this.entryDirectory = directory.toPath().resolve("entries");
+        this.contentDirectory = directory.toPath().resolve("content");
+        this.maxSize = maxSize;
+        try {
+            Files.createDirectories(entryDirectory);
+            Files.createDirectories(contentDirectory);
+            loadIndex();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open cache directory " + directory, e);
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        Map<String, Path> contentPaths = new HashMap<>();
+        try (Stream<Path> paths = Files.walk(contentDirectory)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                String fileName = path.getFileName().toString();
+                if (fileName.endsWith(CONTENT_EXTENSION)) {
+                    contentPaths.put(fileName.substring(0, fileName.length() - CONTENT_EXTENSION.length()), path);
+                } else {
+                    Files.delete(path);
+                }
+            }
+        }
+        // add the entries from the least to the most recently used
+        List<Path> entryPaths = new ArrayList<>();
+        Map<Path, FileTime> lastModified = new HashMap<>();
+        try (Stream<Path> paths = Files.list(entryDirectory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (path.getFileName().toString().endsWith(ENTRY_EXTENSION)) {
+                    entryPaths.add(path);
+                    lastModified.put(path, Files.getLastModifiedTime(path));
+                } else {
+                    Files.delete(path);
+                }
+            }
+        }
+        entryPaths.sort(Comparator.comparing(lastModified::get));
+        for (Path entryPath : entryPaths) {
+            String fileName = entryPath.getFileName().toString();
+            String key = fileName.substring(0, fileName.length() - ENTRY_EXTENSION.length());
+            String contentHash;
+            try {
+                StoredEntry storedEntry = FileHelper.deserialize(entryPath.toString());
+                contentHash = storedEntry.contentHash;
+            } catch (IOException | RuntimeException e) {
+                contentHash = null;
+            }
+            Path contentPath = contentHash != null ? contentPaths.get(contentHash) : null;
+            if (contentPath == null) {
+                LOGGER.debug("Removing unreadable cache entry {}", entryPath);
+                Files.delete(entryPath);
+                continue;
+            }
+            StoredContent content = contents.get(contentHash);
+            if (content == null) {
+                content = new StoredContent(Files.size(contentPath));
+                contents.put(contentHash, content);
+                size += content.size;
+            }
+            content.numReferences++;
+            IndexEntry indexEntry = new IndexEntry(contentHash, Files.size(entryPath));
+            index.put(key, indexEntry);
+            size += indexEntry.size;
+        }
+        int numRemoved = 0;
+        for (Map.Entry<String, Path> contentPath : contentPaths.entrySet()) {
+            if (!contents.containsKey(contentPath.getKey())) {
+                Files.delete(contentPath.getValue());
+                numRemoved++;
+            }
+        }
+        LOGGER.debug("Loaded {} cache entries with {} bytes, removed {} unreferenced content files", index.size(), size, numRemoved);
+        evict();
+    }
+
+    private Path getEntryPath(String key) {
+        return entryDirectory.resolve(key + ENTRY_EXTENSION);
+    }
+
+    private Path getContentPath(String contentHash) {
+        return contentDirectory.resolve(contentHash.substring(0, 2)).resolve(contentHash + CONTENT_EXTENSION);
+    }
+
+    /**
+     * @param url The URL.
+     * @return The entry, or <code>null</code> in case no (readable) entry exists.
+     */
+    synchronized CacheEntry get(String url) {
+        String key = DigestUtils.sha256Hex(url);
+        IndexEntry indexEntry = index.get(key);
+        if (indexEntry == null) {
+            return null;
+        }
+        Path entryPath = getEntryPath(key);
+        CacheEntry entry;
+        try {
+            StoredEntry storedEntry = FileHelper.deserialize(entryPath.toString());
+            if (!storedEntry.entry.url.equals(url)) {
+                return null;
+            }
+            try (InputStream in = new LZ4BlockInputStream(Files.newInputStream(getContentPath(storedEntry.contentHash)))) {
+                entry = storedEntry.entry.withContent(in.readAllBytes());
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not read cache entry for {}, removing it: {}", url, e.toString());
+            removeEntry(key);
+            return null;
+        }
+        // keep the access order for the next time the index is loaded
+        try {
+            Files.setLastModifiedTime(entryPath, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.debug("Could not update the access time of {}: {}", entryPath, e.toString());
+        }
+        return entry;
+    }
+
+    void put(CacheEntry entry) {
+        String contentHash = DigestUtils.sha256Hex(entry.content);
+        String key = DigestUtils.sha256Hex(entry.url);
+        Path contentTempPath = null;
+        Path entryTempPath = null;
+        try {
+            // compress and write the files outside of the lock; only the moves and the index update are synchronized
+            entryTempPath = Files.createTempFile(entryDirectory, key, TEMP_EXTENSION);
+            FileHelper.serialize(new StoredEntry(entry.withContent(null), contentHash), entryTempPath.toString());
+            for (; ; ) {
+                if (contentTempPath == null && !containsContent(contentHash)) {
+                    contentTempPath = writeContent(contentHash, entry.content);
+                }
+                synchronized (this) {
+                    StoredContent content = contents.get(contentHash);
+                    if (content == null) {
+                        if (contentTempPath == null) {
+                            // the content was removed in the meantime; write it and try again
+                            continue;
+                        }
+                        Path contentPath = getContentPath(contentHash);
+                        Files.move(contentTempPath, contentPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        contentTempPath = null;
+                        content = new StoredContent(Files.size(contentPath));
+                        contents.put(contentHash, content);
+                        size += content.size;
+                    }
+                    // reference the content before releasing the previous one, which might be the same
+                    content.numReferences++;
+                    try {
+                        Path entryPath = getEntryPath(key);
+                        Files.move(entryTempPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        entryTempPath = null;
+                        IndexEntry indexEntry = new IndexEntry(contentHash, Files.size(entryPath));
+                        IndexEntry previous = index.put(key, indexEntry);
+                        size += indexEntry.size;
+                        if (previous != null) {
+                            size -= previous.size;
+                            release(previous.contentHash);
+                        }
+                    } catch (IOException e) {
+                        release(contentHash);
+                        throw e;
+                    }
+                    evict();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not write cache entry for {}: {}", entry.url, e.toString());
+        } finally {
+            // temporary files which were not moved, e.g. because the same content was stored concurrently
+            deleteTempFile(contentTempPath);
+            deleteTempFile(entryTempPath);
+        }
+    }
+
+    private synchronized boolean containsContent(String contentHash) {
+        return contents.containsKey(contentHash);
+    }
+
+    /** Write the compressed content to a temporary file next to its destination. */
+    private Path writeContent(String contentHash, byte[] content) throws IOException {
+        Path contentDirectory = getContentPath(contentHash).getParent();
+        Files.createDirectories(contentDirectory);
+        Path tempPath = Files.createTempFile(contentDirectory, contentHash, TEMP_EXTENSION);
+        try (OutputStream out = new LZ4BlockOutputStream(Files.newOutputStream(tempPath))) {
+            out.write(content);
+        } catch (IOException e) {
+            deleteTempFile(tempPath);
+            throw e;
+        }
+        return tempPath;
+    }
+
+    private static void deleteTempFile(Path tempPath) {
+        if (tempPath != null) {
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException e) {
+                LOGGER.debug("Could not remove temporary file {}: {}", tempPath, e.toString());
+            }
+        }
+    }
+
+    synchronized void remove(String url) {
+        removeEntry(DigestUtils.sha256Hex(url));
+    }
+
+    /** Remove the entry with the given key, and its content in case it is no longer referenced. */
+    private void removeEntry(String key) {
+        try {
+            Files.deleteIfExists(getEntryPath(key));
+        } catch (IOException e) {
+            LOGGER.warn("Could not remove cache entry {}: {}", key, e.toString());
+        }
+        IndexEntry indexEntry = index.remove(key);
+        if (indexEntry != null) {
+            size -= indexEntry.size;
+            release(indexEntry.contentHash);
+        }
+    }
+
+    /** Decrement the references to the given content, and delete it in case it is no longer referenced. */
+    private void release(String contentHash) {
+        StoredContent content = contents.get(contentHash);
+        if (content == null || --content.numReferences > 0) {
+            return;
+        }
+        contents.remove(contentHash);
+        size -= content.size;
+        try {
+            Files.deleteIfExists(getContentPath(contentHash));
+        } catch (IOException e) {
+            LOGGER.warn("Could not remove cache content {}: {}", contentHash, e.toString());
+        }
+    }
+
+    /** Remove the least recently used entries, until the size is within the limit. */
+    private void evict() {
+        int numEvicted = 0;
+        while (size > maxSize && !index.isEmpty()) {
+            removeEntry(index.keySet().iterator().next());
+            numEvicted++;
+        }
+        if (numEvicted > 0) {
+            LOGGER.debug("Evicted {} cache entries, size is {} bytes", numEvicted, size);
+        }
+    }
+
+    /** @return The number of entries. */
+    synchronized int getNumEntries() {
+        return index.size();
+    }
+
+    /** @return The total size of all entry and content files in bytes. */
+    synchronized long getSize() {
+        return size;
+    }
+
+    /** The metadata of an entry together with the hash of its content. */
+    private static final class StoredEntry implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final CacheEntry entry;
+        final String contentHash;
+
+        StoredEntry(CacheEntry entry, String contentHash) {
+            this.entry = entry;
+            this.contentHash = contentHash;
+        }
+    }
+
+}
@@ -0,0 +1,369 @@
+package ws.palladian.retrieval.cache;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ws.palladian.retrieval.HttpEntity;
+import ws.palladian.retrieval.HttpException;
+import ws.palladian.retrieval.HttpMethod;
+import ws.palladian.retrieval.HttpRequest2;
+import ws.palladian.retrieval.HttpResult;
+import ws.palladian.retrieval.HttpRetriever;
+import ws.palladian.retrieval.HttpRetrieverFactory;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A private HTTP cache for the {@link HttpRetriever}, following <a href="https://www.rfc-editor.org/rfc/rfc9111">RFC
+ * 9111</a>. Responses to GET requests are stored according to their <code>Cache-Control</code> and
+ * <code>Expires</code> header fields (or heuristically, based on <code>Last-Modified</code>). Fresh responses are
+ * served without contacting the server; stale responses with an <code>ETag</code> or <code>Last-Modified</code>
+ * validator are revalidated with a conditional request, and served from the cache in case the server responds with
+ * <code>304 Not Modified</code>. Successful unsafe requests (e.g. POST) invalidate the stored response of their URL.
+ * </p>
+ *
+ * <p>
+ * Entries are kept in an in-memory tier with a size limit in bytes, from which the least recently used entries are
+ * evicted; optionally, an on-disk tier (see {@link #HttpCache(long, File, long)}) keeps the entries content-addressed
+ * and compressed up to a larger size limit, so that they survive evictions and restarts. Results which are served from the cache have an
+ * <code>Age</code> header field and zero transferred bytes; apart from this, they are indistinguishable from a
+ * response of the server.
+ * </p>
+ *
+ * <p>
+ * The cache is thread safe and is usually shared between all {@link HttpRetriever} instances, see
+ * {@link HttpRetrieverFactory#setCache(HttpCache)}.
+ * </p>
+ *
+ * @author Philipp Katz
+ */
+public final class HttpCache {
+
+    /** The logger for this class. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpCache.class);
+
+    /** Executes the requests which cannot be answered from the cache. */
+    public interface RequestExecutor {
+        HttpResult execute(HttpRequest2 request) throws HttpException;
+    }
+
+    /** Status codes which are cacheable by default, see RFC 9110, section 15.1. */
+    private static final Set<Integer> CACHEABLE_STATUS_CODES = new HashSet<>(Arrays.asList(200, 203, 204, 300, 301, 308, 404, 405, 410, 414, 501));
+
+    /** The default maximum size of the on-disk tier in bytes. */
+    public static final long DEFAULT_MAX_DISK_SIZE = 1024L * 1024 * 1024;
+
+    private static final Set<HttpMethod> UNSAFE_METHODS = EnumSet.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.DELETE, HttpMethod.PATCH);
+
+    private final long maxMemorySize;
+
+    /** The in-memory tier, in access order for the LRU eviction. */
+    private final LinkedHashMap<String, CacheEntry> memoryEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long memorySize;
+
+    /** The on-disk tier, or <code>null</code>. */
+    private final DiskStore diskStore;
+
+    private final AtomicLong numHits = new AtomicLong();
+
+    private final AtomicLong numMisses = new AtomicLong();
+
+    private final AtomicLong numRevalidations = new AtomicLong();
+
+    private final AtomicLong numNotModified = new AtomicLong();
+
+    /**
+     * Create a new cache which is kept in memory only.
+     *
+     * @param maxMemorySize The maximum size of the in-memory tier in bytes, greater zero.
+     */
+    public HttpCache(long maxMemorySize) {
+        this(maxMemorySize, null);
+    }
+
+    /**
+     * Create a new cache with an in-memory and an on-disk tier, which is limited to {@link #DEFAULT_MAX_DISK_SIZE}.
+     *
+     * @param maxMemorySize The maximum size of the in-memory tier in bytes, greater zero.
+     * @param directory     The directory for the on-disk tier, or <code>null</code> to keep the cache in memory only;
+     *                      entries which exist in the directory are used.
+     */
+    public HttpCache(long maxMemorySize, File directory) {
+        this(maxMemorySize, directory, DEFAULT_MAX_DISK_SIZE);
+    }
+
+    /**
+     * Create a new cache with an in-memory and an on-disk tier.
+     *
+     * @param maxMemorySize The maximum size of the in-memory tier in bytes, greater zero.
+     * @param directory     The directory for the on-disk tier, or <code>null</code> to keep the cache in memory only;
+     *                      entries which exist in the directory are used.
+     * @param maxDiskSize   The maximum size of the on-disk tier in bytes, greater zero; when it is exceeded, the least
+     *                      recently used entries are removed from the disk.
+     */
+    public HttpCache(long maxMemorySize, File directory, long maxDiskSize) {
+        Validate.isTrue(maxMemorySize > 0, "maxMemorySize must be greater zero");
+        Validate.isTrue(maxDiskSize > 0, "maxDiskSize must be greater zero");
+        this.maxMemorySize = maxMemorySize;
+        this.diskStore = directory != null ? new DiskStore(directory, maxDiskSize) : null;
+    }
+
+    /**
+     * Execute the given request, or answer it from the cache.
+     *
+     * @param request  The request, not <code>null</code>.
+     * @param executor The executor for requests which need to be sent to the server, not <code>null</code>.
+     * @return The result.
+     * @throws HttpException In case the executor throws an exception.
+     */
+    public HttpResult execute(HttpRequest2 request, RequestExecutor executor) throws HttpException {
+        Validate.notNull(request, "request must not be null");
+        Validate.notNull(executor, "executor must not be null");
+        String url = request.getUrl();
+        if (request.getMethod() != HttpMethod.GET) {
+            HttpResult result = executor.execute(request);
+            if (UNSAFE_METHODS.contains(request.getMethod()) && result.getStatusCode() < 400) {
+                invalidate(url);
+            }
+            return result;
+        }
+        Map<String, String> requestHeaders = new HashMap<>();
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            requestHeaders.put(header.getKey().toLowerCase(), header.getValue());
+        }
+        CacheControl requestCacheControl = CacheControl.parse(toList(requestHeaders.get("cache-control")), toList(requestHeaders.get("pragma")));
+        // requests with credentials or own preconditions are passed through
+        if (requestCacheControl.noStore || requestHeaders.containsKey("authorization") || requestHeaders.containsKey("if-none-match") || requestHeaders.containsKey("if-modified-since")) {
+            numMisses.incrementAndGet();
+            return executor.execute(request);
+        }
+
+        CacheEntry entry = get(url);
+        if (entry != null && !entry.matchesVary(requestHeaders)) {
+            entry = null;
+        }
+        long now = System.currentTimeMillis();
+        if (entry != null && entry.isFresh(now, requestCacheControl)) {
+            numHits.incrementAndGet();
+            LOGGER.debug("Cache hit for {}", url);
+            return entry.createResult(now);
+        }
+        if (requestCacheControl.onlyIfCached) {
+            numMisses.incrementAndGet();
+            return new HttpResult(url, new byte[0], Collections.emptyMap(), 504, 0, Collections.emptyList());
+        }
+
+        HttpRequest2 sentRequest = request;
+        if (entry != null && entry.hasValidators()) {
+            numRevalidations.incrementAndGet();
+            Map<String, String> conditionalHeaders = new HashMap<>(request.getHeaders());
+            String eTag = entry.getHeader("ETag");
+            if (eTag != null) {
+                conditionalHeaders.put("If-None-Match", eTag);
+            }
+            String lastModified = entry.getHeader("Last-Modified");
+            if (lastModified != null) {
+                conditionalHeaders.put("If-Modified-Since", lastModified);
+            }
+            sentRequest = new ConditionalRequest(request, conditionalHeaders);
+        } else {
+            numMisses.incrementAndGet();
+        }
+        long requestTime = System.currentTimeMillis();
+        HttpResult result = executor.execute(sentRequest);
+        long responseTime = System.currentTimeMillis();
+
+        if (result.getStatusCode() == 304 && entry != null && entry.hasValidators()) {
+            numNotModified.incrementAndGet();
+            LOGGER.debug("Revalidated {}", url);
+            CacheEntry updatedEntry = entry.update(result, requestTime, responseTime);
+            put(updatedEntry);
+            return updatedEntry.createResult(responseTime);
+        }
+        if (isCacheable(result)) {
+            put(CacheEntry.create(result, getVaryValues(result, requestHeaders), requestTime, responseTime));
+        } else if (entry != null) {
+            invalidate(url);
+        }
+        return result;
+    }
+
+    private static List<String> toList(String value) {
+        return value != null ? Collections.singletonList(value) : null;
+    }
+
+    private static boolean isCacheable(HttpResult result) {
+        if (!CACHEABLE_STATUS_CODES.contains(result.getStatusCode()) || result.isMaxFileSizeReached()) {
+            return false;
+        }
+        CacheControl cacheControl = CacheControl.parse(result.getHeader("Cache-Control"), null);
+        if (cacheControl.noStore) {
+            return false;
+        }
+        String vary = result.getHeaderString("Vary");
+        if (vary != null && vary.contains("*")) {
+            return false;
+        }
+        // entries without freshness and validators could never be used
+        boolean hasValidators = result.getHeader("ETag") != null || result.getHeader("Last-Modified") != null;
+        return hasValidators || cacheControl.maxAge > 0 || result.getHeader("Expires") != null;
+    }
+
+    private static Map<String, String> getVaryValues(HttpResult result, Map<String, String> requestHeaders) {
+        String vary = result.getHeaderString("Vary");
+        if (vary == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> varyValues = new HashMap<>();
+        for (String name : StringUtils.split(vary, ", ")) {
+            String lowerCaseName = name.toLowerCase();
+            varyValues.put(lowerCaseName, requestHeaders.get(lowerCaseName));
+        }
+        return varyValues;
+    }
+
+    private CacheEntry get(String url) {
+        synchronized (memoryEntries) {
+            CacheEntry entry = memoryEntries.get(url);
+            if (entry != null || diskStore == null) {
+                return entry;
+            }
+        }
+        CacheEntry entry = diskStore.get(url);
+        if (entry != null) {
+            putMemory(entry);
+        }
+        return entry;
+    }
+
+    private void put(CacheEntry entry) {
+        putMemory(entry);
+        if (diskStore != null) {
+            diskStore.put(entry);
+        }
+    }
+
+    private void putMemory(CacheEntry entry) {
+        long weight = entry.getWeight();
+        synchronized (memoryEntries) {
+            CacheEntry previous = memoryEntries.remove(entry.url);
+            if (previous != null) {
+                memorySize -= previous.getWeight();
+            }
+            if (weight > maxMemorySize) {
+                return;
+            }
+            memoryEntries.put(entry.url, entry);
+            memorySize += weight;
+            Iterator<CacheEntry> iterator = memoryEntries.values().iterator();
+            while (memorySize > maxMemorySize && iterator.hasNext()) {
+                memorySize -= iterator.next().getWeight();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove the stored response for the given URL.
+     *
+     * @param url The URL, not <code>null</code>.
+     */
+    public void invalidate(String url) {
+        Validate.notNull(url, "url must not be null");
+        synchronized (memoryEntries) {
+            CacheEntry previous = memoryEntries.remove(url);
+            if (previous != null) {
+                memorySize -= previous.getWeight();
+            }
+        }
+        if (diskStore != null) {
+            diskStore.remove(url);
+        }
+    }
+
+    /** @return The number of requests which were answered from the cache without contacting the server. */
+    public long getNumHits() {
+        return numHits.get();
+    }
+
+    /** @return The number of requests for which no usable entry was stored. */
+    public long getNumMisses() {
+        return numMisses.get();
+    }
+
+    /** @return The number of conditional requests which were sent for revalidating a stale entry. */
+    public long getNumRevalidations() {
+        return numRevalidations.get();
+    }
+
+    /** @return The number of revalidations which confirmed the stored entry (<code>304 Not Modified</code>). */
+    public long getNumNotModified() {
+        return numNotModified.get();
+    }
+
+    /** @return The number of entries in the in-memory tier. */
+    public int getNumMemoryEntries() {
+        synchronized (memoryEntries) {
+            return memoryEntries.size();
+        }
+    }
+
+    /** @return The approximate size of the in-memory tier in bytes. */
+    public long getMemorySize() {
+        synchronized (memoryEntries) {
+            return memorySize;
+        }
+    }
+
+    /** @return The number of entries in the on-disk tier, or zero in case there is no on-disk tier. */
+    public int getNumDiskEntries() {
+        return diskStore != null ? diskStore.getNumEntries() : 0;
+    }
+
+    /** @return The size of the files in the on-disk tier in bytes, or zero in case there is no on-disk tier. */
+    public long getDiskSize() {
+        return diskStore != null ? diskStore.getSize() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpCache [hits=" + numHits + ", misses=" + numMisses + ", revalidations=" + numRevalidations + ", notModified=" + numNotModified + ", memoryEntries=" + getNumMemoryEntries() + ", memorySize=" + getMemorySize() + ", diskEntries=" + getNumDiskEntries() + ", diskSize=" + getDiskSize() + "]";
+    }
+
+    /** A request with additional header fields for the revalidation. */
+    private static final class ConditionalRequest implements HttpRequest2 {
+        private final HttpRequest2 request;
+        private final Map<String, String> headers;
+
+        ConditionalRequest(HttpRequest2 request, Map<String, String> headers) {
+            this.request = request;
+            this.headers = headers;
+        }
+
+        @Override
+        public String getUrl() {
+            return request.getUrl();
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return request.getMethod();
+        }
+
+        @Override
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public HttpEntity getEntity() {
+            return request.getEntity();
+        }
+    }
+
+}
@@ -0,0 +1,279 @@
+package ws.palladian.retrieval.crawler;
+
+import org.apache.commons.lang3.Validate;
+import ws.palladian.helper.UrlHelper;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * Host-aware frontier of URLs to crawl. The URLs are kept in a FIFO queue per host. Hosts which have queued URLs and
+ * are allowed to receive further requests are scheduled in a priority queue, ordered by the time at which they are
+ * ready again; this way, a politeness delay between the requests to the same host and a maximum number of concurrent
+ * requests per host can be enforced, while requests to different hosts are not delayed.
+ * </p>
+ *
+ * <p>
+ * Workers {@link #take()} a URL, which blocks until a host is ready, and {@link #release(String)} it after it has been
+ * processed. The frontier does not check for duplicates; this is the responsibility of the caller.
+ * </p>
+ *
+ * @author Philipp Katz
+ */
+public final class CrawlFrontier {
+
+    /** The queued URLs and the state of one host. */
+    private static final class HostQueue {
+        private final Deque<String> urls = new ArrayDeque<>();
+        /** Number of taken, but not yet released URLs. */
+        private int active;
+        /** Earliest time (in nanos, see {@link System#nanoTime()}) for the next request to this host. */
+        private long readyTime;
+        /** Whether the host is currently contained in the ready queue. */
+        private boolean scheduled;
+
+        HostQueue(long readyTime) {
+            this.readyTime = readyTime;
+        }
+
+        boolean isIdle(long now) {
+            return active == 0 && urls.isEmpty() && readyTime <= now;
+        }
+    }
+
+    /** Number of releases after which idle hosts are removed. */
+    private static final int CLEANUP_INTERVAL = 1024;
+
+    private final long politenessDelayNanos;
+
+    private final int maxConnectionsPerHost;
+
+    private final Map<String, HostQueue> hosts = new HashMap<>();
+
+    private final PriorityQueue<HostQueue> readyQueue = new PriorityQueue<>(Comparator.comparingLong(h -> h.readyTime));
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Signalled when the ready queue changes or the frontier is closed. */
+    private final Condition changed = lock.newCondition();
+
+    /** Signalled when no URLs are queued or being processed. */
+    private final Condition idle = lock.newCondition();
+
+    private int numQueued;
+
+    private int numActive;
+
+    private int numReleases;
+
+    private boolean closed;
+
+    /**
+     * Create a new frontier.
+     *
+     * @param politenessDelay       The minimum delay between two requests to the same host, zero for no delay.
+     * @param unit                  The time unit of the delay, not <code>null</code>.
+     * @param maxConnectionsPerHost The maximum number of URLs of the same host which are processed concurrently,
+     *                              greater zero.
+     */
+    public CrawlFrontier(long politenessDelay, TimeUnit unit, int maxConnectionsPerHost) {
+        Validate.isTrue(politenessDelay >= 0, "politenessDelay must be greater/equal zero");
+        Validate.notNull(unit, "unit must not be null");
+        Validate.isTrue(maxConnectionsPerHost > 0, "maxConnectionsPerHost must be greater zero");
+        this.politenessDelayNanos = unit.toNanos(politenessDelay);
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * @param url The URL.
+     * @return The host of the URL which is used for grouping, empty string in case it cannot be determined.
+     */
+    static String getHost(String url) {
+        return UrlHelper.getDomain(url, false);
+    }
+
+    /**
+     * Add a URL to the end of the queue of its host.
+     *
+     * @param url The URL, not <code>null</code>.
+     */
+    public void add(String url) {
+        Validate.notNull(url, "url must not be null");
+        String host = getHost(url);
+        lock.lock();
+        try {
+            HostQueue hostQueue = hosts.computeIfAbsent(host, h -> new HostQueue(System.nanoTime()));
+            hostQueue.urls.add(url);
+            numQueued++;
+            scheduleIfReady(hostQueue);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the next URL of a host which is ready, block until one is available.
+     *
+     * @return The URL, or <code>null</code> in case the frontier was closed.
+     * @throws InterruptedException In case the thread was interrupted while waiting.
+     */
+    public String take() throws InterruptedException {
+        lock.lock();
+        try {
+            for (; ; ) {
+                if (closed) {
+                    return null;
+                }
+                HostQueue hostQueue = readyQueue.peek();
+                if (hostQueue == null) {
+                    changed.await();
+                    continue;
+                }
+                long delay = hostQueue.readyTime - System.nanoTime();
+                if (delay > 0) {
+                    changed.awaitNanos(delay);
+                    continue;
+                }
+                readyQueue.poll();
+                hostQueue.scheduled = false;
+                String url = hostQueue.urls.poll();
+                numQueued--;
+                numActive++;
+                hostQueue.active++;
+                hostQueue.readyTime = System.nanoTime() + politenessDelayNanos;
+                scheduleIfReady(hostQueue);
+                return url;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mark a URL which was retrieved via {@link #take()} as processed. URLs which are discovered while processing
+     * should be added before releasing, so that the frontier does not run idle in between.
+     *
+     * @param url The URL, not <code>null</code>.
+     */
+    public void release(String url) {
+        Validate.notNull(url, "url must not be null");
+        String host = getHost(url);
+        lock.lock();
+        try {
+            HostQueue hostQueue = hosts.get(host);
+            if (hostQueue == null || hostQueue.active == 0) {
+                throw new IllegalStateException("No active URL for host \"" + host + "\"");
+            }
+            hostQueue.active--;
+            numActive--;
+            // the delay counts from the end of the last request; the ready time of a scheduled host must not be
+            // modified, as this would break the order of the ready queue
+            long now = System.nanoTime();
+            if (!hostQueue.scheduled) {
+                hostQueue.readyTime = Math.max(hostQueue.readyTime, now + politenessDelayNanos);
+            }
+            if (hostQueue.isIdle(now)) {
+                hosts.remove(host);
+            } else {
+                scheduleIfReady(hostQueue);
+            }
+            // hosts which are waiting for their politeness delay are kept, remove them from time to time
+            if (++numReleases % CLEANUP_INTERVAL == 0) {
+                hosts.values().removeIf(h -> h.isIdle(now));
+            }
+            if (numQueued == 0 && numActive == 0) {
+                idle.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void scheduleIfReady(HostQueue hostQueue) {
+        if (!hostQueue.scheduled && !hostQueue.urls.isEmpty() && hostQueue.active < maxConnectionsPerHost) {
+            hostQueue.scheduled = true;
+            readyQueue.add(hostQueue);
+            changed.signalAll();
+        }
+    }
+
+    /**
+     * Wait until no URLs are queued or being processed, or the frontier is closed.
+     *
+     * @param timeout The maximum time to wait.
+     * @param unit    The time unit of the timeout, not <code>null</code>.
+     * @return <code>true</code> in case the frontier is idle, <code>false</code> in case the timeout elapsed.
+     * @throws InterruptedException In case the thread was interrupted while waiting.
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (numQueued > 0 || numActive > 0) {
+                if (closed || nanos <= 0) {
+                    return false;
+                }
+                nanos = idle.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Close the frontier; threads which are blocked in {@link #take()} return <code>null</code>. */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+            idle.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return The number of queued URLs. */
+    public int size() {
+        lock.lock();
+        try {
+            return numQueued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return The number of URLs which were taken, but not yet released. */
+    public int getNumActive() {
+        lock.lock();
+        try {
+            return numActive;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return The number of hosts which have queued or active URLs. */
+    public int getNumHosts() {
+        lock.lock();
+        try {
+            return hosts.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return "CrawlFrontier [queued=" + numQueued + ", active=" + numActive + ", hosts=" + hosts.size() + "]";
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,671 @@
+package ws.palladian.retrieval.crawler;
+
+import it.unimi.dsi.fastutil.longs.LongAVLTreeSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSortedSet;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ws.palladian.helper.StopWatch;
+import ws.palladian.helper.collection.BloomFilter;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * Persistent state of a crawl, which allows to resume a crawl after a restart, and whose memory consumption is bounded
+ * by configuration instead of by the number of URLs. The state consists of:
+ * </p>
+ *
+ * <ul>
+ * <li>The set of all URLs which were ever added, stored as 64 bit fingerprints. Recently added fingerprints are kept
+ * in memory; when their number exceeds the configured maximum, they are written to disk as a new sorted run, of which
+ * only every {@value #INDEX_INTERVAL}th fingerprint is kept in memory as sparse index, so that a lookup needs at most
+ * one block read per run. To avoid rewriting all fingerprints on each flush, the new run is only merged with the
+ * newest runs which are not at least {@value #MERGE_FACTOR} times larger, so that the run sizes grow geometrically
+ * and the number of runs stays logarithmic in the number of URLs. A {@link BloomFilter} in front of the set avoids
+ * the disk access for the majority of new URLs.</li>
+ * <li>An append-only log of the added URLs, which serves as the frontier: URLs are {@link #poll() polled} in the order
+ * in which they were added, and {@link #complete(String) completed} after they were processed.</li>
+ * <li>A checkpoint, which records the log offset up to which all URLs were completed. After a restart, polling
+ * continues at this offset, so that URLs which were in progress are processed again.</li>
+ * </ul>
+ *
+ * <p>
+ * All files are kept in one directory; opening an existing directory resumes the state. The log is the source of
+ * truth: fingerprints which were not yet merged to disk are recovered from the log, and an incomplete entry at its end
+ * (e.g. after a crash) is discarded. Using 64 bit fingerprints, the probability of a collision (i.e. a new URL which is
+ * considered as already added) is below 0.1 percent for 200 million URLs.
+ * </p>
+ *
+ * @author Philipp Katz
+ */
+public final class CrawlState implements Closeable {
+
+    /** The logger for this class. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CrawlState.class);
+
+    /** Default for the expected number of URLs, used for sizing the Bloom filter. */
+    public static final int DEFAULT_EXPECTED_URLS = 10_000_000;
+
+    /** Default false positive probability of the Bloom filter. */
+    public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    /** Default for the maximum number of fingerprints which are kept in memory before they are merged to disk. */
+    public static final int DEFAULT_MAX_BUFFERED_FINGERPRINTS = 1_000_000;
+
+    /** Every n-th fingerprint of a run is kept in memory as index; this is also the size of a block to read. */
+    static final int INDEX_INTERVAL = 1024;
+
+    /** A run is merged with the newer runs, in case it is not at least this factor larger than them. */
+    static final int MERGE_FACTOR = 2;
+
+    static final String RUN_FILE_PREFIX = "fingerprints-";
+
+    private static final String RUN_FILE_EXTENSION = ".bin";
+
+    private static final String LOG_FILE = "frontier.log";
+
+    private static final String CHECKPOINT_FILE = "checkpoint.bin";
+
+    private static final int CHECKPOINT_VERSION = 2;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /** A sorted run of fingerprints on disk. */
+    private static final class FingerprintRun {
+        final long id;
+        final long size;
+        /** Every {@link #INDEX_INTERVAL}th fingerprint of the run. */
+        final long[] index;
+        final FileChannel channel;
+
+        FingerprintRun(long id, long size, long[] index, FileChannel channel) {
+            this.id = id;
+            this.size = size;
+            this.index = index;
+            this.channel = channel;
+        }
+
+        boolean contains(long fingerprint, ByteBuffer blockBuffer) throws IOException {
+            int indexPosition = Arrays.binarySearch(index, fingerprint);
+            if (indexPosition >= 0) {
+                return true;
+            }
+            int block = -indexPosition - 2;
+            if (block < 0) {
+                return false;
+            }
+            long blockStart = (long) block * INDEX_INTERVAL;
+            int blockSize = (int) Math.min(INDEX_INTERVAL, size - blockStart);
+            blockBuffer.clear();
+            blockBuffer.limit(blockSize * Long.BYTES);
+            long position = blockStart * Long.BYTES;
+            while (blockBuffer.hasRemaining()) {
+                int numRead = channel.read(blockBuffer, position + blockBuffer.position());
+                if (numRead < 0) {
+                    throw new EOFException("Unexpected end of fingerprint run " + id);
+                }
+            }
+            int low = 0;
+            int high = blockSize - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long value = blockBuffer.getLong(mid * Long.BYTES);
+                if (value < fingerprint) {
+                    low = mid + 1;
+                } else if (value > fingerprint) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final Path directory;
+
+    private final int maxBufferedFingerprints;
+
+    private final BloomFilter<Long> bloomFilter;
+
+    /** Fingerprints which were not yet written to a run. */
+    private final LongOpenHashSet bufferedFingerprints = new LongOpenHashSet();
+
+    /** The sorted runs on disk, from the oldest (and largest) to the newest. */
+    private final List<FingerprintRun> runs = new ArrayList<>();
+
+    /** Number of fingerprints in all runs. */
+    private long numFingerprints;
+
+    private long nextRunId;
+
+    private final ByteBuffer blockBuffer = ByteBuffer.allocate(INDEX_INTERVAL * Long.BYTES);
+
+    private final FileOutputStream logFileOutput;
+
+    private final OutputStream logOutput;
+
+    private final FileChannel logChannel;
+
+    /** Length of the log, including the bytes which were not yet flushed. */
+    private long logLength;
+
+    /** Length of the log which was flushed. */
+    private long flushedLogLength;
+
+    /** Length of the log up to which all fingerprints are contained in the runs. */
+    private long mergedLogLength;
+
+    /** Offset of the next entry to poll. */
+    private long readOffset;
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+    private long readBufferStart;
+
+    private long readBufferEnd;
+
+    /** Log offsets of the URLs which were polled, but not yet completed. */
+    private final Object2LongOpenHashMap<String> inProgress = new Object2LongOpenHashMap<>();
+
+    private final LongSortedSet inProgressOffsets = new LongAVLTreeSet();
+
+    private int numCompleted;
+
+    private boolean closed;
+
+    /**
+     * Open the crawl state in the given directory with default settings; an existing state is resumed.
+     *
+     * @param directory The directory for the state files, not <code>null</code>.
+     */
+    public CrawlState(File directory) {
+        this(directory, DEFAULT_EXPECTED_URLS, DEFAULT_FALSE_POSITIVE_PROBABILITY, DEFAULT_MAX_BUFFERED_FINGERPRINTS);
+    }
+
+    /**
+     * Open the crawl state in the given directory; an existing state is resumed.
+     *
+     * @param directory                The directory for the state files, not <code>null</code>.
+     * @param expectedUrls             The expected number of URLs, which determines the size of the Bloom filter,
+     *                                 greater zero.
+     * @param falsePositiveProbability The false positive probability of the Bloom filter at the expected number of
+     *                                 URLs, in range (0,1).
+     * @param maxBufferedFingerprints  The maximum number of fingerprints which are kept in memory before they are
+     *                                 merged to disk, greater zero.
+     */
+    public CrawlState(File directory, int expectedUrls, double falsePositiveProbability, int maxBufferedFingerprints) {
+        Validate.notNull(directory, "directory must not be null");
+        Validate.isTrue(expectedUrls > 0, "expectedUrls must be greater zero");
+        Validate.isTrue(falsePositiveProbability > 0 && falsePositiveProbability < 1, "falsePositiveProbability must be in range (0,1)");
+        Validate.isTrue(maxBufferedFingerprints > 0, "maxBufferedFingerprints must be greater zero");
+        this.directory = directory.toPath();
+        this.maxBufferedFingerprints = maxBufferedFingerprints;
+        this.bloomFilter = new BloomFilter<>(falsePositiveProbability, expectedUrls);
+        StopWatch stopWatch = new StopWatch();
+        try {
+            Files.createDirectories(this.directory);
+            loadRuns(readCheckpoint());
+            Path logPath = this.directory.resolve(LOG_FILE);
+            logChannel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            recoverLog();
+            logFileOutput = new FileOutputStream(logPath.toFile(), true);
+            logOutput = new BufferedOutputStream(logFileOutput);
+            if (bufferedFingerprints.size() >= maxBufferedFingerprints) {
+                mergeFingerprints();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open crawl state in " + directory, e);
+        }
+        LOGGER.debug("Opened {} in {}", this, stopWatch);
+    }
+
+    /**
+     * Create a 64 bit fingerprint of the given URL (FNV-1a, followed by the finalization step of MurmurHash3 for a
+     * better distribution of the bits).
+     */
+    static long fingerprint(String url) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : url.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /** @return The IDs of the runs which are referenced by the checkpoint. */
+    private long[] readCheckpoint() throws IOException {
+        Path checkpointPath = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpointPath)) {
+            return new long[0];
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointPath)))) {
+            int version = in.readInt();
+            if (version != CHECKPOINT_VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+            readOffset = in.readLong();
+            mergedLogLength = in.readLong();
+            long[] runIds = new long[in.readInt()];
+            for (int i = 0; i < runIds.length; i++) {
+                runIds[i] = in.readLong();
+            }
+            return runIds;
+        }
+    }
+
+    private Path getRunPath(long id) {
+        return directory.resolve(RUN_FILE_PREFIX + id + RUN_FILE_EXTENSION);
+    }
+
+    /**
+     * Read the given runs for creating the sparse indices and the Bloom filter, and delete run files which are not
+     * referenced by the checkpoint (e.g. when a crash happened during a merge).
+     */
+    private void loadRuns(long[] runIds) throws IOException {
+        List<Path> runPaths = new ArrayList<>();
+        for (long id : runIds) {
+            runPaths.add(getRunPath(id));
+            nextRunId = Math.max(nextRunId, id + 1);
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (path.getFileName().toString().startsWith(RUN_FILE_PREFIX) && !runPaths.contains(path)) {
+                    LOGGER.debug("Removing unreferenced fingerprint run {}", path);
+                    Files.delete(path);
+                }
+            }
+        }
+        for (long id : runIds) {
+            Path runPath = getRunPath(id);
+            long size = Files.size(runPath) / Long.BYTES;
+            long[] index = new long[(int) ((size + INDEX_INTERVAL - 1) / INDEX_INTERVAL)];
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(runPath)))) {
+                for (long i = 0; i < size; i++) {
+                    long fingerprint = in.readLong();
+                    if (i % INDEX_INTERVAL == 0) {
+                        index[(int) (i / INDEX_INTERVAL)] = fingerprint;
+                    }
+                    bloomFilter.add(fingerprint);
+                }
+            }
+            runs.add(new FingerprintRun(id, size, index, FileChannel.open(runPath, StandardOpenOption.READ)));
+            numFingerprints += size;
+        }
+    }
+
+    /**
+     * Add the fingerprints of the log entries which were written after the last merge, and discard an incomplete entry
+     * at the end of the log.
+     */
+    private void recoverLog() throws IOException {
+        long length = logChannel.size();
+        if (mergedLogLength > length || readOffset > length) {
+            throw new IOException("Log is shorter than recorded in the checkpoint");
+        }
+        logLength = flushedLogLength = length;
+        readBufferStart = readBufferEnd = 0;
+        long offset = mergedLogLength;
+        long completeLength = mergedLogLength;
+        int numRecovered = 0;
+        for (; ; ) {
+            ByteArrayOutputStream entry = new ByteArrayOutputStream();
+            long next = readEntry(offset, entry);
+            if (next < 0) {
+                break;
+            }
+            long fingerprint = fingerprint(entry.toString(StandardCharsets.UTF_8.name()));
+            if (!containsFingerprint(fingerprint)) {
+                bufferedFingerprints.add(fingerprint);
+                bloomFilter.add(fingerprint);
+            }
+            offset = completeLength = next;
+            numRecovered++;
+        }
+        if (completeLength < length) {
+            LOGGER.warn("Discarding incomplete entry at the end of the log ({} bytes)", length - completeLength);
+            logChannel.truncate(completeLength);
+            logLength = flushedLogLength = completeLength;
+            readBufferStart = readBufferEnd = 0;
+        }
+        readOffset = Math.min(readOffset, logLength);
+        LOGGER.debug("Recovered {} log entries after the last merge", numRecovered);
+    }
+
+    /**
+     * Read the log entry at the given offset.
+     *
+     * @param offset The offset of the entry.
+     * @param entry  The stream to which the bytes of the entry are written (without the line break).
+     * @return The offset of the next entry, or -1 in case there is no complete entry at the given offset.
+     */
+    private long readEntry(long offset, ByteArrayOutputStream entry) throws IOException {
+        long position = offset;
+        for (; ; ) {
+            if (position >= flushedLogLength) {
+                return -1;
+            }
+            if (position < readBufferStart || position >= readBufferEnd) {
+                readBuffer.clear();
+                int numRead = logChannel.read(readBuffer, position);
+                if (numRead <= 0) {
+                    return -1;
+                }
+                readBufferStart = position;
+                readBufferEnd = position + numRead;
+            }
+            byte b = readBuffer.get((int) (position - readBufferStart));
+            position++;
+            if (b == '\n') {
+                return position;
+            }
+            entry.write(b);
+        }
+    }
+
+    private boolean containsFingerprint(long fingerprint) throws IOException {
+        if (!bloomFilter.test(fingerprint)) {
+            return false;
+        }
+        if (bufferedFingerprints.contains(fingerprint)) {
+            return true;
+        }
+        for (int i = runs.size() - 1; i >= 0; i--) {
+            if (runs.get(i).contains(fingerprint, blockBuffer)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write the buffered fingerprints to a new run and write a checkpoint. The newest runs which are not at least
+     * {@value #MERGE_FACTOR} times larger than the fingerprints to write are merged into the new run.
+     */
+    private void mergeFingerprints() throws IOException {
+        StopWatch stopWatch = new StopWatch();
+        flushLog(true);
+        long[] buffered = bufferedFingerprints.toLongArray();
+        Arrays.sort(buffered);
+        long mergedSize = buffered.length;
+        int firstMerged = runs.size();
+        while (firstMerged > 0 && runs.get(firstMerged - 1).size < MERGE_FACTOR * mergedSize) {
+            mergedSize += runs.get(--firstMerged).size;
+        }
+        List<FingerprintRun> mergedRuns = new ArrayList<>(runs.subList(firstMerged, runs.size()));
+        FingerprintRun run = writeRun(buffered, mergedRuns);
+        runs.removeAll(mergedRuns);
+        runs.add(run);
+        numFingerprints = 0;
+        for (FingerprintRun current : runs) {
+            numFingerprints += current.size;
+        }
+        bufferedFingerprints.clear();
+        mergedLogLength = logLength;
+        writeCheckpoint();
+        // the merged runs are only deleted, when the checkpoint no longer references them
+        for (FingerprintRun mergedRun : mergedRuns) {
+            mergedRun.channel.close();
+            Files.delete(getRunPath(mergedRun.id));
+        }
+        LOGGER.debug("Merged {} fingerprints and {} runs into {} fingerprints, {} runs in total, in {}", buffered.length, mergedRuns.size(), run.size, runs.size(), stopWatch);
+    }
+
+    /** Write the sorted fingerprints merged with the given runs to a new run. */
+    private FingerprintRun writeRun(long[] sorted, List<FingerprintRun> mergedRuns) throws IOException {
+        long id = nextRunId++;
+        Path runPath = getRunPath(id);
+        Path tempPath = directory.resolve(runPath.getFileName() + ".tmp");
+        // the sources of the merge: the runs, and the sorted fingerprints as the last one
+        int numSources = mergedRuns.size() + 1;
+        DataInputStream[] inputs = new DataInputStream[mergedRuns.size()];
+        long[] remaining = new long[numSources];
+        long[] current = new long[numSources];
+        long maxSize = sorted.length;
+        long size = 0;
+        long[] index;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+            for (int i = 0; i < inputs.length; i++) {
+                FingerprintRun mergedRun = mergedRuns.get(i);
+                inputs[i] = new DataInputStream(new BufferedInputStream(Files.newInputStream(getRunPath(mergedRun.id))));
+                remaining[i] = mergedRun.size;
+                current[i] = mergedRun.size > 0 ? inputs[i].readLong() : 0;
+                maxSize += mergedRun.size;
+            }
+            remaining[numSources - 1] = sorted.length;
+            current[numSources - 1] = sorted.length > 0 ? sorted[0] : 0;
+            index = new long[(int) ((maxSize + INDEX_INTERVAL - 1) / INDEX_INTERVAL)];
+            long previous = 0;
+            for (; ; ) {
+                int source = -1;
+                for (int i = 0; i < numSources; i++) {
+                    if (remaining[i] > 0 && (source == -1 || current[i] < current[source])) {
+                        source = i;
+                    }
+                }
+                if (source == -1) {
+                    break;
+                }
+                long value = current[source];
+                if (--remaining[source] > 0) {
+                    current[source] = source < inputs.length ? inputs[source].readLong() : sorted[sorted.length - (int) remaining[source]];
+                }
+                if (size > 0 && value == previous) {
+                    continue;
+                }
+                if (size % INDEX_INTERVAL == 0) {
+                    index[(int) (size / INDEX_INTERVAL)] = value;
+                }
+                out.writeLong(value);
+                previous = value;
+                size++;
+            }
+        } finally {
+            for (DataInputStream in : inputs) {
+                if (in != null) {
+                    in.close();
+                }
+            }
+        }
+        Files.move(tempPath, runPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index = Arrays.copyOf(index, (int) ((size + INDEX_INTERVAL - 1) / INDEX_INTERVAL));
+        return new FingerprintRun(id, size, index, FileChannel.open(runPath, StandardOpenOption.READ));
+    }
+
+    private void flushLog(boolean sync) throws IOException {
+        if (flushedLogLength < logLength) {
+            logOutput.flush();
+            flushedLogLength = logLength;
+        }
+        if (sync) {
+            logFileOutput.getFD().sync();
+        }
+    }
+
+    private void writeCheckpoint() throws IOException {
+        Path tempPath = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeLong(inProgressOffsets.isEmpty() ? readOffset : inProgressOffsets.firstLong());
+            out.writeLong(mergedLogLength);
+            out.writeInt(runs.size());
+            for (FingerprintRun run : runs) {
+                out.writeLong(run.id);
+            }
+        }
+        Files.move(tempPath, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Crawl state was closed");
+        }
+    }
+
+    /**
+     * Add a URL to the end of the frontier log, in case it was not added before.
+     *
+     * @param url The URL, not <code>null</code>, must not contain line breaks.
+     * @return <code>true</code> in case the URL was added, <code>false</code> in case it was added before.
+     */
+    public synchronized boolean add(String url) {
+        Validate.notNull(url, "url must not be null");
+        Validate.isTrue(url.indexOf('\n') == -1 && url.indexOf('\r') == -1, "url must not contain line breaks");
+        checkOpen();
+        long fingerprint = fingerprint(url);
+        try {
+            if (containsFingerprint(fingerprint)) {
+                return false;
+            }
+            bufferedFingerprints.add(fingerprint);
+            bloomFilter.add(fingerprint);
+            byte[] bytes = (url + '\n').getBytes(StandardCharsets.UTF_8);
+            logOutput.write(bytes);
+            logLength += bytes.length;
+            if (bufferedFingerprints.size() >= maxBufferedFingerprints) {
+                mergeFingerprints();
+            }
+            return true;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Check whether a URL was added.
+     *
+     * @param url The URL, not <code>null</code>.
+     * @return <code>true</code> in case the URL was added (or, with a very low probability, has the same fingerprint
+     * as an added URL).
+     */
+    public synchronized boolean contains(String url) {
+        Validate.notNull(url, "url must not be null");
+        checkOpen();
+        try {
+            return containsFingerprint(fingerprint(url));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get the next URL from the frontier log; it is considered in progress until it is {@link #complete(String)
+     * completed}.
+     *
+     * @return The URL, or <code>null</code> in case there are no more URLs in the log.
+     */
+    public synchronized String poll() {
+        checkOpen();
+        try {
+            if (readOffset >= logLength) {
+                return null;
+            }
+            flushLog(false);
+            ByteArrayOutputStream entry = new ByteArrayOutputStream();
+            long next = readEntry(readOffset, entry);
+            if (next < 0) {
+                throw new IllegalStateException("Incomplete log entry at offset " + readOffset);
+            }
+            String url = entry.toString(StandardCharsets.UTF_8.name());
+            inProgress.put(url, readOffset);
+            inProgressOffsets.add(readOffset);
+            readOffset = next;
+            return url;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Mark a URL which was retrieved via {@link #poll()} as processed.
+     *
+     * @param url The URL, not <code>null</code>.
+     */
+    public synchronized void complete(String url) {
+        Validate.notNull(url, "url must not be null");
+        checkOpen();
+        if (!inProgress.containsKey(url)) {
+            throw new IllegalStateException("URL \"" + url + "\" is not in progress");
+        }
+        inProgressOffsets.remove(inProgress.removeLong(url));
+        numCompleted++;
+    }
+
+    /** @return <code>true</code> in case there are URLs in the log which were not yet polled. */
+    public synchronized boolean hasQueued() {
+        return readOffset < logLength;
+    }
+
+    /** @return The number of URLs which were completed since the state was opened. */
+    public synchronized int getNumCompleted() {
+        return numCompleted;
+    }
+
+    /** @return The number of URLs which were polled, but not yet completed. */
+    public synchronized int getNumInProgress() {
+        return inProgress.size();
+    }
+
+    /** @return The number of URLs which were added in total. */
+    public synchronized long getNumUrls() {
+        return numFingerprints + bufferedFingerprints.size();
+    }
+
+    /**
+     * Write the log to disk and record the offset up to which all URLs were completed, so that the crawl can be
+     * resumed from this point.
+     */
+    public synchronized void checkpoint() {
+        checkOpen();
+        try {
+            flushLog(true);
+            writeCheckpoint();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Write a {@link #checkpoint()} and close the files. */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flushLog(true);
+            writeCheckpoint();
+        } finally {
+            closed = true;
+            logOutput.close();
+            logChannel.close();
+            for (FingerprintRun run : runs) {
+                run.channel.close();
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CrawlState [directory=" + directory + ", urls=" + getNumUrls() + ", runs=" + runs.size() + ", buffered=" + bufferedFingerprints.size() + ", logLength=" + logLength + ", readOffset=" + readOffset + ", inProgress=" + inProgress.size() + "]";
+    }
+
+}
@@ -1,6 +1,8 @@
 package ws.palladian.retrieval.feeds.parser;
 
 import ws.palladian.retrieval.HttpException;
+import ws.palladian.retrieval.HttpMethod;
+import ws.palladian.retrieval.HttpRequest2Builder;
 import ws.palladian.retrieval.HttpResult;
 import ws.palladian.retrieval.HttpRetriever;
 import ws.palladian.retrieval.HttpRetrieverFactory;
@@ -45,17 +47,25 @@ public abstract class AbstractFeedParser implements FeedParser {
     @Override
     public Feed getFeed(String feedUrl) throws FeedParserException {
         try {
+            // the feed is parsed while downloading
             HttpRetriever httpRetriever = new HttpRetrieverFactory(true).create();
-            HttpResult httpResult = httpRetriever.httpGet(feedUrl);
-            return getFeed(httpResult);
+            return httpRetriever.execute(new HttpRequest2Builder(HttpMethod.GET, feedUrl).create(), this::getFeed);
         } catch (HttpException e) {
+            if (e.getCause() instanceof FeedParserException) {
+                throw (FeedParserException) e.getCause();
+            }
             throw new FeedParserException("Error downloading feed from \"" + feedUrl + "\"", e);
         }
     }
 
     @Override
     public Feed getFeed(HttpResult httpResult) throws FeedParserException {
-        Feed feed = getFeed(new ByteArrayInputStream(httpResult.getContent()));
+        return getFeed(httpResult, new ByteArrayInputStream(httpResult.getContent()));
+    }
+
+    @Override
+    public Feed getFeed(HttpResult httpResult, InputStream inputStream) throws FeedParserException {
+        Feed feed = getFeed(inputStream);
         feed.setFeedUrl(httpResult.getUrl());
         return feed;
     }
@@ -5,6 +5,7 @@ import ws.palladian.retrieval.HttpResult;
 import ws.palladian.retrieval.feeds.Feed;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 
 /**
@@ -62,6 +63,28 @@ public interface FeedParser {
      */
     Feed getFeed(HttpResult httpResult) throws FeedParserException;
 
+    /**
+     * <p>
+     * Parse a feed from the content of the specified {@link HttpResult}, which is given as stream, so that it can be
+     * parsed while downloading. The default implementation reads the complete content and invokes
+     * {@link #getFeed(HttpResult)}; parsers which can process the stream directly override this.
+     * </p>
+     *
+     * @param httpResult  The httpResult from the request.
+     * @param inputStream The content.
+     * @return The parsed feed.
+     * @throws FeedParserException
+     */
+    default Feed getFeed(HttpResult httpResult, InputStream inputStream) throws FeedParserException {
+        byte[] content;
+        try {
+            content = inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new FeedParserException("Error reading the content of " + httpResult.getUrl(), e);
+        }
+        return getFeed(new HttpResult(httpResult.getUrl(), content, httpResult.getHeaders(), httpResult.getStatusCode(), httpResult.getTransferedBytes(), httpResult.getLocations()));
+    }
+
     /**
      * <p>
      * Parse a feed from the specified {@link Document}.
@@ -10,6 +10,7 @@ import ws.palladian.helper.date.DateParser;
 import ws.palladian.helper.date.ExtractedDate;
 import ws.palladian.helper.io.FileHelper;
 import ws.palladian.retrieval.HttpResult;
+import ws.palladian.retrieval.HttpRetriever;
 import ws.palladian.retrieval.HttpRetrieverFactory;
 
 import java.io.*;
@@ -98,6 +99,25 @@ public final class HttpHelper {
      * @return <tt>true</tt> if everything worked properly, <tt>false</tt> otherwise.
      */
     public static boolean saveToFile(HttpResult httpResult, String filePath, boolean includeHttpResponseHeaders) {
+        return saveToFile(httpResult, new ByteArrayInputStream(httpResult.getContent()), filePath, includeHttpResponseHeaders);
+    }
+
+    /**
+     * <p>
+     * Save the content from the given stream to a specified path, without buffering it in memory. This can be used
+     * with {@link HttpRetriever#execute(ws.palladian.retrieval.HttpRequest2, ws.palladian.retrieval.HttpResponseHandler)}
+     * for saving the content while it is downloaded.
+     * </p>
+     *
+     * @param httpResult                 The httpResult with the header fields to save; its content is ignored.
+     * @param content                    The content to save.
+     * @param filePath                   the path where the downloaded contents should be saved to; if file name ends with ".gz", the file
+     *                                   is compressed automatically.
+     * @param includeHttpResponseHeaders whether to prepend the received HTTP headers for the request to the saved
+     *                                   content.
+     * @return <tt>true</tt> if everything worked properly, <tt>false</tt> otherwise.
+     */
+    public static boolean saveToFile(HttpResult httpResult, InputStream content, String filePath, boolean includeHttpResponseHeaders) {
 
         boolean result = false;
         OutputStream out = null;
@@ -134,7 +154,7 @@ public final class HttpHelper {
                 out.write(headerBuilder.toString().getBytes("UTF-8"));
             }
 
-            out.write(httpResult.getContent());
+            content.transferTo(out);
             result = true;
 
         } catch (IOException e) {
@@ -35,7 +35,12 @@ public abstract class BaseDocumentParser implements DocumentParser {
         if (content.length == 0) {
             throw new ParserException("HttpResult has no content");
         }
-        InputSource inputSource = new InputSource(new ByteArrayInputStream(content));
+        return parse(httpResult, new ByteArrayInputStream(content));
+    }
+
+    @Override
+    public Document parse(HttpResult httpResult, InputStream inputStream) throws ParserException {
+        InputSource inputSource = new InputSource(inputStream);
 
         // detect the encoding in advance, this prevents us from interpreting documents incorrectly
         String charset = httpResult.getCharset();
@@ -7,6 +7,7 @@ import ws.palladian.retrieval.DocumentRetriever;
 import ws.palladian.retrieval.HttpResult;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 
 /**
@@ -53,6 +54,30 @@ public interface DocumentParser {
      */
     Document parse(HttpResult httpResult) throws ParserException;
 
+    /**
+     * <p>
+     * Parse a {@link Document} from the content of the provided {@link HttpResult}, which is given as stream, so that
+     * it can be parsed while downloading, see
+     * {@link ws.palladian.retrieval.HttpRetriever#execute(ws.palladian.retrieval.HttpRequest2, ws.palladian.retrieval.HttpResponseHandler)}.
+     * The default implementation reads the complete content and invokes {@link #parse(HttpResult)}; parsers which can
+     * process the stream directly override this.
+     * </p>
+     *
+     * @param httpResult  The result with the header fields, which are used for determining the encoding.
+     * @param inputStream The content.
+     * @return
+     * @throws ParserException In case, parsing fails.
+     */
+    default Document parse(HttpResult httpResult, InputStream inputStream) throws ParserException {
+        byte[] content;
+        try {
+            content = inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new ParserException("Error reading the content of " + httpResult.getUrl(), e);
+        }
+        return parse(new HttpResult(httpResult.getUrl(), content, httpResult.getHeaders(), httpResult.getStatusCode(), httpResult.getTransferedBytes(), httpResult.getLocations()));
+    }
+
     /**
      * <p>
      * Parse a {@link Document} from the provided {@link File}.
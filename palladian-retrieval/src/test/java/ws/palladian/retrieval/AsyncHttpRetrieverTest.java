@@ -0,0 +1,172 @@
+package ws.palladian.retrieval;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AsyncHttpRetrieverTest {
+
+    private HttpServer httpServer;
+
+    private ExecutorService serverExecutor;
+
+    private String baseUrl;
+
+    private final AtomicInteger numConcurrent = new AtomicInteger();
+
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/text", exchange -> respond(exchange, 200, "hello".getBytes(StandardCharsets.UTF_8)));
+        httpServer.createContext("/echo", exchange -> respond(exchange, 200, exchange.getRequestBody().readAllBytes()));
+        httpServer.createContext("/large", exchange -> respond(exchange, 200, new byte[100000]));
+        httpServer.createContext("/redirect", exchange -> {
+            exchange.getResponseHeaders().add("Location", baseUrl + "/text");
+            respond(exchange, 301, "moved".getBytes(StandardCharsets.UTF_8));
+        });
+        httpServer.createContext("/slow", exchange -> {
+            maxConcurrent.accumulateAndGet(numConcurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            numConcurrent.decrementAndGet();
+            respond(exchange, 200, exchange.getRequestURI().getQuery().getBytes(StandardCharsets.UTF_8));
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        httpServer.setExecutor(serverExecutor);
+        httpServer.start();
+        baseUrl = "http://localhost:" + httpServer.getAddress().getPort();
+    }
+
+    private static void respond(HttpExchange exchange, int statusCode, byte[] content) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(statusCode, content.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(content);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        httpServer.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testExecute() throws Exception {
+        try (AsyncHttpRetriever retriever = new AsyncHttpRetriever()) {
+            HttpResult result = retriever.execute(new HttpRequest2Builder(HttpMethod.GET, baseUrl + "/text").create()).get(10, TimeUnit.SECONDS);
+            assertEquals(200, result.getStatusCode());
+            assertEquals("hello", result.getStringContent());
+            assertEquals("text/plain", result.getHeaderString("Content-Type"));
+            assertFalse(result.isMaxFileSizeReached());
+        }
+    }
+
+    @Test
+    public void testPostAndRedirect() throws Exception {
+        try (AsyncHttpRetriever retriever = new AsyncHttpRetriever()) {
+            HttpRequest2Builder builder = new HttpRequest2Builder(HttpMethod.POST, baseUrl + "/echo");
+            builder.setEntity(new StringHttpEntity("payload", "text/plain"));
+            HttpResult result = retriever.execute(builder.create()).get(10, TimeUnit.SECONDS);
+            assertEquals("payload", result.getStringContent());
+
+            result = retriever.execute(new HttpRequest2Builder(HttpMethod.GET, baseUrl + "/redirect").create()).get(10, TimeUnit.SECONDS);
+            assertEquals("hello", result.getStringContent());
+            assertEquals(Arrays.asList(baseUrl + "/redirect", baseUrl + "/text"), result.getLocations());
+        }
+    }
+
+    @Test
+    public void testMaxFileSize() throws Exception {
+        try (AsyncHttpRetriever retriever = new AsyncHttpRetriever()) {
+            retriever.setMaxFileSize(1000);
+            HttpResult result = retriever.execute(new HttpRequest2Builder(HttpMethod.GET, baseUrl + "/large").create()).get(10, TimeUnit.SECONDS);
+            assertTrue(result.isMaxFileSizeReached());
+            assertEquals(1000, result.getContent().length);
+        }
+    }
+
+    @Test
+    public void testRetrieveAllWithLimits() throws Exception {
+        int numRequests = 30;
+        List<HttpRequest2> requests = new ArrayList<>();
+        for (int i = 0; i < numRequests; i++) {
+            requests.add(new HttpRequest2Builder(HttpMethod.GET, baseUrl + "/slow?" + i).create());
+        }
+        Set<String> contents = ConcurrentHashMap.newKeySet();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        try (AsyncHttpRetriever retriever = new AsyncHttpRetriever(100, 3, HttpVersionPolicy.FORCE_HTTP_1)) {
+            retriever.retrieveAll(requests, (request, result) -> contents.add(result.getStringContent()), (request, error) -> errors.add(error)).get(30, TimeUnit.SECONDS);
+            assertEquals(0, retriever.getNumInFlight());
+            assertEquals(0, retriever.getNumQueued());
+        }
+        assertTrue(errors.isEmpty());
+        assertEquals(numRequests, contents.size());
+        assertTrue(maxConcurrent.get() <= 3);
+    }
+
+    @Test
+    public void testManyQueuedFailures() throws Exception {
+        int numRequests = 20000;
+        // an entity which cannot be read, so that the requests fail before they are executed
+        HttpEntity invalidEntity = new HttpEntity() {
+            @Override
+            public long length() {
+                return 0;
+            }
+
+            @Override
+            public InputStream getInputStream() {
+                throw new IllegalStateException("invalid entity");
+            }
+
+            @Override
+            public String getContentType() {
+                return null;
+            }
+        };
+        List<HttpRequest2> requests = new ArrayList<>();
+        requests.add(new HttpRequest2Builder(HttpMethod.GET, baseUrl + "/slow?0").create());
+        for (int i = 0; i < numRequests; i++) {
+            requests.add(new HttpRequest2Builder(HttpMethod.POST, baseUrl + "/echo").setEntity(invalidEntity).create());
+        }
+        AtomicInteger numErrors = new AtomicInteger();
+        try (AsyncHttpRetriever retriever = new AsyncHttpRetriever(1, 1, HttpVersionPolicy.FORCE_HTTP_1)) {
+            retriever.retrieveAll(requests, (request, result) -> {
+            }, (request, error) -> numErrors.incrementAndGet()).get(30, TimeUnit.SECONDS);
+        }
+        assertEquals(numRequests, numErrors.get());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        int port = httpServer.getAddress().getPort();
+        httpServer.stop(0);
+        try (AsyncHttpRetriever retriever = new AsyncHttpRetriever()) {
+            retriever.execute(new HttpRequest2Builder(HttpMethod.GET, "http://localhost:" + port + "/text").create()).get(30, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof HttpException);
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+package ws.palladian.retrieval;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import ws.palladian.persistence.json.JsonObject;
+import ws.palladian.retrieval.parser.DocumentParser;
+import ws.palladian.retrieval.parser.ParserFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class HttpRetrieverStreamingTest {
+
+    private static final byte[] LARGE_CONTENT = new byte[100000];
+
+    static {
+        Arrays.fill(LARGE_CONTENT, (byte) 'a');
+    }
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private HttpServer httpServer;
+
+    private String baseUrl;
+
+    private HttpRetrieverFactory retrieverFactory;
+
+    private HttpRetriever httpRetriever;
+
+    @Before
+    public void setUp() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/page.html", exchange -> respond(exchange, "text/html; charset=UTF-8", "<html><head><title>Streamed Ünicode</title></head><body><p>Content</p></body></html>".getBytes(StandardCharsets.UTF_8)));
+        httpServer.createContext("/data.json", exchange -> respond(exchange, "application/json", "{\"name\": \"palladian\", \"values\": [1, 2, 3]}".getBytes(StandardCharsets.UTF_8)));
+        httpServer.createContext("/large", exchange -> respond(exchange, "application/octet-stream", LARGE_CONTENT));
+        httpServer.start();
+        baseUrl = "http://localhost:" + httpServer.getAddress().getPort();
+        retrieverFactory = new HttpRetrieverFactory(true);
+        httpRetriever = retrieverFactory.create();
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, byte[] content) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, content.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(content);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        httpServer.stop(0);
+        retrieverFactory.close();
+    }
+
+    private static HttpRequest2 get(String url) {
+        return new HttpRequest2Builder(HttpMethod.GET, url).create();
+    }
+
+    @Test
+    public void testParseDocument() throws HttpException {
+        DocumentParser parser = ParserFactory.createHtmlParser();
+        Document document = httpRetriever.execute(get(baseUrl + "/page.html"), parser::parse);
+        assertEquals("Streamed Ünicode", document.getElementsByTagName("title").item(0).getTextContent());
+    }
+
+    @Test
+    public void testParseJson() throws HttpException {
+        JsonObject json = httpRetriever.execute(get(baseUrl + "/data.json"), (httpResult, content) -> new JsonObject(new InputStreamReader(content, StandardCharsets.UTF_8)));
+        assertEquals("palladian", json.tryGetString("name"));
+        assertEquals(3, json.tryGetJsonArray("values").size());
+    }
+
+    @Test
+    public void testMaxFileSize() throws HttpException {
+        httpRetriever.setMaxFileSize(1000);
+        HttpResult[] headerResult = new HttpResult[1];
+        byte[] content = httpRetriever.execute(get(baseUrl + "/large"), (httpResult, in) -> {
+            headerResult[0] = httpResult;
+            return in.readAllBytes();
+        });
+        assertEquals(1000, content.length);
+        assertTrue(headerResult[0].isMaxFileSizeReached());
+        assertEquals(0, headerResult[0].getContent().length);
+
+        // the buffered mode enforces the same limit
+        HttpResult result = httpRetriever.httpGet(baseUrl + "/large");
+        assertEquals(1000, result.getContent().length);
+        assertTrue(result.isMaxFileSizeReached());
+    }
+
+    @Test
+    public void testDownloadAndSave() throws IOException {
+        File file = new File(tempFolder.getRoot(), "large.bin");
+        assertTrue(httpRetriever.downloadAndSave(baseUrl + "/large", file.getPath()));
+        assertEquals(LARGE_CONTENT.length, file.length());
+
+        // incomplete downloads are removed
+        File truncatedFile = new File(tempFolder.getRoot(), "truncated.bin");
+        httpRetriever.setMaxFileSize(1000);
+        assertFalse(httpRetriever.downloadAndSave(baseUrl + "/large", truncatedFile.getPath()));
+        assertFalse(truncatedFile.exists());
+    }
+
+    @Test
+    public void testHandlerException() {
+        try {
+            httpRetriever.execute(get(baseUrl + "/page.html"), (httpResult, content) -> {
+                throw new IllegalArgumentException("cannot handle");
+            });
+            fail();
+        } catch (HttpException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+}
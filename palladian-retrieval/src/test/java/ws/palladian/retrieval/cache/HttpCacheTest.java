@@ -0,0 +1,284 @@
+package ws.palladian.retrieval.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ws.palladian.retrieval.HttpMethod;
+import ws.palladian.retrieval.HttpRequest2;
+import ws.palladian.retrieval.HttpRequest2Builder;
+import ws.palladian.retrieval.HttpResult;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class HttpCacheTest {
+
+    private static final String URL = "http://example.com/page";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    /** Answers all requests with the configured response and records the requests. */
+    private static final class FakeServer implements HttpCache.RequestExecutor {
+        final List<HttpRequest2> requests = new ArrayList<>();
+        int statusCode = 200;
+        String content = "content";
+        Map<String, List<String>> headers = new HashMap<>();
+
+        FakeServer header(String name, String value) {
+            headers.put(name, Collections.singletonList(value));
+            return this;
+        }
+
+        @Override
+        public HttpResult execute(HttpRequest2 request) {
+            requests.add(request);
+            byte[] bytes = statusCode == 304 ? new byte[0] : content.getBytes(StandardCharsets.UTF_8);
+            return new HttpResult(request.getUrl(), bytes, headers, statusCode, bytes.length, Collections.emptyList());
+        }
+    }
+
+    private static HttpRequest2 get(String url) {
+        return new HttpRequest2Builder(HttpMethod.GET, url).create();
+    }
+
+    @Test
+    public void testFreshResponse() throws Exception {
+        HttpCache cache = new HttpCache(1024 * 1024);
+        FakeServer server = new FakeServer().header("Cache-Control", "max-age=3600");
+        assertEquals("content", cache.execute(get(URL), server).getStringContent());
+        HttpResult cached = cache.execute(get(URL), server);
+        assertEquals("content", cached.getStringContent());
+        assertEquals(200, cached.getStatusCode());
+        assertEquals(0, cached.getTransferedBytes());
+        assertEquals("0", cached.getHeaderString("Age"));
+        assertEquals(1, server.requests.size());
+        assertEquals(1, cache.getNumHits());
+        assertEquals(1, cache.getNumMisses());
+    }
+
+    @Test
+    public void testNoStore() throws Exception {
+        HttpCache cache = new HttpCache(1024 * 1024);
+        FakeServer server = new FakeServer().header("Cache-Control", "no-store, max-age=3600");
+        cache.execute(get(URL), server);
+        cache.execute(get(URL), server);
+        assertEquals(2, server.requests.size());
+        assertEquals(0, cache.getNumMemoryEntries());
+    }
+
+    @Test
+    public void testExpiredWithoutValidators() throws Exception {
+        HttpCache cache = new HttpCache(1024 * 1024);
+        FakeServer server = new FakeServer().header("Date", "Sun, 06 Nov 1994 08:49:37 GMT").header("Expires", "Sun, 06 Nov 1994 08:49:37 GMT");
+        cache.execute(get(URL), server);
+        cache.execute(get(URL), server);
+        assertEquals(2, server.requests.size());
+        assertEquals(0, cache.getNumHits());
+    }
+
+    @Test
+    public void testRevalidation() throws Exception {
+        HttpCache cache = new HttpCache(1024 * 1024);
+        FakeServer server = new FakeServer().header("Cache-Control", "no-cache").header("ETag", "\"v1\"").header("Last-Modified", "Sun, 06 Nov 1994 08:49:37 GMT");
+        cache.execute(get(URL), server);
+        assertNull(server.requests.get(0).getHeaders().get("If-None-Match"));
+
+        server.statusCode = 304;
+        server.headers = new HashMap<>();
+        server.header("ETag", "\"v1\"").header("Cache-Control", "no-cache").header("X-Updated", "true");
+        HttpResult result = cache.execute(get(URL), server);
+        assertEquals(2, server.requests.size());
+        assertEquals("\"v1\"", server.requests.get(1).getHeaders().get("If-None-Match"));
+        assertEquals("Sun, 06 Nov 1994 08:49:37 GMT", server.requests.get(1).getHeaders().get("If-Modified-Since"));
+        assertEquals(200, result.getStatusCode());
+        assertEquals("content", result.getStringContent());
+        assertEquals("true", result.getHeaderString("X-Updated"));
+        assertEquals(1, cache.getNumRevalidations());
+        assertEquals(1, cache.getNumNotModified());
+
+        // a changed resource replaces the entry
+        server.statusCode = 200;
+        server.content = "changed";
+        server.headers = new HashMap<>();
+        server.header("ETag", "\"v2\"").header("Cache-Control", "max-age=60");
+        assertEquals("changed", cache.execute(get(URL), server).getStringContent());
+        assertEquals("changed", cache.execute(get(URL), server).getStringContent());
+        assertEquals(3, server.requests.size());
+    }
+
+    @Test
+    public void testRequestDirectives() throws Exception {
+        HttpCache cache = new HttpCache(1024 * 1024);
+        FakeServer server = new FakeServer().header("Cache-Control", "max-age=3600");
+        cache.execute(get(URL), server);
+        cache.execute(new HttpRequest2Builder(HttpMethod.GET, URL).addHeader("Cache-Control", "no-cache").create(), server);
+        assertEquals(2, server.requests.size());
+        HttpResult result = cache.execute(new HttpRequest2Builder(HttpMethod.GET, "http://example.com/other").addHeader("Cache-Control", "only-if-cached").create(), server);
+        assertEquals(504, result.getStatusCode());
+        assertEquals(2, server.requests.size());
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        HttpCache cache = new HttpCache(1024 * 1024);
+        FakeServer server = new FakeServer().header("Cache-Control", "max-age=3600");
+        cache.execute(get(URL), server);
+        cache.execute(new HttpRequest2Builder(HttpMethod.POST, URL).create(), server);
+        cache.execute(get(URL), server);
+        assertEquals(3, server.requests.size());
+        assertEquals(0, cache.getNumHits());
+    }
+
+    @Test
+    public void testVary() throws Exception {
+        HttpCache cache = new HttpCache(1024 * 1024);
+        FakeServer server = new FakeServer().header("Cache-Control", "max-age=3600").header("Vary", "Accept-Language");
+        HttpRequest2 german = new HttpRequest2Builder(HttpMethod.GET, URL).addHeader("Accept-Language", "de").create();
+        HttpRequest2 english = new HttpRequest2Builder(HttpMethod.GET, URL).addHeader("Accept-Language", "en").create();
+        cache.execute(german, server);
+        cache.execute(german, server);
+        assertEquals(1, server.requests.size());
+        cache.execute(english, server);
+        assertEquals(2, server.requests.size());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        FakeServer server = new FakeServer().header("Cache-Control", "max-age=3600");
+        server.content = new String(new char[1000]).replace('\0', 'x');
+        HttpCache cache = new HttpCache(5000);
+        for (int i = 0; i < 10; i++) {
+            cache.execute(get(URL + i), server);
+        }
+        assertTrue(cache.getMemorySize() <= 5000);
+        assertTrue(cache.getNumMemoryEntries() < 10);
+        // the most recent entry is still cached, the oldest one was evicted
+        cache.execute(get(URL + 9), server);
+        assertEquals(10, server.requests.size());
+        cache.execute(get(URL + 0), server);
+        assertEquals(11, server.requests.size());
+    }
+
+    @Test
+    public void testDiskTier() throws Exception {
+        FakeServer server = new FakeServer().header("Cache-Control", "max-age=3600");
+        HttpCache cache = new HttpCache(1024 * 1024, tempFolder.getRoot());
+        cache.execute(get(URL + 1), server);
+        cache.execute(get(URL + 2), server);
+        assertEquals(2, server.requests.size());
+
+        // a new instance (e.g. after a restart) uses the entries on disk
+        HttpCache newCache = new HttpCache(1024 * 1024, tempFolder.getRoot());
+        assertEquals("content", newCache.execute(get(URL + 1), server).getStringContent());
+        assertEquals("content", newCache.execute(get(URL + 2), server).getStringContent());
+        assertEquals(2, server.requests.size());
+        assertEquals(2, newCache.getNumHits());
+        // the identical content is stored only once
+        assertEquals(1, countFiles(new File(tempFolder.getRoot(), "content")));
+    }
+
+    @Test
+    public void testDiskSizeLimit() throws Exception {
+        FakeServer server = new FakeServer().header("Cache-Control", "max-age=3600");
+        HttpCache cache = new HttpCache(1000, tempFolder.getRoot(), 20000);
+        Random random = new Random(1);
+        for (int i = 0; i < 20; i++) {
+            server.content = randomString(random, 2000);
+            cache.execute(get(URL + i), server);
+        }
+        assertTrue(cache.getDiskSize() <= 20000);
+        assertTrue(cache.getNumDiskEntries() < 20);
+        assertEquals(cache.getNumDiskEntries(), countFiles(new File(tempFolder.getRoot(), "content")));
+        // the most recent entry is still on disk, the oldest one was evicted
+        cache.execute(get(URL + 19), server);
+        assertEquals(20, server.requests.size());
+        cache.execute(get(URL + 0), server);
+        assertEquals(21, server.requests.size());
+
+        // the size is restored when opening the directory again
+        HttpCache newCache = new HttpCache(1000, tempFolder.getRoot(), 20000);
+        assertEquals(cache.getNumDiskEntries(), newCache.getNumDiskEntries());
+        assertEquals(cache.getDiskSize(), newCache.getDiskSize());
+    }
+
+    @Test
+    public void testDiskGarbageCollection() throws Exception {
+        FakeServer server = new FakeServer().header("Cache-Control", "max-age=0").header("ETag", "\"1\"");
+        HttpCache cache = new HttpCache(1024 * 1024, tempFolder.getRoot());
+        File contentDirectory = new File(tempFolder.getRoot(), "content");
+        cache.execute(get(URL), server);
+        assertEquals(1, countFiles(contentDirectory));
+        // the new version replaces the old one
+        server.content = "new content";
+        assertEquals("new content", cache.execute(get(URL), server).getStringContent());
+        assertEquals(1, countFiles(contentDirectory));
+        cache.invalidate(URL);
+        assertEquals(0, countFiles(contentDirectory));
+        assertEquals(0, cache.getDiskSize());
+
+        // unreferenced content files are removed when opening the directory
+        cache.execute(get(URL), server);
+        File orphan = new File(contentDirectory, "ab/ab12.lz4");
+        assertTrue(orphan.getParentFile().mkdirs());
+        assertTrue(orphan.createNewFile());
+        HttpCache newCache = new HttpCache(1024 * 1024, tempFolder.getRoot());
+        assertEquals(1, newCache.getNumDiskEntries());
+        assertFalse(orphan.exists());
+        assertEquals(1, countFiles(contentDirectory));
+    }
+
+    @Test
+    public void testDiskConcurrentPut() throws Exception {
+        HttpCache cache = new HttpCache(10, tempFolder.getRoot());
+        int numThreads = 8;
+        int numUrls = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                // the identical content is stored concurrently by all threads
+                FakeServer server = new FakeServer().header("Cache-Control", "max-age=3600");
+                for (int i = 0; i < numUrls; i++) {
+                    cache.execute(get(URL + thread + "/" + i), server);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertEquals(numThreads * numUrls, cache.getNumDiskEntries());
+        // one content file, no temporary files left
+        assertEquals(1, countFiles(new File(tempFolder.getRoot(), "content")));
+        assertEquals(numThreads * numUrls, countFiles(new File(tempFolder.getRoot(), "entries")));
+        HttpCache newCache = new HttpCache(10, tempFolder.getRoot());
+        assertEquals(numThreads * numUrls, newCache.getNumDiskEntries());
+        assertEquals(cache.getDiskSize(), newCache.getDiskSize());
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        return builder.toString();
+    }
+
+    private static int countFiles(File directory) {
+        int count = 0;
+        for (File file : Objects.requireNonNull(directory.listFiles())) {
+            count += file.isDirectory() ? countFiles(file) : 1;
+        }
+        return count;
+    }
+
+}
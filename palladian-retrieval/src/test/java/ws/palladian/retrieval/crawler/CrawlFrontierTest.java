@@ -0,0 +1,90 @@
+package ws.palladian.retrieval.crawler;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class CrawlFrontierTest {
+
+    @Test
+    public void testPolitenessDelay() throws InterruptedException {
+        CrawlFrontier frontier = new CrawlFrontier(200, TimeUnit.MILLISECONDS, 10);
+        frontier.add("http://example.com/1");
+        frontier.add("http://example.com/2");
+        frontier.add("http://example.org/1");
+        long start = System.nanoTime();
+        assertEquals("http://example.com/1", frontier.take());
+        // a different host must not be delayed, so it is taken before the delayed URL which was added earlier
+        assertEquals("http://example.org/1", frontier.take());
+        assertEquals("http://example.com/2", frontier.take());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+    }
+
+    @Test
+    public void testMaxConnectionsPerHost() throws InterruptedException {
+        CrawlFrontier frontier = new CrawlFrontier(0, TimeUnit.MILLISECONDS, 1);
+        frontier.add("http://example.com/1");
+        frontier.add("http://example.com/2");
+        String url = frontier.take();
+        assertEquals(1, frontier.getNumActive());
+        AtomicReference<String> next = new AtomicReference<>();
+        CountDownLatch taken = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try {
+                next.set(frontier.take());
+                taken.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        assertFalse(taken.await(100, TimeUnit.MILLISECONDS));
+        frontier.release(url);
+        assertTrue(taken.await(1, TimeUnit.SECONDS));
+        assertEquals("http://example.com/2", next.get());
+    }
+
+    @Test
+    public void testAwaitIdle() throws InterruptedException {
+        CrawlFrontier frontier = new CrawlFrontier(0, TimeUnit.MILLISECONDS, 2);
+        assertTrue(frontier.awaitIdle(0, TimeUnit.MILLISECONDS));
+        frontier.add("http://example.com/1");
+        assertFalse(frontier.awaitIdle(10, TimeUnit.MILLISECONDS));
+        String url = frontier.take();
+        assertEquals(0, frontier.size());
+        assertFalse(frontier.awaitIdle(10, TimeUnit.MILLISECONDS));
+        frontier.release(url);
+        assertTrue(frontier.awaitIdle(0, TimeUnit.MILLISECONDS));
+        assertEquals(0, frontier.getNumHosts());
+    }
+
+    @Test
+    public void testClose() throws InterruptedException {
+        CrawlFrontier frontier = new CrawlFrontier(0, TimeUnit.MILLISECONDS, 1);
+        AtomicReference<String> result = new AtomicReference<>("notNull");
+        Thread thread = new Thread(() -> {
+            try {
+                result.set(frontier.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        frontier.close();
+        thread.join(1000);
+        assertFalse(thread.isAlive());
+        assertNull(result.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReleaseWithoutTake() {
+        CrawlFrontier frontier = new CrawlFrontier(0, TimeUnit.MILLISECONDS, 1);
+        frontier.add("http://example.com/1");
+        frontier.release("http://example.com/1");
+    }
+
+}
@@ -0,0 +1,211 @@
+package ws.palladian.retrieval.crawler;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import ws.palladian.persistence.ParserException;
+import ws.palladian.retrieval.Crawler;
+import ws.palladian.retrieval.WebDocumentRetriever;
+import ws.palladian.retrieval.parser.ParserFactory;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class CrawlStateTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    /** Serves a site with numbered pages, each of which links to the next three pages. */
+    private static final class SiteRetriever extends WebDocumentRetriever {
+        private final int numPages;
+        private final List<String> retrieved = Collections.synchronizedList(new ArrayList<>());
+
+        SiteRetriever(int numPages) {
+            this.numPages = numPages;
+        }
+
+        @Override
+        public Document getWebDocument(String url) {
+            retrieved.add(url);
+            int page = Integer.parseInt(url.substring(url.lastIndexOf("page") + 4));
+            StringBuilder html = new StringBuilder("<html><body>");
+            for (int i = page + 1; i <= Math.min(page + 3, numPages - 1); i++) {
+                html.append("<a href=\"/page").append(i).append("\">page ").append(i).append("</a>");
+            }
+            html.append("</body></html>");
+            try {
+                Document document = ParserFactory.createHtmlParser().parse(html.toString());
+                document.setDocumentURI(url);
+                return document;
+            } catch (ParserException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Test
+    public void testAddAndPoll() throws IOException {
+        try (CrawlState state = new CrawlState(tempFolder.getRoot(), 1000, 0.01, 10)) {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(state.add("http://example.com/" + i));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertFalse(state.add("http://example.com/" + i));
+                assertTrue(state.contains("http://example.com/" + i));
+                assertFalse(state.contains("http://example.org/" + i));
+            }
+            assertEquals(100, state.getNumUrls());
+            for (int i = 0; i < 100; i++) {
+                assertEquals("http://example.com/" + i, state.poll());
+            }
+            assertNull(state.poll());
+            assertFalse(state.hasQueued());
+            assertEquals(100, state.getNumInProgress());
+        }
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        File directory = tempFolder.getRoot();
+        try (CrawlState state = new CrawlState(directory, 1000, 0.01, 7)) {
+            for (int i = 0; i < 50; i++) {
+                state.add("http://example.com/" + i);
+            }
+            for (int i = 0; i < 10; i++) {
+                state.poll();
+            }
+            // the fifth URL stays in progress
+            for (int i = 0; i < 10; i++) {
+                if (i != 5) {
+                    state.complete("http://example.com/" + i);
+                }
+            }
+        }
+        try (CrawlState state = new CrawlState(directory, 1000, 0.01, 7)) {
+            assertEquals(50, state.getNumUrls());
+            assertFalse(state.add("http://example.com/42"));
+            assertEquals("http://example.com/5", state.poll());
+            assertTrue(state.add("http://example.com/50"));
+        }
+    }
+
+    @Test
+    public void testFingerprintRuns() throws IOException {
+        File directory = tempFolder.getRoot();
+        try (CrawlState state = new CrawlState(directory, 10000, 0.01, 10)) {
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(state.add("http://example.com/" + i));
+            }
+            assertEquals(1000, state.getNumUrls());
+        }
+        // the runs are merged geometrically, instead of keeping one run per flush or one single run
+        String[] runFiles = directory.list((dir, name) -> name.startsWith(CrawlState.RUN_FILE_PREFIX));
+        assertTrue("runs: " + runFiles.length, runFiles.length > 1 && runFiles.length <= 7);
+        try (CrawlState state = new CrawlState(directory, 10000, 0.01, 10)) {
+            assertEquals(1000, state.getNumUrls());
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(state.contains("http://example.com/" + i));
+                assertFalse(state.contains("http://example.org/" + i));
+            }
+            assertTrue(state.add("http://example.com/1000"));
+            assertFalse(state.add("http://example.com/500"));
+        }
+    }
+
+    @Test
+    public void testRecoverIncompleteLog() throws IOException {
+        File directory = tempFolder.getRoot();
+        try (CrawlState state = new CrawlState(directory)) {
+            state.add("http://example.com/1");
+            state.add("http://example.com/2");
+        }
+        try (Writer writer = new FileWriter(new File(directory, "frontier.log"), true)) {
+            writer.write("http://example.com/incomp");
+        }
+        try (CrawlState state = new CrawlState(directory)) {
+            assertEquals(2, state.getNumUrls());
+            assertFalse(state.contains("http://example.com/incomp"));
+            assertTrue(state.add("http://example.com/3"));
+            assertEquals("http://example.com/1", state.poll());
+            assertEquals("http://example.com/2", state.poll());
+            assertEquals("http://example.com/3", state.poll());
+            assertNull(state.poll());
+        }
+    }
+
+    @Test
+    public void testResumeCrawl() throws IOException {
+        File directory = tempFolder.getRoot();
+        int numPages = 50;
+        SiteRetriever retriever = new SiteRetriever(numPages);
+        try (CrawlState state = new CrawlState(directory, 1000, 0.01, 16)) {
+            Crawler crawler = new Crawler(retriever);
+            crawler.setCrawlState(state);
+            crawler.setFrontierWindowSize(4);
+            crawler.setMaxThreads(2);
+            crawler.setStopCount(20);
+            crawler.startCrawl("http://example.com/page0", true, false, false);
+            assertTrue(crawler.getVisitedUrls().isEmpty());
+        }
+        int numRetrievedFirst = retriever.retrieved.size();
+        assertTrue(numRetrievedFirst < numPages);
+
+        try (CrawlState state = new CrawlState(directory, 1000, 0.01, 16)) {
+            Crawler crawler = new Crawler(retriever);
+            crawler.setCrawlState(state);
+            crawler.setFrontierWindowSize(4);
+            crawler.setMaxThreads(2);
+            crawler.startCrawl("http://example.com/page0", true, false, false);
+            assertEquals(numPages, state.getNumUrls());
+            assertFalse(state.hasQueued());
+        }
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < numPages; i++) {
+            expected.add("http://example.com/page" + i);
+        }
+        assertEquals(expected, new HashSet<>(retriever.retrieved));
+        // the resumed crawl does not start from scratch
+        assertTrue(retriever.retrieved.size() - numRetrievedFirst < numPages);
+    }
+
+    @Test
+    public void testStopCountWithDefaultWindow() throws IOException {
+        int numPages = 100;
+        int stopCount = 20;
+        int maxThreads = 2;
+        SiteRetriever retriever = new SiteRetriever(numPages);
+        try (CrawlState state = new CrawlState(tempFolder.getRoot(), 1000, 0.01, 16)) {
+            Crawler crawler = new Crawler(retriever);
+            crawler.setCrawlState(state);
+            crawler.setMaxThreads(maxThreads);
+            crawler.setStopCount(stopCount);
+            crawler.startCrawl("http://example.com/page0", true, false, false);
+            assertTrue(state.getNumCompleted() >= stopCount);
+        }
+        // pages which are already in progress when the stop count is reached are still completed
+        int numRetrieved = retriever.retrieved.size();
+        assertTrue("retrieved " + numRetrieved, numRetrieved >= stopCount && numRetrieved <= stopCount + maxThreads);
+    }
+
+    @Test
+    public void testInMemoryCrawlRetrievesEachPageOnce() {
+        int numPages = 200;
+        SiteRetriever retriever = new SiteRetriever(numPages);
+        Crawler crawler = new Crawler(retriever);
+        crawler.setMaxThreads(8);
+        crawler.startCrawl("http://example.com/page0", true, false, false);
+        // each page is linked from up to three others, but must be crawled only once
+        assertEquals(numPages, retriever.retrieved.size());
+        assertEquals(numPages, new HashSet<>(retriever.retrieved).size());
+        assertEquals(numPages, crawler.getVisitedUrls().size());
+        assertTrue(crawler.getUrlStack().isEmpty());
+    }
+
+}